@@ -0,0 +1,15 @@
+-- Équivalent SQL du changeset 003-index-cles-etrangeres.yaml (utilisé par run.sh).
+DROP INDEX IF EXISTS idx_historique_colis_date_id, idx_colis_livreur_statut, idx_colis_client_date,
+    idx_colis_destinataire, idx_colis_zone_statut, idx_colis_date_id, idx_livreur_zone, idx_colis_produit_produit;
+
+\if :creer
+CREATE INDEX idx_historique_colis_date_id ON historique_livraison (colis_id, date_changement DESC, id DESC);
+CREATE INDEX idx_colis_livreur_statut ON colis (livreur_id, statut);
+CREATE INDEX idx_colis_client_date ON colis (client_expediteur_id, date_creation DESC, id DESC);
+CREATE INDEX idx_colis_destinataire ON colis (destinataire_id);
+CREATE INDEX idx_colis_zone_statut ON colis (zone_id, statut);
+CREATE INDEX idx_colis_date_id ON colis (date_creation DESC, id DESC);
+CREATE INDEX idx_livreur_zone ON livreur (zone_id);
+CREATE INDEX idx_colis_produit_produit ON colis_produit (produit_id);
+ANALYZE;
+\endif
@@ -0,0 +1,33 @@
+-- Requêtes mesurées : formes SQL générées par les repositories Spring Data.
+-- Les paramètres pointent sur des lignes existantes du jeu de données (seed.sql).
+
+\set ON_ERROR_STOP on
+\timing on
+
+-- HistoriqueLivraisonRepository.findByColisIdOrderByDateChangementDesc
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM historique_livraison
+WHERE colis_id = md5('4242424')::uuid
+ORDER BY date_changement DESC;
+
+-- ColisRepository.findByLivreurId (+ filtre statut)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM colis WHERE livreur_id = md5('livreur-1234')::uuid AND statut = 'EN_TRANSIT';
+
+-- ColisRepository.findByClientExpediteurId, page la plus récente
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM colis WHERE client_expediteur_id = md5('client-777')::uuid
+ORDER BY date_creation DESC, id DESC LIMIT 21;
+
+-- ColisRepository.findByDestinataireId
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM colis WHERE destinataire_id = md5('dest-31337')::uuid;
+
+-- GET /api/colis?zoneId=...&statut=...
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM colis WHERE zone_id = md5('zone-7')::uuid AND statut = 'LIVRE'
+ORDER BY date_creation DESC, id DESC LIMIT 21;
+
+-- GET /api/colis (sans filtre), première page
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM colis ORDER BY date_creation DESC, id DESC LIMIT 21;
@@ -0,0 +1,23 @@
+#!/usr/bin/env bash
+# Benchmark avant / après des index de clés étrangères (changeset 003-index-cles-etrangeres.yaml).
+# Prérequis : une base PostgreSQL dont le schéma a été créé par Liquibase (démarrage de l'application).
+# Usage : PGDATABASE=smartlogi1_db PGUSER=postgres ./run.sh [nb_colis]
+set -euo pipefail
+cd "$(dirname "$0")"
+
+NB_COLIS="${1:-5000000}"
+
+echo "== Chargement de ${NB_COLIS} colis (sans index secondaires)"
+psql -q -v creer=false -f index.sql
+psql -q -v nb_colis="${NB_COLIS}" -f seed.sql
+
+echo "== AVANT (sans index)"
+psql -f requetes.sql > avant.txt
+grep -E "Execution Time|Seq Scan|Index" avant.txt
+
+echo "== Création des index"
+psql -q -v creer=true -f index.sql
+
+echo "== APRÈS (avec index)"
+psql -f requetes.sql > apres.txt
+grep -E "Execution Time|Seq Scan|Index" apres.txt
@@ -0,0 +1,53 @@
+-- Jeu de données du benchmark des index de clés étrangères.
+-- À exécuter sur une base où le schéma 001-base-schema.yaml est appliqué (démarrage de l'application
+-- avec Liquibase), après suppression des index : voir run.sh.
+-- Volume : :nb_colis colis (5 000 000 par défaut), 2 lignes d'historique par colis.
+
+\set ON_ERROR_STOP on
+\if :{?nb_colis}
+\else
+  \set nb_colis 5000000
+\endif
+
+TRUNCATE colis_produit, historique_livraison, colis, livreur, destinataire, client_expediteur, zone CASCADE;
+
+INSERT INTO zone (id, nom, code_postal)
+SELECT md5('zone-' || g)::uuid, 'Zone ' || g, lpad(g::text, 5, '0')
+FROM generate_series(1, 50) g;
+
+INSERT INTO client_expediteur (id, nom, prenom, email)
+SELECT md5('client-' || g)::uuid, 'Client ' || g, 'P', 'client' || g || '@bench.ma'
+FROM generate_series(1, 20000) g;
+
+INSERT INTO destinataire (id, nom, prenom)
+SELECT md5('dest-' || g)::uuid, 'Destinataire ' || g, 'P'
+FROM generate_series(1, 200000) g;
+
+INSERT INTO livreur (id, nom, prenom, zone_id)
+SELECT md5('livreur-' || g)::uuid, 'Livreur ' || g, 'P', md5('zone-' || (1 + g % 50))::uuid
+FROM generate_series(1, 2000) g;
+
+INSERT INTO colis (id, description, poids_total, statut, priorite, ville_destination,
+                   client_expediteur_id, destinataire_id, livreur_id, zone_id, date_creation)
+SELECT md5(g::text)::uuid,
+       'Colis ' || g,
+       1 + (g % 30),
+       (ARRAY['CREE', 'COLLECTE', 'EN_STOCK', 'EN_TRANSIT', 'LIVRE'])[1 + g % 5],
+       (ARRAY['NORMALE', 'HAUTE', 'URGENTE'])[1 + g % 3],
+       'Ville ' || (g % 100),
+       md5('client-' || (1 + g % 20000))::uuid,
+       md5('dest-' || (1 + g % 200000))::uuid,
+       CASE WHEN g % 4 = 0 THEN NULL ELSE md5('livreur-' || (1 + g % 2000))::uuid END,
+       md5('zone-' || (1 + g % 50))::uuid,
+       timestamp '2025-01-01' + (g || ' seconds')::interval
+FROM generate_series(1, :nb_colis) g;
+
+INSERT INTO historique_livraison (id, colis_id, statut_actuel, date_changement, commentaire)
+SELECT md5('h' || g || '-' || e)::uuid,
+       md5(g::text)::uuid,
+       CASE e WHEN 1 THEN 'CREE' ELSE 'COLLECTE' END,
+       timestamp '2025-01-01' + (g || ' seconds')::interval + (e || ' hours')::interval,
+       'bench'
+FROM generate_series(1, :nb_colis) g, generate_series(1, 2) e;
+
+VACUUM ANALYZE;
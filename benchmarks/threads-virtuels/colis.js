@@ -0,0 +1,49 @@
+// Test de charge k6 des endpoints /api/colis (threads de plateforme vs threads virtuels).
+// Usage : k6 run -e BASE_URL=http://localhost:8080 -e ZONE_ID=... -e LIVREUR_ID=... -e COLIS_IDS=id1,id2,... colis.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const COLIS_IDS = (__ENV.COLIS_IDS || '').split(',').filter((id) => id);
+const ZONE_ID = __ENV.ZONE_ID;
+const LIVREUR_ID = __ENV.LIVREUR_ID;
+
+export const options = {
+  scenarios: {
+    // Montée progressive jusqu'à 2000 utilisateurs virtuels : au-delà des 200 threads Tomcat par défaut
+    lecture: {
+      executor: 'ramping-vus',
+      stages: [
+        { duration: '30s', target: 200 },
+        { duration: '1m', target: 2000 },
+        { duration: '1m', target: 2000 },
+        { duration: '15s', target: 0 },
+      ],
+    },
+  },
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+function colisAuHasard() {
+  return COLIS_IDS[Math.floor(Math.random() * COLIS_IDS.length)];
+}
+
+export default function () {
+  const tirage = Math.random();
+  let res;
+  if (tirage < 0.6 && COLIS_IDS.length > 0) {
+    // Suivi d'un colis (endpoint le plus sollicité)
+    res = http.get(`${BASE_URL}/api/colis/${colisAuHasard()}`, { tags: { endpoint: 'GET /api/colis/{id}' } });
+  } else if (tirage < 0.9) {
+    // Liste filtrée par zone, première page
+    res = http.get(`${BASE_URL}/api/colis?zoneId=${ZONE_ID}&taille=20`, { tags: { endpoint: 'GET /api/colis' } });
+  } else {
+    // Écriture : changement de statut
+    res = http.put(`${BASE_URL}/api/colis/statut/${colisAuHasard()}?statut=EN_STOCK&commentaire=k6`, null,
+      { tags: { endpoint: 'PUT /api/colis/statut' } });
+  }
+  check(res, { 'statut 2xx': (r) => r.status >= 200 && r.status < 300 });
+}
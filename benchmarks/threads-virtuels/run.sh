@@ -0,0 +1,30 @@
+#!/usr/bin/env bash
+# Compare les deux modes d'exécution sous la même charge k6 (colis.js).
+# Prérequis : JDK 21, k6, une base PostgreSQL peuplée (voir benchmarks/index-cles-etrangeres/seed.sql).
+# Usage : ZONE_ID=zone-7 LIVREUR_ID=livreur-1 COLIS_IDS=$(psql -Atc "select string_agg(id, ',') from (select id from colis limit 1000) c") ./run.sh
+set -euo pipefail
+cd "$(dirname "$0")/../.."
+
+./mvnw -q -Pjava21 -DskipTests package
+JAR=$(ls target/*.jar | grep -v original | head -1)
+
+lancer() {
+  local mode="$1" profils="$2"
+  java -Djdk.tracePinnedThreads=short -jar "$JAR" --spring.profiles.active="$profils" --spring.jpa.show-sql=false \
+    > "benchmarks/threads-virtuels/app-${mode}.log" 2>&1 &
+  local pid=$!
+  until curl -sf http://localhost:8080/actuator/health > /dev/null; do sleep 1; done
+  k6 run --summary-export "benchmarks/threads-virtuels/resultat-${mode}.json" \
+    -e ZONE_ID="$ZONE_ID" -e LIVREUR_ID="$LIVREUR_ID" -e COLIS_IDS="$COLIS_IDS" \
+    benchmarks/threads-virtuels/colis.js | tee "benchmarks/threads-virtuels/resultat-${mode}.txt"
+  kill "$pid"; wait "$pid" || true
+}
+
+echo "== Threads de plateforme (pool Tomcat, 200 threads)"
+lancer plateforme default
+
+echo "== Threads virtuels"
+lancer virtuels virtual-threads
+
+echo "== Épinglages détectés (mode virtuel)"
+grep -E "Thread virtuel épinglé|VirtualThread.*pinned|<== monitors" benchmarks/threads-virtuels/app-virtuels.log || echo "aucun"
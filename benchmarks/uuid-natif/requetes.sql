@@ -0,0 +1,28 @@
+-- Requêtes mesurées dans le schéma courant (search_path positionné par run.sh).
+-- Les paramètres sont des littéraux non typés : la même requête s'exécute sur les deux schémas
+-- (l'application lie ses IDs en uuid sur le schéma natif).
+
+\set ON_ERROR_STOP on
+
+-- Lecture par PK (GET /api/colis/{id})
+EXPLAIN (ANALYZE, BUFFERS)
+-- md5('colis-424242')
+SELECT * FROM colis WHERE id = '648532c5-6cbf-1960-e90a-d92451aabc6e';
+
+-- Jointure FK : historique de tous les colis d'un client
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT c.id, h.statut, h.date_changement
+FROM colis c JOIN historique_livraison h ON h.colis_id = c.id
+-- md5('client-777')
+WHERE c.client_expediteur_id = '1eb270bf-8176-e065-fbb2-a2db17206052';
+
+-- Jointure massive (hash / merge join sur l'ID) : dernier statut connu par client
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT c.client_expediteur_id, count(*)
+FROM colis c JOIN historique_livraison h ON h.colis_id = c.id
+WHERE h.statut = 'LIVRE'
+GROUP BY c.client_expediteur_id;
+
+-- Tri sur l'ID (départage de la pagination keyset)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM colis ORDER BY id DESC LIMIT 1000;
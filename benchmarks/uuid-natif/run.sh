@@ -0,0 +1,27 @@
+#!/usr/bin/env bash
+# Benchmark des identifiants VARCHAR(36) contre uuid natif (changeset 006-uuid-natif.yaml).
+# Autonome : crée les schémas bench_texte et bench_uuid dans la base cible, sans toucher au schéma applicatif.
+# Usage : PGDATABASE=smartlogi1_db PGUSER=postgres ./run.sh [nb_colis]
+set -euo pipefail
+cd "$(dirname "$0")"
+
+NB_COLIS="${1:-2000000}"
+
+echo "== Création des schémas et chargement de ${NB_COLIS} colis"
+psql -q -f schema.sql
+psql -q -v nb_colis="${NB_COLIS}" -f seed.sql
+
+echo "== Tailles (tables et index)"
+psql -f tailles.sql | tee tailles.txt
+
+echo "== AVANT (VARCHAR(36))"
+PGOPTIONS="-c search_path=bench_texte" psql -f requetes.sql > avant.txt
+grep -E "Execution Time" avant.txt
+
+echo "== APRÈS (uuid)"
+PGOPTIONS="-c search_path=bench_uuid" psql -f requetes.sql > apres.txt
+grep -E "Execution Time" apres.txt
+
+if [[ "${GARDER:-false}" != "true" ]]; then
+  psql -q -c "DROP SCHEMA bench_texte CASCADE; DROP SCHEMA bench_uuid CASCADE;"
+fi
@@ -0,0 +1,39 @@
+-- Deux copies réduites du schéma (colis, historique_livraison et leurs PK / FK indexées),
+-- identiques à l'exception du type des identifiants :
+--   bench_texte : VARCHAR(36) (avant le changeset 006-uuid-natif.yaml)
+--   bench_uuid  : uuid        (après)
+
+\set ON_ERROR_STOP on
+
+DROP SCHEMA IF EXISTS bench_texte CASCADE;
+DROP SCHEMA IF EXISTS bench_uuid CASCADE;
+CREATE SCHEMA bench_texte;
+CREATE SCHEMA bench_uuid;
+
+CREATE TABLE bench_texte.client_expediteur (id VARCHAR(36) PRIMARY KEY, nom VARCHAR(255) NOT NULL);
+CREATE TABLE bench_texte.colis (
+    id VARCHAR(36) PRIMARY KEY,
+    client_expediteur_id VARCHAR(36) NOT NULL REFERENCES bench_texte.client_expediteur (id),
+    statut VARCHAR(50) NOT NULL,
+    date_creation TIMESTAMP NOT NULL
+);
+CREATE TABLE bench_texte.historique_livraison (
+    id VARCHAR(36) PRIMARY KEY,
+    colis_id VARCHAR(36) NOT NULL REFERENCES bench_texte.colis (id),
+    statut VARCHAR(50) NOT NULL,
+    date_changement TIMESTAMP NOT NULL
+);
+
+CREATE TABLE bench_uuid.client_expediteur (id uuid PRIMARY KEY, nom VARCHAR(255) NOT NULL);
+CREATE TABLE bench_uuid.colis (
+    id uuid PRIMARY KEY,
+    client_expediteur_id uuid NOT NULL REFERENCES bench_uuid.client_expediteur (id),
+    statut VARCHAR(50) NOT NULL,
+    date_creation TIMESTAMP NOT NULL
+);
+CREATE TABLE bench_uuid.historique_livraison (
+    id uuid PRIMARY KEY,
+    colis_id uuid NOT NULL REFERENCES bench_uuid.colis (id),
+    statut VARCHAR(50) NOT NULL,
+    date_changement TIMESTAMP NOT NULL
+);
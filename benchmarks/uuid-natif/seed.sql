@@ -0,0 +1,37 @@
+-- Même jeu de données dans les deux schémas (UUID déterministes dérivés de md5).
+-- Volume : :nb_colis colis (2 000 000 par défaut), 3 lignes d'historique par colis.
+
+\set ON_ERROR_STOP on
+\if :{?nb_colis}
+\else
+  \set nb_colis 2000000
+\endif
+
+INSERT INTO bench_uuid.client_expediteur (id, nom)
+SELECT md5('client-' || g)::uuid, 'Client ' || g
+FROM generate_series(1, 20000) g;
+
+INSERT INTO bench_uuid.colis (id, client_expediteur_id, statut, date_creation)
+SELECT md5('colis-' || g)::uuid,
+       md5('client-' || (1 + g % 20000))::uuid,
+       (ARRAY['CREE', 'COLLECTE', 'EN_STOCK', 'EN_TRANSIT', 'LIVRE'])[1 + g % 5],
+       timestamp '2025-01-01' + (g || ' seconds')::interval
+FROM generate_series(1, :nb_colis) g;
+
+INSERT INTO bench_uuid.historique_livraison (id, colis_id, statut, date_changement)
+SELECT md5('h' || g || '-' || e)::uuid,
+       md5('colis-' || g)::uuid,
+       (ARRAY['CREE', 'COLLECTE', 'LIVRE'])[e],
+       timestamp '2025-01-01' + (g || ' seconds')::interval + (e || ' hours')::interval
+FROM generate_series(1, :nb_colis) g, generate_series(1, 3) e;
+
+INSERT INTO bench_texte.client_expediteur SELECT id::text, nom FROM bench_uuid.client_expediteur;
+INSERT INTO bench_texte.colis SELECT id::text, client_expediteur_id::text, statut, date_creation FROM bench_uuid.colis;
+INSERT INTO bench_texte.historique_livraison SELECT id::text, colis_id::text, statut, date_changement FROM bench_uuid.historique_livraison;
+
+CREATE INDEX ON bench_texte.colis (client_expediteur_id);
+CREATE INDEX ON bench_texte.historique_livraison (colis_id);
+CREATE INDEX ON bench_uuid.colis (client_expediteur_id);
+CREATE INDEX ON bench_uuid.historique_livraison (colis_id);
+
+VACUUM ANALYZE;
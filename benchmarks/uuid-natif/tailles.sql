@@ -0,0 +1,7 @@
+-- Taille des tables et des index PK / FK dans les deux schémas.
+SELECT n.nspname AS schema, c.relname AS relation,
+       CASE c.relkind WHEN 'i' THEN 'index' ELSE 'table' END AS type,
+       pg_size_pretty(pg_relation_size(c.oid)) AS taille
+FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace
+WHERE n.nspname IN ('bench_texte', 'bench_uuid') AND c.relkind IN ('r', 'i')
+ORDER BY c.relname, n.nspname;
@@ -0,0 +1,5 @@
+-- Insertions par lots de 1 000 lignes (comme HistoriqueJournal), une transaction par lot.
+-- Variables : :table = historique_v4 | historique_v7, :generateur = gen_random_uuid | uuid_v7, :nb_lignes
+SET search_path = bench_uuid_v7;
+\timing on
+CALL inserer_par_lots(:'table', :'generateur', :nb_lignes);
@@ -0,0 +1,24 @@
+#!/usr/bin/env bash
+# Benchmark des ID UUID v4 (aléatoires) contre UUID v7 (ordonnés dans le temps) : débit d'INSERT et taille de l'index PK.
+# Autonome : crée le schéma bench_uuid_v7 dans la base cible, sans toucher au schéma applicatif.
+# Usage : PGDATABASE=smartlogi1_db PGUSER=postgres ./run.sh [nb_lignes]
+set -euo pipefail
+cd "$(dirname "$0")"
+
+NB_LIGNES="${1:-5000000}"
+
+echo "== Création du schéma"
+psql -q -f schema.sql
+
+echo "== INSERT ${NB_LIGNES} lignes, UUID v4"
+psql -v table=historique_v4 -v generateur=gen_random_uuid -v nb_lignes="${NB_LIGNES}" -f inserts.sql | tee v4.txt
+
+echo "== INSERT ${NB_LIGNES} lignes, UUID v7"
+psql -v table=historique_v7 -v generateur=uuid_v7 -v nb_lignes="${NB_LIGNES}" -f inserts.sql | tee v7.txt
+
+echo "== Index PK"
+psql -f tailles.sql | tee tailles.txt
+
+if [[ "${GARDER:-false}" != "true" ]]; then
+  psql -q -c "DROP SCHEMA bench_uuid_v7 CASCADE;"
+fi
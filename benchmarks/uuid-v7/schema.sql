@@ -0,0 +1,40 @@
+-- Deux tables identiques à historique_livraison (hors partitionnement), seule la génération de l'ID diffère.
+DROP SCHEMA IF EXISTS bench_uuid_v7 CASCADE;
+CREATE SCHEMA bench_uuid_v7;
+SET search_path = bench_uuid_v7;
+
+-- UUID v7 (RFC 9562) : horodatage Unix en millisecondes sur 48 bits, puis aléa.
+-- Équivalent SQL de com.smartlogi.sdms.model.UuidV7 (sans le compteur intra-milliseconde).
+CREATE FUNCTION uuid_v7() RETURNS uuid AS $$
+  SELECT encode(
+    set_bit(
+      set_bit(
+        overlay(uuid_send(gen_random_uuid())
+                placing substring(int8send(floor(extract(epoch FROM clock_timestamp()) * 1000)::bigint) FROM 3)
+                FROM 1 FOR 6),
+        52, 1),
+      53, 1),
+    'hex')::uuid;
+$$ LANGUAGE sql VOLATILE;
+
+CREATE TABLE historique_v4 (
+    id              uuid PRIMARY KEY,
+    colis_id        uuid NOT NULL,
+    statut          VARCHAR(50) NOT NULL,
+    date_changement TIMESTAMP NOT NULL,
+    commentaire     VARCHAR(255)
+);
+CREATE TABLE historique_v7 (LIKE historique_v4 INCLUDING ALL);
+
+-- Résolution des noms via le search_path de la session (inserts.sql).
+CREATE PROCEDURE inserer_par_lots(nom_table text, generateur text, nb_lignes int) AS $$
+BEGIN
+  FOR lot IN 1 .. nb_lignes / 1000 LOOP
+    EXECUTE format(
+      'INSERT INTO %I (id, colis_id, statut, date_changement, commentaire) '
+      'SELECT %s, md5((g %% 100000)::text)::uuid, ''EN_TRANSIT'', clock_timestamp(), ''bench'' '
+      'FROM generate_series(1, 1000) g', nom_table, generateur || '()');
+    COMMIT;
+  END LOOP;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,13 @@
+-- Taille et densité de l'index PK après les insertions.
+-- pgstattuple (extension contrib) donne le taux de remplissage des feuilles : ~90 % attendu en v7, ~70 % en v4.
+SET search_path = bench_uuid_v7;
+CREATE EXTENSION IF NOT EXISTS pgstattuple;
+SELECT c.relname AS relation,
+       pg_size_pretty(pg_relation_size(c.oid)) AS taille,
+       s.leaf_pages,
+       s.avg_leaf_density,
+       s.leaf_fragmentation
+FROM pg_class c
+CROSS JOIN LATERAL pgstatindex(c.oid) s
+WHERE c.relname IN ('historique_v4_pkey', 'historique_v7_pkey')
+ORDER BY c.relname;
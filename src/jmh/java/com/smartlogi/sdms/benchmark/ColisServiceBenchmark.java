@@ -0,0 +1,77 @@
+package com.smartlogi.sdms.benchmark;
+
+import com.smartlogi.sdms.DTO.ColisCreationDto;
+import com.smartlogi.sdms.DTO.ColisDto;
+import com.smartlogi.sdms.SmartLogiSdmsApplication;
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.model.ClientExpéditeur;
+import com.smartlogi.sdms.model.Destinataire;
+import com.smartlogi.sdms.model.Zone;
+import com.smartlogi.sdms.repository.ClientExpéditeurRepository;
+import com.smartlogi.sdms.repository.DestinataireRepository;
+import com.smartlogi.sdms.repository.ZoneRepository;
+import com.smartlogi.sdms.service.ColisService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chemins d'écriture de ColisService (transaction, validation des FKs, INSERT/UPDATE, historique)
+ * sur le contexte Spring complet et la base H2 en mémoire du profil "test".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ColisServiceBenchmark {
+
+    private ConfigurableApplicationContext contexte;
+    private ColisService colisService;
+    private ColisCreationDto creationDto;
+    private String colisId;
+    private boolean bascule;
+
+    @Setup(Level.Trial)
+    public void demarrer() {
+        contexte = new SpringApplicationBuilder(SmartLogiSdmsApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN")
+                .run();
+        colisService = contexte.getBean(ColisService.class);
+
+        Zone zone = contexte.getBean(ZoneRepository.class).save(new Zone(null, "Casablanca Anfa", "20000", null));
+        ClientExpéditeur client = contexte.getBean(ClientExpéditeurRepository.class).save(
+                new ClientExpéditeur(null, "Ali", "M.", "ali@test.com", "0600000001", "Adr Ali", null));
+        Destinataire destinataire = contexte.getBean(DestinataireRepository.class).save(
+                new Destinataire(null, "Fatima", "Z.", "fatima@test.com", "0600000002", "Adr Fatima", null));
+
+        creationDto = new ColisCreationDto("Documents", 2.5, "Casablanca", "HAUTE",
+                client.getId(), destinataire.getId(), zone.getId());
+        colisId = colisService.createColis(creationDto).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void arreter() {
+        contexte.close();
+    }
+
+    @Benchmark
+    public ColisDto createColis() {
+        return colisService.createColis(creationDto);
+    }
+
+    @Benchmark
+    public ColisDto updateStatut() {
+        // Alterne entre deux statuts mutuellement atteignables : chaque appel est un vrai changement (UPDATE + historique)
+        bascule = !bascule;
+        return colisService.updateStatut(colisId, bascule ? StatutColis.EN_STOCK : StatutColis.EN_TRANSIT, "jmh");
+    }
+
+    @Benchmark
+    public ColisDto getColisById() {
+        return colisService.getColisById(colisId);
+    }
+}
@@ -0,0 +1,76 @@
+package com.smartlogi.sdms.benchmark;
+
+import com.smartlogi.sdms.DTO.ColisCreationDto;
+import com.smartlogi.sdms.exception.ErrorResponse;
+import com.smartlogi.sdms.exception.GlobalExceptionHandler;
+import com.smartlogi.sdms.exception.RequeteInvalideException;
+import jakarta.persistence.EntityNotFoundException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de construction des réponses d'erreur (404 / 400), fréquentes sous charge (IDs inconnus, payloads invalides).
+ * Les exceptions sont créées une fois : seule la construction de la réponse est mesurée.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GlobalExceptionHandlerBenchmark {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    private WebRequest requete;
+    private EntityNotFoundException nonTrouve;
+    private RequeteInvalideException requeteInvalide;
+    private MethodArgumentNotValidException validation;
+
+    @Setup
+    public void setUp() throws Exception {
+        requete = new ServletWebRequest(new MockHttpServletRequest("POST", "/api/colis"));
+        nonTrouve = new EntityNotFoundException("Colis non trouvé avec l'ID: 0b8e3c1e-6f7a-4d6c-9a1b-2f3e4d5c6b7a");
+        requeteInvalide = new RequeteInvalideException("Curseur de pagination invalide: xyz");
+
+        BeanPropertyBindingResult erreurs = new BeanPropertyBindingResult(new ColisCreationDto(), "colisCreationDto");
+        erreurs.addError(new FieldError("colisCreationDto", "description", "La description est obligatoire"));
+        erreurs.addError(new FieldError("colisCreationDto", "poids", "Le poids est obligatoire"));
+        erreurs.addError(new FieldError("colisCreationDto", "zoneId", "L'ID de la zone est obligatoire"));
+        MethodParameter parametre = new MethodParameter(
+                GlobalExceptionHandlerBenchmark.class.getDeclaredMethod("cible", ColisCreationDto.class), 0);
+        validation = new MethodArgumentNotValidException(parametre, erreurs);
+    }
+
+    // Signature servant uniquement de MethodParameter pour l'exception de validation
+    @SuppressWarnings("unused")
+    private void cible(ColisCreationDto dto) {
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> entityNotFound() {
+        return handler.handleEntityNotFound(nonTrouve, requete);
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> validationErrors() {
+        return handler.handleValidationExceptions(validation, requete);
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> requeteInvalide() {
+        return handler.handleRequeteInvalide(requeteInvalide, requete);
+    }
+
+    // Référence : coût de la création d'une exception avec sa pile, payé avant le handler
+    @Benchmark
+    public EntityNotFoundException creationException() {
+        return new EntityNotFoundException("Colis non trouvé avec l'ID: 0b8e3c1e-6f7a-4d6c-9a1b-2f3e4d5c6b7a");
+    }
+}
@@ -0,0 +1,148 @@
+package com.smartlogi.sdms.benchmark;
+
+import com.smartlogi.sdms.DTO.ClientExpéditeurDto;
+import com.smartlogi.sdms.DTO.ColisCreationDto;
+import com.smartlogi.sdms.DTO.ColisDto;
+import com.smartlogi.sdms.DTO.DestinataireDto;
+import com.smartlogi.sdms.DTO.LivreurDto;
+import com.smartlogi.sdms.DTO.ProduitDto;
+import com.smartlogi.sdms.DTO.ZoneDto;
+import com.smartlogi.sdms.enums.PrioriteColis;
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.mapper.ClientExpéditeurMapper;
+import com.smartlogi.sdms.mapper.ColisMapper;
+import com.smartlogi.sdms.mapper.DestinataireMapper;
+import com.smartlogi.sdms.mapper.LivreurMapper;
+import com.smartlogi.sdms.mapper.ProduitMapper;
+import com.smartlogi.sdms.mapper.ZoneMapper;
+import com.smartlogi.sdms.model.*;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût des conversions MapStruct entité <-> DTO (appelées à chaque requête REST).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MapperBenchmark {
+
+    private final ColisMapper colisMapper = Mappers.getMapper(ColisMapper.class);
+    private final ZoneMapper zoneMapper = Mappers.getMapper(ZoneMapper.class);
+    private final ClientExpéditeurMapper clientMapper = Mappers.getMapper(ClientExpéditeurMapper.class);
+    private final DestinataireMapper destinataireMapper = Mappers.getMapper(DestinataireMapper.class);
+    private final LivreurMapper livreurMapper = Mappers.getMapper(LivreurMapper.class);
+    private final ProduitMapper produitMapper = Mappers.getMapper(ProduitMapper.class);
+
+    private Colis colis;
+    private List<Colis> pageColis;
+    private ColisCreationDto colisCreationDto;
+    private Zone zone;
+    private ZoneDto zoneDto;
+    private ClientExpéditeur client;
+    private ClientExpéditeurDto clientDto;
+    private Destinataire destinataire;
+    private DestinataireDto destinataireDto;
+    private Livreur livreur;
+    private LivreurDto livreurDto;
+    private Produit produit;
+    private ProduitDto produitDto;
+
+    @Setup
+    public void setUp() {
+        zone = new Zone("zone-1", "Casablanca Anfa", "20000", null);
+        client = new ClientExpéditeur("client-1", "Ali", "M.", "ali@test.com", "0600000001", "Adr Ali", null);
+        destinataire = new Destinataire("dest-1", "Fatima", "Z.", "fatima@test.com", "0600000002", "Adr Fatima", null);
+        livreur = new Livreur("livreur-1", "Rachid", "I.", "0700000000", "Moto", "Zone Sud", null);
+        produit = new Produit();
+        produit.setId("produit-1");
+        produit.setNom("Livre");
+        produit.setCategorie("Culture");
+        produit.setPoids(0.5);
+        produit.setPrix(120.0);
+
+        colis = new Colis("colis-1", "Documents", 2.5, StatutColis.EN_TRANSIT, PrioriteColis.HAUTE,
+                "Casablanca", LocalDateTime.now(), livreur, client, destinataire, zone, null, null, 0L);
+        pageColis = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            pageColis.add(colis);
+        }
+        colisCreationDto = new ColisCreationDto("Documents", 2.5, "Casablanca", "HAUTE", "client-1", "dest-1", "zone-1");
+
+        zoneDto = zoneMapper.toDto(zone);
+        clientDto = clientMapper.toDto(client);
+        destinataireDto = destinataireMapper.toDto(destinataire);
+        livreurDto = livreurMapper.toDto(livreur);
+        produitDto = produitMapper.toDto(produit);
+    }
+
+    @Benchmark
+    public ColisDto colisToDto() {
+        return colisMapper.toDto(colis);
+    }
+
+    @Benchmark
+    public List<ColisDto> colisToDtoPage20() {
+        return colisMapper.toDto(pageColis);
+    }
+
+    @Benchmark
+    public Colis colisToEntity() {
+        return colisMapper.toEntity(colisCreationDto);
+    }
+
+    @Benchmark
+    public ZoneDto zoneToDto() {
+        return zoneMapper.toDto(zone);
+    }
+
+    @Benchmark
+    public Zone zoneToEntity() {
+        return zoneMapper.toEntity(zoneDto);
+    }
+
+    @Benchmark
+    public ClientExpéditeurDto clientToDto() {
+        return clientMapper.toDto(client);
+    }
+
+    @Benchmark
+    public ClientExpéditeur clientToEntity() {
+        return clientMapper.toEntity(clientDto);
+    }
+
+    @Benchmark
+    public DestinataireDto destinataireToDto() {
+        return destinataireMapper.toDto(destinataire);
+    }
+
+    @Benchmark
+    public Destinataire destinataireToEntity() {
+        return destinataireMapper.toEntity(destinataireDto);
+    }
+
+    @Benchmark
+    public LivreurDto livreurToDto() {
+        return livreurMapper.toDto(livreur);
+    }
+
+    @Benchmark
+    public Livreur livreurToEntity() {
+        return livreurMapper.toEntity(livreurDto);
+    }
+
+    @Benchmark
+    public ProduitDto produitToDto() {
+        return produitMapper.toDto(produit);
+    }
+
+    @Benchmark
+    public Produit produitToEntity() {
+        return produitMapper.toEntity(produitDto);
+    }
+}
@@ -0,0 +1,40 @@
+package com.smartlogi.sdms.benchmark;
+
+import com.smartlogi.sdms.model.UuidV7;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de génération des IDs : UUID v4 (SecureRandom partagé) contre UUID v7 (compare-and-set + ThreadLocalRandom),
+ * sur 1 thread et sous contention (4 threads).
+ * L'effet sur l'index B-tree (taille, débit d'INSERT) est mesuré côté PostgreSQL : benchmarks/uuid-v7.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UuidBenchmark {
+
+    @Benchmark
+    public String uuidV4() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public String uuidV7() {
+        return UuidV7.suivantTexte();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String uuidV4Concurrent() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String uuidV7Concurrent() {
+        return UuidV7.suivantTexte();
+    }
+}
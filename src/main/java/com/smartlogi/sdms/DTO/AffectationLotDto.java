@@ -0,0 +1,23 @@
+package com.smartlogi.sdms.DTO;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Affectation d'un lot de colis à un livreur (dispatch du matin).")
+public class AffectationLotDto {
+
+    @NotBlank(message = "L'ID du livreur est obligatoire.")
+    private String livreurId;
+
+    @NotEmpty(message = "La liste des colis ne peut pas être vide.")
+    private List<String> colisIds;
+}
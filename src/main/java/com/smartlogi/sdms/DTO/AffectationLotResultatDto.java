@@ -0,0 +1,26 @@
+package com.smartlogi.sdms.DTO;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Résultat d'une affectation en lot.")
+public class AffectationLotResultatDto {
+
+    private String livreurId;
+
+    @Schema(description = "Colis affectés au livreur (statut EN_TRANSIT)")
+    private List<String> affectes;
+
+    @Schema(description = "IDs inconnus")
+    private List<String> introuvables;
+
+    @Schema(description = "Colis ignorés car déjà dans un statut final (LIVRE, ANNULE)")
+    private List<String> statutTerminal;
+}
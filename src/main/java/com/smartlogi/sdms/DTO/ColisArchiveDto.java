@@ -0,0 +1,36 @@
+package com.smartlogi.sdms.DTO;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Contenu d'une archive de colis (colonne colis_archive.contenu, JSON compressé).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Instantané d'un colis archivé : état final, historique complet et produits.")
+public class ColisArchiveDto {
+
+    private ColisDto colis;
+
+    @Schema(description = "Historique complet, du plus ancien au plus récent")
+    private List<HistoriqueLivraisonDto> historique;
+
+    private List<Produit> produits;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Produit {
+        private String produitId;
+        private Integer quantite;
+        private Double prixUnitaire;
+        private LocalDateTime dateAjout;
+    }
+}
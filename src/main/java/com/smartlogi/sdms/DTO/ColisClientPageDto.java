@@ -0,0 +1,32 @@
+package com.smartlogi.sdms.DTO;
+
+import com.smartlogi.sdms.enums.StatutColis;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Page de colis d'un client expéditeur (pagination keyset) accompagnée du nombre de colis par statut.
+ * Les compteurs ne sont calculés qu'avec la première page : les pages suivantes les laissent à null.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Colis d'un client expéditeur, paginés par curseur, avec le nombre de colis par statut.")
+public class ColisClientPageDto {
+
+    private List<ColisDto> elements;
+
+    @Schema(description = "Curseur opaque de la page suivante (null s'il n'y a plus de résultats)")
+    private String curseurSuivant;
+
+    @Schema(description = "Nombre total de colis du client, tous statuts confondus (première page uniquement)")
+    private Long total;
+
+    @Schema(description = "Nombre de colis du client par statut, indépendamment du filtre (première page uniquement)")
+    private Map<StatutColis, Long> parStatut;
+}
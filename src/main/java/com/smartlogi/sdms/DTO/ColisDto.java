@@ -1,5 +1,7 @@
 package com.smartlogi.sdms.DTO;
 
+import com.smartlogi.sdms.enums.PrioriteColis;
+import com.smartlogi.sdms.enums.StatutColis;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -32,4 +34,17 @@ public class ColisDto {
 
     @Schema(description = "Nom de la Zone de destination")
     private String zoneNom;
+
+    /**
+     * Constructeur utilisé par les projections JPQL/Criteria ("select new ColisDto(...)") :
+     * les énumérations sont lues telles quelles depuis l'entité puis converties en String.
+     */
+    public ColisDto(String id, String description, Double poids, StatutColis statut, PrioriteColis priorite,
+                    String villeDestination, LocalDateTime dateCreation, String livreurId,
+                    String clientExpediteurNomComplet, String zoneNom) {
+        this(id, description, poids,
+                statut != null ? statut.name() : null,
+                priorite != null ? priorite.name() : null,
+                villeDestination, dateCreation, livreurId, clientExpediteurNomComplet, zoneNom);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.smartlogi.sdms.DTO;
+
+import com.smartlogi.sdms.enums.PrioriteColis;
+import com.smartlogi.sdms.enums.StatutColis;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Critères de filtrage (tous optionnels) pour la liste paginée des colis.
+ * Les champs sont liés directement depuis les paramètres de la requête.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Filtres optionnels pour la recherche de colis.")
+public class ColisFiltre {
+
+    @Schema(example = "EN_TRANSIT")
+    private StatutColis statut;
+
+    @Schema(example = "HAUTE")
+    private PrioriteColis priorite;
+
+    @Schema(description = "ID de la Zone de destination")
+    private String zoneId;
+
+    @Schema(description = "ID du Livreur assigné")
+    private String livreurId;
+
+    @Schema(example = "Casablanca")
+    private String villeDestination;
+}
@@ -0,0 +1,43 @@
+package com.smartlogi.sdms.DTO;
+
+import com.smartlogi.sdms.event.ColisEvenement;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Objects;
+
+/**
+ * Critères (tous optionnels, combinés en ET) d'un abonnement au flux des changements de colis.
+ * Les champs sont liés directement depuis les paramètres de la requête.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Filtres optionnels du flux SSE des changements de colis.")
+public class ColisFluxFiltre {
+
+    @Schema(description = "ID du Colis suivi")
+    private String colisId;
+
+    @Schema(description = "ID du Client expéditeur")
+    private String clientExpediteurId;
+
+    @Schema(description = "ID de la Zone")
+    private String zoneId;
+
+    @Schema(description = "ID du Livreur")
+    private String livreurId;
+
+    public boolean accepte(ColisEvenement evenement) {
+        return correspond(colisId, evenement.colisId())
+                && correspond(clientExpediteurId, evenement.clientExpediteurId())
+                && correspond(zoneId, evenement.zoneId())
+                && correspond(livreurId, evenement.livreurId());
+    }
+
+    private static boolean correspond(String critere, String valeur) {
+        return critere == null || critere.isBlank() || Objects.equals(critere, valeur);
+    }
+}
@@ -0,0 +1,39 @@
+package com.smartlogi.sdms.DTO;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Rapport d'un import de colis : compteurs et erreurs par ligne.")
+public class ColisImportResultatDto {
+
+    @Schema(description = "Lignes de données lues (en-tête CSV et lignes vides exclus)")
+    private long lignesLues;
+
+    @Schema(description = "Colis créés (statut CREE)")
+    private long colisImportes;
+
+    @Schema(description = "Lignes rejetées")
+    private long lignesRejetees;
+
+    @Schema(description = "Détail des erreurs, borné à sdms.colis.import.erreurs-max")
+    private List<ErreurLigne> erreurs;
+
+    @Schema(description = "Vrai si des erreurs ont été omises du détail")
+    private boolean erreursTronquees;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ErreurLigne {
+        @Schema(description = "Numéro de ligne dans le fichier (1 = première ligne)")
+        private long ligne;
+        private String message;
+    }
+}
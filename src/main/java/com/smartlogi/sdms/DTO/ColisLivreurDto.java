@@ -0,0 +1,49 @@
+package com.smartlogi.sdms.DTO;
+
+import com.smartlogi.sdms.enums.PrioriteColis;
+import com.smartlogi.sdms.enums.StatutColis;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vue allégée d'un colis pour l'application mobile du livreur : de quoi livrer, sans les acteurs internes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Colis affecté à un livreur (vue allégée pour l'application mobile).")
+public class ColisLivreurDto {
+
+    private String id;
+    private String description;
+    private Double poids;
+    private String statut;
+    private String priorite;
+    private String villeDestination;
+    private LocalDateTime dateCreation;
+
+    @Schema(description = "Nom et prénom du destinataire")
+    private String destinataireNomComplet;
+
+    private String destinataireAdresse;
+
+    private String destinataireTelephone;
+
+    /**
+     * Constructeur utilisé par la projection Criteria de ColisRepositoryImpl.
+     */
+    public ColisLivreurDto(String id, String description, Double poids, StatutColis statut, PrioriteColis priorite,
+                           String villeDestination, LocalDateTime dateCreation, String destinataireNom,
+                           String destinatairePrenom, String destinataireAdresse, String destinataireTelephone) {
+        this(id, description, poids,
+                statut != null ? statut.name() : null,
+                priorite != null ? priorite.name() : null,
+                villeDestination, dateCreation,
+                destinatairePrenom != null ? destinataireNom + " " + destinatairePrenom : destinataireNom,
+                destinataireAdresse, destinataireTelephone);
+    }
+}
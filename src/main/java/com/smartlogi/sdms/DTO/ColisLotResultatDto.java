@@ -0,0 +1,32 @@
+package com.smartlogi.sdms.DTO;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Résultat de la création d'un colis dans un lot (un résultat par élément envoyé).")
+public class ColisLotResultatDto {
+
+    @Schema(description = "Position de l'élément dans le lot envoyé (à partir de 0)", example = "0")
+    private int index;
+
+    private boolean succes;
+
+    @Schema(description = "Colis créé (null en cas d'échec)")
+    private ColisDto colis;
+
+    @Schema(description = "Raison de l'échec (null en cas de succès)")
+    private String erreur;
+
+    public static ColisLotResultatDto succes(int index, ColisDto colis) {
+        return new ColisLotResultatDto(index, true, colis, null);
+    }
+
+    public static ColisLotResultatDto echec(int index, String erreur) {
+        return new ColisLotResultatDto(index, false, null, erreur);
+    }
+}
@@ -0,0 +1,25 @@
+package com.smartlogi.sdms.DTO;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Étape de l'historique de livraison d'un colis.")
+public class HistoriqueLivraisonDto {
+
+    private String id;
+
+    @Schema(example = "EN_TRANSIT")
+    private String statut;
+
+    private LocalDateTime dateChangement;
+
+    @Schema(example = "Colis affecté au livreur: Rachid I.")
+    private String commentaire;
+}
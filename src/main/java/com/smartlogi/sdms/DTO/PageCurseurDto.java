@@ -0,0 +1,24 @@
+package com.smartlogi.sdms.DTO;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page de résultats obtenue par pagination "keyset" (curseur).
+ * Le curseur est opaque pour le client : il suffit de le renvoyer tel quel pour obtenir la page suivante.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Page de résultats paginée par curseur.")
+public class PageCurseurDto<T> {
+
+    private List<T> elements;
+
+    @Schema(description = "Curseur opaque de la page suivante (null s'il n'y a plus de résultats)")
+    private String curseurSuivant;
+}
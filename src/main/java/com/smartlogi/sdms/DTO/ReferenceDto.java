@@ -0,0 +1,20 @@
+package com.smartlogi.sdms.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Résumé d'une entité de référence (zone, client expéditeur, destinataire, livreur) : ID et libellé affiché.
+ * Usage interne : c'est la valeur mise en cache pour valider les FKs sans relire l'entité.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReferenceDto {
+
+    private String id;
+
+    // Nom affiché (ex: nom de la zone, "nom prénom" du livreur)
+    private String libelle;
+}
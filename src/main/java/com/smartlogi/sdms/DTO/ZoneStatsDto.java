@@ -0,0 +1,30 @@
+package com.smartlogi.sdms.DTO;
+
+import com.smartlogi.sdms.enums.StatutColis;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Nombre de colis d'une zone par statut (tableau de bord).")
+public class ZoneStatsDto {
+
+    private String zoneId;
+
+    private String zoneNom;
+
+    @Schema(description = "Nombre total de colis de la zone (hors colis archivés)")
+    private long total;
+
+    @Schema(description = "Nombre de colis par statut, tous les statuts étant présents")
+    private Map<StatutColis, Long> parStatut;
+
+    @Schema(description = "Date du dernier recomptage complet (null si aucun depuis le démarrage)")
+    private LocalDateTime dateReconciliation;
+}
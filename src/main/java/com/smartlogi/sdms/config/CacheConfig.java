@@ -0,0 +1,66 @@
+package com.smartlogi.sdms.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+
+/**
+ * Configuration des caches applicatifs (Caffeine), paramétrés par les propriétés standard "spring.cache.*".
+ */
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties({CacheProperties.class, CacheReferencesProperties.class})
+public class CacheConfig {
+
+    // Nom du cache des lectures de suivi (GET /api/colis/{id}), clé = ID du colis
+    public static final String CACHE_COLIS = "colis";
+
+    // Caches des données de référence (clé = ID, valeur = ReferenceDto), invalidés par les mises à jour et suppressions
+    public static final String CACHE_ZONES = "zones";
+    public static final String CACHE_CLIENTS = "clients-expediteurs";
+    public static final String CACHE_DESTINATAIRES = "destinataires";
+    public static final String CACHE_LIVREURS = "livreurs";
+
+    private static final List<String> CACHES_REFERENCES = List.of(CACHE_ZONES, CACHE_CLIENTS, CACHE_DESTINATAIRES, CACHE_LIVREURS);
+
+    /**
+     * Les caches sont rendus transactionnels : un @CacheEvict exécuté dans une transaction n'est appliqué
+     * qu'après le commit, un lecteur ne peut donc pas recharger l'ancienne valeur entre l'invalidation et le commit.
+     * Cela ne suffit pas seul : un lecteur dont la requête est partie avant le commit peut écrire sa valeur
+     * périmée après l'invalidation, et elle resterait servie jusqu'à l'expiration. Les @Cacheable sont donc en
+     * {@code sync = true} : le chargement s'exécute dans le calcul atomique de Caffeine, et une invalidation
+     * concurrente attend la fin du chargement en cours puis retire la valeur qu'il a insérée.
+     * Garantie limitée à une instance : le cache est local et les invalidations ne sont pas diffusées.
+     */
+    @Bean
+    public CacheManager cacheManager(CacheProperties proprietes, CacheReferencesProperties references) {
+        CaffeineCacheManager caffeine = new CaffeineCacheManager();
+        String spec = proprietes.getCaffeine().getSpec();
+        if (StringUtils.hasText(spec)) {
+            caffeine.setCaffeine(Caffeine.from(spec));
+        }
+        if (!proprietes.getCacheNames().isEmpty()) {
+            // Liste fixe : les caches sont connus au démarrage et exposés aux métriques Actuator
+            caffeine.setCacheNames(proprietes.getCacheNames());
+        }
+        caffeine.setAllowNullValues(false);
+        // Données de référence : durée de vie et taille propres, statistiques pour les métriques cache.gets (hit/miss)
+        for (String nom : CACHES_REFERENCES) {
+            caffeine.registerCustomCache(nom, Caffeine.newBuilder()
+                    .expireAfterWrite(references.getTtl())
+                    .maximumSize(references.getTailleMax())
+                    .recordStats()
+                    .build());
+        }
+        return new TransactionAwareCacheManagerProxy(caffeine);
+    }
+}
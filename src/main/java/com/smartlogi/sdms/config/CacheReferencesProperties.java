@@ -0,0 +1,21 @@
+package com.smartlogi.sdms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration des caches des données de référence : zones, clients expéditeurs, destinataires et livreurs
+ * (préfixe "sdms.cache.references").
+ */
+@Data
+@ConfigurationProperties(prefix = "sdms.cache.references")
+public class CacheReferencesProperties {
+
+    /** Durée de vie d'une entrée ; borne aussi l'obsolescence en cas d'écriture hors de l'application. */
+    private Duration ttl = Duration.ofMinutes(30);
+
+    /** Nombre maximal d'entrées par cache. */
+    private long tailleMax = 10_000;
+}
@@ -0,0 +1,29 @@
+package com.smartlogi.sdms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration de l'archivage des colis en statut final (préfixe "sdms.colis.archivage").
+ */
+@Data
+@ConfigurationProperties(prefix = "sdms.colis.archivage")
+public class ColisArchivageProperties {
+
+    /** Active le job d'archivage. La lecture des colis déjà archivés reste active dans tous les cas. */
+    private boolean enabled = false;
+
+    /** Ancienneté minimale (depuis la dernière étape de l'historique) d'un colis livré ou annulé avant archivage. */
+    private Duration ageMinimum = Duration.ofDays(90);
+
+    /** Nombre de colis déplacés par transaction. */
+    private int tailleLot = 500;
+
+    /** Nombre maximal de lots par passe (borne la durée d'une passe). */
+    private int lotsMaxParPasse = 100;
+
+    /** Intervalle entre deux passes. */
+    private Duration intervalle = Duration.ofHours(1);
+}
@@ -0,0 +1,20 @@
+package com.smartlogi.sdms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration des compteurs de colis par zone et statut (préfixe "sdms.colis.compteurs").
+ */
+@Data
+@ConfigurationProperties(prefix = "sdms.colis.compteurs")
+public class ColisCompteursProperties {
+
+    /** Intervalle d'écriture des compteurs en mémoire dans colis_compteur_zone. */
+    private Duration intervalleSauvegarde = Duration.ofMinutes(1);
+
+    /** Intervalle du recomptage complet (GROUP BY sur colis) qui corrige les écarts accumulés. */
+    private Duration intervalleReconciliation = Duration.ofHours(1);
+}
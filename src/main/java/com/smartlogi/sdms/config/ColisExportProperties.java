@@ -0,0 +1,18 @@
+package com.smartlogi.sdms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration de l'export des colis en flux (préfixe "sdms.colis.export").
+ */
+@Data
+@ConfigurationProperties(prefix = "sdms.colis.export")
+public class ColisExportProperties {
+
+    /** Lignes récupérées par aller-retour avec la base (fetch size du curseur JDBC). */
+    private int tailleFetch = 1000;
+
+    /** Lignes écrites entre deux envois explicites au client. */
+    private int lignesParEnvoi = 1000;
+}
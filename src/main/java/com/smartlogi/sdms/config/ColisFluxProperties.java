@@ -0,0 +1,35 @@
+package com.smartlogi.sdms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration du flux SSE des changements de colis (préfixe "sdms.colis.flux").
+ */
+@Data
+@ConfigurationProperties(prefix = "sdms.colis.flux")
+public class ColisFluxProperties {
+
+    /** Nombre maximal d'abonnés simultanés ; au-delà, les nouveaux abonnements sont refusés. */
+    private int abonnesMax = 10_000;
+
+    /** Événements en attente par abonné ; un abonné dont le tampon déborde est déconnecté. */
+    private int capaciteTampon = 256;
+
+    /** Threads d'envoi partagés par tous les abonnés (aucun thread n'est réservé à une connexion). */
+    private int threadsEnvoi = 4;
+
+    /** Borne du pool d'envoi, threads de remplacement des envois bloqués compris. */
+    private int threadsEnvoiMax = 16;
+
+    /** Durée maximale d'un envoi ; au-delà, l'abonné est déconnecté et son thread remplacé. */
+    private Duration delaiEnvoi = Duration.ofSeconds(10);
+
+    /** Intervalle des commentaires de maintien de connexion (détection des clients partis). */
+    private Duration intervalleBattement = Duration.ofSeconds(15);
+
+    /** Durée de vie d'une connexion ; le client (EventSource) se reconnecte automatiquement. */
+    private Duration dureeConnexion = Duration.ofMinutes(30);
+}
@@ -0,0 +1,18 @@
+package com.smartlogi.sdms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration de l'import de colis en masse (préfixe "sdms.colis.import").
+ */
+@Data
+@ConfigurationProperties(prefix = "sdms.colis.import")
+public class ColisImportProperties {
+
+    /** Colis chargés par transaction (un COPY puis un INSERT ... SELECT par lot). */
+    private int tailleLot = 5000;
+
+    /** Nombre maximal d'erreurs détaillées dans le rapport (toutes restent comptées). */
+    private int erreursMax = 1000;
+}
@@ -0,0 +1,71 @@
+package com.smartlogi.sdms.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * Détecte, en production, les threads virtuels épinglés sur leur thread porteur (bloc synchronized,
+ * appel natif) pendant une opération bloquante : un épinglage prolongé dans un chemin JPA annule le
+ * bénéfice des threads virtuels. S'appuie sur l'événement JFR jdk.VirtualThreadPinned (Java 21+).
+ * Actif uniquement avec spring.threads.virtual.enabled=true sur Java 21+.
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class DetecteurEpinglage {
+
+    static final String EVENEMENT_JFR = "jdk.VirtualThreadPinned";
+
+    private final Duration seuil;
+    private final Counter epinglages;
+    private RecordingStream flux;
+
+    public DetecteurEpinglage(@Value("${sdms.virtual-threads.seuil-epinglage:20ms}") Duration seuil,
+                              MeterRegistry registry) {
+        this.seuil = seuil;
+        this.epinglages = Counter.builder("sdms.virtual.threads.pinned")
+                .description("Threads virtuels épinglés au-delà du seuil")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void demarrer() {
+        flux = new RecordingStream();
+        flux.enable(EVENEMENT_JFR).withThreshold(seuil).withStackTrace();
+        flux.onEvent(EVENEMENT_JFR, this::signaler);
+        flux.startAsync();
+        log.info("Détection de l'épinglage des threads virtuels active (seuil {} ms)", seuil.toMillis());
+    }
+
+    private void signaler(RecordedEvent evenement) {
+        epinglages.increment();
+        // Les frames applicatives suffisent à localiser le service ou le repository en cause
+        String pile = evenement.getStackTrace() == null ? "?" : evenement.getStackTrace().getFrames().stream()
+                .map(RecordedFrame::getMethod)
+                .map(methode -> methode.getType().getName() + "." + methode.getName())
+                .filter(methode -> methode.startsWith("com.smartlogi."))
+                .limit(5)
+                .collect(Collectors.joining(" <- "));
+        log.warn("Thread virtuel épinglé pendant {} ms : {}", evenement.getDuration().toMillis(), pile);
+    }
+
+    @PreDestroy
+    public void arreter() {
+        if (flux != null) {
+            flux.close();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.smartlogi.sdms.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.type.BasicTypeRegistry;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Fonctions SQL supplémentaires utilisables dans les requêtes HQL (enregistré via META-INF/services).
+ */
+public class FonctionsSqlContributor implements FunctionContributor {
+
+    /**
+     * uuid_aleatoire() : UUID généré par la base, inséré tel quel dans les colonnes id de type uuid.
+     * Nécessaire pour les INSERT ... SELECT en HQL, que Hibernate refuse avec un générateur d'ID côté Java.
+     * <p>
+     * ressemble_mots(terme, texte) : vrai si le terme ressemble à une partie du texte (opérateur {@code <%}
+     * de pg_trgm, similarité de mots, index trigramme GIN utilisable). Sous H2, simple inclusion du terme.
+     */
+    @Override
+    public void contributeFunctions(FunctionContributions contributions) {
+        boolean postgresql = contributions.getDialect() instanceof PostgreSQLDialect;
+        BasicTypeRegistry types = contributions.getTypeConfiguration().getBasicTypeRegistry();
+
+        String uuid = postgresql
+                ? "gen_random_uuid()" // PostgreSQL 13+
+                : "random_uuid()";    // H2 (tests)
+        contributions.getFunctionRegistry().registerPattern("uuid_aleatoire", uuid,
+                types.resolve(StandardBasicTypes.STRING));
+
+        String ressemble = postgresql
+                ? "(?1 <% ?2)"            // extension pg_trgm (changeset 011-1)
+                : "(locate(?1, ?2) > 0)"; // H2 (tests)
+        contributions.getFunctionRegistry().registerPattern("ressemble_mots", ressemble,
+                types.resolve(StandardBasicTypes.BOOLEAN));
+    }
+}
@@ -0,0 +1,33 @@
+package com.smartlogi.sdms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration du journal d'écriture différée de l'historique (préfixe "sdms.historique.journal").
+ */
+@Data
+@ConfigurationProperties(prefix = "sdms.historique.journal")
+public class HistoriqueJournalProperties {
+
+    /** Active le journal. Désactivé : l'historique est écrit de façon synchrone dans la transaction. */
+    private boolean enabled = false;
+
+    /** Fichier journal (append-only). Le checkpoint est stocké à côté, suffixé par ".checkpoint". */
+    private Path fichier = Path.of("data", "historique-journal.log");
+
+    /** Nombre maximal d'événements insérés par lot dans historique_livraison. */
+    private int tailleLot = 500;
+
+    /** Délai maximal entre deux vidages du journal. */
+    private Duration intervalleVidage = Duration.ofSeconds(1);
+
+    /** Nombre maximal d'événements en attente ; au-delà, l'historique est écrit directement en base (sans attente). */
+    private int capacite = 100_000;
+
+    /** Force l'écriture sur disque (fsync) à chaque événement : aucun événement acquitté n'est perdu en cas de crash. */
+    private boolean fsync = true;
+}
@@ -0,0 +1,40 @@
+package com.smartlogi.sdms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration de la maintenance des partitions mensuelles de historique_livraison
+ * (préfixe "sdms.historique.partitions"). Nécessite PostgreSQL (changelog 004-partition-historique).
+ */
+@Data
+@ConfigurationProperties(prefix = "sdms.historique.partitions")
+public class HistoriquePartitionsProperties {
+
+    /** Active la maintenance planifiée des partitions. */
+    private boolean enabled = false;
+
+    /** Nombre de mois à venir dont la partition doit déjà exister (le mois courant est toujours créé). */
+    private int moisAnticipes = 3;
+
+    /**
+     * Nombre de mois d'historique conservés dans la table ; les partitions plus anciennes expirent,
+     * une fois que plus aucun de leurs colis n'est présent dans la table colis.
+     */
+    private int retentionMois = 24;
+
+    /** Sort des partitions expirées. */
+    private ModeExpiration modeExpiration = ModeExpiration.DETACHER;
+
+    /** Intervalle entre deux passes de maintenance (la première a lieu au démarrage). */
+    private Duration intervalle = Duration.ofHours(6);
+
+    public enum ModeExpiration {
+        /** Détachée et renommée historique_livraison_archive_pAAAA_MM : hors des requêtes, prête pour un export. */
+        DETACHER,
+        /** Détachée puis supprimée. */
+        SUPPRIMER
+    }
+}
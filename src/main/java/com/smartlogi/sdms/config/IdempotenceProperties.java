@@ -0,0 +1,36 @@
+package com.smartlogi.sdms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration du stockage des clés d'idempotence des créations de colis (préfixe "sdms.idempotence").
+ */
+@Data
+@ConfigurationProperties(prefix = "sdms.idempotence")
+public class IdempotenceProperties {
+
+    /** Durée pendant laquelle une clé rejoue la réponse d'origine. */
+    private Duration ttl = Duration.ofHours(24);
+
+    /** Nombre maximal de clés gardées en mémoire (les plus anciennes sont évincées au-delà). */
+    private int tailleMax = 100_000;
+
+    /** Longueur maximale d'une clé fournie par le client. */
+    private int longueurMaxCle = 255;
+
+    /** Attente maximale d'une requête dupliquée pendant que la requête d'origine est en cours, avant 409. */
+    private Duration attenteMax = Duration.ofSeconds(10);
+
+    /**
+     * Persiste aussi les clés dans la table idempotence_cle, dans la transaction de la création :
+     * les rejeux survivent aux redémarrages et les doublons arrivant sur des instances différentes
+     * sont écartés par la clé primaire.
+     */
+    private boolean persistance = false;
+
+    /** Intervalle de purge des clés expirées de la table idempotence_cle. */
+    private Duration intervallePurge = Duration.ofHours(1);
+}
@@ -0,0 +1,33 @@
+package com.smartlogi.sdms.config;
+
+import com.smartlogi.sdms.repository.Identifiants;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Valide les identifiants des chemins (/{id}, /{colisId}...) avant l'appel du contrôleur.
+ * Un identifiant qui n'est pas un UUID ne désigne aucune ressource : 404, sans requête en base.
+ * Les autres valeurs invalides (paramètres, corps) restent des erreurs du client (400).
+ */
+public class IdentifiantsCheminInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables == null) {
+            return true;
+        }
+        variables.forEach((nom, valeur) -> {
+            if ((nom.equals("id") || nom.endsWith("Id")) && !Identifiants.estValide(valeur)) {
+                throw new EntityNotFoundException("Ressource non trouvée : identifiant invalide (" + valeur + ").");
+            }
+        });
+        return true;
+    }
+}
@@ -0,0 +1,13 @@
+package com.smartlogi.sdms.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.annotation.EnableRetry;
+
+/**
+ * Active Spring Retry pour les méthodes annotées @Retryable
+ * (ex. : nouvelle tentative de l'affectation d'un livreur après un conflit de verrouillage optimiste).
+ */
+@Configuration
+@EnableRetry
+public class RetryConfig {
+}
@@ -0,0 +1,17 @@
+package com.smartlogi.sdms.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuration Spring MVC : validation des identifiants de chemin (voir IdentifiantsCheminInterceptor).
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new IdentifiantsCheminInterceptor()).addPathPatterns("/api/**");
+    }
+}
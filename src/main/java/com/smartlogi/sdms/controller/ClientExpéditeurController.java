@@ -1,7 +1,11 @@
 package com.smartlogi.sdms.controller;
 
 import com.smartlogi.sdms.DTO.ClientExpéditeurDto;
+import com.smartlogi.sdms.DTO.ColisClientPageDto;
+import com.smartlogi.sdms.DTO.PageCurseurDto;
+import com.smartlogi.sdms.enums.StatutColis;
 import com.smartlogi.sdms.service.ClientExpéditeurService;
+import com.smartlogi.sdms.service.ColisService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -12,6 +16,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Set;
 // Suppression de l'import java.util.UUID
 
 @RestController
@@ -21,6 +26,7 @@ import java.util.List;
 public class ClientExpéditeurController {
 
     private final ClientExpéditeurService clientExpéditeurService;
+    private final ColisService colisService;
 
     // POST /api/clients-expediteurs
     @Operation(summary = "Crée un nouveau client expéditeur")
@@ -41,6 +47,20 @@ public class ClientExpéditeurController {
         return ResponseEntity.ok(clients);
     }
 
+    // GET /api/clients-expediteurs/recherche
+    @Operation(summary = "Recherche des clients par début d'adresse et/ou par nom, prénom ou email approché",
+            description = "Critères optionnels et cumulables, d'au moins 3 caractères. Pagination par curseur.")
+    @ApiResponse(responseCode = "200", description = "Page de clients et curseur de la page suivante")
+    @ApiResponse(responseCode = "400", description = "Critère trop court ou curseur invalide")
+    @GetMapping("/recherche")
+    public ResponseEntity<PageCurseurDto<ClientExpéditeurDto>> rechercherClients(
+            @RequestParam(required = false) String adresse,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String curseur,
+            @RequestParam(defaultValue = "20") int taille) {
+        return ResponseEntity.ok(clientExpéditeurService.rechercherClients(adresse, q, curseur, taille));
+    }
+
     // GET /api/clients-expediteurs/{id}
     @Operation(summary = "Récupère un client par son ID")
     @ApiResponse(responseCode = "200", description = "Client trouvé")
@@ -52,6 +72,20 @@ public class ClientExpéditeurController {
         return ResponseEntity.ok(clientDto);
     }
 
+    // GET /api/clients-expediteurs/{id}/colis
+    @Operation(summary = "Liste les colis d'un client expéditeur (les plus récents d'abord), avec le nombre de colis par statut")
+    @ApiResponse(responseCode = "200", description = "Page de colis ; compteurs par statut sur la première page")
+    @ApiResponse(responseCode = "400", description = "Curseur ou statut invalide")
+    @ApiResponse(responseCode = "404", description = "Client non trouvé")
+    @GetMapping("/{id}/colis")
+    public ResponseEntity<ColisClientPageDto> getColisDuClient(
+            @PathVariable String id,
+            @RequestParam(required = false) Set<StatutColis> statut,
+            @RequestParam(required = false) String curseur,
+            @RequestParam(defaultValue = "20") int taille) {
+        return ResponseEntity.ok(colisService.getColisDuClient(id, statut, curseur, taille));
+    }
+
     // PUT /api/clients-expediteurs/{id}
     @Operation(summary = "Met à jour un client existant")
     @ApiResponse(responseCode = "200", description = "Client mis à jour avec succès")
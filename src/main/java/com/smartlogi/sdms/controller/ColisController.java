@@ -1,18 +1,41 @@
 package com.smartlogi.sdms.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.smartlogi.sdms.DTO.AffectationLotDto;
+import com.smartlogi.sdms.DTO.AffectationLotResultatDto;
 import com.smartlogi.sdms.DTO.ColisCreationDto;
 import com.smartlogi.sdms.DTO.ColisDto;
+import com.smartlogi.sdms.DTO.ColisFiltre;
+import com.smartlogi.sdms.DTO.ColisFluxFiltre;
+import com.smartlogi.sdms.DTO.ColisImportResultatDto;
+import com.smartlogi.sdms.DTO.ColisLotResultatDto;
+import com.smartlogi.sdms.DTO.HistoriqueLivraisonDto;
+import com.smartlogi.sdms.DTO.PageCurseurDto;
+import com.smartlogi.sdms.enums.FormatFichier;
 import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.service.ColisExport;
+import com.smartlogi.sdms.service.ColisFluxHub;
+import com.smartlogi.sdms.service.ColisImport;
 import com.smartlogi.sdms.service.ColisService;
+import com.smartlogi.sdms.service.IdempotenceService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 // Suppression de l'import java.util.UUID
 
@@ -23,6 +46,10 @@ import java.util.List;
 public class ColisController {
 
     private final ColisService colisService;
+    private final ColisFluxHub colisFluxHub;
+    private final IdempotenceService idempotenceService;
+    private final ColisExport colisExport;
+    private final ColisImport colisImport;
 
     // ============================================
     // CRUD de Base / Création
@@ -32,17 +59,83 @@ public class ColisController {
     @Operation(summary = "Crée une demande de colis (début du flux)")
     @ApiResponse(responseCode = "201", description = "Colis créé avec statut 'CRÉÉ'")
     @ApiResponse(responseCode = "404", description = "Client, Destinataire ou Zone ID non trouvée")
+    @ApiResponse(responseCode = "409", description = "Requête de même Idempotency-Key encore en cours")
+    @ApiResponse(responseCode = "422", description = "Idempotency-Key déjà utilisée pour un autre contenu")
     @PostMapping
-    public ResponseEntity<ColisDto> createColis(@Valid @RequestBody ColisCreationDto creationDto) {
-        ColisDto createdColis = colisService.createColis(creationDto);
+    public ResponseEntity<ColisDto> createColis(
+            @Valid @RequestBody ColisCreationDto creationDto,
+            @RequestHeader(name = "Idempotency-Key", required = false) String cleIdempotence) {
+        // Même clé et même contenu : la réponse d'origine est rejouée, aucun second colis n'est créé
+        ColisDto createdColis = idempotenceService.executer(IdempotenceService.PORTEE_COLIS, cleIdempotence,
+                creationDto, new TypeReference<>() {}, () -> colisService.createColis(creationDto));
         return new ResponseEntity<>(createdColis, HttpStatus.CREATED);
     }
 
-    // GET /api/colis
-    @Operation(summary = "Récupère tous les colis (pour le Gestionnaire Logistique)")
+    // POST /api/colis/batch (intégrations ERP des expéditeurs)
+    @Operation(summary = "Crée un lot de colis en une seule transaction (résultat par élément)")
+    @ApiResponse(responseCode = "200", description = "Lot traité : chaque élément indique son succès ou la cause de l'échec")
+    @ApiResponse(responseCode = "400", description = "Lot trop volumineux")
+    @ApiResponse(responseCode = "409", description = "Requête de même Idempotency-Key encore en cours")
+    @ApiResponse(responseCode = "422", description = "Idempotency-Key déjà utilisée pour un autre contenu")
+    @PostMapping("/batch")
+    public ResponseEntity<List<ColisLotResultatDto>> createColisEnLot(
+            @RequestBody List<ColisCreationDto> lot,
+            @RequestHeader(name = "Idempotency-Key", required = false) String cleIdempotence) {
+        return ResponseEntity.ok(idempotenceService.executer(IdempotenceService.PORTEE_COLIS_LOT, cleIdempotence,
+                lot, new TypeReference<>() {}, () -> colisService.createColisEnLot(lot)));
+    }
+
+    // POST /api/colis/import?format=CSV (reprise de l'historique d'un nouvel expéditeur)
+    @Operation(summary = "Importe en masse des colis depuis un fichier CSV (avec en-tête) ou NDJSON, envoyé tel quel dans le corps")
+    @ApiResponse(responseCode = "200", description = "Import traité : compteurs et erreurs par numéro de ligne")
+    @ApiResponse(responseCode = "400", description = "En-tête CSV incomplet")
+    @PostMapping("/import")
+    public ResponseEntity<ColisImportResultatDto> importerColis(
+            @RequestParam(defaultValue = "CSV") FormatFichier format,
+            InputStream contenu) throws IOException {
+        // Le corps est lu en flux : le fichier n'est jamais chargé entièrement en mémoire
+        return ResponseEntity.ok(colisImport.importer(contenu, format));
+    }
+
+    // GET /api/colis?statut=...&zoneId=...&curseur=...&taille=20
+    @Operation(summary = "Liste paginée et filtrable des colis (pour le Gestionnaire Logistique)")
+    @ApiResponse(responseCode = "200", description = "Page de colis et curseur de la page suivante")
+    @ApiResponse(responseCode = "400", description = "Curseur invalide")
     @GetMapping
-    public ResponseEntity<List<ColisDto>> getAllColis() {
-        return ResponseEntity.ok(colisService.getAllColis());
+    public ResponseEntity<PageCurseurDto<ColisDto>> getAllColis(
+            ColisFiltre filtre,
+            @RequestParam(required = false) String curseur,
+            @RequestParam(defaultValue = "20") int taille) {
+        return ResponseEntity.ok(colisService.getColisPage(filtre, curseur, taille));
+    }
+
+    // GET /api/colis/export?format=NDJSON&du=...&au=...&statut=... (rapprochement comptable nocturne)
+    @Operation(summary = "Exporte tous les colis filtrés en NDJSON ou CSV, en flux (mémoire constante)")
+    @ApiResponse(responseCode = "200", description = "Fichier NDJSON (un colis par ligne) ou CSV avec en-tête")
+    @ApiResponse(responseCode = "400", description = "Intervalle de dates vide ou paramètre invalide")
+    @GetMapping("/export")
+    public void exporterColis(
+            ColisFiltre filtre,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime du,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime au,
+            @RequestParam(defaultValue = "NDJSON") FormatFichier format,
+            HttpServletResponse response) throws IOException {
+        ColisExport.verifierIntervalle(du, au);
+        response.setContentType(format.getTypeContenu());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("colis." + format.getExtension()).build().toString());
+        // Écriture directe dans la réponse, au fil de la lecture du curseur
+        colisExport.exporter(filtre, du, au, format, response.getOutputStream());
+    }
+
+    // GET /api/colis/stream?colisId=...&clientExpediteurId=...&zoneId=...&livreurId=...
+    @Operation(summary = "Flux SSE des changements de statut et d'affectation (remplace le polling du suivi)")
+    @ApiResponse(responseCode = "200", description = "Flux text/event-stream, un événement 'colis' par changement")
+    @ApiResponse(responseCode = "503", description = "Nombre maximal d'abonnés atteint")
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamColis(ColisFluxFiltre filtre) {
+        return colisFluxHub.abonner(filtre);
     }
 
     // GET /api/colis/{id}
@@ -54,6 +147,20 @@ public class ColisController {
         return ResponseEntity.ok(colisService.getColisById(id));
     }
 
+    // GET /api/colis/{id}/historique?since=...&curseur=...&taille=20
+    @Operation(summary = "Historique paginé d'un colis (le plus récent d'abord), optionnellement depuis une date")
+    @ApiResponse(responseCode = "200", description = "Page d'étapes et curseur de la page suivante")
+    @ApiResponse(responseCode = "400", description = "Curseur ou date invalide")
+    @ApiResponse(responseCode = "404", description = "Colis non trouvé")
+    @GetMapping("/{id}/historique")
+    public ResponseEntity<PageCurseurDto<HistoriqueLivraisonDto>> getHistorique(
+            @PathVariable String id,
+            @RequestParam(name = "since", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime depuis,
+            @RequestParam(required = false) String curseur,
+            @RequestParam(defaultValue = "20") int taille) {
+        return ResponseEntity.ok(colisService.getHistorique(id, depuis, curseur, taille));
+    }
+
     // DELETE /api/colis/{id}
     @Operation(summary = "Supprime un colis (Gestionnaire)")
     @ApiResponse(responseCode = "204", description = "Colis supprimé")
@@ -82,6 +189,16 @@ public class ColisController {
         return ResponseEntity.ok(updatedColis);
     }
 
+    // PUT /api/colis/assigner/batch (dispatch du matin)
+    @Operation(summary = "Affecte un lot de colis à un livreur en une seule transaction")
+    @ApiResponse(responseCode = "200", description = "Lot traité : colis affectés, introuvables ou déjà dans un statut final")
+    @ApiResponse(responseCode = "400", description = "Requête invalide ou lot trop volumineux")
+    @ApiResponse(responseCode = "404", description = "Livreur ID non trouvé")
+    @PutMapping("/assigner/batch")
+    public ResponseEntity<AffectationLotResultatDto> assignerLivreurEnLot(@Valid @RequestBody AffectationLotDto affectation) {
+        return ResponseEntity.ok(colisService.assignerLivreurEnLot(affectation));
+    }
+
     // PUT /api/colis/statut/{colisId} (User Story Livreur)
     @Operation(summary = "Met à jour le statut du colis (COLLECTE, LIVRE, etc.)")
     @ApiResponse(responseCode = "200", description = "Statut mis à jour et historique enregistré")
@@ -1,18 +1,25 @@
 package com.smartlogi.sdms.controller;
 
+import com.smartlogi.sdms.DTO.ColisLivreurDto;
 import com.smartlogi.sdms.DTO.LivreurDto;
+import com.smartlogi.sdms.DTO.PageCurseurDto;
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.service.ColisService;
 import com.smartlogi.sdms.service.LivreurService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 // Suppression de l'import java.util.UUID
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/livreurs")
@@ -21,6 +28,7 @@ import java.util.List;
 public class LivreurController {
 
     private final LivreurService livreurService;
+    private final ColisService colisService;
 
     // POST /api/livreurs
     @Operation(summary = "Crée un nouveau livreur")
@@ -52,6 +60,29 @@ public class LivreurController {
         return ResponseEntity.ok(livreurDto);
     }
 
+    // GET /api/livreurs/{id}/colis?statut=EN_TRANSIT&statut=EN_TOURNEE&curseur=...&taille=20
+    @Operation(summary = "Colis affectés au livreur, les plus urgents d'abord (application mobile)",
+            description = "Vue allégée paginée par curseur. Renvoie un ETag : avec If-None-Match, une liste inchangée "
+                    + "donne 304 sans corps.")
+    @ApiResponse(responseCode = "200", description = "Page de colis et curseur de la page suivante")
+    @ApiResponse(responseCode = "304", description = "Liste inchangée depuis l'ETag fourni")
+    @ApiResponse(responseCode = "404", description = "Livreur non trouvé")
+    @GetMapping("/{id}/colis")
+    public ResponseEntity<PageCurseurDto<ColisLivreurDto>> getColisDuLivreur(
+            @PathVariable String id,
+            @RequestParam(required = false) Set<StatutColis> statut,
+            @RequestParam(required = false) String curseur,
+            @RequestParam(defaultValue = "20") int taille,
+            WebRequest requete) {
+        PageCurseurDto<ColisLivreurDto> page = colisService.getColisDuLivreur(id, statut, curseur, taille);
+        String etag = ColisService.etag(page);
+        // Revalidation systématique (no-cache) : le client garde la liste et la revalide par son ETag
+        if (requete.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(page);
+    }
+
     // PUT /api/livreurs/{id}
     @Operation(summary = "Met à jour un livreur existant")
     @ApiResponse(responseCode = "200", description = "Livreur mis à jour avec succès")
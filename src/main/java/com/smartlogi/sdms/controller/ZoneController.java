@@ -1,6 +1,8 @@
 package com.smartlogi.sdms.controller;
 
 import com.smartlogi.sdms.DTO.ZoneDto;
+import com.smartlogi.sdms.DTO.ZoneStatsDto;
+import com.smartlogi.sdms.service.CompteursZones;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import com.smartlogi.sdms.service.ZoneService;
 import jakarta.validation.Valid;
@@ -24,6 +26,7 @@ import java.util.List;
 public class ZoneController {
 
     private final ZoneService zoneService;
+    private final CompteursZones compteursZones;
 
     // POST /api/zones
     @Operation(summary = "Crée une nouvelle zone de livraison") // <-- Opération
@@ -55,6 +58,16 @@ public class ZoneController {
         return ResponseEntity.ok(zoneDto);
     }
 
+    // GET /api/zones/{id}/stats
+    @Operation(summary = "Nombre de colis de la zone par statut",
+            description = "Lu sur les compteurs en mémoire (aucune requête sur colis), recomptés périodiquement.")
+    @ApiResponse(responseCode = "200", description = "Compteurs de la zone")
+    @ApiResponse(responseCode = "404", description = "Zone non trouvée")
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<ZoneStatsDto> getZoneStats(@PathVariable String id) {
+        return ResponseEntity.ok(compteursZones.statistiques(zoneService.getZoneReference(id)));
+    }
+
     // PUT /api/zones/{id}
     @Operation(summary = "Met à jour une zone existante")
     @ApiResponse(responseCode = "200", description = "Zone mise à jour avec succès")
@@ -0,0 +1,25 @@
+package com.smartlogi.sdms.enums;
+
+/**
+ * Formats des fichiers de colis : export (GET /api/colis/export) et import (POST /api/colis/import).
+ */
+public enum FormatFichier {
+    NDJSON("application/x-ndjson", "ndjson"), // Un objet JSON par ligne
+    CSV("text/csv", "csv");
+
+    private final String typeContenu;
+    private final String extension;
+
+    FormatFichier(String typeContenu, String extension) {
+        this.typeContenu = typeContenu;
+        this.extension = extension;
+    }
+
+    public String getTypeContenu() {
+        return typeContenu;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
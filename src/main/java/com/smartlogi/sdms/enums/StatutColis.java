@@ -1,5 +1,11 @@
 package com.smartlogi.sdms.enums;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum StatutColis {
     CREE,
     COLLECTE,
@@ -8,5 +14,64 @@ public enum StatutColis {
     EN_TOURNEE,
     LIVRE,
     ANNULE,
-    ECHEC_LIVRAISON
-}
\ No newline at end of file
+    ECHEC_LIVRAISON;
+
+    // ============================================
+    // TABLE DES TRANSITIONS
+    // ============================================
+    // Statuts atteignables depuis chaque statut. Répéter le statut courant (scan répété) est permis
+    // pour les statuts de traitement ; CREE n'est posé qu'à la création et un statut final n'a aucune
+    // transition sortante.
+    private static final Map<StatutColis, Set<StatutColis>> SUIVANTS = new EnumMap<>(StatutColis.class);
+
+    // Inverse de SUIVANTS : statuts depuis lesquels chaque statut est atteignable (clause IN de l'UPDATE conditionnel)
+    private static final Map<StatutColis, Set<StatutColis>> SOURCES = new EnumMap<>(StatutColis.class);
+
+    static {
+        SUIVANTS.put(CREE, EnumSet.of(COLLECTE, EN_STOCK, EN_TRANSIT, ANNULE));
+        SUIVANTS.put(COLLECTE, EnumSet.of(EN_STOCK, EN_TRANSIT, ANNULE));
+        SUIVANTS.put(EN_STOCK, EnumSet.of(EN_TRANSIT, EN_TOURNEE, ANNULE));
+        SUIVANTS.put(EN_TRANSIT, EnumSet.of(EN_STOCK, EN_TOURNEE, LIVRE, ECHEC_LIVRAISON, ANNULE));
+        SUIVANTS.put(EN_TOURNEE, EnumSet.of(EN_STOCK, EN_TRANSIT, LIVRE, ECHEC_LIVRAISON));
+        SUIVANTS.put(ECHEC_LIVRAISON, EnumSet.of(EN_STOCK, EN_TRANSIT, EN_TOURNEE, ANNULE));
+        SUIVANTS.put(LIVRE, EnumSet.noneOf(StatutColis.class));
+        SUIVANTS.put(ANNULE, EnumSet.noneOf(StatutColis.class));
+
+        for (StatutColis statut : values()) {
+            if (statut != CREE && !statut.isTerminal()) {
+                SUIVANTS.get(statut).add(statut);
+            }
+        }
+        for (StatutColis cible : values()) {
+            Set<StatutColis> sources = EnumSet.noneOf(StatutColis.class);
+            SUIVANTS.forEach((source, suivants) -> {
+                if (suivants.contains(cible)) {
+                    sources.add(source);
+                }
+            });
+            SOURCES.put(cible, Collections.unmodifiableSet(sources));
+        }
+        SUIVANTS.replaceAll((statut, suivants) -> Collections.unmodifiableSet(suivants));
+    }
+
+    /**
+     * Statut final du cycle de vie : le colis ne peut plus être affecté ni changer d'état.
+     */
+    public boolean isTerminal() {
+        return this == LIVRE || this == ANNULE;
+    }
+
+    /**
+     * Indique si la transition de ce statut vers {@code cible} est autorisée.
+     */
+    public boolean peutPasserA(StatutColis cible) {
+        return SUIVANTS.get(this).contains(cible);
+    }
+
+    /**
+     * Statuts depuis lesquels {@code cible} est atteignable (vide pour CREE, qui n'est posé qu'à la création).
+     */
+    public static Set<StatutColis> sourcesPossibles(StatutColis cible) {
+        return SOURCES.get(cible);
+    }
+}
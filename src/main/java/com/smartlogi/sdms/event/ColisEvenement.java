@@ -0,0 +1,26 @@
+package com.smartlogi.sdms.event;
+
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.model.Colis;
+
+import java.time.LocalDateTime;
+
+/**
+ * Changement d'état d'un colis (statut, affectation), publié par ColisService dans la transaction
+ * et diffusé aux abonnés après le commit. Les IDs des acteurs servent au filtrage des abonnements.
+ */
+public record ColisEvenement(String colisId, StatutColis statut, String livreurId, String clientExpediteurId,
+                             String zoneId, String commentaire, LocalDateTime date) {
+
+    // Les getId() sur les associations LAZY ne déclenchent pas de chargement (ID porté par le proxy)
+    public static ColisEvenement depuis(Colis colis, String commentaire) {
+        return new ColisEvenement(
+                colis.getId(),
+                colis.getStatut(),
+                colis.getLivreur() != null ? colis.getLivreur().getId() : null,
+                colis.getClientExpediteur() != null ? colis.getClientExpediteur().getId() : null,
+                colis.getZone() != null ? colis.getZone().getId() : null,
+                commentaire,
+                LocalDateTime.now());
+    }
+}
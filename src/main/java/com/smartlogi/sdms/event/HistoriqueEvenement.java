@@ -0,0 +1,26 @@
+package com.smartlogi.sdms.event;
+
+import com.smartlogi.sdms.model.HistoriqueLivraison;
+import com.smartlogi.sdms.model.UuidV7;
+
+import java.time.LocalDateTime;
+
+/**
+ * Changement de statut à inscrire dans historique_livraison (une ligne du journal d'écriture différée).
+ * L'ID est attribué à la publication : le rejeu du journal après un crash reste idempotent.
+ * La version est celle atteinte par le colis avec ce changement : au rejeu, un événement dont le colis n'a
+ * jamais atteint la version provient d'une transaction non validée (null : pas de vérification).
+ */
+public record HistoriqueEvenement(String id, String colisId, String statut,
+                                  LocalDateTime dateChangement, String commentaire, Long version) {
+
+    public static HistoriqueEvenement depuis(HistoriqueLivraison historique, Long version) {
+        return new HistoriqueEvenement(
+                historique.getId() != null ? historique.getId() : UuidV7.suivantTexte(),
+                historique.getColis().getId(),
+                historique.getStatut(),
+                historique.getDateChangement(),
+                historique.getCommentaire(),
+                version);
+    }
+}
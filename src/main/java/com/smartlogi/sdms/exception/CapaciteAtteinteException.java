@@ -0,0 +1,11 @@
+package com.smartlogi.sdms.exception;
+
+/**
+ * Ressource temporairement saturée (ex: nombre maximal d'abonnés au flux SSE). Traduite en 503.
+ */
+public class CapaciteAtteinteException extends RuntimeException {
+
+    public CapaciteAtteinteException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.smartlogi.sdms.exception;
+
+/**
+ * Clé d'idempotence déjà utilisée pour une requête de contenu différent. Traduite en 422.
+ */
+public class CleIdempotenceReutiliseeException extends RuntimeException {
+
+    public CleIdempotenceReutiliseeException(String cle) {
+        super("La clé d'idempotence " + cle + " a déjà été utilisée pour une autre requête.");
+    }
+}
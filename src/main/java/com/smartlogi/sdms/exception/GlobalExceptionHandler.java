@@ -2,11 +2,13 @@ package com.smartlogi.sdms.exception;
 
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
@@ -16,7 +18,8 @@ import java.util.stream.Collectors;
 public class GlobalExceptionHandler {
 
     // --- Gère les Entités Non Trouvées (404 NOT FOUND) ---
-    // Utilisé par ZoneService, ClientExpéditeurService, etc.
+    // Utilisé par ZoneService, ClientExpéditeurService, etc., et pour les identifiants de chemin
+    // qui ne sont pas des UUID (IdentifiantsCheminInterceptor).
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleEntityNotFound(
             EntityNotFoundException ex, WebRequest request) {
@@ -52,6 +55,120 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    // --- Gère les Paramètres Invalides (400 BAD REQUEST) ---
+    // Ex: curseur de pagination corrompu, lot trop volumineux. Seule RequeteInvalideException est traduite :
+    // une IllegalArgumentException levée ailleurs est une erreur interne (500), pas une erreur du client.
+    @ExceptionHandler(RequeteInvalideException.class)
+    public ResponseEntity<ErrorResponse> handleRequeteInvalide(
+            RequeteInvalideException ex, WebRequest request) {
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Bad Request",
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    // --- Gère les Paramètres de Requête mal Typés (400 BAD REQUEST) ---
+    // Ex: date "since" non ISO-8601, statut inconnu dans un @RequestParam.
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleTypeMismatch(
+            MethodArgumentTypeMismatchException ex, WebRequest request) {
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Bad Request",
+                "Valeur invalide pour le paramètre '" + ex.getName() + "': " + ex.getValue(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    // --- Gère la Saturation Temporaire (503 SERVICE UNAVAILABLE) ---
+    // Ex: nombre maximal d'abonnés au flux SSE atteint ; le client peut réessayer plus tard.
+    @ExceptionHandler(CapaciteAtteinteException.class)
+    public ResponseEntity<ErrorResponse> handleCapaciteAtteinte(
+            CapaciteAtteinteException ex, WebRequest request) {
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // --- Gère les Conflits d'Écriture Concurrente (409 CONFLICT) ---
+    // Verrouillage optimiste (@Version) : la ressource a été modifiée par une autre requête, même après
+    // les nouvelles tentatives du service. Le client peut relire l'état courant puis réessayer.
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailure(
+            OptimisticLockingFailureException ex, WebRequest request) {
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.CONFLICT.value(),
+                "Conflict",
+                "La ressource a été modifiée par une autre requête. Veuillez relire son état puis réessayer.",
+                request.getDescription(false).replace("uri=", "")
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
+    // --- Gère les Transitions de Statut Interdites (409 CONFLICT) ---
+    // La demande est incompatible avec l'état courant du colis (ex: colis déjà livré).
+    @ExceptionHandler(TransitionStatutInvalideException.class)
+    public ResponseEntity<ErrorResponse> handleTransitionStatutInvalide(
+            TransitionStatutInvalideException ex, WebRequest request) {
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.CONFLICT.value(),
+                "Conflict",
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
+    // --- Gère les Requêtes Idempotentes Encore en Cours (409 CONFLICT) ---
+    // Une requête de même clé d'idempotence est en cours : le client réessaie plus tard avec la même clé.
+    @ExceptionHandler(RequeteEnCoursException.class)
+    public ResponseEntity<ErrorResponse> handleRequeteEnCours(
+            RequeteEnCoursException ex, WebRequest request) {
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.CONFLICT.value(),
+                "Conflict",
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
+    // --- Gère les Clés d'Idempotence Réutilisées (422 UNPROCESSABLE ENTITY) ---
+    // Même clé, contenu différent : erreur du client, la requête d'origine n'est pas rejouée.
+    @ExceptionHandler(CleIdempotenceReutiliseeException.class)
+    public ResponseEntity<ErrorResponse> handleCleIdempotenceReutilisee(
+            CleIdempotenceReutiliseeException ex, WebRequest request) {
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                "Unprocessable Entity",
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
     // --- Gère les Violations d'Intégrité des Données (400 BAD REQUEST) ---
     // Utilisé pour les emails du ClientExpéditeur déjà existants (contrainte UNIQUE).
     @ExceptionHandler(DataIntegrityViolationException.class)
@@ -0,0 +1,12 @@
+package com.smartlogi.sdms.exception;
+
+/**
+ * Requête portant une clé d'idempotence dont la requête d'origine est toujours en cours. Traduite en 409 :
+ * le client peut réessayer plus tard avec la même clé.
+ */
+public class RequeteEnCoursException extends RuntimeException {
+
+    public RequeteEnCoursException(String cle) {
+        super("La requête d'origine de la clé d'idempotence " + cle + " est toujours en cours de traitement.");
+    }
+}
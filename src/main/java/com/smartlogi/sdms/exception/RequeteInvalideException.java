@@ -0,0 +1,16 @@
+package com.smartlogi.sdms.exception;
+
+/**
+ * Paramètre de requête invalide fourni par le client (ex: curseur de pagination corrompu,
+ * lot trop volumineux, critère de recherche trop court). Traduite en 400.
+ */
+public class RequeteInvalideException extends RuntimeException {
+
+    public RequeteInvalideException(String message) {
+        super(message);
+    }
+
+    public RequeteInvalideException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
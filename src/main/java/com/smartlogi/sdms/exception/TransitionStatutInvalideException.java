@@ -0,0 +1,14 @@
+package com.smartlogi.sdms.exception;
+
+import com.smartlogi.sdms.enums.StatutColis;
+
+/**
+ * Changement de statut interdit par la table des transitions de {@link StatutColis}
+ * (ex: LIVRE vers CREE), ou refusé parce que le statut a changé entre-temps. Traduit en 409.
+ */
+public class TransitionStatutInvalideException extends RuntimeException {
+
+    public TransitionStatutInvalideException(String colisId, StatutColis actuel, StatutColis demande) {
+        super("Transition de statut interdite pour le colis " + colisId + " : " + actuel + " -> " + demande + ".");
+    }
+}
@@ -6,6 +6,7 @@ import com.smartlogi.sdms.model.Colis;
 import org.mapstruct.MappingTarget;// Import nécessaire pour l'association
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.Named;
 
 
 import java.util.List;
@@ -19,6 +20,7 @@ public interface ColisMapper {
     @Mapping(target = "statut", ignore = true) // Le statut est initialisé dans @PrePersist de l'Entité
     @Mapping(target = "historique", ignore = true) // L'historique est géré par le service
     @Mapping(target = "produits", ignore = true) // Les produits ne sont pas gérés ici
+    @Mapping(target = "version", ignore = true) // Verrouillage optimiste : gérée par Hibernate (@Version)
     // Mapping des IDs UUID vers les entités
     @Mapping(source = "clientExpediteurId", target = "clientExpediteur.id")
     @Mapping(source = "destinataireId", target = "destinataire.id")
@@ -36,9 +38,17 @@ public interface ColisMapper {
 
     List<ColisDto> toDto(List<Colis> colis);
 
+    // Variante qui ne lit pas le client ni la zone (proxies non chargés) : les libellés sont complétés par l'appelant
+    @Named("sansLibelles")
+    @Mapping(target = "clientExpediteurNomComplet", ignore = true)
+    @Mapping(target = "zoneNom", ignore = true)
+    @Mapping(expression = "java(colis.getLivreur() != null ? colis.getLivreur().getId() : null)", target = "livreurId")
+    ColisDto toDtoSansLibelles(Colis colis);
+
     // Mappeur inverse pour les futures mises à jour
     @Mapping(target = "clientExpediteur", ignore = true)
     @Mapping(target = "destinataire", ignore = true)
     @Mapping(target = "zone", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Colis updateEntityFromDto(ColisDto dto, @MappingTarget Colis entity);
 }
\ No newline at end of file
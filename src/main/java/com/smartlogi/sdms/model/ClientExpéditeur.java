@@ -4,6 +4,9 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 // Suppression de l'import org.hibernate.annotations.GenericGenerator
 import java.util.List;
 // Suppression de l'import java.util.UUID
@@ -16,9 +19,11 @@ import java.util.List;
 public class ClientExpéditeur {
     //testing
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    // Mappe l'objet Java String vers la colonne VARCHAR(36) de la base de données
-    @Column(name = "id", columnDefinition = "VARCHAR(36)")
+    @IdUuidV7 // UUID v7 ordonné dans le temps, attribué avant l'INSERT
+    // Mappe l'objet Java String vers la colonne uuid de la base de données
+    @Column(name = "id", columnDefinition = "UUID")
+    @JavaType(UuidTexteJavaType.class)
+    @JdbcTypeCode(SqlTypes.UUID)
     private String id; // <-- CORRECTION: Changé de UUID à String
 
     @Column(name = "nom", nullable = false, length = 100)
@@ -39,17 +44,5 @@ public class ClientExpéditeur {
     // Relation: Un expéditeur peut envoyer plusieurs colis.
     @OneToMany(mappedBy = "clientExpediteur", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Colis> colisEnvoyes;
-
-    /**
-     * Ajout de la logique de génération UUID (en tant que String)
-     * AVANT la première insertion dans la base de données.
-     */
-    @PrePersist
-    protected void onPrePersist() {
-        if (this.id == null) {
-            // Génère un UUID et le stocke comme String
-            this.id = java.util.UUID.randomUUID().toString();
-        }
-    }
 //hello
 }
\ No newline at end of file
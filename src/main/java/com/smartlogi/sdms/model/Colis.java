@@ -6,8 +6,12 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 // Suppression de l'import org.hibernate.annotations.GenericGenerator
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.ArrayList;
 // Suppression de l'import java.util.UUID
@@ -24,8 +28,10 @@ import java.util.ArrayList;
 public class Colis {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    @Column(name = "id", columnDefinition = "VARCHAR(36)")
+    @IdUuidV7 // UUID v7 ordonné dans le temps, attribué avant l'INSERT
+    @Column(name = "id", columnDefinition = "UUID")
+    @JavaType(UuidTexteJavaType.class)
+    @JdbcTypeCode(SqlTypes.UUID)
     private String id; // <-- CORRECTION: Changé de UUID à String
 
     private String description;
@@ -44,10 +50,10 @@ public class Colis {
     private LocalDateTime dateCreation;
 
     // --- Relations Many-to-One ---
-    // Les colonnes FK doivent pointer vers l'ID de type String/VARCHAR(36)
+    // Les colonnes FK pointent vers l'ID (String côté Java, uuid en base)
 
     @ManyToOne(fetch = FetchType.LAZY)
-    // Pas besoin de columnDefinition si le type est String et que la PK mappée est VARCHAR(36)
+    // Pas besoin de columnDefinition : le type de la FK suit celui de la PK référencée (UUID)
     @JoinColumn(name = "livreur_id", referencedColumnName = "id")
     private Livreur livreur;
 
@@ -71,15 +77,19 @@ public class Colis {
     @OneToMany(mappedBy = "colis", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ColisProduit> produits = new ArrayList<>();
 
+    // Verrouillage optimiste : incrémentée à chaque UPDATE, une écriture concurrente sur une version périmée échoue
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     /**
-     * Logique pour générer l'ID UUID sous forme de String AVANT l'insertion.
+     * Valeurs initiales AVANT l'insertion (l'ID est attribué par le générateur {@link IdUuidV7}).
      */
     @PrePersist
     protected void onCreate() {
-        if (this.id == null) {
-            this.id = java.util.UUID.randomUUID().toString();
-        }
-        dateCreation = LocalDateTime.now();
+        // Tronqué à la microseconde (précision de TIMESTAMP) : la valeur en mémoire reste identique
+        // à celle stockée, ce qui garantit des curseurs de pagination exacts.
+        dateCreation = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
         if (statut == null) {
             statut = StatutColis.CREE;
         }
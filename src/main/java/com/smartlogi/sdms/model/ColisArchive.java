@@ -0,0 +1,53 @@
+package com.smartlogi.sdms.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Colis archivé (statut final) : l'état du colis, son historique et ses produits sont stockés
+ * sous forme d'un document JSON compressé (gzip), hors des tables de travail.
+ * Voir ColisArchivage.
+ */
+@Entity
+@Table(name = "colis_archive")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColisArchive implements Persistable<String> {
+
+    // Même ID que le colis d'origine
+    @Id
+    @Column(name = "id", columnDefinition = "UUID")
+    @JavaType(UuidTexteJavaType.class)
+    @JdbcTypeCode(SqlTypes.UUID)
+    private String id;
+
+    @Column(name = "statut", nullable = false, length = 50)
+    private String statut;
+
+    @Column(name = "date_creation")
+    private LocalDateTime dateCreation;
+
+    @Column(name = "date_archivage", nullable = false)
+    private LocalDateTime dateArchivage;
+
+    // Document ColisArchiveDto en JSON, compressé gzip (BYTEA sous PostgreSQL)
+    @Column(name = "contenu", nullable = false, length = 1_000_000)
+    private byte[] contenu;
+
+    /**
+     * Une archive n'est jamais modifiée : toujours insérée directement, sans SELECT préalable (merge).
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
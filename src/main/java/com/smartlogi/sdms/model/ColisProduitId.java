@@ -5,6 +5,9 @@ import jakarta.persistence.Embeddable;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.io.Serializable;
 import java.util.Objects;
 // Suppression de l'import java.util.UUID
@@ -16,11 +19,15 @@ import java.util.Objects;
 public class ColisProduitId implements Serializable {
 
     // Correspond à l'ID de l'entité Colis (FK)
-    @Column(name = "colis_id", columnDefinition = "VARCHAR(36)")
+    @Column(name = "colis_id", columnDefinition = "UUID")
+    @JavaType(UuidTexteJavaType.class)
+    @JdbcTypeCode(SqlTypes.UUID)
     private String colisId; // <-- CORRECTION: Changé de UUID à String
 
     // Correspond à l'ID de l'entité Produit (FK)
-    @Column(name = "produit_id", columnDefinition = "VARCHAR(36)")
+    @Column(name = "produit_id", columnDefinition = "UUID")
+    @JavaType(UuidTexteJavaType.class)
+    @JdbcTypeCode(SqlTypes.UUID)
     private String produitId; // <-- CORRECTION: Changé de UUID à String
 
     // IMPORTANT : Redéfinir equals et hashCode pour la clé composée
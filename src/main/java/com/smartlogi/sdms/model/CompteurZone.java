@@ -0,0 +1,41 @@
+package com.smartlogi.sdms.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Nombre de colis d'une zone dans un statut : copie des compteurs en mémoire de CompteursZones,
+ * réécrite périodiquement et relue au démarrage.
+ */
+@Entity
+@Table(name = "colis_compteur_zone")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompteurZone implements Persistable<CompteurZoneId> {
+
+    @EmbeddedId
+    private CompteurZoneId id;
+
+    @Column(name = "nombre", nullable = false)
+    private long nombre;
+
+    @Column(name = "date_mise_a_jour", nullable = false)
+    private LocalDateTime dateMiseAJour;
+
+    /**
+     * La table est réécrite entièrement (suppression puis insertion) : jamais de SELECT préalable (merge).
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,34 @@
+package com.smartlogi.sdms.model;
+
+import com.smartlogi.sdms.enums.StatutColis;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+
+/**
+ * Clé d'un compteur de colis : (zone, statut).
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompteurZoneId implements Serializable {
+
+    @Column(name = "zone_id", columnDefinition = "UUID")
+    @JavaType(UuidTexteJavaType.class)
+    @JdbcTypeCode(SqlTypes.UUID)
+    private String zoneId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "statut", length = 50)
+    private StatutColis statut;
+}
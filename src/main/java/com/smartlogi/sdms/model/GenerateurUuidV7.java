@@ -0,0 +1,31 @@
+package com.smartlogi.sdms.model;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.util.EnumSet;
+
+/**
+ * Générateur Hibernate des IDs annotés {@link IdUuidV7} : UUID v7 au format texte, calculé en mémoire
+ * avant l'INSERT (compatible avec les INSERT par lots JDBC).
+ */
+public class GenerateurUuidV7 implements BeforeExecutionGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        return currentValue != null ? currentValue : UuidV7.suivantTexte();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
+    }
+}
@@ -4,6 +4,9 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 // Suppression de l'import org.hibernate.annotations.GenericGenerator
 import java.time.LocalDateTime;
 // Suppression de l'import java.util.UUID
@@ -16,8 +19,10 @@ import java.time.LocalDateTime;
 public class HistoriqueLivraison {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    @Column(name = "id", columnDefinition = "VARCHAR(36)")
+    @IdUuidV7 // UUID v7 ordonné dans le temps, attribué avant l'INSERT
+    @Column(name = "id", columnDefinition = "UUID")
+    @JavaType(UuidTexteJavaType.class)
+    @JdbcTypeCode(SqlTypes.UUID)
     private String id; // <-- CORRECTION: Changé de UUID à String
 
     // Colonne pour le statut du colis (ex: EN_PREPARATION, EN_TRANSIT, LIVRE)
@@ -36,18 +41,7 @@ public class HistoriqueLivraison {
 
     // HistoriqueLivraison est l'entité Many (plusieurs historiques pour un colis)
     @ManyToOne(fetch = FetchType.LAZY)
-    // Assure que la FK utilise le type VARCHAR(36) pour l'ID du Colis
-    @JoinColumn(name = "colis_id", referencedColumnName = "id", nullable = false, columnDefinition = "VARCHAR(36)")
+    // Assure que la FK utilise le type UUID de l'ID du Colis
+    @JoinColumn(name = "colis_id", referencedColumnName = "id", nullable = false, columnDefinition = "UUID")
     private Colis colis;
-
-    /**
-     * Logique pour générer l'ID UUID sous forme de String AVANT l'insertion.
-     */
-    @PrePersist
-    protected void onPrePersist() {
-        if (this.id == null) {
-            // Génère un UUID et le stocke comme String
-            this.id = java.util.UUID.randomUUID().toString();
-        }
-    }
 }
\ No newline at end of file
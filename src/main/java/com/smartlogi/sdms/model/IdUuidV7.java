@@ -0,0 +1,18 @@
+package com.smartlogi.sdms.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Identifiant généré à l'insertion par {@link GenerateurUuidV7} (UUID v7 ordonné dans le temps).
+ * À placer sur l'attribut @Id (String) des entités ; un ID déjà renseigné est conservé.
+ */
+@IdGeneratorType(GenerateurUuidV7.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface IdUuidV7 {
+}
@@ -4,6 +4,9 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 // Suppression de l'import org.hibernate.annotations.GenericGenerator
 import java.util.List;
 // Suppression de l'import java.util.UUID
@@ -16,8 +19,10 @@ import java.util.List;
 public class Livreur {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    @Column(name = "id", columnDefinition = "VARCHAR(36)")
+    @IdUuidV7 // UUID v7 ordonné dans le temps, attribué avant l'INSERT
+    @Column(name = "id", columnDefinition = "UUID")
+    @JavaType(UuidTexteJavaType.class)
+    @JdbcTypeCode(SqlTypes.UUID)
     private String id; // <-- CORRECTION: Changé de UUID à String
 
     @Column(name = "nom", nullable = false, length = 100)
@@ -41,15 +46,4 @@ public class Livreur {
     // MappedBy pointe vers le champ 'livreur' dans l'entité Colis.
     @OneToMany(mappedBy = "livreur")
     private List<Colis> colisAssignes;
-
-    /**
-     * Logique pour générer l'ID UUID sous forme de String AVANT l'insertion.
-     */
-    @PrePersist
-    protected void onPrePersist() {
-        if (this.id == null) {
-            // Génère un UUID et le stocke comme String
-            this.id = java.util.UUID.randomUUID().toString();
-        }
-    }
 }
\ No newline at end of file
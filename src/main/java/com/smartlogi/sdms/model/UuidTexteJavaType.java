@@ -0,0 +1,31 @@
+package com.smartlogi.sdms.model;
+
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.StringJavaType;
+
+import java.util.UUID;
+
+/**
+ * Type Java Hibernate des identifiants : String côté entités, lié en {@link UUID} natif sur les colonnes uuid.
+ * À combiner avec {@code @JdbcTypeCode(SqlTypes.UUID)} sur l'attribut ; les clés étrangères des associations
+ * reprennent le type de la clé primaire référencée.
+ */
+public class UuidTexteJavaType extends StringJavaType {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <X> X unwrap(String value, Class<X> type, WrapperOptions options) {
+        if (value != null && UUID.class.isAssignableFrom(type)) {
+            return (X) UUID.fromString(value);
+        }
+        return super.unwrap(value, type, options);
+    }
+
+    @Override
+    public <X> String wrap(X value, WrapperOptions options) {
+        if (value instanceof UUID uuid) {
+            return uuid.toString();
+        }
+        return super.wrap(value, options);
+    }
+}
@@ -0,0 +1,55 @@
+package com.smartlogi.sdms.model;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Génération d'UUID version 7 (RFC 9562) : 48 bits d'horodatage Unix en millisecondes,
+ * 12 bits de compteur, 62 bits aléatoires.
+ * <p>
+ * Les valeurs sont strictement croissantes dans la JVM : à milliseconde égale (ou si l'horloge recule),
+ * le compteur est incrémenté, et son débordement avance l'horodatage d'une milliseconde (méthode 3 de
+ * la RFC). Les insertions arrivent donc en fin d'index B-tree au lieu d'être dispersées comme avec
+ * des UUID v4. Sans verrou : un seul compare-and-set sur l'état (horodatage + compteur) par valeur.
+ * <p>
+ * Les IDs ne sont pas des secrets (la partie aléatoire, ThreadLocalRandom, ne garantit que l'unicité
+ * entre instances) et révèlent la date de création de la ligne.
+ */
+public final class UuidV7 {
+
+    private static final int BITS_COMPTEUR = 12;
+
+    // Horodatage (ms) << 12 | compteur de la dernière valeur émise
+    private static final AtomicLong DERNIER = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    public static UUID suivant() {
+        return depuisEtat(prochainEtat(System.currentTimeMillis()));
+    }
+
+    public static String suivantTexte() {
+        return suivant().toString();
+    }
+
+    static long prochainEtat(long maintenantMs) {
+        long candidat = maintenantMs << BITS_COMPTEUR;
+        while (true) {
+            long precedent = DERNIER.get();
+            long etat = Math.max(candidat, precedent + 1);
+            if (DERNIER.compareAndSet(precedent, etat)) {
+                return etat;
+            }
+        }
+    }
+
+    static UUID depuisEtat(long etat) {
+        long horodatage = etat >>> BITS_COMPTEUR;
+        long compteur = etat & ((1L << BITS_COMPTEUR) - 1);
+        long poidsFort = (horodatage << 16) | (0x7L << 12) | compteur;                            // version 7
+        long poidsFaible = (ThreadLocalRandom.current().nextLong() >>> 2) | 0x8000_0000_0000_0000L; // variante RFC
+        return new UUID(poidsFort, poidsFaible);
+    }
+}
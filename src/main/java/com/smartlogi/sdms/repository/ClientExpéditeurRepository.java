@@ -2,13 +2,14 @@ package com.smartlogi.sdms.repository;
 
 import com.smartlogi.sdms.model.ClientExpéditeur;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 // Suppression de l'import java.util.UUID
 import java.util.Optional;
 
 @Repository
 // CORRECTION CLÉ : Remplacer UUID par String
-public interface ClientExpéditeurRepository extends JpaRepository<ClientExpéditeur, String> {
+public interface ClientExpéditeurRepository extends JpaRepository<ClientExpéditeur, String>, JpaSpecificationExecutor<ClientExpéditeur> {
 
     /**
      * Recherche un client expéditeur par son email (utilisé pour la vérification d'unicité).
@@ -0,0 +1,67 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.model.ClientExpéditeur;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Locale;
+
+/**
+ * Specifications JPA pour la recherche de clients expéditeurs (utilisées via JpaSpecificationExecutor).
+ * Les colonnes sont comparées en minuscules : lower(colonne) est l'expression des index trigrammes
+ * du changeset 011-2, que PostgreSQL utilise aussi bien pour LIKE 'x%' que pour LIKE '%x%'.
+ */
+public final class ClientExpéditeurSpecifications {
+
+    /**
+     * Ordre stable de la pagination keyset : l'ID (UUID v7) suit l'ordre de création.
+     */
+    public static final Sort TRI_KEYSET = Sort.by(Sort.Order.asc("id"));
+
+    private static final char ECHAPPEMENT = '\\';
+
+    private ClientExpéditeurSpecifications() {
+    }
+
+    public static Specification<ClientExpéditeur> adresseCommencePar(String prefixe) {
+        return (root, query, cb) -> cb.like(cb.lower(root.get("adresse")), motif(prefixe) + "%", ECHAPPEMENT);
+    }
+
+    /**
+     * Nom, prénom ou email contenant le terme, ou lui ressemblant à une faute de frappe près
+     * (ressemble_mots, voir FonctionsSqlContributor).
+     */
+    public static Specification<ClientExpéditeur> ressembleA(String terme) {
+        return (root, query, cb) -> cb.or(
+                ressemble(cb, root, "nom", terme),
+                ressemble(cb, root, "prenom", terme),
+                ressemble(cb, root, "email", terme));
+    }
+
+    /**
+     * Condition keyset : id strictement "après" le curseur dans l'ordre {@link #TRI_KEYSET}.
+     */
+    public static Specification<ClientExpéditeur> apresCurseur(CurseurClient curseur) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), curseur.id());
+    }
+
+    private static Predicate ressemble(CriteriaBuilder cb, Root<ClientExpéditeur> root, String attribut, String terme) {
+        Expression<String> colonne = cb.lower(root.get(attribut));
+        String normalise = terme.toLowerCase(Locale.ROOT);
+        return cb.or(
+                cb.like(colonne, "%" + motif(terme) + "%", ECHAPPEMENT),
+                cb.isTrue(cb.function("ressemble_mots", Boolean.class, cb.literal(normalise), colonne)));
+    }
+
+    // Terme en minuscules, caractères spéciaux de LIKE échappés : la saisie est cherchée telle quelle
+    private static String motif(String terme) {
+        return terme.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
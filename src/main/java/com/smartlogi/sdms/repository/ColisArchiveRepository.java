@@ -0,0 +1,9 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.model.ColisArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ColisArchiveRepository extends JpaRepository<ColisArchive, String> {
+}
@@ -1,16 +1,143 @@
 package com.smartlogi.sdms.repository;
 
+import com.smartlogi.sdms.DTO.ColisDto;
+import com.smartlogi.sdms.enums.StatutColis;
 import com.smartlogi.sdms.model.Colis;
+import com.smartlogi.sdms.model.ColisProduit;
+import com.smartlogi.sdms.model.Livreur;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor; // Ajouté pour la pagination/filtres
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 // Suppression de l'import java.util.UUID
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 // CORRECTION CLÉ : Remplacer UUID par String, et ajouter JpaSpecificationExecutor
-public interface ColisRepository extends JpaRepository<Colis, String>, JpaSpecificationExecutor<Colis> {
+public interface ColisRepository extends JpaRepository<Colis, String>, JpaSpecificationExecutor<Colis>, ColisRepositoryCustom {
+
+    /**
+     * Lecture du détail d'un colis en une seule requête jointe (projection DTO),
+     * sans charger les associations LAZY une par une.
+     * @param id L'ID du colis (String)
+     */
+    @Query("select new com.smartlogi.sdms.DTO.ColisDto(c.id, c.description, c.poids, c.statut, c.priorite, "
+            + "c.villeDestination, c.dateCreation, l.id, ce.nom, z.nom) "
+            + "from Colis c join c.clientExpediteur ce left join c.zone z left join c.livreur l "
+            + "where c.id = :id")
+    Optional<ColisDto> findDtoById(@Param("id") String id);
+
+    /**
+     * Lecture d'un colis avant affectation à un livreur.
+     * La version est incrémentée au commit même si aucune colonne ne change (ex: réaffectation au même livreur) :
+     * l'ajout d'une étape d'historique compte comme une modification du colis, et deux transitions
+     * concurrentes ne peuvent jamais être validées toutes les deux sur la même version.
+     * @param id L'ID du colis (String)
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("select c from Colis c where c.id = :id")
+    Optional<Colis> findPourMiseAJour(@Param("id") String id);
+
+    /**
+     * Statut courant d'un ensemble de colis, en une requête IN.
+     * Les lignes sont verrouillées (SELECT ... FOR UPDATE) jusqu'à la fin de la transaction :
+     * aucun changement de statut concurrent entre cette lecture et la mise à jour en lot.
+     * @param ids Les IDs des colis (String)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    // c.clientExpediteur.id / c.zone.id sont lus sur les colonnes FK de colis : pas de jointure sous le verrou
+    @Query("select c.id as id, c.statut as statut, c.livreur.id as livreurId, c.clientExpediteur.id as clientExpediteurId, "
+            + "c.zone.id as zoneId from Colis c where c.id in :ids")
+    List<ColisStatutProjection> findStatutsPourMiseAJour(@Param("ids") Collection<String> ids);
+
+    /**
+     * Projection minimale d'un colis (statut, acteurs), lue sur les seules colonnes de colis.
+     * @param id L'ID du colis (String)
+     */
+    @Query("select c.id as id, c.statut as statut, c.livreur.id as livreurId, c.clientExpediteur.id as clientExpediteurId, "
+            + "c.zone.id as zoneId from Colis c where c.id = :id")
+    Optional<ColisStatutProjection> findEtatById(@Param("id") String id);
+
+    /**
+     * Statut courant d'un colis (après l'échec d'une transition, pour distinguer 404 et 409).
+     * @param id L'ID du colis (String)
+     */
+    @Query("select c.statut from Colis c where c.id = :id")
+    Optional<StatutColis> findStatutById(@Param("id") String id);
+
+    /**
+     * Date de création d'un colis : borne inférieure de son historique (lecture par clé primaire).
+     * @param id L'ID du colis (String)
+     */
+    @Query("select c.dateCreation from Colis c where c.id = :id")
+    Optional<LocalDateTime> findDateCreationById(@Param("id") String id);
+
+    /**
+     * Affectation en lot : un seul UPDATE ensembliste (livreur + statut) au lieu d'un UPDATE par colis.
+     * Le contexte de persistance est vidé ensuite pour ne pas exposer d'entités périmées.
+     * La version est incrémentée comme par un UPDATE unitaire : une transaction concurrente qui a lu
+     * l'un de ces colis avant l'affectation échoue au lieu d'écraser la mise à jour.
+     * @return Le nombre de colis mis à jour.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Colis c set c.livreur = :livreur, c.statut = :statut, c.version = c.version + 1 where c.id in :ids")
+    int affecterLivreur(@Param("ids") Collection<String> ids, @Param("livreur") Livreur livreur,
+                        @Param("statut") StatutColis statut);
+
+    /**
+     * Colis à archiver : statut final et aucune étape d'historique depuis la date limite.
+     * Les lignes sont verrouillées en ignorant celles déjà prises (FOR UPDATE SKIP LOCKED sous PostgreSQL) :
+     * deux passes concurrentes ne se disputent pas les mêmes colis.
+     * @param limite Date avant laquelle le colis doit avoir atteint son dernier statut.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select c from Colis c where c.statut in :statuts and c.dateCreation < :limite "
+            + "and not exists (select 1 from HistoriqueLivraison h where h.colis = c and h.dateChangement >= :limite) "
+            + "order by c.dateCreation")
+    List<Colis> findArchivables(@Param("statuts") Collection<StatutColis> statuts, @Param("limite") LocalDateTime limite,
+                                Pageable pageable);
+
+    @Query("select p from ColisProduit p where p.colis.id in :ids")
+    List<ColisProduit> findProduitsByColisIds(@Param("ids") Collection<String> ids);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from ColisProduit p where p.colis.id in :ids")
+    int supprimerProduits(@Param("ids") Collection<String> ids);
+
+    /**
+     * Suppression ensembliste (l'historique et les produits doivent avoir été supprimés avant).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Colis c where c.id in :ids")
+    int supprimerParIds(@Param("ids") Collection<String> ids);
+
+    /**
+     * Nombre de colis par zone et par statut (réconciliation des compteurs de CompteursZones).
+     * Parcours complet de la table : réservé au job de réconciliation, jamais au chemin de lecture.
+     */
+    @Query("select c.zone.id as zoneId, c.statut as statut, count(c) as nombre from Colis c group by c.zone.id, c.statut")
+    List<ComptageZoneStatut> compterParZoneEtStatut();
+
+    /**
+     * Nombre de colis d'un client expéditeur par statut, en un seul GROUP BY (index idx_colis_client_statut).
+     * Les statuts sans colis sont absents du résultat.
+     * @param clientExpediteurId L'ID du client (String)
+     */
+    @Query("select c.statut as statut, count(c) as nombre from Colis c "
+            + "where c.clientExpediteur.id = :clientExpediteurId group by c.statut")
+    List<ComptageStatut> compterParStatutPourClient(@Param("clientExpediteurId") String clientExpediteurId);
 
     /**
      * Future User Story: Je veux consulter la liste de mes colis en cours et livrés (Client expéditeur)
@@ -0,0 +1,56 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.DTO.ColisDto;
+import com.smartlogi.sdms.DTO.ColisLivreurDto;
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.model.Colis;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Requêtes de ColisRepository qui ne peuvent pas être dérivées par Spring Data :
+ * projections DTO combinées aux Specifications.
+ */
+public interface ColisRepositoryCustom {
+
+    /**
+     * Construit directement les ColisDto via une seule requête jointe (client, zone, livreur).
+     * @param spec Filtres à appliquer (peut être vide).
+     * @param tri Ordre des résultats.
+     * @param limite Nombre maximal de lignes lues.
+     */
+    List<ColisDto> findDtoBy(Specification<Colis> spec, Sort tri, int limite);
+
+    /**
+     * Même projection que {@link #findDtoBy}, lue par un curseur JDBC en avant seulement : les lignes
+     * sont récupérées par paquets de {@code tailleFetch}, sans matérialiser le résultat.
+     * À appeler dans une transaction (curseur côté serveur sur PostgreSQL) et à fermer après usage.
+     */
+    Stream<ColisDto> streamDtoBy(Specification<Colis> spec, Sort tri, int tailleFetch);
+
+    /**
+     * Colis d'un livreur en vue allégée (jointure au seul destinataire), la priorité la plus urgente d'abord,
+     * puis les plus anciens. Pagination keyset sur (rang de priorité, date_creation, id).
+     * @param statuts Statuts retenus (vide : tous).
+     * @param apres Curseur de la page précédente (null pour la première page).
+     * @param limite Nombre maximal de lignes lues.
+     */
+    List<ColisLivreurDto> findPourLivreur(String livreurId, Collection<StatutColis> statuts, CurseurTournee apres,
+                                          int limite);
+
+    /**
+     * Transition de statut atomique (compare-and-set) : la ligne n'est modifiée que si son statut courant
+     * fait partie des sources autorisées, en une seule instruction et sans lecture préalable. Entre deux
+     * transitions concurrentes incompatibles, la seconde ne trouve plus de ligne à modifier.
+     * La version est incrémentée et le contexte de persistance est vidé.
+     * @param sources Statuts depuis lesquels la transition est permise (non vide).
+     * @return L'état du colis avant la transition (statut d'origine, acteurs) et la version atteinte,
+     *         vide si le colis n'existe pas ou si la transition est interdite.
+     */
+    Optional<ColisStatutProjection> changerStatut(String id, StatutColis statut, Collection<StatutColis> sources);
+}
@@ -0,0 +1,190 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.DTO.ColisDto;
+import com.smartlogi.sdms.DTO.ColisLivreurDto;
+import com.smartlogi.sdms.enums.PrioriteColis;
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.model.ClientExpéditeur;
+import com.smartlogi.sdms.model.Colis;
+import com.smartlogi.sdms.model.Destinataire;
+import com.smartlogi.sdms.model.Livreur;
+import com.smartlogi.sdms.model.Zone;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Implémentation du fragment {@link ColisRepositoryCustom} (détectée par le suffixe "Impl").
+ */
+class ColisRepositoryImpl implements ColisRepositoryCustom {
+
+    // PostgreSQL : le statut d'origine est lu sur la ligne verrouillée par la sous-requête FOR UPDATE,
+    // réévaluée après l'attente d'une transaction concurrente, et renvoyé par RETURNING avec la nouvelle version
+    private static final String SQL_CHANGER_STATUT_POSTGRESQL = "UPDATE colis c SET statut = :statut, version = c.version + 1 "
+            + "FROM (SELECT id, statut FROM colis WHERE id = :id FOR UPDATE) ancien "
+            + "WHERE c.id = ancien.id AND ancien.statut IN (:sources) "
+            + "RETURNING ancien.statut, CAST(c.livreur_id AS VARCHAR), CAST(c.client_expediteur_id AS VARCHAR), CAST(c.zone_id AS VARCHAR), "
+            + "c.version";
+
+    // H2 (tests) : table delta OLD TABLE, les valeurs de la ligne avant l'UPDATE
+    private static final String SQL_CHANGER_STATUT_H2 = "SELECT statut, CAST(livreur_id AS VARCHAR), CAST(client_expediteur_id AS VARCHAR), CAST(zone_id AS VARCHAR), "
+            + "version + 1 "
+            + "FROM OLD TABLE (UPDATE colis SET statut = :statut, version = version + 1 "
+            + "WHERE id = :id AND statut IN (:sources))";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ColisDto> findDtoBy(Specification<Colis> spec, Sort tri, int limite) {
+        return requeteDto(spec, tri)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<ColisDto> streamDtoBy(Specification<Colis> spec, Sort tri, int tailleFetch) {
+        // Projection DTO : aucune entité n'entre dans le contexte de persistance, la mémoire reste constante
+        return requeteDto(spec, tri)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, tailleFetch)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private TypedQuery<ColisDto> requeteDto(Specification<Colis> spec, Sort tri) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ColisDto> query = cb.createQuery(ColisDto.class);
+        Root<Colis> colis = query.from(Colis.class);
+
+        Join<Colis, ClientExpéditeur> client = colis.join("clientExpediteur");
+        Join<Colis, Zone> zone = colis.join("zone", JoinType.LEFT);
+        Join<Colis, Livreur> livreur = colis.join("livreur", JoinType.LEFT);
+
+        query.select(cb.construct(ColisDto.class,
+                colis.get("id"),
+                colis.get("description"),
+                colis.get("poids"),
+                colis.get("statut"),
+                colis.get("priorite"),
+                colis.get("villeDestination"),
+                colis.get("dateCreation"),
+                livreur.get("id"),
+                client.get("nom"),
+                zone.get("nom")));
+
+        Predicate predicate = spec.toPredicate(colis, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(tri, colis, cb));
+
+        return entityManager.createQuery(query);
+    }
+
+    @Override
+    public List<ColisLivreurDto> findPourLivreur(String livreurId, Collection<StatutColis> statuts, CurseurTournee apres,
+                                                 int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ColisLivreurDto> query = cb.createQuery(ColisLivreurDto.class);
+        Root<Colis> colis = query.from(Colis.class);
+        Join<Colis, Destinataire> destinataire = colis.join("destinataire", JoinType.LEFT);
+        Expression<Integer> rang = rangPriorite(cb, colis.get("priorite"));
+
+        query.select(cb.construct(ColisLivreurDto.class,
+                colis.get("id"),
+                colis.get("description"),
+                colis.get("poids"),
+                colis.get("statut"),
+                colis.get("priorite"),
+                colis.get("villeDestination"),
+                colis.get("dateCreation"),
+                destinataire.get("nom"),
+                destinataire.get("prenom"),
+                destinataire.get("adresse"),
+                destinataire.get("telephone")));
+
+        // Colonne FK livreur_id : index idx_colis_livreur_statut
+        List<Predicate> predicats = new ArrayList<>(3);
+        predicats.add(cb.equal(colis.get("livreur").get("id"), livreurId));
+        if (!statuts.isEmpty()) {
+            predicats.add(colis.get("statut").in(statuts));
+        }
+        if (apres != null) {
+            predicats.add(cb.or(
+                    cb.greaterThan(rang, apres.rangPriorite()),
+                    cb.and(cb.equal(rang, apres.rangPriorite()), cb.or(
+                            cb.greaterThan(colis.get("dateCreation"), apres.dateCreation()),
+                            cb.and(cb.equal(colis.get("dateCreation"), apres.dateCreation()),
+                                    cb.greaterThan(colis.get("id"), apres.id()))))));
+        }
+        query.where(predicats.toArray(Predicate[]::new));
+        query.orderBy(cb.asc(rang), cb.asc(colis.get("dateCreation")), cb.asc(colis.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    // La priorité est stockée en texte : l'ordre métier est rendu par un CASE (rangs de CurseurTournee)
+    private static Expression<Integer> rangPriorite(CriteriaBuilder cb, Expression<PrioriteColis> priorite) {
+        CriteriaBuilder.SimpleCase<PrioriteColis, Integer> rang = cb.selectCase(priorite);
+        for (PrioriteColis valeur : PrioriteColis.values()) {
+            rang = rang.when(valeur, cb.literal(CurseurTournee.rang(valeur)));
+        }
+        return rang.otherwise(cb.literal(CurseurTournee.rang(null)));
+    }
+
+    @Override
+    public Optional<ColisStatutProjection> changerStatut(String id, StatutColis statut, Collection<StatutColis> sources) {
+        entityManager.flush();
+        List<?> lignes = entityManager.createNativeQuery(postgresql() ? SQL_CHANGER_STATUT_POSTGRESQL : SQL_CHANGER_STATUT_H2)
+                .setParameter("statut", statut.name())
+                .setParameter("id", UUID.fromString(id)) // Requête native : lié en uuid, comme l'attribut mappé
+                .setParameter("sources", sources.stream().map(StatutColis::name).toList())
+                .getResultList();
+        // Les entités Colis éventuellement chargées portent l'ancien statut et l'ancienne version
+        entityManager.clear();
+        if (lignes.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] ligne = (Object[]) lignes.get(0);
+        return Optional.of(new EtatColis(id, StatutColis.valueOf(ligne[0].toString()),
+                (String) ligne[1], (String) ligne[2], (String) ligne[3], ((Number) ligne[4]).longValue()));
+    }
+
+    private boolean postgresql() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+
+    private record EtatColis(String id, StatutColis statut, String livreurId, String clientExpediteurId, String zoneId,
+                             Long version) implements ColisStatutProjection {
+
+        public String getId() { return id; }
+        public StatutColis getStatut() { return statut; }
+        public String getLivreurId() { return livreurId; }
+        public String getClientExpediteurId() { return clientExpediteurId; }
+        public String getZoneId() { return zoneId; }
+        public Long getVersion() { return version; }
+    }
+}
@@ -0,0 +1,104 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.DTO.ColisFiltre;
+import com.smartlogi.sdms.enums.PrioriteColis;
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.model.Colis;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Specifications JPA pour la recherche de colis (utilisées via JpaSpecificationExecutor).
+ */
+public final class ColisSpecifications {
+
+    /**
+     * Ordre stable de la pagination keyset : les plus récents d'abord, l'ID départage les égalités de date.
+     */
+    public static final Sort TRI_KEYSET = Sort.by(Sort.Order.desc("dateCreation"), Sort.Order.desc("id"));
+
+    private ColisSpecifications() {
+    }
+
+    public static Specification<Colis> avecFiltre(ColisFiltre filtre) {
+        List<Specification<Colis>> specs = new ArrayList<>();
+        if (filtre != null) {
+            if (filtre.getStatut() != null) specs.add(statut(filtre.getStatut()));
+            if (filtre.getPriorite() != null) specs.add(priorite(filtre.getPriorite()));
+            if (filtre.getZoneId() != null) specs.add(zone(filtre.getZoneId()));
+            if (filtre.getLivreurId() != null) specs.add(livreur(filtre.getLivreurId()));
+            if (filtre.getVilleDestination() != null) specs.add(villeDestination(filtre.getVilleDestination()));
+        }
+        return Specification.allOf(specs);
+    }
+
+    public static Specification<Colis> ids(Collection<String> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    public static Specification<Colis> statut(StatutColis statut) {
+        return (root, query, cb) -> cb.equal(root.get("statut"), statut);
+    }
+
+    public static Specification<Colis> priorite(PrioriteColis priorite) {
+        return (root, query, cb) -> cb.equal(root.get("priorite"), priorite);
+    }
+
+    // Accès direct à la colonne FK (zone_id / livreur_id) : pas de jointure générée.
+    // Un ID qui n'est pas un UUID ne correspond à aucun colis (liste vide plutôt qu'une erreur SQL).
+    public static Specification<Colis> zone(String zoneId) {
+        return (root, query, cb) -> Identifiants.estValide(zoneId)
+                ? cb.equal(root.get("zone").get("id"), zoneId)
+                : cb.disjunction();
+    }
+
+    public static Specification<Colis> livreur(String livreurId) {
+        return (root, query, cb) -> Identifiants.estValide(livreurId)
+                ? cb.equal(root.get("livreur").get("id"), livreurId)
+                : cb.disjunction();
+    }
+
+    // Colonne FK client_expediteur_id : index idx_colis_client_date, dans l'ordre de TRI_KEYSET
+    public static Specification<Colis> clientExpediteur(String clientId) {
+        return (root, query, cb) -> Identifiants.estValide(clientId)
+                ? cb.equal(root.get("clientExpediteur").get("id"), clientId)
+                : cb.disjunction();
+    }
+
+    public static Specification<Colis> statuts(Collection<StatutColis> statuts) {
+        return (root, query, cb) -> root.get("statut").in(statuts);
+    }
+
+    // Intervalle de création [du, au[ ; une borne nulle n'est pas appliquée
+    public static Specification<Colis> creeEntre(LocalDateTime du, LocalDateTime au) {
+        return (root, query, cb) -> {
+            List<Predicate> bornes = new ArrayList<>(2);
+            if (du != null) bornes.add(cb.greaterThanOrEqualTo(root.get("dateCreation"), du));
+            if (au != null) bornes.add(cb.lessThan(root.get("dateCreation"), au));
+            return cb.and(bornes.toArray(Predicate[]::new));
+        };
+    }
+
+    public static Specification<Colis> villeDestination(String ville) {
+        return (root, query, cb) -> cb.equal(root.get("villeDestination"), ville);
+    }
+
+    /**
+     * Condition keyset : (date_creation, id) strictement "après" le curseur dans l'ordre {@link #TRI_KEYSET}.
+     */
+    public static Specification<Colis> apresCurseur(CurseurColis curseur) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("dateCreation"), curseur.dateCreation()),
+                cb.and(
+                        cb.equal(root.get("dateCreation"), curseur.dateCreation()),
+                        cb.lessThan(root.get("id"), curseur.id())
+                )
+        );
+    }
+}
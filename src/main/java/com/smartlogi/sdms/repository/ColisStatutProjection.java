@@ -0,0 +1,26 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.enums.StatutColis;
+
+/**
+ * Projection minimale d'un colis (ID, statut, acteurs), utilisée par les traitements en lot.
+ */
+public interface ColisStatutProjection {
+
+    String getId();
+
+    StatutColis getStatut();
+
+    String getLivreurId();
+
+    String getClientExpediteurId();
+
+    String getZoneId();
+
+    /**
+     * Version atteinte par le colis, renseignée par {@link ColisRepositoryCustom#changerStatut} uniquement.
+     */
+    default Long getVersion() {
+        return null;
+    }
+}
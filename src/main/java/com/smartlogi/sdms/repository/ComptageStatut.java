@@ -0,0 +1,13 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.enums.StatutColis;
+
+/**
+ * Nombre de colis par statut, résultat d'un GROUP BY sur colis.
+ */
+public interface ComptageStatut {
+
+    StatutColis getStatut();
+
+    long getNombre();
+}
@@ -0,0 +1,15 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.enums.StatutColis;
+
+/**
+ * Nombre de colis par (zone, statut), résultat d'un GROUP BY sur colis.
+ */
+public interface ComptageZoneStatut {
+
+    String getZoneId();
+
+    StatutColis getStatut();
+
+    long getNombre();
+}
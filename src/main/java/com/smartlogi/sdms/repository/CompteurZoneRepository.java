@@ -0,0 +1,10 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.model.CompteurZone;
+import com.smartlogi.sdms.model.CompteurZoneId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CompteurZoneRepository extends JpaRepository<CompteurZone, CompteurZoneId> {
+}
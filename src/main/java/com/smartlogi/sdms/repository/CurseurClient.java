@@ -0,0 +1,38 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.DTO.ClientExpéditeurDto;
+import com.smartlogi.sdms.exception.RequeteInvalideException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position d'un client dans l'ordre de pagination de la recherche (id ASC, UUID v7 : ordre de création).
+ * Sérialisé en Base64 pour rester opaque côté client.
+ */
+public record CurseurClient(String id) {
+
+    public static CurseurClient depuis(ClientExpéditeurDto client) {
+        return new CurseurClient(client.getId());
+    }
+
+    public String encoder() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws RequeteInvalideException si le curseur n'a pas été produit par {@link #encoder()}.
+     */
+    public static CurseurClient decoder(String curseur) {
+        String id;
+        try {
+            id = new String(Base64.getUrlDecoder().decode(curseur), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) { // Base64 illisible
+            throw new RequeteInvalideException("Curseur de pagination invalide: " + curseur, e);
+        }
+        if (!Identifiants.estValide(id)) {
+            throw new RequeteInvalideException("Curseur de pagination invalide: " + curseur);
+        }
+        return new CurseurClient(id);
+    }
+}
@@ -0,0 +1,48 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.DTO.ColisDto;
+import com.smartlogi.sdms.exception.RequeteInvalideException;
+import com.smartlogi.sdms.model.Colis;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position d'un colis dans l'ordre de pagination (date_creation DESC, id DESC).
+ * Sérialisé en Base64 pour rester opaque côté client.
+ */
+public record CurseurColis(LocalDateTime dateCreation, String id) {
+
+    private static final String SEPARATEUR = "|";
+
+    public static CurseurColis depuis(Colis colis) {
+        return new CurseurColis(colis.getDateCreation(), colis.getId());
+    }
+
+    public static CurseurColis depuis(ColisDto colis) {
+        return new CurseurColis(colis.getDateCreation(), colis.getId());
+    }
+
+    public String encoder() {
+        String brut = dateCreation + SEPARATEUR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(brut.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws RequeteInvalideException si le curseur n'a pas été produit par {@link #encoder()}.
+     */
+    public static CurseurColis decoder(String curseur) {
+        try {
+            String brut = new String(Base64.getUrlDecoder().decode(curseur), StandardCharsets.UTF_8);
+            int index = brut.indexOf(SEPARATEUR);
+            if (index <= 0 || !Identifiants.estValide(brut.substring(index + 1))) {
+                throw new RequeteInvalideException("Curseur de pagination invalide: " + curseur);
+            }
+            return new CurseurColis(LocalDateTime.parse(brut.substring(0, index)), brut.substring(index + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) { // Base64, date ou nombre illisibles
+            throw new RequeteInvalideException("Curseur de pagination invalide: " + curseur, e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.DTO.HistoriqueLivraisonDto;
+import com.smartlogi.sdms.exception.RequeteInvalideException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position d'une étape dans l'ordre de pagination de l'historique (date_changement DESC, id DESC).
+ * Sérialisé en Base64 pour rester opaque côté client.
+ */
+public record CurseurHistorique(LocalDateTime dateChangement, String id) {
+
+    private static final String SEPARATEUR = "|";
+
+    public static CurseurHistorique depuis(HistoriqueLivraisonDto historique) {
+        return new CurseurHistorique(historique.getDateChangement(), historique.getId());
+    }
+
+    public String encoder() {
+        String brut = dateChangement + SEPARATEUR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(brut.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws RequeteInvalideException si le curseur n'a pas été produit par {@link #encoder()}.
+     */
+    public static CurseurHistorique decoder(String curseur) {
+        try {
+            String brut = new String(Base64.getUrlDecoder().decode(curseur), StandardCharsets.UTF_8);
+            int index = brut.indexOf(SEPARATEUR);
+            if (index <= 0 || !Identifiants.estValide(brut.substring(index + 1))) {
+                throw new RequeteInvalideException("Curseur de pagination invalide: " + curseur);
+            }
+            return new CurseurHistorique(LocalDateTime.parse(brut.substring(0, index)), brut.substring(index + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) { // Base64, date ou nombre illisibles
+            throw new RequeteInvalideException("Curseur de pagination invalide: " + curseur, e);
+        }
+    }
+}
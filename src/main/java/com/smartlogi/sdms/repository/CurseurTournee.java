@@ -0,0 +1,53 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.DTO.ColisLivreurDto;
+import com.smartlogi.sdms.enums.PrioriteColis;
+import com.smartlogi.sdms.exception.RequeteInvalideException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position d'un colis dans la liste d'un livreur : priorité (la plus urgente d'abord), puis date_creation
+ * et id croissants. Sérialisé en Base64 pour rester opaque côté client.
+ */
+public record CurseurTournee(int rangPriorite, LocalDateTime dateCreation, String id) {
+
+    private static final String SEPARATEUR = "|";
+
+    /**
+     * Rang de tri d'une priorité : 0 pour URGENTE, puis dans l'ordre décroissant ; sans priorité en dernier.
+     */
+    public static int rang(PrioriteColis priorite) {
+        int nombre = PrioriteColis.values().length;
+        return priorite == null ? nombre : nombre - 1 - priorite.ordinal();
+    }
+
+    public static CurseurTournee depuis(ColisLivreurDto colis) {
+        PrioriteColis priorite = colis.getPriorite() != null ? PrioriteColis.valueOf(colis.getPriorite()) : null;
+        return new CurseurTournee(rang(priorite), colis.getDateCreation(), colis.getId());
+    }
+
+    public String encoder() {
+        String brut = rangPriorite + SEPARATEUR + dateCreation + SEPARATEUR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(brut.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws RequeteInvalideException si le curseur n'a pas été produit par {@link #encoder()}.
+     */
+    public static CurseurTournee decoder(String curseur) {
+        try {
+            String brut = new String(Base64.getUrlDecoder().decode(curseur), StandardCharsets.UTF_8);
+            String[] parties = brut.split("\\" + SEPARATEUR, -1);
+            if (parties.length != 3 || !Identifiants.estValide(parties[2])) {
+                throw new RequeteInvalideException("Curseur de pagination invalide: " + curseur);
+            }
+            return new CurseurTournee(Integer.parseInt(parties[0]), LocalDateTime.parse(parties[1]), parties[2]);
+        } catch (IllegalArgumentException | DateTimeParseException e) { // Base64, date ou nombre illisibles
+            throw new RequeteInvalideException("Curseur de pagination invalide: " + curseur, e);
+        }
+    }
+}
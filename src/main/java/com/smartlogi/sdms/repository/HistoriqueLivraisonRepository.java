@@ -2,19 +2,46 @@ package com.smartlogi.sdms.repository;
 
 import com.smartlogi.sdms.model.HistoriqueLivraison;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 // Suppression de l'import java.util.UUID
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 // CORRECTION CLÉ : Remplacer UUID par String pour la PK
-public interface HistoriqueLivraisonRepository extends JpaRepository<HistoriqueLivraison, String> {
+public interface HistoriqueLivraisonRepository extends JpaRepository<HistoriqueLivraison, String>, HistoriqueLivraisonRepositoryCustom {
 
     /**
      * Méthode pour obtenir tout l'historique d'un colis spécifique
+     * (non bornée : l'API expose la version paginée, voir ColisService.getHistorique)
      * @param colisId L'ID du colis (String)
      */
     // CORRECTION : Le paramètre colisId doit être String
     List<HistoriqueLivraison> findByColisIdOrderByDateChangementDesc(String colisId);
-}
\ No newline at end of file
+
+    /**
+     * Historique d'une opération en lot : un seul INSERT ... SELECT pour tous les colis concernés,
+     * l'état enregistré étant relu depuis la table colis (à appeler après la mise à jour en lot).
+     * Les IDs sont générés par la base (uuid_aleatoire, voir FonctionsSqlContributor).
+     * @return Le nombre de lignes d'historique insérées.
+     */
+    @Modifying
+    @Query("insert into HistoriqueLivraison (id, colis, statut, dateChangement, commentaire) "
+            + "select uuid_aleatoire(), c, cast(c.statut as String), :date, :commentaire from Colis c where c.id in :colisIds")
+    int insererPourColis(@Param("colisIds") Collection<String> colisIds, @Param("date") LocalDateTime date,
+                         @Param("commentaire") String commentaire);
+
+    /**
+     * Historique complet d'un ensemble de colis en une requête IN (archivage).
+     */
+    List<HistoriqueLivraison> findByColisIdInOrderByDateChangementAsc(Collection<String> colisIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from HistoriqueLivraison h where h.colis.id in :colisIds")
+    int supprimerPourColis(@Param("colisIds") Collection<String> colisIds);
+}
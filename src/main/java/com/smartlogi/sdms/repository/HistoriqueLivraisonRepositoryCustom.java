@@ -0,0 +1,23 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.DTO.HistoriqueLivraisonDto;
+import com.smartlogi.sdms.model.HistoriqueLivraison;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Requêtes de HistoriqueLivraisonRepository qui ne peuvent pas être dérivées par Spring Data :
+ * projections DTO combinées aux Specifications.
+ */
+public interface HistoriqueLivraisonRepositoryCustom {
+
+    /**
+     * Construit directement les HistoriqueLivraisonDto, sans charger l'entité Colis associée.
+     * @param spec Filtres à appliquer.
+     * @param tri Ordre des résultats.
+     * @param limite Nombre maximal de lignes lues.
+     */
+    List<HistoriqueLivraisonDto> findDtoBy(Specification<HistoriqueLivraison> spec, Sort tri, int limite);
+}
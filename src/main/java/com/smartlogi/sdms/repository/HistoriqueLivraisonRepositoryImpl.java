@@ -0,0 +1,47 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.DTO.HistoriqueLivraisonDto;
+import com.smartlogi.sdms.model.HistoriqueLivraison;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+/**
+ * Implémentation du fragment {@link HistoriqueLivraisonRepositoryCustom} (détectée par le suffixe "Impl").
+ */
+class HistoriqueLivraisonRepositoryImpl implements HistoriqueLivraisonRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<HistoriqueLivraisonDto> findDtoBy(Specification<HistoriqueLivraison> spec, Sort tri, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<HistoriqueLivraisonDto> query = cb.createQuery(HistoriqueLivraisonDto.class);
+        Root<HistoriqueLivraison> historique = query.from(HistoriqueLivraison.class);
+
+        query.select(cb.construct(HistoriqueLivraisonDto.class,
+                historique.get("id"),
+                historique.get("statut"),
+                historique.get("dateChangement"),
+                historique.get("commentaire")));
+
+        Predicate predicate = spec.toPredicate(historique, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(tri, historique, cb));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+}
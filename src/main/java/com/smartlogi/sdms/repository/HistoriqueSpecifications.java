@@ -0,0 +1,55 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.model.HistoriqueLivraison;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Specifications JPA pour la lecture paginée de l'historique d'un colis.
+ */
+public final class HistoriqueSpecifications {
+
+    /**
+     * Ordre de la frise : les étapes les plus récentes d'abord, l'ID départage les égalités de date.
+     * Servi par l'index idx_historique_colis_date_id (colis_id, date_changement DESC, id DESC).
+     */
+    public static final Sort TRI_KEYSET = Sort.by(Sort.Order.desc("dateChangement"), Sort.Order.desc("id"));
+
+    private HistoriqueSpecifications() {
+    }
+
+    // Accès direct à la colonne FK colis_id : ni jointure ni chargement du Colis.
+    public static Specification<HistoriqueLivraison> colis(String colisId) {
+        return (root, query, cb) -> cb.equal(root.get("colis").get("id"), colisId);
+    }
+
+    /**
+     * Étapes postérieures à la date donnée (delta depuis le dernier poll du client).
+     */
+    public static Specification<HistoriqueLivraison> depuis(LocalDateTime date) {
+        return (root, query, cb) -> cb.greaterThan(root.get("dateChangement"), date);
+    }
+
+    /**
+     * Étapes datées à partir de la date donnée incluse (borne inférieure par défaut : création du colis).
+     * Sur la table partitionnée par mois, limite la lecture aux partitions postérieures à cette date.
+     */
+    public static Specification<HistoriqueLivraison> aPartirDe(LocalDateTime date) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("dateChangement"), date);
+    }
+
+    /**
+     * Condition keyset : (date_changement, id) strictement "après" le curseur dans l'ordre {@link #TRI_KEYSET}.
+     */
+    public static Specification<HistoriqueLivraison> apresCurseur(CurseurHistorique curseur) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("dateChangement"), curseur.dateChangement()),
+                cb.and(
+                        cb.equal(root.get("dateChangement"), curseur.dateChangement()),
+                        cb.lessThan(root.get("id"), curseur.id())
+                )
+        );
+    }
+}
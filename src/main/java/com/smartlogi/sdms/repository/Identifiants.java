@@ -0,0 +1,35 @@
+package com.smartlogi.sdms.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Format des identifiants : UUID sous forme textuelle côté API, colonnes uuid natives en base.
+ * Une chaîne qui n'est pas un UUID ne désigne aucune ligne ; les recherches groupées l'écartent
+ * avant la requête, PostgreSQL rejetant sinon la requête entière (invalid input syntax for type uuid).
+ */
+public final class Identifiants {
+
+    private static final Pattern UUID = Pattern.compile(
+            "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    private Identifiants() {
+    }
+
+    public static boolean estValide(String id) {
+        return id != null && UUID.matcher(id).matches();
+    }
+
+    /**
+     * L'ID s'il est valide, vide sinon : une recherche par ID ne lie jamais une chaîne qui n'est pas un UUID.
+     */
+    public static Optional<String> valide(String id) {
+        return estValide(id) ? Optional.of(id) : Optional.empty();
+    }
+
+    public static List<String> valides(Collection<String> ids) {
+        return ids.stream().filter(Identifiants::estValide).toList();
+    }
+}
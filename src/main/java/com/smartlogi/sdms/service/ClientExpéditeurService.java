@@ -1,24 +1,42 @@
 package com.smartlogi.sdms.service;
 
 import com.smartlogi.sdms.DTO.ClientExpéditeurDto;
+import com.smartlogi.sdms.DTO.PageCurseurDto;
+import com.smartlogi.sdms.DTO.ReferenceDto;
+import com.smartlogi.sdms.config.CacheConfig;
+import com.smartlogi.sdms.exception.RequeteInvalideException;
 import com.smartlogi.sdms.mapper.ClientExpéditeurMapper;
 import com.smartlogi.sdms.model.ClientExpéditeur;
 import com.smartlogi.sdms.repository.ClientExpéditeurRepository;
+import com.smartlogi.sdms.repository.ClientExpéditeurSpecifications;
+import com.smartlogi.sdms.repository.CurseurClient;
+import com.smartlogi.sdms.repository.Identifiants;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 // Suppression de l'import java.util.UUID car il n'est plus utilisé comme argument
 // Note: Il n'est pas utilisé non plus pour la génération d'ID ici, car le code
 // utilise this.id = java.util.UUID.randomUUID().toString() dans l'Entité via @PrePersist.
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ClientExpéditeurService {
 
+    static final int TAILLE_PAGE_MAX = 100;
+    static final int LONGUEUR_MIN_RECHERCHE = 3;
+
     private final ClientExpéditeurRepository clientExpéditeurRepository;
     private final ClientExpéditeurMapper clientExpéditeurMapper;
 
@@ -54,13 +72,37 @@ public class ClientExpéditeurService {
     // FETCH ENTITY (pour usage interne, ex: dans ColisService)
     // CORRECTION : Le paramètre id doit être String
     public ClientExpéditeur getClientEntityById(String id) {
-        return clientExpéditeurRepository.findById(id)
+        return Identifiants.valide(id).flatMap(clientExpéditeurRepository::findById)
                 .orElseThrow(() -> new EntityNotFoundException("Client expéditeur non trouvé avec l'ID: " + id));
     }
 
+    // RÉSUMÉ EN CACHE (validation des FKs à la création de colis, sans relire l'entité)
+    // Les IDs inconnus lèvent EntityNotFoundException et ne sont pas mis en cache
+    @Cacheable(cacheNames = CacheConfig.CACHE_CLIENTS, key = "#id", sync = true)
+    public ReferenceDto getClientReference(String id) {
+        ClientExpéditeur client = getClientEntityById(id);
+        return new ReferenceDto(client.getId(), client.getNom());
+    }
+
+    // PROXY JPA (FK seule, sans SELECT) pour un client dont l'existence est déjà connue
+    public ClientExpéditeur getClientProxy(String id) {
+        return clientExpéditeurRepository.getReferenceById(id);
+    }
+
+    // FETCH ENTITIES EN LOT (une seule requête IN, les IDs inexistants sont absents de la Map)
+    public Map<String, ClientExpéditeur> getClientEntitiesByIds(Collection<String> ids) {
+        return clientExpéditeurRepository.findAllById(Identifiants.valides(ids)).stream()
+                .collect(Collectors.toMap(ClientExpéditeur::getId, Function.identity()));
+    }
+
 
     // UPDATE
     // CORRECTION : Le paramètre id doit être String
+    // Le nom du client est recopié dans les ColisDto en cache : tout le cache de suivi est vidé (mise à jour rare)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CACHE_CLIENTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CACHE_COLIS, allEntries = true)
+    })
     public ClientExpéditeurDto updateClient(String id, ClientExpéditeurDto clientDto) {
         // L'appel findById(id) est maintenant correct car id est un String
         ClientExpéditeur existingClient = clientExpéditeurRepository.findById(id)
@@ -85,6 +127,7 @@ public class ClientExpéditeurService {
 
     // DELETE
     // CORRECTION : Le paramètre id doit être String
+    @CacheEvict(cacheNames = CacheConfig.CACHE_CLIENTS, key = "#id")
     public void deleteClient(String id) {
         // L'appel existsById(id) et deleteById(id) sont maintenant corrects
         if (!clientExpéditeurRepository.existsById(id)) {
@@ -93,13 +136,48 @@ public class ClientExpéditeurService {
         clientExpéditeurRepository.deleteById(id);
     }
 
-    // NOUVELLE MÉTHODE (Pour le moment, nous laissons la logique de filtrage inefficace pour ne pas modifier le code métier existant,
-    // mais elle sera revue lors de la tâche de filtration avancée.)
-    public List<ClientExpéditeurDto> afficherClient(String adress){
-        List<ClientExpéditeur> clients = clientExpéditeurRepository.findAll();
-        return clients.stream()
-                .filter(client -> adress.equals(client.getAdresse()))
-                .map(client -> clientExpéditeurMapper.toDto(client))
-                .toList();
+    // RECHERCHE (préfixe d'adresse et/ou terme approché sur nom, prénom, email)
+    // Requête indexée (trigrammes pg_trgm, changeset 011-2) paginée par curseur sur l'ID : ni findAll, ni COUNT
+    /**
+     * @param adresse Début de l'adresse, sans tenir compte de la casse (optionnel).
+     * @param terme Terme cherché dans le nom, le prénom ou l'email, tolérant aux fautes de frappe (optionnel).
+     * @param curseur Curseur renvoyé par la page précédente (null pour la première page).
+     * @param taille Nombre d'éléments demandés (borné à {@link #TAILLE_PAGE_MAX}).
+     * @throws RequeteInvalideException si un critère fourni compte moins de {@link #LONGUEUR_MIN_RECHERCHE}
+     *         caractères (trop peu de trigrammes pour que l'index soit sélectif) ou si le curseur est invalide.
+     */
+    public PageCurseurDto<ClientExpéditeurDto> rechercherClients(String adresse, String terme, String curseur, int taille) {
+        int tailleEffective = Math.max(1, Math.min(taille, TAILLE_PAGE_MAX));
+
+        List<Specification<ClientExpéditeur>> specs = new ArrayList<>(3);
+        if (adresse != null && !adresse.isBlank()) {
+            specs.add(ClientExpéditeurSpecifications.adresseCommencePar(critere("adresse", adresse)));
+        }
+        if (terme != null && !terme.isBlank()) {
+            specs.add(ClientExpéditeurSpecifications.ressembleA(critere("terme", terme)));
+        }
+        if (curseur != null && !curseur.isBlank()) {
+            specs.add(ClientExpéditeurSpecifications.apresCurseur(CurseurClient.decoder(curseur)));
+        }
+
+        // On lit un élément de plus pour savoir s'il existe une page suivante, sans requête COUNT
+        List<ClientExpéditeur> clients = clientExpéditeurRepository.findBy(Specification.allOf(specs),
+                requete -> requete.sortBy(ClientExpéditeurSpecifications.TRI_KEYSET).limit(tailleEffective + 1).all());
+        List<ClientExpéditeurDto> resultats = clientExpéditeurMapper.toDto(clients);
+
+        boolean pageSuivante = resultats.size() > tailleEffective;
+        List<ClientExpéditeurDto> page = pageSuivante ? resultats.subList(0, tailleEffective) : resultats;
+        String curseurSuivant = pageSuivante ? CurseurClient.depuis(page.get(page.size() - 1)).encoder() : null;
+
+        return new PageCurseurDto<>(page, curseurSuivant);
+    }
+
+    private static String critere(String nom, String valeur) {
+        String nettoye = valeur.strip();
+        if (nettoye.length() < LONGUEUR_MIN_RECHERCHE) {
+            throw new RequeteInvalideException("Le critère '" + nom + "' doit contenir au moins "
+                    + LONGUEUR_MIN_RECHERCHE + " caractères.");
+        }
+        return nettoye;
     }
-}
\ No newline at end of file
+}
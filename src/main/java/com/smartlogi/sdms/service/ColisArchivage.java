@@ -0,0 +1,189 @@
+package com.smartlogi.sdms.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartlogi.sdms.DTO.ColisArchiveDto;
+import com.smartlogi.sdms.DTO.ColisDto;
+import com.smartlogi.sdms.DTO.HistoriqueLivraisonDto;
+import com.smartlogi.sdms.config.ColisArchivageProperties;
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.model.Colis;
+import com.smartlogi.sdms.model.ColisArchive;
+import com.smartlogi.sdms.model.HistoriqueLivraison;
+import com.smartlogi.sdms.repository.ColisArchiveRepository;
+import com.smartlogi.sdms.repository.ColisRepository;
+import com.smartlogi.sdms.repository.ColisSpecifications;
+import com.smartlogi.sdms.repository.HistoriqueLivraisonRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archivage des colis en statut final (LIVRE, ANNULE) hors des tables de travail.
+ * <p>
+ * Par lots bornés, chacun dans sa propre transaction : les colis dont la dernière étape est plus
+ * ancienne que {@code sdms.colis.archivage.age-minimum} sont copiés, avec leur historique et leurs
+ * produits, dans colis_archive (un document JSON compressé par colis), puis supprimés de colis,
+ * historique_livraison et colis_produit. Le nombre de requêtes par lot est constant.
+ * Les colis archivés restent consultables via {@link #trouver(String)} (lecture de secours de
+ * ColisService.getColisById).
+ */
+@Slf4j
+@Service
+@EnableScheduling
+@EnableConfigurationProperties(ColisArchivageProperties.class)
+public class ColisArchivage {
+
+    private static final Set<StatutColis> STATUTS_ARCHIVABLES = EnumSet.of(StatutColis.LIVRE, StatutColis.ANNULE);
+
+    private final ColisArchivageProperties proprietes;
+    private final ColisRepository colisRepository;
+    private final HistoriqueLivraisonRepository historiqueRepository;
+    private final ColisArchiveRepository archiveRepository;
+    private final ObjectMapper objectMapper;
+    private final CompteursZones compteursZones;
+    private final TransactionTemplate transactionTemplate;
+
+    public ColisArchivage(ColisArchivageProperties proprietes, ColisRepository colisRepository,
+                          HistoriqueLivraisonRepository historiqueRepository, ColisArchiveRepository archiveRepository,
+                          ObjectMapper objectMapper, CompteursZones compteursZones,
+                          PlatformTransactionManager transactionManager) {
+        this.proprietes = proprietes;
+        this.colisRepository = colisRepository;
+        this.historiqueRepository = historiqueRepository;
+        this.archiveRepository = archiveRepository;
+        this.objectMapper = objectMapper;
+        this.compteursZones = compteursZones;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ============================================
+    // LECTURE DES ARCHIVES
+    // ============================================
+
+    /**
+     * État final d'un colis archivé.
+     * @return Vide si le colis n'a pas été archivé.
+     */
+    public Optional<ColisDto> trouver(String id) {
+        return archiveRepository.findById(id).map(archive -> lire(archive).getColis());
+    }
+
+    /**
+     * Décompresse le contenu complet d'une archive (état final, historique, produits).
+     */
+    public ColisArchiveDto lire(ColisArchive archive) {
+        try (InputStream entree = new GZIPInputStream(new ByteArrayInputStream(archive.getContenu()))) {
+            return objectMapper.readValue(entree, ColisArchiveDto.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Archive illisible pour le colis " + archive.getId(), e);
+        }
+    }
+
+    // ============================================
+    // JOB D'ARCHIVAGE
+    // ============================================
+
+    @Scheduled(fixedDelayString = "${sdms.colis.archivage.intervalle:PT1H}")
+    public void archiver() {
+        if (!proprietes.isEnabled()) {
+            return;
+        }
+        LocalDateTime limite = LocalDateTime.now().minus(proprietes.getAgeMinimum());
+        int total = 0;
+        for (int lot = 0; lot < proprietes.getLotsMaxParPasse(); lot++) {
+            int archives = archiverUnLot(limite);
+            total += archives;
+            if (archives < proprietes.getTailleLot()) {
+                break; // Plus rien à archiver
+            }
+        }
+        if (total > 0) {
+            log.info("{} colis archivés (dernière étape antérieure au {})", total, limite);
+        }
+    }
+
+    /**
+     * Archive au plus un lot de colis, dans une transaction.
+     * @param limite Date avant laquelle le colis doit avoir atteint son statut final.
+     * @return Le nombre de colis archivés.
+     */
+    public int archiverUnLot(LocalDateTime limite) {
+        Integer archives = transactionTemplate.execute(statut -> {
+            List<Colis> colis = colisRepository.findArchivables(STATUTS_ARCHIVABLES, limite,
+                    PageRequest.of(0, proprietes.getTailleLot()));
+            if (colis.isEmpty()) {
+                return 0;
+            }
+            List<String> ids = colis.stream().map(Colis::getId).toList();
+
+            // 1. Lecture groupée : une requête par table
+            Map<String, ColisDto> dtos = colisRepository.findDtoBy(ColisSpecifications.ids(ids),
+                            ColisSpecifications.TRI_KEYSET, ids.size()).stream()
+                    .collect(Collectors.toMap(ColisDto::getId, dto -> dto));
+            Map<String, List<HistoriqueLivraisonDto>> historiques = historiqueRepository
+                    .findByColisIdInOrderByDateChangementAsc(ids).stream()
+                    .collect(Collectors.groupingBy(h -> h.getColis().getId(), Collectors.mapping(
+                            ColisArchivage::versDto, Collectors.toList())));
+            Map<String, List<ColisArchiveDto.Produit>> produits = colisRepository.findProduitsByColisIds(ids).stream()
+                    .collect(Collectors.groupingBy(p -> p.getId().getColisId(), Collectors.mapping(
+                            p -> new ColisArchiveDto.Produit(p.getId().getProduitId(), p.getQuantite(),
+                                    p.getPrixUnitaire(), p.getDateAjout()), Collectors.toList())));
+
+            // 2. Écriture des archives (INSERT par lots JDBC)
+            LocalDateTime maintenant = LocalDateTime.now();
+            List<ColisArchive> archivesLot = new ArrayList<>(colis.size());
+            for (Colis c : colis) {
+                ColisArchiveDto contenu = new ColisArchiveDto(dtos.get(c.getId()),
+                        historiques.getOrDefault(c.getId(), List.of()), produits.getOrDefault(c.getId(), List.of()));
+                archivesLot.add(new ColisArchive(c.getId(), c.getStatut().name(), c.getDateCreation(), maintenant,
+                        compresser(contenu)));
+            }
+            archiveRepository.saveAll(archivesLot);
+            colis.forEach(c -> compteursZones.retirer(c.getZone().getId(), c.getStatut()));
+
+            // 3. Suppressions ensemblistes, dépendances d'abord
+            historiqueRepository.supprimerPourColis(ids);
+            colisRepository.supprimerProduits(ids);
+            colisRepository.supprimerParIds(ids);
+            return ids.size();
+        });
+        return archives != null ? archives : 0;
+    }
+
+    private static HistoriqueLivraisonDto versDto(HistoriqueLivraison historique) {
+        return new HistoriqueLivraisonDto(historique.getId(), historique.getStatut(),
+                historique.getDateChangement(), historique.getCommentaire());
+    }
+
+    private byte[] compresser(ColisArchiveDto contenu) {
+        ByteArrayOutputStream octets = new ByteArrayOutputStream();
+        try (OutputStream sortie = new GZIPOutputStream(octets)) {
+            objectMapper.writeValue(sortie, contenu);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return octets.toByteArray();
+    }
+}
@@ -0,0 +1,144 @@
+package com.smartlogi.sdms.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.smartlogi.sdms.DTO.ColisDto;
+import com.smartlogi.sdms.DTO.ColisFiltre;
+import com.smartlogi.sdms.config.ColisExportProperties;
+import com.smartlogi.sdms.enums.FormatFichier;
+import com.smartlogi.sdms.exception.RequeteInvalideException;
+import com.smartlogi.sdms.model.Colis;
+import com.smartlogi.sdms.repository.ColisRepository;
+import com.smartlogi.sdms.repository.ColisSpecifications;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Export de tous les colis correspondant à un filtre (rapprochement comptable), en NDJSON ou CSV.
+ * <p>
+ * Les lignes sont lues par un curseur JDBC en avant seulement ({@code sdms.colis.export.taille-fetch}
+ * lignes par aller-retour) et écrites au fil de l'eau dans la réponse : ni la liste des colis ni le
+ * document complet ne sont construits en mémoire, quelle que soit la volumétrie.
+ */
+@Service
+@RequiredArgsConstructor
+@EnableConfigurationProperties(ColisExportProperties.class)
+public class ColisExport {
+
+    // Ordre de la clé primaire (UUIDv7, donc ~ordre de création) : parcours d'index, pas de tri en base
+    private static final Sort TRI_EXPORT = Sort.by("id");
+
+    private static final int TAILLE_TAMPON = 64 * 1024;
+
+    private static final String ENTETE_CSV = "id,description,poids,statut,priorite,ville_destination,"
+            + "date_creation,livreur_id,client_expediteur,zone";
+
+    private final ColisExportProperties proprietes;
+    private final ColisRepository colisRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Écrit les colis dans le flux de sortie, ligne par ligne.
+     * @param filtre Filtres optionnels (statut, priorité, zone, livreur, ville).
+     * @param du Optionnel : date de création minimale (incluse).
+     * @param au Optionnel : date de création maximale (exclue).
+     * @return Le nombre de colis exportés.
+     */
+    @Transactional(readOnly = true)
+    public long exporter(ColisFiltre filtre, LocalDateTime du, LocalDateTime au, FormatFichier format,
+                         OutputStream sortie) throws IOException {
+        verifierIntervalle(du, au);
+        Specification<Colis> spec = ColisSpecifications.avecFiltre(filtre)
+                .and(ColisSpecifications.creeEntre(du, au));
+
+        Writer ecrivain = new BufferedWriter(new OutputStreamWriter(sortie, StandardCharsets.UTF_8), TAILLE_TAMPON);
+        ObjectWriter json = objectMapper.writerFor(ColisDto.class);
+        if (format == FormatFichier.CSV) {
+            ecrivain.write(ENTETE_CSV);
+            ecrivain.write('\n');
+        }
+
+        long lignes = 0;
+        try (Stream<ColisDto> colis = colisRepository.streamDtoBy(spec, TRI_EXPORT, proprietes.getTailleFetch())) {
+            Iterator<ColisDto> iterateur = colis.iterator();
+            while (iterateur.hasNext()) {
+                ColisDto dto = iterateur.next();
+                if (format == FormatFichier.CSV) {
+                    ecrireCsv(ecrivain, dto);
+                } else {
+                    ecrivain.write(json.writeValueAsString(dto));
+                }
+                ecrivain.write('\n');
+                // Envoi régulier : le client reçoit les données au fil de l'eau
+                if (++lignes % proprietes.getLignesParEnvoi() == 0) {
+                    ecrivain.flush();
+                }
+            }
+        }
+        ecrivain.flush();
+        return lignes;
+    }
+
+    /**
+     * À appeler avant d'écrire les en-têtes de la réponse : une erreur peut encore être renvoyée en 400.
+     */
+    public static void verifierIntervalle(LocalDateTime du, LocalDateTime au) {
+        if (du != null && au != null && !du.isBefore(au)) {
+            throw new RequeteInvalideException("L'intervalle d'export est vide : 'du' doit précéder 'au'.");
+        }
+    }
+
+    // ============================================
+    // FORMAT CSV (RFC 4180)
+    // ============================================
+
+    private static void ecrireCsv(Writer ecrivain, ColisDto dto) throws IOException {
+        ecrivain.write(champ(dto.getId()));
+        ecrivain.write(',');
+        ecrivain.write(champ(dto.getDescription()));
+        ecrivain.write(',');
+        ecrivain.write(champ(dto.getPoids()));
+        ecrivain.write(',');
+        ecrivain.write(champ(dto.getStatut()));
+        ecrivain.write(',');
+        ecrivain.write(champ(dto.getPriorite()));
+        ecrivain.write(',');
+        ecrivain.write(champ(dto.getVilleDestination()));
+        ecrivain.write(',');
+        ecrivain.write(champ(dto.getDateCreation()));
+        ecrivain.write(',');
+        ecrivain.write(champ(dto.getLivreurId()));
+        ecrivain.write(',');
+        ecrivain.write(champ(dto.getClientExpediteurNomComplet()));
+        ecrivain.write(',');
+        ecrivain.write(champ(dto.getZoneNom()));
+    }
+
+    /**
+     * Valeur CSV : vide si null, entre guillemets (guillemets doublés) si elle contient un séparateur.
+     */
+    static String champ(Object valeur) {
+        if (valeur == null) {
+            return "";
+        }
+        String texte = valeur.toString();
+        if (texte.indexOf(',') < 0 && texte.indexOf('"') < 0 && texte.indexOf('\n') < 0 && texte.indexOf('\r') < 0) {
+            return texte;
+        }
+        return '"' + texte.replace("\"", "\"\"") + '"';
+    }
+}
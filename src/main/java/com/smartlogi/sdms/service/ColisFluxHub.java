@@ -0,0 +1,289 @@
+package com.smartlogi.sdms.service;
+
+import com.smartlogi.sdms.DTO.ColisFluxFiltre;
+import com.smartlogi.sdms.config.ColisFluxProperties;
+import com.smartlogi.sdms.event.ColisEvenement;
+import com.smartlogi.sdms.exception.CapaciteAtteinteException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Diffusion en mémoire des changements de colis vers les abonnés SSE (GET /api/colis/stream).
+ *
+ * Les connexions SSE sont asynchrones : aucun thread n'est bloqué par un abonné inactif.
+ * Chaque abonné dispose d'un tampon borné ; la publication ne fait qu'y déposer l'événement
+ * et les envois sont faits par un petit pool partagé, au plus un envoi en cours par abonné.
+ * Cet envoi est le seul à manipuler l'emitter : la fermeture (complete) lui est aussi confiée,
+ * elle n'est donc jamais concurrente d'un send.
+ *
+ * Un abonné trop lent est déconnecté plutôt que de ralentir les autres : tampon plein, ou envoi
+ * bloqué au-delà de sdms.colis.flux.delai-envoi (client qui ne lit plus, socket saturé). Un envoi
+ * bloqué ne se termine qu'à l'expiration d'écriture du conteneur ; en attendant, le pool reçoit un
+ * thread de remplacement (dans la limite de threads-envoi-max) pour que les autres abonnés soient servis.
+ * L'abonné déconnecté se reconnecte et relit l'état courant via GET /api/colis/{id}.
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(ColisFluxProperties.class)
+public class ColisFluxHub {
+
+    private final ColisFluxProperties proprietes;
+    private final Executor envoi;
+    private final ScheduledExecutorService battement;
+    private final Set<Abonne> abonnes = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nombreAbonnes = new AtomicInteger();
+
+    // Envois bloqués au-delà du délai, compensés par autant de threads supplémentaires dans le pool
+    private int envoisBloques;
+
+    @Autowired
+    public ColisFluxHub(ColisFluxProperties proprietes) {
+        this(proprietes, new ThreadPoolExecutor(proprietes.getThreadsEnvoi(), proprietes.getThreadsEnvoi(),
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), fabrique("colis-flux-envoi")));
+    }
+
+    ColisFluxHub(ColisFluxProperties proprietes, Executor envoi) {
+        this.proprietes = proprietes;
+        this.envoi = envoi;
+        this.battement = Executors.newSingleThreadScheduledExecutor(fabrique("colis-flux-battement"));
+        long intervalle = proprietes.getIntervalleBattement().toMillis();
+        battement.scheduleWithFixedDelay(this::battre, intervalle, intervalle, TimeUnit.MILLISECONDS);
+        long delai = proprietes.getDelaiEnvoi().toMillis();
+        battement.scheduleWithFixedDelay(this::surveiller, delai, delai, TimeUnit.MILLISECONDS);
+    }
+
+    private static ThreadFactory fabrique(String nom) {
+        AtomicInteger compteur = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, nom + "-" + compteur.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Ouvre un abonnement filtré.
+     * @throws CapaciteAtteinteException si le nombre maximal d'abonnés est atteint.
+     */
+    public SseEmitter abonner(ColisFluxFiltre filtre) {
+        return abonner(filtre, new SseEmitter(proprietes.getDureeConnexion().toMillis()));
+    }
+
+    SseEmitter abonner(ColisFluxFiltre filtre, SseEmitter emitter) {
+        if (nombreAbonnes.incrementAndGet() > proprietes.getAbonnesMax()) {
+            nombreAbonnes.decrementAndGet();
+            throw new CapaciteAtteinteException("Nombre maximal d'abonnés au flux atteint (" + proprietes.getAbonnesMax() + ").");
+        }
+        Abonne abonne = new Abonne(emitter, filtre, new ArrayBlockingQueue<>(proprietes.getCapaciteTampon()));
+        emitter.onCompletion(() -> retirer(abonne));
+        emitter.onTimeout(() -> retirer(abonne));
+        emitter.onError(erreur -> retirer(abonne));
+        abonnes.add(abonne);
+        return emitter;
+    }
+
+    /**
+     * Diffuse un changement aux abonnés concernés, après le commit de la transaction qui l'a produit
+     * (un changement annulé n'est jamais diffusé). Ne bloque pas : dépôt dans les tampons uniquement.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void diffuser(ColisEvenement evenement) {
+        for (Abonne abonne : abonnes) {
+            if (!abonne.filtre.accepte(evenement)) {
+                continue;
+            }
+            if (abonne.tampon.offer(evenement)) {
+                planifier(abonne);
+            } else {
+                log.warn("Abonné au flux trop lent (tampon de {} événements plein) : déconnexion", proprietes.getCapaciteTampon());
+                deconnecter(abonne);
+            }
+        }
+    }
+
+    public int getNombreAbonnes() {
+        return abonnes.size();
+    }
+
+    private void battre() {
+        for (Abonne abonne : abonnes) {
+            abonne.battementDu = true;
+            planifier(abonne);
+        }
+    }
+
+    // Déconnecte les abonnés dont l'envoi en cours dépasse le délai, et compense le thread qu'ils bloquent
+    void surveiller() {
+        long limite = System.nanoTime() - proprietes.getDelaiEnvoi().toNanos();
+        for (Abonne abonne : abonnes) {
+            long debut = abonne.envoiDepuis;
+            if (debut != 0 && debut - limite < 0 && abonne.marquerBloque()) {
+                log.warn("Abonné au flux trop lent (envoi bloqué depuis plus de {}) : déconnexion", proprietes.getDelaiEnvoi());
+                ajusterPool(1);
+                deconnecter(abonne);
+            }
+        }
+    }
+
+    // La fermeture est confiée à l'envoi de l'abonné, seul à manipuler l'emitter
+    private void deconnecter(Abonne abonne) {
+        abonne.fermeture = true;
+        retirer(abonne);
+        planifier(abonne);
+    }
+
+    private void planifier(Abonne abonne) {
+        if (abonne.planifie.compareAndSet(false, true)) {
+            try {
+                envoi.execute(() -> envoyer(abonne));
+            } catch (RejectedExecutionException e) { // Arrêt en cours
+                abonne.planifie.set(false);
+            }
+        }
+    }
+
+    // Exécuté par le pool d'envoi, jamais deux fois en parallèle pour le même abonné
+    private void envoyer(Abonne abonne) {
+        try {
+            ColisEvenement evenement;
+            while (!abonne.fermeture && (evenement = abonne.tampon.poll()) != null) {
+                emettre(abonne, SseEmitter.event().name("colis").data(evenement));
+            }
+            if (!abonne.fermeture && abonne.battementDu) {
+                abonne.battementDu = false;
+                emettre(abonne, SseEmitter.event().comment("battement"));
+            }
+            if (abonne.fermeture && !abonne.termine) {
+                abonne.termine = true;
+                abonne.emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) { // Client parti ou connexion déjà terminée
+            abonne.fermeture = true;
+            abonne.termine = true;
+            abonne.emitter.completeWithError(e);
+            retirer(abonne);
+        } finally {
+            abonne.planifie.set(false);
+            // Travail déposé pendant l'envoi (événement, battement, fermeture) : nouvel envoi
+            if (!abonne.termine && (abonne.fermeture
+                    || (abonnes.contains(abonne) && (abonne.battementDu || !abonne.tampon.isEmpty())))) {
+                planifier(abonne);
+            }
+        }
+    }
+
+    private void emettre(Abonne abonne, SseEmitter.SseEventBuilder evenement) throws IOException {
+        abonne.envoiDepuis = System.nanoTime();
+        try {
+            abonne.emitter.send(evenement);
+        } finally {
+            if (abonne.terminerEnvoi()) {
+                ajusterPool(-1);
+            }
+        }
+    }
+
+    // Taille du pool : threads de base + un par envoi bloqué, bornée par threads-envoi-max
+    private synchronized void ajusterPool(int delta) {
+        envoisBloques += delta;
+        if (envoi instanceof ThreadPoolExecutor pool) {
+            int taille = Math.max(proprietes.getThreadsEnvoi(),
+                    Math.min(proprietes.getThreadsEnvoi() + envoisBloques, proprietes.getThreadsEnvoiMax()));
+            if (taille > pool.getMaximumPoolSize()) {
+                pool.setMaximumPoolSize(taille);
+                pool.setCorePoolSize(taille);
+            } else {
+                pool.setCorePoolSize(taille);
+                pool.setMaximumPoolSize(taille);
+            }
+        }
+    }
+
+    int getTaillePoolEnvoi() {
+        return envoi instanceof ThreadPoolExecutor pool ? pool.getCorePoolSize() : proprietes.getThreadsEnvoi();
+    }
+
+    private void retirer(Abonne abonne) {
+        if (abonnes.remove(abonne)) {
+            nombreAbonnes.decrementAndGet();
+        }
+    }
+
+    // Les fermetures passent par le pool d'envoi ; un envoi bloqué n'est pas attendu au-delà du délai d'envoi
+    @PreDestroy
+    public void arreter() {
+        battement.shutdownNow();
+        abonnes.forEach(this::deconnecter);
+        if (envoi instanceof ExecutorService service) {
+            service.shutdown();
+            try {
+                if (!service.awaitTermination(proprietes.getDelaiEnvoi().toMillis(), TimeUnit.MILLISECONDS)) {
+                    service.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                service.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class Abonne {
+        private final SseEmitter emitter;
+        private final ColisFluxFiltre filtre;
+        private final Queue<ColisEvenement> tampon;
+        private final AtomicBoolean planifie = new AtomicBoolean();
+        private volatile boolean battementDu;
+        // Fermeture demandée (tampon plein, envoi bloqué, arrêt) ; exécutée par l'envoi de l'abonné
+        private volatile boolean fermeture;
+        // Emitter terminé : écrit uniquement par l'envoi de l'abonné
+        private boolean termine;
+        // Début (System.nanoTime) de l'envoi en cours, 0 sans envoi en cours
+        private volatile long envoiDepuis;
+        private boolean bloque;
+
+        private Abonne(SseEmitter emitter, ColisFluxFiltre filtre, Queue<ColisEvenement> tampon) {
+            this.emitter = emitter;
+            this.filtre = filtre;
+            this.tampon = tampon;
+        }
+
+        // Vrai si l'envoi en cours n'était pas déjà signalé comme bloqué
+        private synchronized boolean marquerBloque() {
+            if (bloque || envoiDepuis == 0) {
+                return false;
+            }
+            bloque = true;
+            return true;
+        }
+
+        // Vrai si l'envoi qui se termine avait été signalé comme bloqué (thread de remplacement à rendre)
+        private synchronized boolean terminerEnvoi() {
+            envoiDepuis = 0;
+            boolean etaitBloque = bloque;
+            bloque = false;
+            return etaitBloque;
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.smartlogi.sdms.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartlogi.sdms.DTO.ColisCreationDto;
+import com.smartlogi.sdms.DTO.ColisImportResultatDto;
+import com.smartlogi.sdms.config.ColisImportProperties;
+import com.smartlogi.sdms.enums.FormatFichier;
+import com.smartlogi.sdms.enums.PrioriteColis;
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.exception.RequeteInvalideException;
+import com.smartlogi.sdms.model.UuidV7;
+import com.smartlogi.sdms.repository.Identifiants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Import en masse de colis (reprise de l'historique d'un nouvel expéditeur) depuis un fichier CSV ou NDJSON.
+ * <p>
+ * Le fichier est lu ligne par ligne, sans être chargé en mémoire. Chaque ligne est convertie en
+ * {@link ColisCreationDto}, validée, et ses références (client, destinataire, zone) sont vérifiées
+ * contre les ensembles d'IDs chargés une fois au début de l'import : aucune requête par ligne.
+ * Les lignes valides sont chargées par lots, chacun dans sa transaction : sur PostgreSQL, COPY dans
+ * une table temporaire puis INSERT ... SELECT vers colis et historique_livraison ; sur les autres
+ * bases, INSERT par lots JDBC. Les lignes rejetées sont détaillées dans le rapport, avec leur numéro.
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(ColisImportProperties.class)
+public class ColisImport {
+
+    static final String COMMENTAIRE_IMPORT = "Colis importé.";
+
+    // Colonnes attendues dans l'en-tête CSV (ordre libre)
+    static final List<String> COLONNES_CSV = List.of("description", "poids", "ville_destination", "priorite",
+            "client_expediteur_id", "destinataire_id", "zone_id");
+
+    private static final int TAILLE_TAMPON = 64 * 1024;
+
+    // Table de transit propre à la session, vidée à chaque commit
+    private static final String SQL_TABLE_TRANSIT = "CREATE TEMP TABLE IF NOT EXISTS colis_import_lot ("
+            + "id uuid, historique_id uuid, description text, poids double precision, priorite varchar(50), "
+            + "ville_destination varchar(255), date_creation timestamp, client_expediteur_id uuid, "
+            + "destinataire_id uuid, zone_id uuid) ON COMMIT DELETE ROWS";
+    private static final String SQL_COPY = "COPY colis_import_lot (id, historique_id, description, poids, priorite, "
+            + "ville_destination, date_creation, client_expediteur_id, destinataire_id, zone_id) FROM STDIN (FORMAT csv)";
+    private static final String SQL_TRANSFERT_COLIS = "INSERT INTO colis (id, description, poids, statut, priorite, "
+            + "ville_destination, date_creation, client_expediteur_id, destinataire_id, zone_id, version) "
+            + "SELECT id, description, poids, '" + StatutColis.CREE.name() + "', priorite, ville_destination, "
+            + "date_creation, client_expediteur_id, destinataire_id, zone_id, 0 FROM colis_import_lot";
+    private static final String SQL_TRANSFERT_HISTORIQUE = "INSERT INTO historique_livraison "
+            + "(id, colis_id, statut, date_changement, commentaire) "
+            + "SELECT historique_id, id, '" + StatutColis.CREE.name() + "', date_creation, ? FROM colis_import_lot";
+
+    // Repli sans COPY (H2, autres bases)
+    private static final String SQL_INSERT_COLIS = "INSERT INTO colis (id, description, poids, statut, priorite, "
+            + "ville_destination, date_creation, client_expediteur_id, destinataire_id, zone_id, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String SQL_INSERT_HISTORIQUE = "INSERT INTO historique_livraison "
+            + "(id, colis_id, statut, date_changement, commentaire) VALUES (?, ?, ?, ?, ?)";
+
+    /**
+     * Colis validé, prêt à être chargé (IDs déjà attribués).
+     */
+    private record ColisAImporter(long ligne, String id, String historiqueId, String description, Double poids,
+                                  PrioriteColis priorite, String villeDestination, LocalDateTime dateCreation,
+                                  String clientExpediteurId, String destinataireId, String zoneId) {
+    }
+
+    /**
+     * IDs existants des entités référencées, chargés une fois par import.
+     */
+    private record References(Set<String> clients, Set<String> destinataires, Set<String> zones) {
+    }
+
+    private final ColisImportProperties proprietes;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final CompteursZones compteursZones;
+    private final Counter lignesImportees;
+    private final Counter lignesRejetees;
+
+    public ColisImport(ColisImportProperties proprietes, JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                       Validator validator, CompteursZones compteursZones, MeterRegistry registry) {
+        this.proprietes = proprietes;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.compteursZones = compteursZones;
+        this.lignesImportees = Counter.builder("sdms.colis.import.lignes")
+                .description("Lignes des fichiers d'import de colis")
+                .tag("resultat", "importee")
+                .register(registry);
+        this.lignesRejetees = Counter.builder("sdms.colis.import.lignes")
+                .description("Lignes des fichiers d'import de colis")
+                .tag("resultat", "rejetee")
+                .register(registry);
+    }
+
+    // ============================================
+    // IMPORT
+    // ============================================
+
+    /**
+     * Importe tous les colis du fichier. Les lots déjà chargés restent acquis si un lot suivant échoue.
+     * @param entree Contenu du fichier (UTF-8). Pour le CSV, la première ligne non vide est l'en-tête.
+     * @throws RequeteInvalideException Si l'en-tête CSV est incomplet (aucun colis n'est alors importé).
+     */
+    public ColisImportResultatDto importer(InputStream entree, FormatFichier format) throws IOException {
+        References references = chargerReferences();
+        ColisImportResultatDto rapport = new ColisImportResultatDto(0, 0, 0, new ArrayList<>(), false);
+        List<ColisAImporter> lot = new ArrayList<>(proprietes.getTailleLot());
+
+        BufferedReader lecteur = new BufferedReader(new InputStreamReader(entree, StandardCharsets.UTF_8), TAILLE_TAMPON);
+        int[] colonnes = null;
+        long numero = 0;
+        String ligne;
+        while ((ligne = lecteur.readLine()) != null) {
+            numero++;
+            if (numero == 1 && ligne.startsWith("\uFEFF")) {
+                ligne = ligne.substring(1); // BOM UTF-8 (fichiers exportés depuis un tableur)
+            }
+            if (ligne.isBlank()) {
+                continue;
+            }
+            if (format == FormatFichier.CSV && colonnes == null) {
+                colonnes = lireEntete(ligne);
+                continue;
+            }
+            rapport.setLignesLues(rapport.getLignesLues() + 1);
+            try {
+                ColisCreationDto dto = format == FormatFichier.CSV
+                        ? depuisCsv(ligne, colonnes)
+                        : objectMapper.readValue(ligne, ColisCreationDto.class);
+                lot.add(valider(numero, dto, references));
+            } catch (JsonProcessingException e) {
+                rejeter(rapport, numero, "JSON invalide : " + e.getOriginalMessage());
+            } catch (IllegalArgumentException e) {
+                rejeter(rapport, numero, e.getMessage());
+            }
+            if (lot.size() >= proprietes.getTailleLot()) {
+                charger(lot, rapport);
+            }
+        }
+        charger(lot, rapport);
+        log.info("Import de colis terminé : {} lignes lues, {} colis importés, {} lignes rejetées",
+                rapport.getLignesLues(), rapport.getColisImportes(), rapport.getLignesRejetees());
+        return rapport;
+    }
+
+    private References chargerReferences() {
+        return new References(
+                new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM client_expediteur", String.class)),
+                new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM destinataire", String.class)),
+                new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM zone", String.class)));
+    }
+
+    private void rejeter(ColisImportResultatDto rapport, long ligne, String message) {
+        rapport.setLignesRejetees(rapport.getLignesRejetees() + 1);
+        lignesRejetees.increment();
+        if (rapport.getErreurs().size() < proprietes.getErreursMax()) {
+            rapport.getErreurs().add(new ColisImportResultatDto.ErreurLigne(ligne, message));
+        } else {
+            rapport.setErreursTronquees(true);
+        }
+    }
+
+    // ============================================
+    // LECTURE ET VALIDATION DES LIGNES
+    // ============================================
+
+    private static int[] lireEntete(String ligne) {
+        List<String> entete = decouperCsv(ligne).stream()
+                .map(colonne -> colonne == null ? "" : colonne.trim().toLowerCase(Locale.ROOT))
+                .toList();
+        int[] colonnes = new int[COLONNES_CSV.size()];
+        for (int i = 0; i < colonnes.length; i++) {
+            colonnes[i] = entete.indexOf(COLONNES_CSV.get(i));
+            if (colonnes[i] < 0) {
+                throw new RequeteInvalideException("En-tête CSV incomplet : colonne '" + COLONNES_CSV.get(i)
+                        + "' absente (attendu : " + String.join(",", COLONNES_CSV) + ").");
+            }
+        }
+        return colonnes;
+    }
+
+    private static ColisCreationDto depuisCsv(String ligne, int[] colonnes) {
+        List<String> champs = decouperCsv(ligne);
+        String[] valeurs = new String[colonnes.length];
+        for (int i = 0; i < colonnes.length; i++) {
+            valeurs[i] = colonnes[i] < champs.size() ? champs.get(colonnes[i]) : null;
+        }
+        Double poids;
+        try {
+            poids = valeurs[1] == null ? null : Double.valueOf(valeurs[1].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Poids invalide : " + valeurs[1]);
+        }
+        return new ColisCreationDto(valeurs[0], poids, valeurs[2], valeurs[3], valeurs[4], valeurs[5], valeurs[6]);
+    }
+
+    /**
+     * Découpe une ligne CSV (RFC 4180, séparateur virgule). Un champ vide non cité vaut null.
+     * Les retours à la ligne à l'intérieur d'un champ cité ne sont pas pris en charge.
+     */
+    static List<String> decouperCsv(String ligne) {
+        List<String> champs = new ArrayList<>();
+        StringBuilder champ = new StringBuilder();
+        boolean cite = false;
+        boolean dejaCite = false;
+        for (int i = 0; i < ligne.length(); i++) {
+            char c = ligne.charAt(i);
+            if (cite) {
+                if (c == '"' && i + 1 < ligne.length() && ligne.charAt(i + 1) == '"') {
+                    champ.append('"');
+                    i++;
+                } else if (c == '"') {
+                    cite = false;
+                } else {
+                    champ.append(c);
+                }
+            } else if (c == '"') {
+                cite = true;
+                dejaCite = true;
+            } else if (c == ',') {
+                champs.add(champ.isEmpty() && !dejaCite ? null : champ.toString());
+                champ.setLength(0);
+                dejaCite = false;
+            } else if (c != '\r') {
+                champ.append(c);
+            }
+        }
+        if (cite) {
+            throw new IllegalArgumentException("Ligne CSV invalide : guillemet non fermé.");
+        }
+        champs.add(champ.isEmpty() && !dejaCite ? null : champ.toString());
+        return champs;
+    }
+
+    private ColisAImporter valider(long ligne, ColisCreationDto dto, References references) {
+        Set<ConstraintViolation<ColisCreationDto>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException("Erreurs de validation: " + violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        PrioriteColis priorite = null;
+        if (dto.getPriorite() != null && !dto.getPriorite().isBlank()) {
+            try {
+                priorite = PrioriteColis.valueOf(dto.getPriorite().trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Priorité inconnue : " + dto.getPriorite());
+            }
+        }
+        String client = reference(dto.getClientExpediteurId(), references.clients(), "Client expéditeur");
+        String destinataire = reference(dto.getDestinataireId(), references.destinataires(), "Destinataire");
+        String zone = reference(dto.getZoneId(), references.zones(), "Zone");
+
+        return new ColisAImporter(ligne, UuidV7.suivantTexte(), UuidV7.suivantTexte(), dto.getDescription(),
+                dto.getPoids(), priorite, dto.getVilleDestination(),
+                LocalDateTime.now().truncatedTo(ChronoUnit.MICROS), client, destinataire, zone);
+    }
+
+    // IDs comparés sous leur forme canonique (minuscules), celle renvoyée par les colonnes uuid
+    private static String reference(String id, Set<String> existants, String entite) {
+        String canonique = id.trim().toLowerCase(Locale.ROOT);
+        if (!Identifiants.estValide(canonique) || !existants.contains(canonique)) {
+            throw new IllegalArgumentException(entite + " non trouvé avec l'ID: " + id);
+        }
+        return canonique;
+    }
+
+    // ============================================
+    // CHARGEMENT PAR LOTS
+    // ============================================
+
+    /**
+     * Charge le lot dans une transaction, puis le vide. Si la base refuse le lot, toutes ses lignes sont rejetées.
+     */
+    private void charger(List<ColisAImporter> lot, ColisImportResultatDto rapport) {
+        if (lot.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(statut -> {
+                boolean copie = Boolean.TRUE.equals(jdbcTemplate.execute(
+                        (ConnectionCallback<Boolean>) connexion -> connexion.isWrapperFor(PGConnection.class)));
+                if (copie) {
+                    copier(lot);
+                } else {
+                    inserer(lot);
+                }
+                lot.forEach(colis -> compteursZones.ajouter(colis.zoneId(), StatutColis.CREE));
+            });
+            rapport.setColisImportes(rapport.getColisImportes() + lot.size());
+            lignesImportees.increment(lot.size());
+        } catch (DataAccessException e) {
+            log.warn("Lot d'import rejeté (lignes {} à {}) : {}", lot.get(0).ligne(), lot.get(lot.size() - 1).ligne(),
+                    e.getMostSpecificCause().getMessage());
+            String message = "Lot rejeté par la base : " + e.getMostSpecificCause().getMessage();
+            lot.forEach(colis -> rejeter(rapport, colis.ligne(), message));
+        }
+        log.info("Import de colis en cours : {} lignes lues, {} colis importés, {} lignes rejetées",
+                rapport.getLignesLues(), rapport.getColisImportes(), rapport.getLignesRejetees());
+        lot.clear();
+    }
+
+    // PostgreSQL : un COPY (flux CSV) vers la table de transit, puis deux INSERT ... SELECT ensemblistes
+    private void copier(List<ColisAImporter> lot) {
+        jdbcTemplate.execute(SQL_TABLE_TRANSIT);
+        StringBuilder csv = new StringBuilder(lot.size() * 256);
+        for (ColisAImporter c : lot) {
+            csv.append(c.id()).append(',')
+                    .append(c.historiqueId()).append(',')
+                    .append(ColisExport.champ(c.description())).append(',')
+                    .append(c.poids()).append(',')
+                    .append(c.priorite() == null ? "" : c.priorite().name()).append(',')
+                    .append(ColisExport.champ(c.villeDestination())).append(',')
+                    .append(c.dateCreation()).append(',')
+                    .append(c.clientExpediteurId()).append(',')
+                    .append(c.destinataireId()).append(',')
+                    .append(c.zoneId()).append('\n');
+        }
+        jdbcTemplate.execute((ConnectionCallback<Long>) connexion -> {
+            try {
+                return connexion.unwrap(PGConnection.class).getCopyAPI().copyIn(SQL_COPY, new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        jdbcTemplate.update(SQL_TRANSFERT_COLIS);
+        jdbcTemplate.update(SQL_TRANSFERT_HISTORIQUE, COMMENTAIRE_IMPORT);
+    }
+
+    private void inserer(List<ColisAImporter> lot) {
+        jdbcTemplate.batchUpdate(SQL_INSERT_COLIS, lot, lot.size(), (ps, c) -> {
+            ps.setString(1, c.id());
+            ps.setString(2, c.description());
+            ps.setDouble(3, c.poids());
+            ps.setString(4, StatutColis.CREE.name());
+            ps.setString(5, c.priorite() == null ? null : c.priorite().name());
+            ps.setString(6, c.villeDestination());
+            ps.setTimestamp(7, Timestamp.valueOf(c.dateCreation()));
+            ps.setString(8, c.clientExpediteurId());
+            ps.setString(9, c.destinataireId());
+            ps.setString(10, c.zoneId());
+        });
+        jdbcTemplate.batchUpdate(SQL_INSERT_HISTORIQUE, lot, lot.size(), (ps, c) -> {
+            ps.setString(1, c.historiqueId());
+            ps.setString(2, c.id());
+            ps.setString(3, StatutColis.CREE.name());
+            ps.setTimestamp(4, Timestamp.valueOf(c.dateCreation()));
+            ps.setString(5, COMMENTAIRE_IMPORT);
+        });
+    }
+}
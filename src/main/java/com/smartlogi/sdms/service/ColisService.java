@@ -1,19 +1,65 @@
 package com.smartlogi.sdms.service;
 
+import com.smartlogi.sdms.DTO.AffectationLotDto;
+import com.smartlogi.sdms.DTO.AffectationLotResultatDto;
+import com.smartlogi.sdms.DTO.ColisClientPageDto;
 import com.smartlogi.sdms.DTO.ColisCreationDto;
 import com.smartlogi.sdms.DTO.ColisDto;
+import com.smartlogi.sdms.DTO.ColisFiltre;
+import com.smartlogi.sdms.DTO.ColisLivreurDto;
+import com.smartlogi.sdms.DTO.ColisLotResultatDto;
+import com.smartlogi.sdms.DTO.HistoriqueLivraisonDto;
+import com.smartlogi.sdms.DTO.PageCurseurDto;
+import com.smartlogi.sdms.DTO.ReferenceDto;
+import com.smartlogi.sdms.config.CacheConfig;
+import com.smartlogi.sdms.event.ColisEvenement;
+import com.smartlogi.sdms.event.HistoriqueEvenement;
+import com.smartlogi.sdms.exception.RequeteInvalideException;
+import com.smartlogi.sdms.exception.TransitionStatutInvalideException;
 import com.smartlogi.sdms.mapper.ColisMapper;
 import com.smartlogi.sdms.model.*;
 import com.smartlogi.sdms.enums.StatutColis;
 import com.smartlogi.sdms.repository.ColisRepository;
+import com.smartlogi.sdms.repository.ColisSpecifications;
+import com.smartlogi.sdms.repository.ColisStatutProjection;
+import com.smartlogi.sdms.repository.ComptageStatut;
+import com.smartlogi.sdms.repository.CurseurColis;
+import com.smartlogi.sdms.repository.CurseurHistorique;
+import com.smartlogi.sdms.repository.CurseurTournee;
 import com.smartlogi.sdms.repository.HistoriqueLivraisonRepository;
+import com.smartlogi.sdms.repository.HistoriqueSpecifications;
+import com.smartlogi.sdms.repository.Identifiants;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 // Suppression de l'import java.util.UUID car il est remplacé par String
 import java.util.stream.Collectors;
 
@@ -21,9 +67,18 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ColisService {
 
+    // Taille maximale d'une page de la liste paginée
+    static final int TAILLE_PAGE_MAX = 100;
+
+    // Nombre maximal de colis acceptés par appel de création en lot
+    static final int TAILLE_LOT_MAX = 1000;
+
+    private static final String COMMENTAIRE_CREATION = "Colis créé par le client expéditeur.";
+
     private final ColisRepository colisRepository;
     private final ColisMapper colisMapper;
     private final HistoriqueLivraisonRepository historiqueRepository;
+    private final HistoriqueJournal historiqueJournal;
 
     // Injection des services des entités liées pour la validation
     private final ClientExpéditeurService clientExpéditeurService;
@@ -31,15 +86,49 @@ public class ColisService {
     private final ZoneService zoneService;
     private final LivreurService livreurService;
 
+    private final ColisArchivage colisArchivage;
+    private final CompteursZones compteursZones;
+
+    private final Validator validator;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher evenements;
+
     // --- Méthode de Traçabilité ---
+    // Avec le journal actif, l'historique est journalisé au commit puis inséré en différé (par lots) au lieu
+    // d'un INSERT synchrone. Journal saturé : INSERT dans la transaction, comme sans journal.
+    // La version atteinte par le colis permet d'écarter au rejeu l'étape d'une transaction non validée.
     private void enregistrerHistorique(Colis colis, String commentaire) {
+        enregistrerHistorique(nouvelHistorique(colis, colis.getStatut(), commentaire), colis.getVersion());
+    }
+
+    private void enregistrerHistorique(HistoriqueLivraison historique, Long version) {
+        if (!historiqueJournal.isActif() || !historiqueJournal.publier(HistoriqueEvenement.depuis(historique, version))) {
+            historiqueRepository.save(historique);
+        }
+    }
+
+    private void enregistrerHistoriques(List<HistoriqueLivraison> historiques) {
+        if (!historiqueJournal.isActif()) {
+            historiqueRepository.saveAll(historiques);
+            return;
+        }
+        List<HistoriqueLivraison> refuses = historiques.stream()
+                .filter(historique -> !historiqueJournal.publier(
+                        HistoriqueEvenement.depuis(historique, historique.getColis().getVersion())))
+                .toList();
+        if (!refuses.isEmpty()) {
+            historiqueRepository.saveAll(refuses);
+        }
+    }
+
+    // Le statut est passé explicitement : le colis peut être une référence non chargée
+    private HistoriqueLivraison nouvelHistorique(Colis colis, StatutColis statut, String commentaire) {
         HistoriqueLivraison historique = new HistoriqueLivraison();
         historique.setColis(colis);
-        historique.setStatut(colis.getStatut().name());
+        historique.setStatut(statut.name());
         historique.setDateChangement(LocalDateTime.now());
         historique.setCommentaire(commentaire);
-
-        historiqueRepository.save(historique);
+        return historique;
     }
 
     // ============================================
@@ -50,26 +139,123 @@ public class ColisService {
     public ColisDto createColis(ColisCreationDto creationDto) {
 
         // 1. Validation de l'existence des IDs String (vérifie les FKs)
-        // Les services sont censés avoir été corrigés pour accepter les String.
-        ClientExpéditeur client = clientExpéditeurService.getClientEntityById(creationDto.getClientExpediteurId());
-        Destinataire destinataire = destinataireService.getDestinataireEntityById(creationDto.getDestinataireId());
-        Zone zone = zoneService.getZoneEntityById(creationDto.getZoneId());
+        // Résumés servis par les caches de référence : aucun aller-retour tant que les entrées sont valides
+        ReferenceDto client = clientExpéditeurService.getClientReference(creationDto.getClientExpediteurId());
+        destinataireService.getDestinataireReference(creationDto.getDestinataireId());
+        ReferenceDto zone = zoneService.getZoneReference(creationDto.getZoneId());
 
         // 2. Création de l'Entité Colis et mapping
-        Colis colis = colisMapper.toEntity(creationDto);
+        Colis colis;
+        try {
+            colis = colisMapper.toEntity(creationDto);
+        } catch (IllegalArgumentException e) { // ex: priorité inconnue
+            throw new RequeteInvalideException("Priorité inconnue : " + creationDto.getPriorite(), e);
+        }
 
-        // Assigner les entités résolues
-        colis.setClientExpediteur(client);
-        colis.setDestinataire(destinataire);
-        colis.setZone(zone);
+        // Assigner les entités liées par des proxies (seule la FK est écrite, pas de SELECT)
+        colis.setClientExpediteur(clientExpéditeurService.getClientProxy(client.getId()));
+        colis.setDestinataire(destinataireService.getDestinataireProxy(creationDto.getDestinataireId()));
+        colis.setZone(zoneService.getZoneProxy(zone.getId()));
 
         // Statut initialisé à CRÉÉ dans @PrePersist
         Colis savedColis = colisRepository.save(colis);
 
         // 3. Enregistrement de la première étape de l'historique
-        enregistrerHistorique(savedColis, "Colis créé par le client expéditeur.");
+        enregistrerHistorique(savedColis, COMMENTAIRE_CREATION);
+        compteursZones.ajouter(zone.getId(), savedColis.getStatut());
+
+        // Libellés repris des résumés : les proxies ne sont pas chargés
+        ColisDto dto = colisMapper.toDtoSansLibelles(savedColis);
+        dto.setClientExpediteurNomComplet(client.getLibelle());
+        dto.setZoneNom(zone.getLibelle());
+        return dto;
+    }
 
-        return colisMapper.toDto(savedColis);
+    /**
+     * Création en lot (intégrations ERP des expéditeurs) dans une seule transaction.
+     * Les références sont résolues par une requête IN par type d'entité, puis les colis et leur
+     * historique initial sont insérés par lots JDBC (hibernate.jdbc.batch_size / order_inserts).
+     * Les IDs UUID étant générés en mémoire par Hibernate, aucun aller-retour n'est nécessaire avant l'INSERT.
+     * Un élément invalide (validation, référence inconnue) est rejeté sans bloquer les autres.
+     * @param lot Les demandes de création.
+     * @return Un résultat par élément, dans l'ordre du lot.
+     */
+    @Transactional
+    public List<ColisLotResultatDto> createColisEnLot(List<ColisCreationDto> lot) {
+        if (lot.size() > TAILLE_LOT_MAX) {
+            throw new RequeteInvalideException("Un lot ne peut pas dépasser " + TAILLE_LOT_MAX + " colis (reçu: " + lot.size() + ").");
+        }
+
+        // 1. Résolution groupée des FKs : une requête IN par type d'entité
+        Map<String, ClientExpéditeur> clients = clientExpéditeurService.getClientEntitiesByIds(
+                idsDistincts(lot, ColisCreationDto::getClientExpediteurId));
+        Map<String, Destinataire> destinataires = destinataireService.getDestinataireEntitiesByIds(
+                idsDistincts(lot, ColisCreationDto::getDestinataireId));
+        Map<String, Zone> zones = zoneService.getZoneEntitiesByIds(
+                idsDistincts(lot, ColisCreationDto::getZoneId));
+
+        // 2. Validation et construction des entités, élément par élément
+        ColisLotResultatDto[] resultats = new ColisLotResultatDto[lot.size()];
+        List<Colis> aCreer = new ArrayList<>();
+        List<Integer> indexACreer = new ArrayList<>();
+        for (int i = 0; i < lot.size(); i++) {
+            ColisCreationDto dto = lot.get(i);
+            String erreur = validerElementDuLot(dto, clients, destinataires, zones);
+            if (erreur != null) {
+                resultats[i] = ColisLotResultatDto.echec(i, erreur);
+                continue;
+            }
+            Colis colis;
+            try {
+                colis = colisMapper.toEntity(dto);
+            } catch (IllegalArgumentException e) { // ex: priorité inconnue
+                resultats[i] = ColisLotResultatDto.echec(i, e.getMessage());
+                continue;
+            }
+            colis.setClientExpediteur(clients.get(dto.getClientExpediteurId()));
+            colis.setDestinataire(destinataires.get(dto.getDestinataireId()));
+            colis.setZone(zones.get(dto.getZoneId()));
+            aCreer.add(colis);
+            indexACreer.add(i);
+        }
+
+        // 3. Insertions groupées (colis puis historique initial)
+        List<Colis> sauvegardes = colisRepository.saveAll(aCreer);
+        enregistrerHistoriques(sauvegardes.stream()
+                .map(colis -> nouvelHistorique(colis, colis.getStatut(), COMMENTAIRE_CREATION))
+                .toList());
+        sauvegardes.forEach(colis -> compteursZones.ajouter(colis.getZone().getId(), colis.getStatut()));
+
+        for (int j = 0; j < sauvegardes.size(); j++) {
+            int index = indexACreer.get(j);
+            resultats[index] = ColisLotResultatDto.succes(index, colisMapper.toDto(sauvegardes.get(j)));
+        }
+        return Arrays.asList(resultats);
+    }
+
+    private static Set<String> idsDistincts(List<ColisCreationDto> lot, Function<ColisCreationDto, String> extracteur) {
+        return lot.stream().map(extracteur).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private String validerElementDuLot(ColisCreationDto dto, Map<String, ClientExpéditeur> clients,
+                                       Map<String, Destinataire> destinataires, Map<String, Zone> zones) {
+        Set<ConstraintViolation<ColisCreationDto>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            return "Erreurs de validation: " + violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (!clients.containsKey(dto.getClientExpediteurId())) {
+            return "Client expéditeur non trouvé avec l'ID: " + dto.getClientExpediteurId();
+        }
+        if (!destinataires.containsKey(dto.getDestinataireId())) {
+            return "Destinataire non trouvé avec l'ID: " + dto.getDestinataireId();
+        }
+        if (!zones.containsKey(dto.getZoneId())) {
+            return "Zone non trouvée avec l'ID: " + dto.getZoneId();
+        }
+        return null;
     }
 
     // ============================================
@@ -77,64 +263,333 @@ public class ColisService {
     // ============================================
 
     // CORRECTION : id doit être String
+    // Projection DTO : une seule requête jointe au lieu de findById + chargements LAZY
+    // Mis en cache (endpoint de suivi très sollicité) ; invalidé après commit par les écritures ci-dessous
+    // sync : une lecture partie avant le commit ne peut pas réinsérer sa valeur après l'invalidation (voir CacheConfig)
+    // Un colis absent des tables de travail peut avoir été archivé (voir ColisArchivage)
+    @Cacheable(cacheNames = CacheConfig.CACHE_COLIS, key = "#id", sync = true)
     public ColisDto getColisById(String id) {
-        Colis colis = colisRepository.findById(id)
+        return colisRepository.findDtoById(id)
+                .or(() -> colisArchivage.trouver(id))
                 .orElseThrow(() -> new EntityNotFoundException("Colis non trouvé avec l'ID: " + id));
-        return colisMapper.toDto(colis);
     }
 
-    public List<ColisDto> getAllColis() {
-        return colisMapper.toDto(colisRepository.findAll());
+    /**
+     * Liste paginée par curseur (keyset) sur (date_creation, id) : le coût d'une page ne dépend
+     * pas de sa profondeur, contrairement à un OFFSET.
+     * @param filtre Filtres optionnels (statut, priorité, zone, livreur, ville).
+     * @param curseur Curseur renvoyé par la page précédente (null pour la première page).
+     * @param taille Nombre d'éléments demandés (borné à {@link #TAILLE_PAGE_MAX}).
+     */
+    @Transactional(readOnly = true)
+    public PageCurseurDto<ColisDto> getColisPage(ColisFiltre filtre, String curseur, int taille) {
+        int tailleEffective = Math.max(1, Math.min(taille, TAILLE_PAGE_MAX));
+
+        Specification<Colis> spec = ColisSpecifications.avecFiltre(filtre);
+        if (curseur != null && !curseur.isBlank()) {
+            spec = spec.and(ColisSpecifications.apresCurseur(CurseurColis.decoder(curseur)));
+        }
+
+        // On lit un élément de plus pour savoir s'il existe une page suivante, sans requête COUNT.
+        // Les DTO sont projetés directement (client, zone, livreur joints) : pas de N+1.
+        List<ColisDto> resultats = colisRepository.findDtoBy(spec, ColisSpecifications.TRI_KEYSET, tailleEffective + 1);
+
+        boolean pageSuivante = resultats.size() > tailleEffective;
+        List<ColisDto> page = pageSuivante ? resultats.subList(0, tailleEffective) : resultats;
+        String curseurSuivant = pageSuivante ? CurseurColis.depuis(page.get(page.size() - 1)).encoder() : null;
+
+        return new PageCurseurDto<>(page, curseurSuivant);
+    }
+
+    /**
+     * Colis affectés à un livreur (application mobile), en vue allégée : la priorité la plus urgente d'abord,
+     * puis les plus anciens. Pagination par curseur, une seule requête jointe au destinataire.
+     * @param statuts Statuts retenus (null ou vide : tous).
+     * @param curseur Curseur renvoyé par la page précédente (null pour la première page).
+     * @param taille Nombre d'éléments demandés (borné à {@link #TAILLE_PAGE_MAX}).
+     * @throws EntityNotFoundException si le livreur n'existe pas.
+     */
+    @Transactional(readOnly = true)
+    public PageCurseurDto<ColisLivreurDto> getColisDuLivreur(String livreurId, Set<StatutColis> statuts,
+                                                             String curseur, int taille) {
+        int tailleEffective = Math.max(1, Math.min(taille, TAILLE_PAGE_MAX));
+        livreurService.getLivreurReference(livreurId); // Validation de l'existence (en cache)
+
+        CurseurTournee apres = curseur != null && !curseur.isBlank() ? CurseurTournee.decoder(curseur) : null;
+        List<ColisLivreurDto> resultats = colisRepository.findPourLivreur(livreurId,
+                statuts != null ? statuts : Set.of(), apres, tailleEffective + 1);
+
+        boolean pageSuivante = resultats.size() > tailleEffective;
+        List<ColisLivreurDto> page = pageSuivante ? resultats.subList(0, tailleEffective) : resultats;
+        String curseurSuivant = pageSuivante ? CurseurTournee.depuis(page.get(page.size() - 1)).encoder() : null;
+
+        return new PageCurseurDto<>(page, curseurSuivant);
+    }
+
+    /**
+     * Colis d'un client expéditeur (tableau de bord), les plus récents d'abord, paginés par curseur
+     * sur (date_creation, id) comme {@link #getColisPage}. La première page porte aussi le nombre de colis
+     * par statut, calculé par un seul GROUP BY ; les pages suivantes ne le recalculent pas.
+     * @param statuts Statuts retenus pour la liste (null ou vide : tous) ; sans effet sur les compteurs.
+     * @param curseur Curseur renvoyé par la page précédente (null pour la première page).
+     * @param taille Nombre d'éléments demandés (borné à {@link #TAILLE_PAGE_MAX}).
+     * @throws EntityNotFoundException si le client n'existe pas.
+     */
+    @Transactional(readOnly = true)
+    public ColisClientPageDto getColisDuClient(String clientId, Set<StatutColis> statuts, String curseur, int taille) {
+        int tailleEffective = Math.max(1, Math.min(taille, TAILLE_PAGE_MAX));
+        clientExpéditeurService.getClientReference(clientId); // Validation de l'existence (en cache)
+
+        boolean premierePage = curseur == null || curseur.isBlank();
+        Specification<Colis> spec = ColisSpecifications.clientExpediteur(clientId);
+        if (statuts != null && !statuts.isEmpty()) {
+            spec = spec.and(ColisSpecifications.statuts(statuts));
+        }
+        if (!premierePage) {
+            spec = spec.and(ColisSpecifications.apresCurseur(CurseurColis.decoder(curseur)));
+        }
+
+        List<ColisDto> resultats = colisRepository.findDtoBy(spec, ColisSpecifications.TRI_KEYSET, tailleEffective + 1);
+
+        boolean pageSuivante = resultats.size() > tailleEffective;
+        List<ColisDto> page = pageSuivante ? resultats.subList(0, tailleEffective) : resultats;
+        String curseurSuivant = pageSuivante ? CurseurColis.depuis(page.get(page.size() - 1)).encoder() : null;
+
+        if (!premierePage) {
+            return new ColisClientPageDto(page, curseurSuivant, null, null);
+        }
+        Map<StatutColis, Long> parStatut = new EnumMap<>(StatutColis.class);
+        for (StatutColis statut : StatutColis.values()) {
+            parStatut.put(statut, 0L);
+        }
+        long total = 0;
+        for (ComptageStatut comptage : colisRepository.compterParStatutPourClient(clientId)) {
+            parStatut.put(comptage.getStatut(), comptage.getNombre());
+            total += comptage.getNombre();
+        }
+        return new ColisClientPageDto(page, curseurSuivant, total, parStatut);
+    }
+
+    /**
+     * ETag d'une page de colis d'un livreur : empreinte des champs renvoyés, calculée sans sérialiser la réponse.
+     * Deux pages au contenu identique ont le même ETag, quelle que soit l'instance qui les sert.
+     */
+    public static String etag(PageCurseurDto<ColisLivreurDto> page) {
+        MessageDigest empreinte;
+        try {
+            empreinte = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (ColisLivreurDto colis : page.getElements()) {
+            for (Object champ : new Object[]{colis.getId(), colis.getDescription(), colis.getPoids(), colis.getStatut(),
+                    colis.getPriorite(), colis.getVilleDestination(), colis.getDateCreation(),
+                    colis.getDestinataireNomComplet(), colis.getDestinataireAdresse(), colis.getDestinataireTelephone()}) {
+                empreinte.update(String.valueOf(champ).getBytes(StandardCharsets.UTF_8));
+                empreinte.update((byte) 0x1F); // Séparateur : "ab"+"c" et "a"+"bc" diffèrent
+            }
+        }
+        empreinte.update(String.valueOf(page.getCurseurSuivant()).getBytes(StandardCharsets.UTF_8));
+        return "\"" + HexFormat.of().formatHex(empreinte.digest(), 0, 16) + "\"";
+    }
+
+    /**
+     * Frise de l'historique d'un colis, paginée par curseur sur (date_changement, id), la plus récente d'abord.
+     * Projection DTO sur la seule table historique_livraison : le Colis n'est pas chargé.
+     * La lecture est toujours bornée sur date_changement (table partitionnée par mois) : par {@code depuis}
+     * s'il est fourni, sinon par la date de création du colis, qu'aucune étape ne précède.
+     * @param colisId L'ID du colis.
+     * @param depuis Optionnel : uniquement les étapes postérieures (delta depuis le dernier poll du client).
+     * @param curseur Curseur renvoyé par la page précédente (null pour la première page).
+     * @param taille Nombre d'éléments demandés (borné à {@link #TAILLE_PAGE_MAX}).
+     */
+    @Transactional(readOnly = true)
+    public PageCurseurDto<HistoriqueLivraisonDto> getHistorique(String colisId, LocalDateTime depuis, String curseur, int taille) {
+        int tailleEffective = Math.max(1, Math.min(taille, TAILLE_PAGE_MAX));
+
+        Specification<HistoriqueLivraison> spec = HistoriqueSpecifications.colis(colisId);
+        boolean existe = false;
+        if (depuis != null) {
+            spec = spec.and(HistoriqueSpecifications.depuis(depuis));
+        } else {
+            // Sans borne inférieure, chaque partition mensuelle serait parcourue : lecture par clé primaire
+            // de la date de création, qui vérifie aussi l'existence du colis
+            LocalDateTime creation = colisRepository.findDateCreationById(colisId)
+                    .orElseThrow(() -> new EntityNotFoundException("Colis non trouvé avec l'ID: " + colisId));
+            spec = spec.and(HistoriqueSpecifications.aPartirDe(creation));
+            existe = true;
+        }
+        if (curseur != null && !curseur.isBlank()) {
+            spec = spec.and(HistoriqueSpecifications.apresCurseur(CurseurHistorique.decoder(curseur)));
+        }
+
+        List<HistoriqueLivraisonDto> resultats = historiqueRepository.findDtoBy(
+                spec, HistoriqueSpecifications.TRI_KEYSET, tailleEffective + 1);
+
+        // Page vide : on distingue un colis sans nouvelle étape d'un colis inexistant (requête seulement dans ce cas)
+        if (resultats.isEmpty() && !existe && !colisRepository.existsById(colisId)) {
+            throw new EntityNotFoundException("Colis non trouvé avec l'ID: " + colisId);
+        }
+
+        boolean pageSuivante = resultats.size() > tailleEffective;
+        List<HistoriqueLivraisonDto> page = pageSuivante ? resultats.subList(0, tailleEffective) : resultats;
+        String curseurSuivant = pageSuivante ? CurseurHistorique.depuis(page.get(page.size() - 1)).encoder() : null;
+
+        return new PageCurseurDto<>(page, curseurSuivant);
     }
 
     // ============================================
     // 3. MISE À JOUR DU STATUT (Workflow)
     // ============================================
 
+    /**
+     * Change le statut d'un colis selon la table des transitions de {@link StatutColis}.
+     * Un seul UPDATE conditionnel (compare-and-set sur le statut courant), sans lecture préalable de l'entité,
+     * qui renvoie le statut d'origine et les acteurs du colis : deux transitions concurrentes incompatibles
+     * ne peuvent pas réussir toutes les deux, et l'étape d'historique, l'événement et les compteurs par zone
+     * ne sont mis à jour que si la ligne a effectivement changé.
+     * @throws EntityNotFoundException si le colis n'existe pas.
+     * @throws TransitionStatutInvalideException si la transition est interdite depuis le statut courant (409).
+     */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CACHE_COLIS, key = "#colisId")
     // CORRECTION : colisId doit être String
     public ColisDto updateStatut(String colisId, StatutColis nouveauStatut, String commentaire) {
-        Colis colis = colisRepository.findById(colisId)
-                .orElseThrow(() -> new EntityNotFoundException("Colis non trouvé avec l'ID: " + colisId));
-
-        colis.setStatut(nouveauStatut);
+        Set<StatutColis> sources = StatutColis.sourcesPossibles(nouveauStatut);
+        Optional<ColisStatutProjection> avant = sources.isEmpty()
+                ? Optional.empty()
+                : colisRepository.changerStatut(colisId, nouveauStatut, sources);
+        if (avant.isEmpty()) {
+            // Échec seulement : une lecture pour distinguer un colis inconnu d'une transition interdite
+            StatutColis actuel = colisRepository.findStatutById(colisId)
+                    .orElseThrow(() -> new EntityNotFoundException("Colis non trouvé avec l'ID: " + colisId));
+            throw new TransitionStatutInvalideException(colisId, actuel, nouveauStatut);
+        }
+        ColisStatutProjection etat = avant.get();
+        compteursZones.deplacer(etat.getZoneId(), etat.getStatut(), nouveauStatut);
 
-        Colis updatedColis = colisRepository.save(colis);
+        // Enregistrement de la nouvelle étape de l'historique (référence au colis, sans chargement)
+        enregistrerHistorique(nouvelHistorique(colisRepository.getReferenceById(colisId), nouveauStatut, commentaire),
+                etat.getVersion());
 
-        // Enregistrement de la nouvelle étape de l'historique
-        enregistrerHistorique(updatedColis, commentaire);
+        // Diffusion aux abonnés du flux SSE, après commit (ColisFluxHub) ; les acteurs servent au filtrage
+        evenements.publishEvent(new ColisEvenement(colisId, nouveauStatut, etat.getLivreurId(),
+                etat.getClientExpediteurId(), etat.getZoneId(), commentaire, LocalDateTime.now()));
 
         // Logique spécifique au workflow:
         if (nouveauStatut == StatutColis.COLLECTE) {
             // Mettre en place d'autres actions automatiques, si nécessaire.
         }
 
-        return colisMapper.toDto(updatedColis);
+        return colisRepository.findDtoById(colisId)
+                .orElseThrow(() -> new EntityNotFoundException("Colis non trouvé avec l'ID: " + colisId));
+    }
+
+    private ColisStatutProjection lireEtat(String colisId) {
+        return colisRepository.findEtatById(colisId)
+                .orElseThrow(() -> new EntityNotFoundException("Colis non trouvé avec l'ID: " + colisId));
     }
 
     // ============================================
     // 4. AFFECTION AU LIVREUR (Planification)
     // ============================================
 
+    /**
+     * Affecte un colis à un livreur (statut EN_TRANSIT, qui doit être atteignable depuis le statut courant).
+     * Verrouillage optimiste : si le colis est modifié par une autre transaction entre la lecture et le commit,
+     * la transaction est rejouée entière (relecture comprise) avec un délai exponentiel ; une fois les
+     * tentatives épuisées, l'exception remonte en 409 (GlobalExceptionHandler).
+     */
+    @Retryable(retryFor = OptimisticLockingFailureException.class,
+            maxAttemptsExpression = "${sdms.colis.concurrence.tentatives-max:5}",
+            backoff = @Backoff(delayExpression = "${sdms.colis.concurrence.delai-initial-ms:20}",
+                    maxDelayExpression = "${sdms.colis.concurrence.delai-max-ms:500}",
+                    multiplier = 2, random = true))
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CACHE_COLIS, key = "#colisId")
     // CORRECTION : colisId et livreurId doivent être String
     public ColisDto assignerLivreur(String colisId, String livreurId) {
-        Colis colis = colisRepository.findById(colisId)
+        Colis colis = colisRepository.findPourMiseAJour(colisId)
                 .orElseThrow(() -> new EntityNotFoundException("Colis non trouvé avec l'ID: " + colisId));
+        if (!colis.getStatut().peutPasserA(StatutColis.EN_TRANSIT)) {
+            throw new TransitionStatutInvalideException(colisId, colis.getStatut(), StatutColis.EN_TRANSIT);
+        }
 
-        Livreur livreur = livreurService.getLivreurEntityById(livreurId); // Validation de l'existence
+        ReferenceDto livreur = livreurService.getLivreurReference(livreurId); // Validation de l'existence (en cache)
+        compteursZones.deplacer(colis.getZone().getId(), colis.getStatut(), StatutColis.EN_TRANSIT);
 
-        colis.setLivreur(livreur);
+        colis.setLivreur(livreurService.getLivreurProxy(livreur.getId()));
 
         // Changement de statut automatique: EN_TRANSIT ou EN_TOURNEE
         colis.setStatut(StatutColis.EN_TRANSIT);
 
-        Colis updatedColis = colisRepository.save(colis);
+        // Écrit tout de suite : la ligne reste verrouillée jusqu'au commit et porte la version atteinte
+        Colis updatedColis = colisRepository.saveAndFlush(colis);
 
         // Enregistrement de l'historique de l'affectation
-        enregistrerHistorique(updatedColis, "Colis affecté au livreur: " + livreur.getNom() + " " + livreur.getPrenom() + ".");
+        String commentaire = "Colis affecté au livreur: " + livreur.getLibelle() + ".";
+        enregistrerHistorique(updatedColis, commentaire);
+        evenements.publishEvent(ColisEvenement.depuis(updatedColis, commentaire));
+
+        // Projection DTO en une requête : le mapping de l'entité chargerait client, zone et livreur un par un
+        return colisRepository.findDtoById(colisId)
+                .orElseThrow(() -> new EntityNotFoundException("Colis non trouvé avec l'ID: " + colisId));
+    }
+
+    /**
+     * Affectation en lot (dispatch du matin) dans une seule transaction, en un nombre constant de requêtes :
+     * validation unique du livreur, lecture verrouillée des statuts (IN), un UPDATE ensembliste
+     * (livreur + statut EN_TRANSIT) et un INSERT ... SELECT pour l'historique.
+     * Les IDs inconnus et les colis dans un statut final sont ignorés et signalés dans le résultat.
+     * @param affectation Le livreur et les IDs des colis à lui affecter.
+     */
+    @Transactional
+    public AffectationLotResultatDto assignerLivreurEnLot(AffectationLotDto affectation) {
+        Set<String> ids = new LinkedHashSet<>(affectation.getColisIds()); // Dédoublonnage, ordre conservé
+        if (ids.size() > TAILLE_LOT_MAX) {
+            throw new RequeteInvalideException("Un lot ne peut pas dépasser " + TAILLE_LOT_MAX + " colis (reçu: " + ids.size() + ").");
+        }
 
-        return colisMapper.toDto(updatedColis);
+        ReferenceDto livreur = livreurService.getLivreurReference(affectation.getLivreurId()); // Validation unique (en cache)
+
+        // Les IDs qui ne sont pas des UUID ne sont pas interrogés : ils finissent dans "introuvables"
+        Map<String, ColisStatutProjection> etats = colisRepository.findStatutsPourMiseAJour(Identifiants.valides(ids)).stream()
+                .collect(Collectors.toMap(ColisStatutProjection::getId, Function.identity()));
+
+        List<String> affectes = new ArrayList<>();
+        List<String> introuvables = new ArrayList<>();
+        List<String> statutTerminal = new ArrayList<>();
+        for (String id : ids) {
+            ColisStatutProjection etat = etats.get(id);
+            if (etat == null) {
+                introuvables.add(id);
+            } else if (!etat.getStatut().peutPasserA(StatutColis.EN_TRANSIT)) { // Statut final
+                statutTerminal.add(id);
+            } else {
+                affectes.add(id);
+            }
+        }
+
+        if (!affectes.isEmpty()) {
+            String commentaire = "Colis affecté au livreur: " + livreur.getLibelle() + ".";
+            colisRepository.affecterLivreur(affectes, livreurService.getLivreurProxy(livreur.getId()), StatutColis.EN_TRANSIT);
+            historiqueRepository.insererPourColis(affectes, LocalDateTime.now(), commentaire);
+
+            // Invalidation du cache de suivi, appliquée après le commit (cache transactionnel)
+            Cache cache = cacheManager.getCache(CacheConfig.CACHE_COLIS);
+            LocalDateTime maintenant = LocalDateTime.now();
+            for (String id : affectes) {
+                if (cache != null) {
+                    cache.evict(id);
+                }
+                ColisStatutProjection etat = etats.get(id);
+                compteursZones.deplacer(etat.getZoneId(), etat.getStatut(), StatutColis.EN_TRANSIT);
+                evenements.publishEvent(new ColisEvenement(id, StatutColis.EN_TRANSIT, livreur.getId(),
+                        etat.getClientExpediteurId(), etat.getZoneId(), commentaire, maintenant));
+            }
+        }
+
+        return new AffectationLotResultatDto(livreur.getId(), affectes, introuvables, statutTerminal);
     }
 
     // ============================================
@@ -142,11 +597,12 @@ public class ColisService {
     // ============================================
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CACHE_COLIS, key = "#id")
     // CORRECTION : id doit être String
     public void deleteColis(String id) {
-        if (!colisRepository.existsById(id)) {
-            throw new EntityNotFoundException("Colis non trouvé avec l'ID: " + id);
-        }
+        // Projection plutôt que existsById : la zone et le statut servent aux compteurs
+        ColisStatutProjection etat = lireEtat(id);
         colisRepository.deleteById(id);
+        compteursZones.retirer(etat.getZoneId(), etat.getStatut());
     }
 }
\ No newline at end of file
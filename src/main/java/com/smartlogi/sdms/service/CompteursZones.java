@@ -0,0 +1,336 @@
+package com.smartlogi.sdms.service;
+
+import com.smartlogi.sdms.DTO.ReferenceDto;
+import com.smartlogi.sdms.DTO.ZoneStatsDto;
+import com.smartlogi.sdms.config.ColisCompteursProperties;
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.model.CompteurZone;
+import com.smartlogi.sdms.model.CompteurZoneId;
+import com.smartlogi.sdms.repository.ColisRepository;
+import com.smartlogi.sdms.repository.CompteurZoneRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Compteurs de colis par zone et par statut (tableaux de bord de la tour de contrôle).
+ * <p>
+ * Les compteurs sont tenus en mémoire ({@link LongAdder} par (zone, statut)) et mis à jour par les écritures
+ * de ColisService, ColisImport et ColisArchivage, après le commit de leur transaction : une lecture ne coûte
+ * qu'un accès à la table de hachage, sans requête. Ils sont copiés dans colis_compteur_zone toutes les
+ * {@code sdms.colis.compteurs.intervalle-sauvegarde} et relus au démarrage ; un recomptage complet
+ * (GROUP BY sur colis), au démarrage puis toutes les {@code sdms.colis.compteurs.intervalle-reconciliation},
+ * corrige les écarts (variations perdues à l'arrêt brutal, écritures faites par une autre instance ou hors
+ * de l'application).
+ */
+@Slf4j
+@Service
+@EnableScheduling
+@EnableConfigurationProperties(ColisCompteursProperties.class)
+public class CompteursZones {
+
+    private static final StatutColis[] STATUTS = StatutColis.values();
+
+    private final ColisRepository colisRepository;
+    private final CompteurZoneRepository compteurRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate transactionLecture;
+
+    // Lecture : application d'une variation ; écriture : remplacement des compteurs par la réconciliation
+    private final ReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    // Un LongAdder par statut (indice = ordinal), par zone
+    private volatile Map<String, LongAdder[]> compteurs = new ConcurrentHashMap<>();
+
+    // Non null pendant le comptage d'une réconciliation : variations appliquées depuis son début (sous verrou)
+    private Map<String, LongAdder[]> variationsPendantComptage;
+
+    private volatile LocalDateTime derniereReconciliation;
+
+    public CompteursZones(ColisRepository colisRepository, CompteurZoneRepository compteurRepository,
+                          PlatformTransactionManager transactionManager) {
+        this.colisRepository = colisRepository;
+        this.compteurRepository = compteurRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionLecture = new TransactionTemplate(transactionManager);
+        this.transactionLecture.setReadOnly(true);
+    }
+
+    // ============================================
+    // LECTURE
+    // ============================================
+
+    /**
+     * Nombre de colis de la zone dans chaque statut (tous les statuts, zéros compris).
+     */
+    public Map<StatutColis, Long> lire(String zoneId) {
+        Map<StatutColis, Long> parStatut = new EnumMap<>(StatutColis.class);
+        LongAdder[] cellules = zoneId == null ? null : compteurs.get(zoneId);
+        for (StatutColis statut : STATUTS) {
+            parStatut.put(statut, cellules == null ? 0L : cellules[statut.ordinal()].sum());
+        }
+        return parStatut;
+    }
+
+    /**
+     * Statistiques d'une zone dont l'existence a été vérifiée (résumé en cache de ZoneService).
+     */
+    public ZoneStatsDto statistiques(ReferenceDto zone) {
+        Map<StatutColis, Long> parStatut = lire(zone.getId());
+        long total = parStatut.values().stream().mapToLong(Long::longValue).sum();
+        return new ZoneStatsDto(zone.getId(), zone.getLibelle(), total, parStatut, derniereReconciliation);
+    }
+
+    // ============================================
+    // VARIATIONS
+    // ============================================
+
+    /**
+     * Un colis de la zone est apparu dans ce statut (création, import).
+     */
+    public void ajouter(String zoneId, StatutColis statut) {
+        variation(zoneId, statut, 1);
+    }
+
+    /**
+     * Un colis de la zone a quitté les tables de travail (suppression, archivage).
+     */
+    public void retirer(String zoneId, StatutColis statut) {
+        variation(zoneId, statut, -1);
+    }
+
+    /**
+     * Un colis de la zone est passé d'un statut à un autre.
+     */
+    public void deplacer(String zoneId, StatutColis ancien, StatutColis nouveau) {
+        if (ancien != nouveau) {
+            variation(zoneId, ancien, -1);
+            variation(zoneId, nouveau, 1);
+        }
+    }
+
+    /**
+     * Dans une transaction, la variation est cumulée avec les autres variations de la transaction puis
+     * appliquée après le commit : un rollback ne laisse aucune trace. Hors transaction, elle est immédiate.
+     */
+    private void variation(String zoneId, StatutColis statut, long delta) {
+        if (zoneId == null || statut == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            appliquer(zoneId, statut.ordinal(), delta);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, long[]> variations = (Map<String, long[]>) TransactionSynchronizationManager.getResource(this);
+        if (variations == null) {
+            variations = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, variations);
+            TransactionSynchronizationManager.registerSynchronization(new VariationsTransaction(variations));
+        }
+        variations.computeIfAbsent(zoneId, z -> new long[STATUTS.length])[statut.ordinal()] += delta;
+    }
+
+    /**
+     * Variations d'une transaction : une seule synchronisation par transaction, même pour un lot de milliers de colis.
+     */
+    private final class VariationsTransaction implements TransactionSynchronization {
+
+        private final Map<String, long[]> variations;
+
+        private VariationsTransaction(Map<String, long[]> variations) {
+            this.variations = variations;
+        }
+
+        // Transaction imbriquée (REQUIRES_NEW) : ses variations ne se mêlent pas à celles-ci
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(CompteursZones.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(CompteursZones.this, variations);
+        }
+
+        @Override
+        public void afterCommit() {
+            variations.forEach((zoneId, deltas) -> {
+                for (int i = 0; i < deltas.length; i++) {
+                    if (deltas[i] != 0) {
+                        appliquer(zoneId, i, deltas[i]);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void afterCompletion(int statut) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CompteursZones.this);
+        }
+    }
+
+    private void appliquer(String zoneId, int statut, long delta) {
+        verrou.readLock().lock();
+        try {
+            cellules(compteurs, zoneId)[statut].add(delta);
+            if (variationsPendantComptage != null) {
+                cellules(variationsPendantComptage, zoneId)[statut].add(delta);
+            }
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    private static LongAdder[] cellules(Map<String, LongAdder[]> parZone, String zoneId) {
+        LongAdder[] cellules = parZone.get(zoneId);
+        return cellules != null ? cellules : parZone.computeIfAbsent(zoneId, z -> {
+            LongAdder[] nouvelles = new LongAdder[STATUTS.length];
+            for (int i = 0; i < nouvelles.length; i++) {
+                nouvelles[i] = new LongAdder();
+            }
+            return nouvelles;
+        });
+    }
+
+    // ============================================
+    // RÉCONCILIATION ET SAUVEGARDE
+    // ============================================
+
+    /**
+     * Au démarrage : reprise de la dernière sauvegarde, puis recomptage complet. La sauvegarde peut dater
+     * d'avant un arrêt brutal ou d'écritures faites par une autre instance : elle ne sert de réponse que si
+     * le recomptage échoue, jusqu'à la réconciliation planifiée suivante.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void charger() {
+        Map<String, LongAdder[]> charges = recharger(() -> {
+            Map<String, LongAdder[]> sauvegarde = new ConcurrentHashMap<>();
+            compteurRepository.findAll().forEach(c ->
+                    cellules(sauvegarde, c.getId().getZoneId())[c.getId().getStatut().ordinal()].add(c.getNombre()));
+            return sauvegarde;
+        });
+        try {
+            reconcilier();
+            log.info("Compteurs de colis recomptés au démarrage");
+        } catch (DataAccessException e) {
+            log.warn("Recomptage des colis impossible au démarrage, compteurs repris de colis_compteur_zone ({} zones) : {}",
+                    charges.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Recompte les colis par zone et statut, remplace les compteurs en mémoire, puis les sauvegarde.
+     * Une transaction validée juste avant le comptage mais dont la variation arrive juste après peut être
+     * comptée deux fois : l'écart (un colis) disparaît à la réconciliation suivante.
+     */
+    @Scheduled(fixedDelayString = "${sdms.colis.compteurs.intervalle-reconciliation:PT1H}",
+            initialDelayString = "${sdms.colis.compteurs.intervalle-reconciliation:PT1H}")
+    public synchronized void reconcilier() {
+        Map<String, LongAdder[]> recomptes = recharger(() -> {
+            Map<String, LongAdder[]> comptage = new ConcurrentHashMap<>();
+            colisRepository.compterParZoneEtStatut().stream()
+                    .filter(c -> c.getZoneId() != null)
+                    .forEach(c -> cellules(comptage, c.getZoneId())[c.getStatut().ordinal()].add(c.getNombre()));
+            return comptage;
+        });
+        derniereReconciliation = LocalDateTime.now();
+        log.debug("Compteurs de colis réconciliés ({} zones)", recomptes.size());
+        sauvegarder();
+    }
+
+    /**
+     * Remplace les compteurs en mémoire par ceux lus en base. Les variations appliquées pendant la lecture
+     * sont enregistrées à part, puis reportées sur le résultat sous le verrou exclusif.
+     */
+    private Map<String, LongAdder[]> recharger(Supplier<Map<String, LongAdder[]>> lecture) {
+        modifierSousVerrou(() -> variationsPendantComptage = new ConcurrentHashMap<>());
+        Map<String, LongAdder[]> nouveaux;
+        try {
+            nouveaux = transactionLecture.execute(statut -> lecture.get());
+        } catch (RuntimeException e) {
+            modifierSousVerrou(() -> variationsPendantComptage = null);
+            throw e;
+        }
+        Map<String, LongAdder[]> resultat = nouveaux != null ? nouveaux : new ConcurrentHashMap<>();
+        remplacer(resultat);
+        return resultat;
+    }
+
+    private void remplacer(Map<String, LongAdder[]> nouveaux) {
+        modifierSousVerrou(() -> {
+            if (variationsPendantComptage != null) {
+                variationsPendantComptage.forEach((zoneId, deltas) -> {
+                    LongAdder[] cellules = cellules(nouveaux, zoneId);
+                    for (int i = 0; i < deltas.length; i++) {
+                        cellules[i].add(deltas[i].sum());
+                    }
+                });
+                variationsPendantComptage = null;
+            }
+            compteurs = nouveaux;
+        });
+    }
+
+    private void modifierSousVerrou(Runnable modification) {
+        verrou.writeLock().lock();
+        try {
+            modification.run();
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Réécrit colis_compteur_zone avec les compteurs non nuls, dans une transaction.
+     */
+    @Scheduled(fixedDelayString = "${sdms.colis.compteurs.intervalle-sauvegarde:PT1M}",
+            initialDelayString = "${sdms.colis.compteurs.intervalle-sauvegarde:PT1M}")
+    public void sauvegarder() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        List<CompteurZone> lignes = new ArrayList<>();
+        compteurs.forEach((zoneId, cellules) -> {
+            for (StatutColis statut : STATUTS) {
+                long nombre = cellules[statut.ordinal()].sum();
+                if (nombre != 0) {
+                    lignes.add(new CompteurZone(new CompteurZoneId(zoneId, statut), nombre, maintenant));
+                }
+            }
+        });
+        transactionTemplate.executeWithoutResult(statut -> {
+            compteurRepository.deleteAllInBatch();
+            compteurRepository.saveAll(lignes);
+        });
+    }
+
+    @PreDestroy
+    public void arreter() {
+        try {
+            sauvegarder();
+        } catch (DataAccessException e) {
+            log.warn("Sauvegarde des compteurs de colis impossible à l'arrêt : {}", e.getMessage());
+        }
+    }
+}
@@ -1,14 +1,22 @@
 package com.smartlogi.sdms.service;
 
 import com.smartlogi.sdms.DTO.DestinataireDto;
+import com.smartlogi.sdms.DTO.ReferenceDto;
+import com.smartlogi.sdms.config.CacheConfig;
 import com.smartlogi.sdms.mapper.DestinataireMapper;
 import com.smartlogi.sdms.model.Destinataire;
 import com.smartlogi.sdms.repository.DestinataireRepository;
+import com.smartlogi.sdms.repository.Identifiants;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 // Suppression de l'import java.util.UUID
 import java.util.stream.Collectors;
 
@@ -45,12 +53,32 @@ public class DestinataireService {
     // FETCH ENTITY (pour usage interne, ex: dans ColisService)
     // CORRECTION : id doit être String
     public Destinataire getDestinataireEntityById(String id) {
-        return destinataireRepository.findById(id)
+        return Identifiants.valide(id).flatMap(destinataireRepository::findById)
                 .orElseThrow(() -> new EntityNotFoundException("Destinataire non trouvé avec l'ID: " + id));
     }
 
+    // RÉSUMÉ EN CACHE (validation des FKs à la création de colis, sans relire l'entité)
+    // Les IDs inconnus lèvent EntityNotFoundException et ne sont pas mis en cache
+    @Cacheable(cacheNames = CacheConfig.CACHE_DESTINATAIRES, key = "#id", sync = true)
+    public ReferenceDto getDestinataireReference(String id) {
+        Destinataire destinataire = getDestinataireEntityById(id);
+        return new ReferenceDto(destinataire.getId(), destinataire.getNom() + " " + destinataire.getPrenom());
+    }
+
+    // PROXY JPA (FK seule, sans SELECT) pour un destinataire dont l'existence est déjà connue
+    public Destinataire getDestinataireProxy(String id) {
+        return destinataireRepository.getReferenceById(id);
+    }
+
+    // FETCH ENTITIES EN LOT (une seule requête IN, les IDs inexistants sont absents de la Map)
+    public Map<String, Destinataire> getDestinataireEntitiesByIds(Collection<String> ids) {
+        return destinataireRepository.findAllById(Identifiants.valides(ids)).stream()
+                .collect(Collectors.toMap(Destinataire::getId, Function.identity()));
+    }
+
     // UPDATE
     // CORRECTION : id doit être String
+    @CacheEvict(cacheNames = CacheConfig.CACHE_DESTINATAIRES, key = "#id")
     public DestinataireDto updateDestinataire(String id, DestinataireDto destinataireDto) {
         Destinataire existingDestinataire = destinataireRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Destinataire non trouvé avec l'ID: " + id));
@@ -68,6 +96,7 @@ public class DestinataireService {
 
     // DELETE
     // CORRECTION : id doit être String
+    @CacheEvict(cacheNames = CacheConfig.CACHE_DESTINATAIRES, key = "#id")
     public void deleteDestinataire(String id) {
         if (!destinataireRepository.existsById(id)) {
             throw new EntityNotFoundException("Destinataire non trouvé avec l'ID: " + id);
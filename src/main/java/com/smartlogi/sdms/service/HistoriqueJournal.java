@@ -0,0 +1,563 @@
+package com.smartlogi.sdms.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartlogi.sdms.config.HistoriqueJournalProperties;
+import com.smartlogi.sdms.event.HistoriqueEvenement;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Journal d'écriture différée (write-behind) de l'historique des livraisons.
+ * <p>
+ * Les changements de statut sont ajoutés à un fichier local append-only (une ligne JSON par événement)
+ * juste avant le commit de la transaction métier : un commit acquitté a toujours son événement sur disque.
+ * Si la transaction est finalement annulée, une ligne d'annulation portant l'ID de l'événement est ajoutée.
+ * Un thread de vidage unique insère ensuite les événements par lots dans historique_livraison et mémorise
+ * la position atteinte dans un fichier checkpoint ; il ne dépasse jamais un événement dont la transaction
+ * n'est pas terminée. Au démarrage, tout ce qui suit le checkpoint est rejoué : les événements annulés et
+ * ceux dont l'ID est déjà présent en base sont ignorés, ce qui rend le rejeu idempotent.
+ * Une transaction interrompue par le crash lui-même n'a pas pu journaliser son issue : avant de servir,
+ * l'ouverture compare la version portée par chaque événement rejoué à celle du colis en base. Un colis resté
+ * en deçà n'a jamais validé le changement, et l'événement est écarté. Les versions d'un colis ne sont
+ * atteintes que sous le verrou de sa ligne : si plusieurs événements rejoués portent la même version,
+ * seul le dernier écrit a pu être validé.
+ * <p>
+ * La publication ne bloque jamais la transaction appelante : journal saturé, l'appelant écrit l'historique
+ * lui-même, de façon synchrone.
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(HistoriqueJournalProperties.class)
+public class HistoriqueJournal {
+
+    private static final int TAILLE_TAMPON = 64 * 1024;
+
+    // Ligne d'annulation : {"annule":"<id de l'événement>"}
+    private static final String CHAMP_ANNULATION = "annule";
+
+    // Colonnes uuid : les IDs sont liés en java.util.UUID (setObject), comme les paramètres des recherches IN (:ids)
+    private static final String SQL_INSERT = "INSERT INTO historique_livraison "
+            + "(id, colis_id, statut, date_changement, commentaire) VALUES (?, ?, ?, ?, ?)";
+
+    private final HistoriqueJournalProperties proprietes;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    // Protège l'écriture du journal et sa troncature
+    private final ReentrantLock verrou = new ReentrantLock();
+    private final AtomicLong enAttente = new AtomicLong();
+    private final AtomicBoolean vidageDemande = new AtomicBoolean();
+    // Un seul vidage à la fois (thread de vidage, arrêt de l'application)
+    private final ReentrantLock verrouVidage = new ReentrantLock();
+    // Événements écrits dont la transaction n'est pas terminée : le vidage s'arrête au premier d'entre eux
+    private final Set<String> enCours = ConcurrentHashMap.newKeySet();
+    // Événements écrits puis annulés (rollback) ou écartés au rejeu, retirés quand le vidage atteint leur ligne
+    private final Set<String> annules = ConcurrentHashMap.newKeySet();
+
+    private Path fichierCheckpoint;
+    private FileChannel journal;
+    private long checkpoint; // Octets du journal déjà insérés en base (modifié sous verrouVidage)
+    private ScheduledExecutorService videur;
+
+    public HistoriqueJournal(HistoriqueJournalProperties proprietes, JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.proprietes = proprietes;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        // REQUIRES_NEW : les insertions peuvent être déclenchées depuis un afterCommit d'une autre transaction.
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isActif() {
+        return proprietes.isEnabled();
+    }
+
+    /**
+     * Nombre d'événements journalisés mais pas encore insérés en base.
+     */
+    public long getEnAttente() {
+        return enAttente.get();
+    }
+
+    @PostConstruct
+    public void demarrer() throws IOException {
+        if (!isActif()) {
+            return;
+        }
+        ouvrir();
+        videur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "historique-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalle = proprietes.getIntervalleVidage().toMillis();
+        videur.scheduleWithFixedDelay(this::viderSansErreur, intervalle, intervalle, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ouvre le journal et prépare le rejeu de ce qui suit le checkpoint (sans démarrer le thread de vidage).
+     */
+    void ouvrir() throws IOException {
+        Path fichier = proprietes.getFichier();
+        if (fichier.getParent() != null) {
+            Files.createDirectories(fichier.getParent());
+        }
+        fichierCheckpoint = fichier.resolveSibling(fichier.getFileName() + ".checkpoint");
+        journal = FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        checkpoint = Files.exists(fichierCheckpoint)
+                ? Long.parseLong(Files.readString(fichierCheckpoint).trim())
+                : 0L;
+        // Checkpoint au-delà de la fin du fichier (crash pendant une troncature) : tout le fichier est à rejouer,
+        // les événements déjà insérés sont écartés par leur ID.
+        if (checkpoint > journal.size()) {
+            avancerCheckpoint(0);
+        }
+
+        // Reprise après crash : on écarte une éventuelle dernière ligne incomplète, puis on compte ce qui reste à rejouer.
+        long finValide = derniereFinDeLigne();
+        if (finValide < journal.size()) {
+            journal.truncate(finValide);
+        }
+        Map<String, HistoriqueEvenement> aVerifier = new HashMap<>();
+        long aRejouer = analyserAvantRejeu(checkpoint, journal.size(), aVerifier);
+        enAttente.set(aRejouer);
+        if (aRejouer > 0) {
+            log.info("Journal de l'historique : {} événement(s) à rejouer depuis l'octet {}", aRejouer, checkpoint);
+            ecarterNonValides(aVerifier.values());
+        }
+    }
+
+    @PreDestroy
+    public void arreter() throws IOException, InterruptedException {
+        if (journal == null) {
+            return;
+        }
+        if (videur != null) {
+            videur.shutdown();
+            videur.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        viderSansErreur();
+        journal.close();
+    }
+
+    /**
+     * Publie un événement d'historique. Dans une transaction, la ligne est écrite (et synchronisée sur disque)
+     * avant le commit : une erreur d'écriture annule la transaction, et un commit réussi ne peut plus perdre
+     * son événement. Un rollback survenant après l'écriture ajoute une ligne d'annulation.
+     * @return false si le journal est saturé et que l'appel a lieu dans une transaction :
+     *         l'appelant écrit alors l'historique lui-même, dans sa transaction, sans attendre de place.
+     */
+    public boolean publier(HistoriqueEvenement evenement) {
+        byte[] ligne = serialiser(evenement);
+        boolean transaction = TransactionSynchronizationManager.isSynchronizationActive();
+        if (!reserverPlace()) {
+            log.warn("Journal de l'historique saturé ({} en attente) : écriture directe de l'événement {}",
+                    enAttente.get(), evenement.id());
+            if (transaction) {
+                return false;
+            }
+            inserer(List.of(evenement));
+            return true;
+        }
+        if (transaction) {
+            TransactionSynchronizationManager.registerSynchronization(new EcritureAvantCommit(evenement.id(), ligne));
+        } else {
+            try {
+                ecrire(ligne);
+            } catch (RuntimeException e) {
+                libererPlace();
+                throw e;
+            }
+            demanderVidageSiLotComplet();
+        }
+        return true;
+    }
+
+    /**
+     * Écriture de la ligne d'un événement au moment du commit de la transaction qui l'a produit.
+     */
+    private final class EcritureAvantCommit implements TransactionSynchronization {
+
+        private final String id;
+        private final byte[] ligne;
+        private boolean ecrit;
+
+        private EcritureAvantCommit(String id, byte[] ligne) {
+            this.id = id;
+            this.ligne = ligne;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // Marqué en cours avant l'écriture : le vidage ne peut pas lire la ligne avant de connaître son issue
+            enCours.add(id);
+            try {
+                ecrire(ligne);
+                ecrit = true;
+            } catch (RuntimeException e) {
+                enCours.remove(id);
+                throw e;
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (!ecrit) {
+                // Rollback avant l'écriture (ou écriture en échec) : rien dans le journal
+                libererPlace();
+                return;
+            }
+            if (status != STATUS_COMMITTED) {
+                annules.add(id);
+                try {
+                    ecrire(serialiser(Map.of(CHAMP_ANNULATION, id)));
+                } catch (RuntimeException e) {
+                    // L'événement reste ignoré jusqu'à l'arrêt ; après un crash il serait rejoué
+                    log.error("Ligne d'annulation non journalisée pour l'événement {}", id, e);
+                }
+            }
+            enCours.remove(id);
+            demanderVidageSiLotComplet();
+        }
+    }
+
+    // Sans attente : l'appelant peut détenir des verrous et une connexion de sa transaction
+    private boolean reserverPlace() {
+        if (enAttente.incrementAndGet() > proprietes.getCapacite()) {
+            enAttente.decrementAndGet();
+            demanderVidage();
+            return false;
+        }
+        return true;
+    }
+
+    private void libererPlace() {
+        enAttente.decrementAndGet();
+    }
+
+    private void demanderVidageSiLotComplet() {
+        if (enAttente.get() >= proprietes.getTailleLot()) {
+            demanderVidage();
+        }
+    }
+
+    private void ecrire(byte[] ligne) {
+        verrou.lock();
+        try {
+            long debut = journal.size();
+            try {
+                // Écriture positionnelle en fin de fichier : le thread de vidage lit en parallèle sans déplacer de position.
+                ByteBuffer tampon = ByteBuffer.wrap(ligne);
+                while (tampon.hasRemaining()) {
+                    journal.write(tampon, journal.size());
+                }
+                if (proprietes.isFsync()) {
+                    journal.force(false);
+                }
+            } catch (IOException e) {
+                journal.truncate(debut); // Pas de ligne partielle devant les écritures suivantes
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture impossible dans le journal de l'historique", e);
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    private void demanderVidage() {
+        if (videur != null && vidageDemande.compareAndSet(false, true)) {
+            videur.execute(() -> {
+                vidageDemande.set(false);
+                viderSansErreur();
+            });
+        }
+    }
+
+    private void viderSansErreur() {
+        try {
+            while (viderUnLot() == proprietes.getTailleLot()) {
+                // Continue tant que des lots complets sont disponibles
+            }
+        } catch (RuntimeException | IOException e) {
+            // Le checkpoint n'a pas avancé : le lot sera retenté au prochain vidage.
+            log.error("Échec du vidage du journal de l'historique", e);
+        }
+    }
+
+    /**
+     * Insère en base le prochain lot d'événements du journal puis avance le checkpoint.
+     * @return Le nombre d'événements lus dans le journal.
+     */
+    int viderUnLot() throws IOException {
+        verrouVidage.lock();
+        try {
+            return viderUnLotSousVerrou();
+        } finally {
+            verrouVidage.unlock();
+        }
+    }
+
+    private int viderUnLotSousVerrou() throws IOException {
+        long fin = journal.size();
+        if (checkpoint >= fin) {
+            return 0;
+        }
+
+        List<byte[]> lignes = new ArrayList<>();
+        List<Long> fins = new ArrayList<>();
+        lireLignes(checkpoint, fin, proprietes.getTailleLot(), lignes, fins);
+        List<HistoriqueEvenement> lot = new ArrayList<>(lignes.size());
+        long position = checkpoint;
+        int consommees = 0;
+        int evenements = 0;
+        for (int i = 0; i < lignes.size(); i++) {
+            JsonNode noeud = objectMapper.readTree(lignes.get(i));
+            if (noeud.has(CHAMP_ANNULATION)) {
+                annules.remove(noeud.get(CHAMP_ANNULATION).asText());
+            } else {
+                HistoriqueEvenement evenement = objectMapper.treeToValue(noeud, HistoriqueEvenement.class);
+                if (enCours.contains(evenement.id())) {
+                    break; // Issue de la transaction encore inconnue : le lot s'arrête avant cette ligne
+                }
+                evenements++;
+                if (!annules.remove(evenement.id())) {
+                    lot.add(evenement);
+                }
+            }
+            position = fins.get(i);
+            consommees++;
+        }
+        if (consommees == 0) {
+            return 0;
+        }
+
+        if (!lot.isEmpty()) {
+            inserer(lot);
+        }
+        avancerCheckpoint(position);
+        enAttente.addAndGet(-evenements);
+
+        verrou.lock();
+        try {
+            // Tout a été inséré : on repart d'un journal vide pour qu'il ne grossisse pas indéfiniment.
+            // Le checkpoint est remis à 0 avant la troncature : un crash entre les deux fait rejouer
+            // un journal déjà inséré (dédoublonné par ID) plutôt que de laisser un checkpoint hors du fichier.
+            if (checkpoint == journal.size()) {
+                avancerCheckpoint(0);
+                journal.truncate(0);
+            }
+        } finally {
+            verrou.unlock();
+        }
+        return consommees;
+    }
+
+    private void inserer(List<HistoriqueEvenement> lot) {
+        transactionTemplate.executeWithoutResult(statut -> {
+            List<HistoriqueEvenement> aInserer = filtrerDejaTraites(lot);
+            if (aInserer.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.batchUpdate(SQL_INSERT, aInserer, aInserer.size(), (ps, evenement) -> {
+                ps.setObject(1, UUID.fromString(evenement.id()));
+                ps.setObject(2, UUID.fromString(evenement.colisId()));
+                ps.setString(3, evenement.statut());
+                ps.setTimestamp(4, Timestamp.valueOf(evenement.dateChangement()));
+                ps.setString(5, evenement.commentaire());
+            });
+        });
+    }
+
+    // Écarte les événements déjà insérés (rejeu) et ceux dont le colis a été supprimé entre-temps.
+    private List<HistoriqueEvenement> filtrerDejaTraites(List<HistoriqueEvenement> lot) {
+        Set<UUID> ids = new HashSet<>();
+        Set<UUID> colisIds = new HashSet<>();
+        lot.forEach(evenement -> {
+            ids.add(UUID.fromString(evenement.id()));
+            colisIds.add(UUID.fromString(evenement.colisId()));
+        });
+        // Bornes de dates du lot : la recherche n'ouvre que les partitions mensuelles concernées
+        LocalDateTime min = lot.stream().map(HistoriqueEvenement::dateChangement).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime max = lot.stream().map(HistoriqueEvenement::dateChangement).max(Comparator.naturalOrder()).orElseThrow();
+        Set<String> dejaInseres = new HashSet<>(namedJdbcTemplate.queryForList(
+                "SELECT id FROM historique_livraison WHERE id IN (:ids) AND date_changement BETWEEN :min AND :max",
+                Map.of("ids", ids, "min", min, "max", max), String.class));
+        Set<String> colisExistants = new HashSet<>(namedJdbcTemplate.queryForList(
+                "SELECT id FROM colis WHERE id IN (:ids)", Map.of("ids", colisIds), String.class));
+        return lot.stream()
+                .filter(evenement -> !dejaInseres.contains(evenement.id()))
+                .filter(evenement -> colisExistants.contains(evenement.colisId()))
+                .toList();
+    }
+
+    private void avancerCheckpoint(long position) throws IOException {
+        Path temporaire = fichierCheckpoint.resolveSibling(fichierCheckpoint.getFileName() + ".tmp");
+        Files.writeString(temporaire, Long.toString(position));
+        Files.move(temporaire, fichierCheckpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checkpoint = position;
+    }
+
+    private byte[] serialiser(Object contenu) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(contenu);
+            byte[] ligne = new byte[json.length + 1];
+            System.arraycopy(json, 0, ligne, 0, json.length);
+            ligne[json.length] = '\n';
+            return ligne;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation impossible de la ligne du journal " + contenu, e);
+        }
+    }
+
+    private long derniereFinDeLigne() throws IOException {
+        ByteBuffer octet = ByteBuffer.allocate(1);
+        for (long position = journal.size() - 1; position >= checkpoint; position--) {
+            octet.clear();
+            journal.read(octet, position);
+            if (octet.get(0) == '\n') {
+                return position + 1;
+            }
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Lit au plus {@code max} lignes complètes entre {@code debut} et {@code fin} (lectures positionnelles).
+     * @param fins Reçoit, pour chaque ligne lue, la position qui la suit.
+     * @return La position qui suit la dernière ligne complète lue.
+     */
+    private long lireLignes(long debut, long fin, int max, List<byte[]> lignes, List<Long> fins) throws IOException {
+        ByteBuffer tampon = ByteBuffer.allocate(TAILLE_TAMPON);
+        ByteArrayOutputStream ligne = new ByteArrayOutputStream();
+        long position = debut;
+        long lu = debut;
+        while (lu < fin && lignes.size() < max) {
+            tampon.clear().limit((int) Math.min(TAILLE_TAMPON, fin - lu));
+            int n = journal.read(tampon, lu);
+            if (n <= 0) {
+                break;
+            }
+            tampon.flip();
+            while (tampon.hasRemaining() && lignes.size() < max) {
+                byte octet = tampon.get();
+                if (octet == '\n') {
+                    lignes.add(ligne.toByteArray());
+                    ligne.reset();
+                    position = lu + tampon.position();
+                    fins.add(position);
+                } else {
+                    ligne.write(octet);
+                }
+            }
+            lu += n;
+        }
+        return position;
+    }
+
+    /**
+     * Parcourt les lignes à rejouer : relève les annulations et compte les événements.
+     * @param aVerifier Reçoit, par colis et version, le dernier événement écrit ; les précédents sont écartés.
+     */
+    private long analyserAvantRejeu(long debut, long fin, Map<String, HistoriqueEvenement> aVerifier) throws IOException {
+        long evenements = 0;
+        long position = debut;
+        List<byte[]> lignes = new ArrayList<>();
+        while (position < fin) {
+            lignes.clear();
+            long suivante = lireLignes(position, fin, proprietes.getTailleLot(), lignes, new ArrayList<>());
+            if (lignes.isEmpty()) {
+                break;
+            }
+            for (byte[] ligne : lignes) {
+                JsonNode noeud = objectMapper.readTree(ligne);
+                if (noeud.has(CHAMP_ANNULATION)) {
+                    annules.add(noeud.get(CHAMP_ANNULATION).asText());
+                } else {
+                    evenements++;
+                    HistoriqueEvenement evenement = objectMapper.treeToValue(noeud, HistoriqueEvenement.class);
+                    if (evenement.version() != null) {
+                        HistoriqueEvenement precedent = aVerifier.put(evenement.colisId() + ":" + evenement.version(), evenement);
+                        if (precedent != null) {
+                            annules.add(precedent.id());
+                        }
+                    }
+                }
+            }
+            position = suivante;
+        }
+        return evenements;
+    }
+
+    /**
+     * Écarte les événements rejoués dont le colis n'a jamais atteint la version : leur transaction
+     * a été interrompue par le crash avant le commit. Les colis supprimés sont écartés à l'insertion.
+     */
+    private void ecarterNonValides(Collection<HistoriqueEvenement> evenements) {
+        List<HistoriqueEvenement> liste = new ArrayList<>(evenements);
+        int ecartes = 0;
+        for (int debut = 0; debut < liste.size(); debut += proprietes.getTailleLot()) {
+            List<HistoriqueEvenement> lot = liste.subList(debut, Math.min(debut + proprietes.getTailleLot(), liste.size()));
+            Set<UUID> colisIds = new HashSet<>();
+            lot.forEach(evenement -> colisIds.add(UUID.fromString(evenement.colisId())));
+            Map<String, Long> versions = new HashMap<>();
+            namedJdbcTemplate.query("SELECT id, version FROM colis WHERE id IN (:ids)", Map.of("ids", colisIds),
+                    (RowCallbackHandler) rs -> versions.put(rs.getString(1), rs.getLong(2)));
+            for (HistoriqueEvenement evenement : lot) {
+                Long version = versions.get(evenement.colisId());
+                if (version != null && version < evenement.version()) {
+                    annules.add(evenement.id());
+                    ecartes++;
+                }
+            }
+        }
+        if (ecartes > 0) {
+            log.warn("Journal de l'historique : {} événement(s) de transactions non validées écarté(s) du rejeu", ecartes);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.smartlogi.sdms.service;
+
+import com.smartlogi.sdms.config.HistoriquePartitionsProperties;
+import com.smartlogi.sdms.config.HistoriquePartitionsProperties.ModeExpiration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintenance des partitions mensuelles de historique_livraison (PostgreSQL).
+ * <p>
+ * À chaque passe : crée à l'avance les partitions du mois courant et des mois suivants, pour que
+ * les insertions ne tombent jamais dans la partition par défaut, puis détache (ou supprime) les
+ * partitions sorties de la fenêtre de rétention. Une partition qui contient encore des étapes d'un colis
+ * présent dans la table colis (colis non archivé, voir ColisArchivage) est conservée : l'historique
+ * d'un colis consultable n'est jamais amputé. Les opérations sont idempotentes : plusieurs
+ * instances de l'application peuvent exécuter la maintenance sans se gêner.
+ */
+@Slf4j
+@Service
+@EnableScheduling
+@EnableConfigurationProperties(HistoriquePartitionsProperties.class)
+@ConditionalOnProperty(prefix = "sdms.historique.partitions", name = "enabled", havingValue = "true")
+public class HistoriquePartitions {
+
+    static final String TABLE = "historique_livraison";
+
+    private static final Pattern PARTITION_MENSUELLE = Pattern.compile(TABLE + "_p(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter SUFFIXE = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final String SQL_PARTITIONS = "SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+            + "WHERE p.relname = '" + TABLE + "'";
+
+    // S'arrête à la première étape d'un colis encore en table (clé primaire de colis)
+    private static final String SQL_COLIS_PRESENTS = "SELECT EXISTS (SELECT 1 FROM %s h JOIN colis c ON c.id = h.colis_id)";
+
+    private final HistoriquePartitionsProperties proprietes;
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock horloge;
+
+    @Autowired
+    public HistoriquePartitions(HistoriquePartitionsProperties proprietes, JdbcTemplate jdbcTemplate) {
+        this(proprietes, jdbcTemplate, Clock.systemDefaultZone());
+    }
+
+    HistoriquePartitions(HistoriquePartitionsProperties proprietes, JdbcTemplate jdbcTemplate, Clock horloge) {
+        this.proprietes = proprietes;
+        this.jdbcTemplate = jdbcTemplate;
+        this.horloge = horloge;
+    }
+
+    @Scheduled(fixedDelayString = "${sdms.historique.partitions.intervalle:PT6H}")
+    public void maintenir() {
+        YearMonth moisCourant = YearMonth.now(horloge);
+        for (int i = 0; i <= proprietes.getMoisAnticipes(); i++) {
+            creerPartition(moisCourant.plusMonths(i));
+        }
+        expirerPartitions(moisCourant.minusMonths(proprietes.getRetentionMois()));
+    }
+
+    /**
+     * Crée la partition d'un mois si elle n'existe pas encore.
+     * Échoue (et le signale) si la partition par défaut contient déjà des lignes de ce mois.
+     */
+    void creerPartition(YearMonth mois) {
+        String sql = "CREATE TABLE IF NOT EXISTS " + nomPartition(mois) + " PARTITION OF " + TABLE
+                + " FOR VALUES FROM ('" + mois.atDay(1) + "') TO ('" + mois.plusMonths(1).atDay(1) + "')";
+        try {
+            jdbcTemplate.execute(sql);
+        } catch (DataAccessException e) {
+            log.error("Création de la partition {} impossible", nomPartition(mois), e);
+        }
+    }
+
+    /**
+     * Détache (ou supprime) les partitions mensuelles entièrement antérieures au premier mois conservé,
+     * sauf celles qui contiennent encore des étapes de colis présents dans la table colis.
+     */
+    void expirerPartitions(YearMonth premierMoisConserve) {
+        List<String> partitions = jdbcTemplate.queryForList(SQL_PARTITIONS, String.class);
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_MENSUELLE.matcher(partition);
+            if (!matcher.matches()) {
+                continue; // Partition par défaut
+            }
+            YearMonth mois = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (mois.isBefore(premierMoisConserve)) {
+                expirer(partition, mois);
+            }
+        }
+    }
+
+    private void expirer(String partition, YearMonth mois) {
+        try {
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(SQL_COLIS_PRESENTS.formatted(partition), Boolean.class))) {
+                log.warn("Partition {} conservée au-delà de la rétention : elle contient des étapes de colis non archivés",
+                        partition);
+                return;
+            }
+            // DETACH CONCURRENTLY est exclu par la présence d'une partition par défaut :
+            // le détachement verrouille brièvement la table parente.
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+            if (proprietes.getModeExpiration() == ModeExpiration.SUPPRIMER) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("Partition {} expirée : supprimée", partition);
+            } else {
+                String archive = TABLE + "_archive_p" + mois.format(SUFFIXE);
+                jdbcTemplate.execute("ALTER TABLE " + partition + " RENAME TO " + archive);
+                log.info("Partition {} expirée : détachée en {}", partition, archive);
+            }
+        } catch (DataAccessException e) {
+            log.error("Expiration de la partition {} impossible", partition, e);
+        }
+    }
+
+    static String nomPartition(YearMonth mois) {
+        return TABLE + "_p" + mois.format(SUFFIXE);
+    }
+}
@@ -0,0 +1,232 @@
+package com.smartlogi.sdms.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartlogi.sdms.config.IdempotenceProperties;
+import com.smartlogi.sdms.exception.CleIdempotenceReutiliseeException;
+import com.smartlogi.sdms.exception.RequeteEnCoursException;
+import com.smartlogi.sdms.exception.RequeteInvalideException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Requêtes idempotentes (en-tête Idempotency-Key) des créations de colis.
+ * <p>
+ * La réponse de la première requête portant une clé est gardée pendant {@code sdms.idempotence.ttl} :
+ * une nouvelle tentative avec la même clé et le même contenu la reçoit telle quelle, sans accès à la
+ * table colis. Les doublons concurrents attendent la requête d'origine au lieu de créer un second colis.
+ * Le stockage est en mémoire (Caffeine, borné) ; avec {@code sdms.idempotence.persistance}, la clé est
+ * aussi écrite dans idempotence_cle, dans la transaction de la création.
+ */
+@Slf4j
+@Service
+@EnableScheduling
+@EnableConfigurationProperties(IdempotenceProperties.class)
+public class IdempotenceService {
+
+    // Portées : une même clé peut servir sur deux endpoints différents sans collision
+    public static final String PORTEE_COLIS = "colis";
+    public static final String PORTEE_COLIS_LOT = "colis-lot";
+
+    private static final String SQL_SELECT = "SELECT empreinte, reponse FROM idempotence_cle "
+            + "WHERE cle = ? AND date_expiration > ?";
+    private static final String SQL_SUPPRIMER_EXPIREE = "DELETE FROM idempotence_cle WHERE cle = ? AND date_expiration <= ?";
+    private static final String SQL_INSERT = "INSERT INTO idempotence_cle "
+            + "(cle, empreinte, date_creation, date_expiration) VALUES (?, ?, ?, ?)";
+    private static final String SQL_UPDATE_REPONSE = "UPDATE idempotence_cle SET reponse = ? WHERE cle = ?";
+    private static final String SQL_PURGE = "DELETE FROM idempotence_cle WHERE date_expiration <= ?";
+
+    /**
+     * Requête d'origine d'une clé : empreinte de son contenu et réponse (terminée ou en cours).
+     */
+    private record Entree(String empreinte, CompletableFuture<Object> reponse) {
+    }
+
+    private final IdempotenceProperties proprietes;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Entree> entrees;
+
+    public IdempotenceService(IdempotenceProperties proprietes, JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.proprietes = proprietes;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.entrees = Caffeine.newBuilder()
+                .expireAfterWrite(proprietes.getTtl())
+                .maximumSize(proprietes.getTailleMax())
+                .build();
+    }
+
+    // ============================================
+    // EXÉCUTION IDEMPOTENTE
+    // ============================================
+
+    /**
+     * Exécute l'action une seule fois par clé, et rejoue sa réponse pour les requêtes suivantes.
+     * <p>
+     * Si l'action échoue, rien n'est retenu : une nouvelle tentative avec la même clé la réexécute.
+     * @param portee  Endpoint concerné (ex: {@link #PORTEE_COLIS}).
+     * @param cle     Valeur de l'en-tête Idempotency-Key ; null = pas d'idempotence demandée.
+     * @param requete Contenu de la requête, comparé (par empreinte) à celui de la requête d'origine.
+     * @param type    Type de la réponse (relecture depuis idempotence_cle).
+     * @throws CleIdempotenceReutiliseeException Si la clé a servi pour un contenu différent.
+     * @throws RequeteEnCoursException Si la requête d'origine ne s'est pas terminée dans le délai d'attente.
+     */
+    public <T> T executer(String portee, String cle, Object requete, TypeReference<T> type, Supplier<T> action) {
+        if (cle == null) {
+            return action.get();
+        }
+        if (cle.isBlank() || cle.length() > proprietes.getLongueurMaxCle()) {
+            throw new RequeteInvalideException("La clé d'idempotence doit contenir entre 1 et "
+                    + proprietes.getLongueurMaxCle() + " caractères.");
+        }
+        String id = portee + ":" + cle;
+        String empreinte = empreinte(requete);
+
+        // Une seule entrée par clé : la requête qui la crée exécute l'action, les autres attendent sa réponse
+        Entree nouvelle = new Entree(empreinte, new CompletableFuture<>());
+        Entree entree = entrees.asMap().putIfAbsent(id, nouvelle);
+        if (entree != null) {
+            if (!entree.empreinte().equals(empreinte)) {
+                throw new CleIdempotenceReutiliseeException(cle);
+            }
+            return attendre(cle, entree);
+        }
+
+        try {
+            T reponse = proprietes.isPersistance()
+                    ? executerAvecTable(id, cle, empreinte, objectMapper.getTypeFactory().constructType(type), action)
+                    : action.get();
+            nouvelle.reponse().complete(reponse);
+            return reponse;
+        } catch (RuntimeException e) {
+            entrees.asMap().remove(id, nouvelle);
+            nouvelle.reponse().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T attendre(String cle, Entree entree) {
+        try {
+            return (T) entree.reponse().get(proprietes.getAttenteMax().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new RequeteEnCoursException(cle);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequeteEnCoursException(cle);
+        } catch (ExecutionException e) {
+            // La requête d'origine a échoué : le doublon reçoit la même erreur
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private String empreinte(Object requete) {
+        try {
+            byte[] contenu = objectMapper.writeValueAsBytes(requete);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(contenu));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Contenu de requête non sérialisable.", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ============================================
+    // TABLE idempotence_cle (optionnelle)
+    // ============================================
+
+    /**
+     * Exécute l'action dans la transaction qui insère la clé.
+     * <p>
+     * La clé est insérée avant l'action : sur PostgreSQL, un doublon traité au même moment par une autre
+     * instance bloque sur la clé primaire jusqu'au commit de la première, puis échoue sans avoir rien créé.
+     * Sa réponse est alors relue dans la table.
+     */
+    private <T> T executerAvecTable(String id, String cle, String empreinte, JavaType type, Supplier<T> action) {
+        Optional<T> existante = lireTable(id, cle, empreinte, type);
+        if (existante.isPresent()) {
+            return existante.get();
+        }
+        LocalDateTime maintenant = LocalDateTime.now();
+        try {
+            return transactionTemplate.execute(statut -> {
+                jdbcTemplate.update(SQL_SUPPRIMER_EXPIREE, id, maintenant);
+                jdbcTemplate.update(SQL_INSERT, id, empreinte, maintenant, maintenant.plus(proprietes.getTtl()));
+                T reponse = action.get();
+                jdbcTemplate.update(SQL_UPDATE_REPONSE, serialiser(reponse), id);
+                return reponse;
+            });
+        } catch (DuplicateKeyException e) {
+            Optional<T> concurrente = lireTable(id, cle, empreinte, type);
+            return concurrente.orElseThrow(() -> new RequeteEnCoursException(cle));
+        }
+    }
+
+    private <T> Optional<T> lireTable(String id, String cle, String empreinte, JavaType type) {
+        List<String[]> lignes = jdbcTemplate.query(SQL_SELECT,
+                (rs, i) -> new String[]{rs.getString("empreinte"), rs.getString("reponse")},
+                id, LocalDateTime.now());
+        if (lignes.isEmpty()) {
+            return Optional.empty();
+        }
+        String[] ligne = lignes.get(0);
+        if (!ligne[0].equals(empreinte)) {
+            throw new CleIdempotenceReutiliseeException(cle);
+        }
+        try {
+            T reponse = objectMapper.readValue(ligne[1], type);
+            return Optional.of(reponse);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Réponse illisible pour la clé d'idempotence " + cle, e);
+        }
+    }
+
+    private String serialiser(Object reponse) {
+        try {
+            return objectMapper.writeValueAsString(reponse);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${sdms.idempotence.intervalle-purge:PT1H}")
+    public void purger() {
+        if (!proprietes.isPersistance()) {
+            return;
+        }
+        int supprimees = jdbcTemplate.update(SQL_PURGE, LocalDateTime.now());
+        if (supprimees > 0) {
+            log.info("{} clés d'idempotence expirées supprimées", supprimees);
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.smartlogi.sdms.service;
 
 import com.smartlogi.sdms.DTO.LivreurDto;
+import com.smartlogi.sdms.DTO.ReferenceDto;
+import com.smartlogi.sdms.config.CacheConfig;
 import com.smartlogi.sdms.mapper.LivreurMapper;
 import com.smartlogi.sdms.model.Livreur;
+import com.smartlogi.sdms.repository.Identifiants;
 import com.smartlogi.sdms.repository.LivreurRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 // Suppression de l'import java.util.UUID
 
@@ -45,12 +50,26 @@ public class LivreurService {
     // FETCH ENTITY (pour usage interne, ex: dans ColisService)
     // CORRECTION : id doit être String
     public Livreur getLivreurEntityById(String id) {
-        return livreurRepository.findById(id)
+        return Identifiants.valide(id).flatMap(livreurRepository::findById)
                 .orElseThrow(() -> new EntityNotFoundException("Livreur non trouvé avec l'ID: " + id));
     }
 
+    // RÉSUMÉ EN CACHE (validation de l'affectation, sans relire l'entité)
+    // Les IDs inconnus lèvent EntityNotFoundException et ne sont pas mis en cache
+    @Cacheable(cacheNames = CacheConfig.CACHE_LIVREURS, key = "#id", sync = true)
+    public ReferenceDto getLivreurReference(String id) {
+        Livreur livreur = getLivreurEntityById(id);
+        return new ReferenceDto(livreur.getId(), livreur.getNom() + " " + livreur.getPrenom());
+    }
+
+    // PROXY JPA (FK seule, sans SELECT) pour un livreur dont l'existence est déjà connue
+    public Livreur getLivreurProxy(String id) {
+        return livreurRepository.getReferenceById(id);
+    }
+
     // UPDATE
     // CORRECTION : id doit être String
+    @CacheEvict(cacheNames = CacheConfig.CACHE_LIVREURS, key = "#id")
     public LivreurDto updateLivreur(String id, LivreurDto livreurDto) {
         Livreur existingLivreur = livreurRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Livreur non trouvé avec l'ID: " + id));
@@ -68,6 +87,7 @@ public class LivreurService {
 
     // DELETE
     // CORRECTION : id doit être String
+    @CacheEvict(cacheNames = CacheConfig.CACHE_LIVREURS, key = "#id")
     public void deleteLivreur(String id) {
         if (!livreurRepository.existsById(id)) {
             throw new EntityNotFoundException("Livreur non trouvé avec l'ID: " + id);
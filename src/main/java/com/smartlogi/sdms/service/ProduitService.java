@@ -3,6 +3,7 @@ package com.smartlogi.sdms.service;
 import com.smartlogi.sdms.DTO.ProduitDto;
 import com.smartlogi.sdms.mapper.ProduitMapper;
 import com.smartlogi.sdms.model.Produit;
+import com.smartlogi.sdms.repository.Identifiants;
 import com.smartlogi.sdms.repository.ProduitRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -42,7 +43,7 @@ public class ProduitService {
 
     // FETCH ENTITY (pour usage interne)
     public Produit getProduitEntityById(String id) {
-        return produitRepository.findById(id)
+        return Identifiants.valide(id).flatMap(produitRepository::findById)
                 .orElseThrow(() -> new EntityNotFoundException("Produit non trouvé avec l'ID: " + id));
     }
 
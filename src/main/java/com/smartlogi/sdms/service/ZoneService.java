@@ -1,16 +1,25 @@
 package com.smartlogi.sdms.service;
 
+import com.smartlogi.sdms.DTO.ReferenceDto;
 import com.smartlogi.sdms.DTO.ZoneDto;
+import com.smartlogi.sdms.config.CacheConfig;
 import com.smartlogi.sdms.mapper.ZoneMapper;
 import com.smartlogi.sdms.model.Zone;
+import com.smartlogi.sdms.repository.Identifiants;
 import com.smartlogi.sdms.repository.ZoneRepository;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 // Suppression de l'import java.util.UUID
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 // Suppression de l'import java.util.UUID car il est remplacé par String
 import java.util.stream.Collectors;
 
@@ -67,6 +76,11 @@ public class ZoneService {
      * @throws EntityNotFoundException si la zone n'est pas trouvée.
      */
     // CORRECTION : id doit être String
+    // Le nom de la zone est recopié dans les ColisDto en cache : tout le cache de suivi est vidé (mise à jour rare)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CACHE_ZONES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CACHE_COLIS, allEntries = true)
+    })
     public ZoneDto updateZone(String id, ZoneDto zoneDto) {
         // 1. Vérifie si l'entité existe
         Zone existingZone = zoneRepository.findById(id)
@@ -87,6 +101,7 @@ public class ZoneService {
      * @throws EntityNotFoundException si la zone n'est pas trouvée.
      */
     // CORRECTION : id doit être String
+    @CacheEvict(cacheNames = CacheConfig.CACHE_ZONES, key = "#id")
     public void deleteZone(String id) {
         if (!zoneRepository.existsById(id)) {
             throw new EntityNotFoundException("Zone non trouvée avec l'ID: " + id);
@@ -102,7 +117,38 @@ public class ZoneService {
      */
     // CORRECTION : zoneId doit être String
     public Zone getZoneEntityById(@NotNull(message = "L'ID de la zone est obligatoire") String zoneId) {
-        return zoneRepository.findById(zoneId)
+        return Identifiants.valide(zoneId).flatMap(zoneRepository::findById)
                 .orElseThrow(() -> new EntityNotFoundException("Zone non trouvée avec l'ID: " + zoneId));
     }
+
+    /**
+     * Valide l'existence d'une Zone et retourne son résumé, mis en cache (utilisé par la création de colis).
+     * @param zoneId L'ID de la zone (String).
+     * @return L'ID et le nom de la zone.
+     * @throws EntityNotFoundException si la zone n'est pas trouvée (les absences ne sont pas mises en cache).
+     */
+    @Cacheable(cacheNames = CacheConfig.CACHE_ZONES, key = "#zoneId", sync = true)
+    public ReferenceDto getZoneReference(String zoneId) {
+        Zone zone = getZoneEntityById(zoneId);
+        return new ReferenceDto(zone.getId(), zone.getNom());
+    }
+
+    /**
+     * Référence (proxy JPA non chargé) vers une Zone dont l'existence est déjà connue : suffit pour poser la FK,
+     * sans SELECT.
+     * @param zoneId L'ID de la zone (String).
+     */
+    public Zone getZoneProxy(String zoneId) {
+        return zoneRepository.getReferenceById(zoneId);
+    }
+
+    /**
+     * Récupère en une seule requête (IN) les zones existantes parmi les IDs donnés (utilisé par la création en lot).
+     * @param ids Les IDs recherchés (String).
+     * @return Les zones trouvées, indexées par ID ; les IDs inexistants sont absents.
+     */
+    public Map<String, Zone> getZoneEntitiesByIds(Collection<String> ids) {
+        return zoneRepository.findAllById(Identifiants.valides(ids)).stream()
+                .collect(Collectors.toMap(Zone::getId, Function.identity()));
+    }
 }
\ No newline at end of file
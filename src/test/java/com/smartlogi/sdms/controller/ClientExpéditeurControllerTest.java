@@ -2,7 +2,12 @@ package com.smartlogi.sdms.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.smartlogi.sdms.DTO.ClientExpéditeurDto;
+import com.smartlogi.sdms.DTO.ColisClientPageDto;
+import com.smartlogi.sdms.DTO.PageCurseurDto;
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.exception.RequeteInvalideException;
 import com.smartlogi.sdms.service.ClientExpéditeurService;
+import com.smartlogi.sdms.service.ColisService;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,6 +19,8 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -38,6 +45,9 @@ public class ClientExpéditeurControllerTest {
     @MockBean
     private ClientExpéditeurService clientExpéditeurService; // Mock de la couche Service
 
+    @MockBean
+    private ColisService colisService;
+
     private String testId;
     private ClientExpéditeurDto mockDto;
 
@@ -172,4 +182,58 @@ public class ClientExpéditeurControllerTest {
 
         verify(clientExpéditeurService, times(1)).deleteClient(testId);
     }
-}
\ No newline at end of file
+
+    // =================================================================
+    // GET /colis (Tableau de bord du client)
+    // =================================================================
+
+    @Test
+    void getColisDuClient_ShouldReturn200WithCountsPerStatus() throws Exception {
+        // GIVEN
+        when(colisService.getColisDuClient(testId, Set.of(StatutColis.LIVRE), null, 20)).thenReturn(
+                new ColisClientPageDto(List.of(), "curseur-2", 7L, Map.of(StatutColis.CREE, 5L, StatutColis.LIVRE, 2L)));
+
+        // WHEN & THEN
+        mockMvc.perform(get("/api/clients-expediteurs/{id}/colis", testId).param("statut", "LIVRE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.curseurSuivant").value("curseur-2"))
+                .andExpect(jsonPath("$.total").value(7))
+                .andExpect(jsonPath("$.parStatut.LIVRE").value(2));
+    }
+
+    @Test
+    void getColisDuClient_ShouldReturn404NotFound_WhenClientNotFound() throws Exception {
+        when(colisService.getColisDuClient(eq(testId), any(), any(), anyInt()))
+                .thenThrow(new EntityNotFoundException("Client expéditeur non trouvé"));
+
+        mockMvc.perform(get("/api/clients-expediteurs/{id}/colis", testId))
+                .andExpect(status().isNotFound());
+    }
+
+    // =================================================================
+    // GET /recherche
+    // =================================================================
+
+    @Test
+    void rechercherClients_ShouldReturn200WithPage() throws Exception {
+        // GIVEN
+        when(clientExpéditeurService.rechercherClients("15 Rue", "dupont", null, 20))
+                .thenReturn(new PageCurseurDto<>(List.of(mockDto), "curseur-2"));
+
+        // WHEN & THEN: "recherche" n'est pas pris pour un ID
+        mockMvc.perform(get("/api/clients-expediteurs/recherche").param("adresse", "15 Rue").param("q", "dupont"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elements[0].email").value("jean.dupont@test.com"))
+                .andExpect(jsonPath("$.curseurSuivant").value("curseur-2"));
+        verify(clientExpéditeurService, never()).getClientById(any());
+    }
+
+    @Test
+    void rechercherClients_ShouldReturn400_WhenCriteriaTooShort() throws Exception {
+        when(clientExpéditeurService.rechercherClients(isNull(), eq("du"), isNull(), anyInt()))
+                .thenThrow(new RequeteInvalideException("Le critère 'terme' doit contenir au moins 3 caractères."));
+
+        mockMvc.perform(get("/api/clients-expediteurs/recherche").param("q", "du"))
+                .andExpect(status().isBadRequest());
+    }
+}
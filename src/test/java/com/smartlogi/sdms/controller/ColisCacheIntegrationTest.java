@@ -0,0 +1,270 @@
+package com.smartlogi.sdms.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartlogi.sdms.DTO.ClientExpéditeurDto;
+import com.smartlogi.sdms.DTO.ColisCreationDto;
+import com.smartlogi.sdms.DTO.DestinataireDto;
+import com.smartlogi.sdms.DTO.LivreurDto;
+import com.smartlogi.sdms.DTO.ZoneDto;
+import com.smartlogi.sdms.config.CacheConfig;
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.repository.ColisRepository;
+import com.smartlogi.sdms.repository.ZoneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests d'intégration du cache de suivi des colis.
+ * Sans @Transactional : l'invalidation du cache n'a lieu qu'après un vrai commit.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase
+public class ColisCacheIntegrationTest {
+
+    private final String BASE_URL_COLIS = "/api/colis";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @SpyBean
+    private ColisRepository colisRepository;
+
+    @SpyBean
+    private ZoneRepository zoneRepository;
+
+    private String colisId;
+    private String livreurId;
+    private String zoneId;
+    private String clientId;
+    private String destinataireId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        zoneId = creer("/api/zones", new ZoneDto(null, "Rabat Agdal", "10000"));
+        clientId = creer("/api/clients-expediteurs", new ClientExpéditeurDto(null, "Ali", "M.", "ali@test.com", "0600000001", "Adr Ali"));
+        destinataireId = creer("/api/destinataires", new DestinataireDto(null, "Fatima", "Z.", "fatima@test.com", "0600000002", "Adr Fatima"));
+        livreurId = creer("/api/livreurs", new LivreurDto(null, "Rachid", "I.", "0700000000", "Moto", "Zone Sud"));
+        colisId = creer(BASE_URL_COLIS, new ColisCreationDto("Colis suivi", 2.0, "Rabat", "NORMALE", clientId, destinataireId, zoneId));
+    }
+
+    private String creer(String url, Object dto) throws Exception {
+        MvcResult result = mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asText();
+    }
+
+    private Cache cacheColis() {
+        return cacheManager.getCache(CacheConfig.CACHE_COLIS);
+    }
+
+    @Test
+    void getColisById_ShouldHitDatabaseOnlyOnce_WhenPolledRepeatedly() throws Exception {
+        // WHEN: trois lectures successives
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get(BASE_URL_COLIS + "/{id}", colisId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.statut").value(StatutColis.CREE.name()));
+        }
+
+        // THEN: une seule requête, les suivantes sont servies par le cache
+        verify(colisRepository, times(1)).findDtoById(colisId);
+        assertNotNull(cacheColis().get(colisId));
+    }
+
+    @Test
+    void updateStatut_ShouldInvalidateCachedEntry_AfterCommit() throws Exception {
+        // GIVEN: le colis est en cache
+        mockMvc.perform(get(BASE_URL_COLIS + "/{id}", colisId)).andExpect(status().isOk());
+        assertNotNull(cacheColis().get(colisId));
+
+        // WHEN
+        mockMvc.perform(put(BASE_URL_COLIS + "/statut/{colisId}", colisId)
+                        .param("statut", StatutColis.COLLECTE.name())
+                        .param("commentaire", "Collecté."))
+                .andExpect(status().isOk());
+
+        // THEN: l'entrée est invalidée et la lecture suivante voit le nouveau statut
+        assertNull(cacheColis().get(colisId));
+        mockMvc.perform(get(BASE_URL_COLIS + "/{id}", colisId))
+                .andExpect(jsonPath("$.statut").value(StatutColis.COLLECTE.name()));
+    }
+
+    @Test
+    void getColisById_ShouldNotRecacheStaleValue_WhenReadStartedBeforeCommit() throws Exception {
+        // GIVEN: une lecture a lu l'ancien statut en base mais n'a pas encore rempli le cache
+        CountDownLatch lu = new CountDownLatch(1);
+        CountDownLatch reprendre = new CountDownLatch(1);
+        AtomicBoolean premiereLecture = new AtomicBoolean(true);
+        // Spy d'un proxy Spring Data : la réponse par défaut délègue au dépôt réel
+        Answer<?> reel = mockingDetails(colisRepository).getMockCreationSettings().getDefaultAnswer();
+        doAnswer(invocation -> {
+            Object resultat = reel.answer(invocation);
+            if (premiereLecture.getAndSet(false)) {
+                lu.countDown();
+                reprendre.await(10, TimeUnit.SECONDS);
+            }
+            return resultat;
+        }).when(colisRepository).findDtoById(colisId);
+        ExecutorService executeur = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> lecture = executeur.submit(() -> mockMvc.perform(get(BASE_URL_COLIS + "/{id}", colisId))
+                    .andExpect(jsonPath("$.statut").value(StatutColis.CREE.name())));
+            assertTrue(lu.await(10, TimeUnit.SECONDS));
+
+            // WHEN: le changement de statut est validé, puis la lecture reprend et termine
+            Future<?> ecriture = executeur.submit(() -> mockMvc.perform(put(BASE_URL_COLIS + "/statut/{colisId}", colisId)
+                            .param("statut", StatutColis.COLLECTE.name())
+                            .param("commentaire", "Collecté."))
+                    .andExpect(status().isOk()));
+            // Sans chargement synchronisé l'écriture se termine ; avec, son invalidation attend la lecture en cours
+            try {
+                ecriture.get(2, TimeUnit.SECONDS);
+            } catch (TimeoutException attendue) {
+                // invalidation bloquée jusqu'à la fin du chargement
+            }
+            reprendre.countDown();
+            lecture.get(10, TimeUnit.SECONDS);
+            ecriture.get(10, TimeUnit.SECONDS);
+        } finally {
+            executeur.shutdownNow();
+        }
+
+        // THEN: l'invalidation a attendu la fin du chargement, aucune valeur périmée n'est servie
+        mockMvc.perform(get(BASE_URL_COLIS + "/{id}", colisId))
+                .andExpect(jsonPath("$.statut").value(StatutColis.COLLECTE.name()));
+    }
+
+    @Test
+    void assignerLivreurEtDelete_ShouldInvalidateCachedEntry() throws Exception {
+        // GIVEN
+        mockMvc.perform(get(BASE_URL_COLIS + "/{id}", colisId)).andExpect(status().isOk());
+
+        // WHEN: affectation
+        mockMvc.perform(put(BASE_URL_COLIS + "/assigner/{colisId}", colisId).param("livreurId", livreurId))
+                .andExpect(status().isOk());
+
+        // THEN
+        mockMvc.perform(get(BASE_URL_COLIS + "/{id}", colisId))
+                .andExpect(jsonPath("$.statut").value(StatutColis.EN_TRANSIT.name()))
+                .andExpect(jsonPath("$.livreurId").value(livreurId));
+
+        // WHEN: suppression
+        mockMvc.perform(delete(BASE_URL_COLIS + "/{id}", colisId)).andExpect(status().isNoContent());
+
+        // THEN: plus de lecture servie depuis le cache
+        mockMvc.perform(get(BASE_URL_COLIS + "/{id}", colisId)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void createColis_ShouldResolveZoneFromReferenceCache_UntilZoneIsUpdated() throws Exception {
+        // GIVEN: la zone a été mise en cache par la création du setUp
+        Cache cacheZones = cacheManager.getCache(CacheConfig.CACHE_ZONES);
+        assertNotNull(cacheZones.get(zoneId));
+        clearInvocations(zoneRepository);
+
+        // WHEN: deux nouvelles créations sur les mêmes références
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post(BASE_URL_COLIS)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new ColisCreationDto(
+                                    "Colis " + i, 1.0, "Rabat", "NORMALE", clientId, destinataireId, zoneId))))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.zoneNom").value("Rabat Agdal"))
+                    .andExpect(jsonPath("$.clientExpediteurNomComplet").value("Ali"));
+        }
+
+        // THEN: aucune lecture de la zone
+        verify(zoneRepository, never()).findById(zoneId);
+
+        // WHEN: renommage de la zone
+        mockMvc.perform(put("/api/zones/{id}", zoneId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ZoneDto(zoneId, "Rabat Hassan", "10000"))))
+                .andExpect(status().isOk());
+
+        // THEN: entrée invalidée, la création suivante relit la zone et voit le nouveau nom
+        assertNull(cacheZones.get(zoneId));
+        mockMvc.perform(post(BASE_URL_COLIS)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ColisCreationDto(
+                                "Colis après renommage", 1.0, "Rabat", "NORMALE", clientId, destinataireId, zoneId))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.zoneNom").value("Rabat Hassan"));
+    }
+
+    @Test
+    void updateZoneEtClient_ShouldInvalidateCachedColis_ThatEmbedTheirNames() throws Exception {
+        // GIVEN: le colis est en cache avec les noms de sa zone et de son client
+        mockMvc.perform(get(BASE_URL_COLIS + "/{id}", colisId))
+                .andExpect(jsonPath("$.zoneNom").value("Rabat Agdal"));
+        assertNotNull(cacheColis().get(colisId));
+
+        // WHEN: renommage de la zone
+        mockMvc.perform(put("/api/zones/{id}", zoneId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ZoneDto(zoneId, "Rabat Hassan", "10000"))))
+                .andExpect(status().isOk());
+
+        // THEN: le suivi du colis affiche le nouveau nom
+        assertNull(cacheColis().get(colisId));
+        mockMvc.perform(get(BASE_URL_COLIS + "/{id}", colisId))
+                .andExpect(jsonPath("$.zoneNom").value("Rabat Hassan"));
+
+        // WHEN: changement de nom du client
+        mockMvc.perform(put("/api/clients-expediteurs/{id}", clientId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ClientExpéditeurDto(
+                                clientId, "Alaoui", "M.", "ali@test.com", "0600000001", "Adr Ali"))))
+                .andExpect(status().isOk());
+
+        // THEN
+        assertNull(cacheColis().get(colisId));
+        mockMvc.perform(get(BASE_URL_COLIS + "/{id}", colisId))
+                .andExpect(jsonPath("$.clientExpediteurNomComplet").value("Alaoui"));
+    }
+}
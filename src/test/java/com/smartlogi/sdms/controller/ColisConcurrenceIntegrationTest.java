@@ -0,0 +1,173 @@
+package com.smartlogi.sdms.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartlogi.sdms.DTO.ClientExpéditeurDto;
+import com.smartlogi.sdms.DTO.ColisCreationDto;
+import com.smartlogi.sdms.DTO.DestinataireDto;
+import com.smartlogi.sdms.DTO.ZoneDto;
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.exception.TransitionStatutInvalideException;
+import com.smartlogi.sdms.model.Colis;
+import com.smartlogi.sdms.model.HistoriqueLivraison;
+import com.smartlogi.sdms.repository.ColisRepository;
+import com.smartlogi.sdms.repository.HistoriqueLivraisonRepository;
+import com.smartlogi.sdms.service.ColisService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test de charge des écritures concurrentes sur un même colis : 64 écrivains parallèles.
+ * Les changements de statut sont des UPDATE conditionnels (compare-and-set) : aucune écriture perdue,
+ * et entre transitions incompatibles une seule réussit.
+ * Sans @Transactional : chaque mise à jour est une vraie transaction validée.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@AutoConfigureTestDatabase
+public class ColisConcurrenceIntegrationTest {
+
+    private static final int ECRIVAINS = 64;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ColisService colisService;
+
+    @Autowired
+    private ColisRepository colisRepository;
+
+    @Autowired
+    private HistoriqueLivraisonRepository historiqueRepository;
+
+    private String colisId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String zoneId = creer("/api/zones", new ZoneDto(null, "Tanger Ville", "90000"));
+        String clientId = creer("/api/clients-expediteurs", new ClientExpéditeurDto(null, "Omar", "B.", "omar-" + System.nanoTime() + "@test.com", "0600000011", "Adr Omar"));
+        String destinataireId = creer("/api/destinataires", new DestinataireDto(null, "Salma", "K.", "salma@test.com", "0600000012", "Adr Salma"));
+        colisId = creer("/api/colis", new ColisCreationDto("Colis disputé", 1.0, "Tanger", "NORMALE", clientId, destinataireId, zoneId));
+    }
+
+    private String creer(String url, Object dto) throws Exception {
+        MvcResult result = mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asText();
+    }
+
+    // Lance les écrivains ensemble et retourne le résultat de chacun (null en cas de succès, sinon l'exception)
+    private List<Throwable> executerEnParallele(List<Callable<?>> ecrivains) throws Exception {
+        ExecutorService executeur = Executors.newFixedThreadPool(ecrivains.size());
+        CountDownLatch depart = new CountDownLatch(1);
+        try {
+            List<Future<?>> futurs = new ArrayList<>();
+            for (Callable<?> ecrivain : ecrivains) {
+                futurs.add(executeur.submit(() -> {
+                    depart.await();
+                    return ecrivain.call();
+                }));
+            }
+            depart.countDown();
+            List<Throwable> erreurs = new ArrayList<>();
+            for (Future<?> futur : futurs) {
+                try {
+                    futur.get(2, TimeUnit.MINUTES);
+                    erreurs.add(null);
+                } catch (ExecutionException e) {
+                    erreurs.add(e.getCause());
+                }
+            }
+            return erreurs;
+        } finally {
+            executeur.shutdownNow();
+        }
+    }
+
+    @Test
+    void updateStatut_ShouldNotLoseUpdates_UnderParallelWriters() throws Exception {
+        // GIVEN: 64 scans EN_TRANSIT simultanés (répétition permise d'un statut de traitement)
+        List<Callable<?>> ecrivains = new ArrayList<>();
+        for (int i = 0; i < ECRIVAINS; i++) {
+            String commentaire = "Scan " + i;
+            ecrivains.add(() -> colisService.updateStatut(colisId, StatutColis.EN_TRANSIT, commentaire));
+        }
+
+        // WHEN
+        List<Throwable> erreurs = executerEnParallele(ecrivains);
+
+        // THEN: aucune écriture en échec ...
+        erreurs.forEach(erreur -> assertNull(erreur, () -> "Écriture en échec : " + erreur));
+
+        // ... et aucune écriture perdue : une version et une étape d'historique par écrivain
+        List<HistoriqueLivraison> etapes = historiqueRepository.findByColisIdInOrderByDateChangementAsc(List.of(colisId));
+        assertEquals(ECRIVAINS + 1, etapes.size()); // + l'étape de création
+        for (int i = 0; i < ECRIVAINS; i++) {
+            String commentaire = "Scan " + i;
+            assertEquals(1, etapes.stream().filter(h -> commentaire.equals(h.getCommentaire())).count(), commentaire);
+        }
+        Colis colis = colisRepository.findById(colisId).orElseThrow();
+        assertEquals(StatutColis.EN_TRANSIT, colis.getStatut());
+        assertEquals(ECRIVAINS, colis.getVersion().intValue());
+    }
+
+    @Test
+    void updateStatut_ShouldLetExactlyOneConflictingTransitionWin() throws Exception {
+        // GIVEN: colis en transit, 64 écrivains se disputent deux statuts finaux (LIVRE / ANNULE)
+        colisService.updateStatut(colisId, StatutColis.EN_TRANSIT, "Départ.");
+        List<Callable<?>> ecrivains = new ArrayList<>();
+        for (int i = 0; i < ECRIVAINS; i++) {
+            StatutColis statut = i % 2 == 0 ? StatutColis.LIVRE : StatutColis.ANNULE;
+            ecrivains.add(() -> colisService.updateStatut(colisId, statut, "Final " + statut));
+        }
+
+        // WHEN
+        List<Throwable> erreurs = executerEnParallele(ecrivains);
+
+        // THEN: un seul gagnant, tous les autres refusés par l'UPDATE conditionnel
+        assertEquals(1, erreurs.stream().filter(Objects::isNull).count());
+        assertTrue(erreurs.stream().filter(Objects::nonNull)
+                .allMatch(erreur -> erreur instanceof TransitionStatutInvalideException));
+
+        // Une seule étape finale, cohérente avec le statut du colis
+        List<HistoriqueLivraison> etapes = historiqueRepository.findByColisIdInOrderByDateChangementAsc(List.of(colisId));
+        assertEquals(3, etapes.size()); // CREE, EN_TRANSIT, statut final
+        Colis colis = colisRepository.findById(colisId).orElseThrow();
+        assertTrue(colis.getStatut().isTerminal());
+        assertEquals(colis.getStatut().name(), etapes.get(2).getStatut());
+    }
+}
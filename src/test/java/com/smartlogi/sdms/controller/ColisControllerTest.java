@@ -1,10 +1,26 @@
 package com.smartlogi.sdms.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartlogi.sdms.DTO.AffectationLotDto;
+import com.smartlogi.sdms.DTO.AffectationLotResultatDto;
 import com.smartlogi.sdms.DTO.ColisCreationDto;
 import com.smartlogi.sdms.DTO.ColisDto;
+import com.smartlogi.sdms.DTO.ColisFiltre;
+import com.smartlogi.sdms.DTO.ColisFluxFiltre;
+import com.smartlogi.sdms.DTO.ColisImportResultatDto;
+import com.smartlogi.sdms.DTO.ColisLotResultatDto;
+import com.smartlogi.sdms.DTO.HistoriqueLivraisonDto;
+import com.smartlogi.sdms.DTO.PageCurseurDto;
 import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.exception.CleIdempotenceReutiliseeException;
+import com.smartlogi.sdms.exception.RequeteInvalideException;
+import com.smartlogi.sdms.model.Colis;
+import com.smartlogi.sdms.enums.FormatFichier;
+import com.smartlogi.sdms.service.ColisExport;
+import com.smartlogi.sdms.service.ColisFluxHub;
+import com.smartlogi.sdms.service.ColisImport;
 import com.smartlogi.sdms.service.ColisService;
+import com.smartlogi.sdms.service.IdempotenceService;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,12 +28,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -40,6 +59,18 @@ public class ColisControllerTest {
     @MockBean
     private ColisService colisService;
 
+    @MockBean
+    private ColisFluxHub colisFluxHub;
+
+    @MockBean
+    private IdempotenceService idempotenceService;
+
+    @MockBean
+    private ColisExport colisExport;
+
+    @MockBean
+    private ColisImport colisImport;
+
     private String colisId;
     private String livreurId;
     private ColisDto mockColisDto;
@@ -61,6 +92,10 @@ public class ColisControllerTest {
                 colisId, "Colis Urgent", 2.0, StatutColis.CREE.name(), "HAUTE",
                 "Rabat", LocalDateTime.now(), null, "Client Alpha", "Zone Rabat"
         );
+
+        // Le service d'idempotence exécute simplement l'action (son comportement est testé à part)
+        when(idempotenceService.executer(anyString(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
     }
 
     // =================================================================
@@ -82,6 +117,163 @@ public class ColisControllerTest {
         verify(colisService, times(1)).createColis(any(ColisCreationDto.class));
     }
 
+    @Test
+    void createColis_ShouldPassIdempotencyKeyHeader() throws Exception {
+        // GIVEN
+        when(colisService.createColis(any(ColisCreationDto.class))).thenReturn(mockColisDto);
+
+        // WHEN & THEN
+        mockMvc.perform(post("/api/colis")
+                        .header("Idempotency-Key", "erp-42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(creationDto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(colisId));
+
+        verify(idempotenceService).executer(eq(IdempotenceService.PORTEE_COLIS), eq("erp-42"),
+                eq(creationDto), any(), any());
+    }
+
+    @Test
+    void createColis_ShouldReturn422_WhenIdempotencyKeyReusedWithOtherContent() throws Exception {
+        // GIVEN
+        doThrow(new CleIdempotenceReutiliseeException("erp-42"))
+                .when(idempotenceService).executer(anyString(), eq("erp-42"), any(), any(), any());
+
+        // WHEN & THEN
+        mockMvc.perform(post("/api/colis")
+                        .header("Idempotency-Key", "erp-42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(creationDto)))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(colisService, never()).createColis(any());
+    }
+
+    @Test
+    void createColisEnLot_ShouldReturn200AndPerItemResults() throws Exception {
+        // GIVEN
+        when(colisService.createColisEnLot(anyList())).thenReturn(List.of(
+                ColisLotResultatDto.succes(0, mockColisDto),
+                ColisLotResultatDto.echec(1, "Zone non trouvée avec l'ID: x")
+        ));
+
+        // WHEN & THEN
+        mockMvc.perform(post("/api/colis/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(creationDto, creationDto))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].succes").value(true))
+                .andExpect(jsonPath("$[0].colis.id").value(colisId))
+                .andExpect(jsonPath("$[1].succes").value(false));
+    }
+
+    @Test
+    void assignerLivreurEnLot_ShouldReturn200WithReport() throws Exception {
+        // GIVEN
+        AffectationLotDto affectation = new AffectationLotDto("livreur-1", List.of(colisId, "inconnu"));
+        when(colisService.assignerLivreurEnLot(any(AffectationLotDto.class))).thenReturn(
+                new AffectationLotResultatDto("livreur-1", List.of(colisId), List.of("inconnu"), List.of()));
+
+        // WHEN & THEN
+        mockMvc.perform(put("/api/colis/assigner/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(affectation)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affectes[0]").value(colisId))
+                .andExpect(jsonPath("$.introuvables[0]").value("inconnu"));
+        verify(colisService, never()).assignerLivreur(anyString(), anyString());
+    }
+
+    @Test
+    void assignerLivreurEnLot_ShouldReturn400_WhenColisListIsEmpty() throws Exception {
+        mockMvc.perform(put("/api/colis/assigner/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new AffectationLotDto("livreur-1", List.of()))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exporterColis_ShouldStreamCsvAttachment_WithFilters() throws Exception {
+        // GIVEN
+        doAnswer(invocation -> {
+            invocation.<java.io.OutputStream>getArgument(4).write("id\n".getBytes());
+            return 1L;
+        }).when(colisExport).exporter(any(), any(), any(), eq(FormatFichier.CSV), any());
+
+        // WHEN & THEN
+        mockMvc.perform(get("/api/colis/export")
+                        .param("format", "CSV")
+                        .param("statut", "LIVRE")
+                        .param("du", "2025-01-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"colis.csv\""))
+                .andExpect(content().string("id\n"));
+
+        verify(colisExport).exporter(argThat(f -> f.getStatut() == StatutColis.LIVRE),
+                eq(LocalDateTime.of(2025, 1, 1, 0, 0)), isNull(), eq(FormatFichier.CSV), any());
+    }
+
+    @Test
+    void exporterColis_ShouldReturn400_WhenDateRangeIsEmpty() throws Exception {
+        mockMvc.perform(get("/api/colis/export")
+                        .param("du", "2025-02-01T00:00:00")
+                        .param("au", "2025-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(colisExport);
+    }
+
+    @Test
+    void importerColis_ShouldPassRawBodyAndReturnReport() throws Exception {
+        // GIVEN
+        when(colisImport.importer(any(), eq(FormatFichier.NDJSON))).thenReturn(new ColisImportResultatDto(
+                2, 1, 1, List.of(new ColisImportResultatDto.ErreurLigne(2, "Zone non trouvé avec l'ID: x")), false));
+
+        // WHEN & THEN
+        mockMvc.perform(post("/api/colis/import")
+                        .param("format", "NDJSON")
+                        .contentType("application/x-ndjson")
+                        .content("{}\n{}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.colisImportes").value(1))
+                .andExpect(jsonPath("$.erreurs[0].ligne").value(2));
+    }
+
+    @Test
+    void streamColis_ShouldOpenAsyncSseConnectionWithFilters() throws Exception {
+        // GIVEN
+        when(colisFluxHub.abonner(any(ColisFluxFiltre.class))).thenReturn(new SseEmitter());
+
+        // WHEN & THEN: la requête passe en mode asynchrone (pas de thread bloqué)
+        mockMvc.perform(get("/api/colis/stream").param("zoneId", "zone-1").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+        verify(colisFluxHub).abonner(argThat(filtre -> "zone-1".equals(filtre.getZoneId()) && filtre.getColisId() == null));
+        verify(colisService, never()).getColisById(anyString());
+    }
+
+    @Test
+    void getHistorique_ShouldReturn200WithPage_AndParseSince() throws Exception {
+        // GIVEN
+        LocalDateTime depuis = LocalDateTime.of(2025, 1, 1, 10, 0);
+        when(colisService.getHistorique(colisId, depuis, null, 20)).thenReturn(new PageCurseurDto<>(
+                List.of(new HistoriqueLivraisonDto("h1", "EN_TRANSIT", depuis.plusMinutes(5), "Affecté")), null));
+
+        // WHEN & THEN
+        mockMvc.perform(get("/api/colis/{id}/historique", colisId).param("since", "2025-01-01T10:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elements[0].statut").value("EN_TRANSIT"))
+                .andExpect(jsonPath("$.curseurSuivant").doesNotExist());
+    }
+
+    @Test
+    void getHistorique_ShouldReturn400_WhenSinceIsNotIsoDate() throws Exception {
+        mockMvc.perform(get("/api/colis/{id}/historique", colisId).param("since", "hier"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getColisById_ShouldReturn200AndColis_WhenFound() throws Exception {
         // GIVEN
@@ -104,15 +296,45 @@ public class ColisControllerTest {
     }
 
     @Test
-    void getAllColis_ShouldReturn200AndList() throws Exception {
+    void getAllColis_ShouldReturn200AndPageWithCursor() throws Exception {
         // GIVEN
         List<ColisDto> list = Arrays.asList(mockColisDto);
-        when(colisService.getAllColis()).thenReturn(list);
+        when(colisService.getColisPage(any(ColisFiltre.class), eq("abc"), eq(1)))
+                .thenReturn(new PageCurseurDto<>(list, "suivant"));
 
         // WHEN & THEN
-        mockMvc.perform(get("/api/colis"))
+        mockMvc.perform(get("/api/colis")
+                        .param("statut", StatutColis.CREE.name())
+                        .param("curseur", "abc")
+                        .param("taille", "1"))
                 .andExpect(status().isOk()) // 200 OK
-                .andExpect(jsonPath("$.length()").value(1));
+                .andExpect(jsonPath("$.elements.length()").value(1))
+                .andExpect(jsonPath("$.curseurSuivant").value("suivant"));
+
+        verify(colisService).getColisPage(
+                argThat(filtre -> filtre.getStatut() == StatutColis.CREE), eq("abc"), eq(1));
+    }
+
+    @Test
+    void getAllColis_ShouldReturn400_WhenCursorIsInvalid() throws Exception {
+        // GIVEN
+        when(colisService.getColisPage(any(ColisFiltre.class), eq("corrompu"), anyInt()))
+                .thenThrow(new RequeteInvalideException("Curseur de pagination invalide: corrompu"));
+
+        // WHEN & THEN
+        mockMvc.perform(get("/api/colis").param("curseur", "corrompu"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllColis_ShouldReturn500_WhenServiceFailsWithIllegalArgument() throws Exception {
+        // GIVEN: une IllegalArgumentException interne n'est pas une erreur du client
+        when(colisService.getColisPage(any(ColisFiltre.class), any(), anyInt()))
+                .thenThrow(new IllegalArgumentException("bogue interne"));
+
+        // WHEN & THEN
+        mockMvc.perform(get("/api/colis"))
+                .andExpect(status().isInternalServerError());
     }
 
     @Test
@@ -177,4 +399,18 @@ public class ColisControllerTest {
 
         verify(colisService, times(1)).updateStatut(colisId, StatutColis.LIVRE, commentaire);
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateStatut_ShouldReturn409_WhenConcurrentUpdateConflictPersists() throws Exception {
+        // GIVEN: conflit de verrouillage optimiste persistant après les nouvelles tentatives du service
+        when(colisService.updateStatut(eq(colisId), eq(StatutColis.COLLECTE), any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Colis.class, colisId));
+
+        // WHEN & THEN
+        mockMvc.perform(put("/api/colis/statut/{colisId}", colisId)
+                        .param("statut", StatutColis.COLLECTE.name())
+                        .param("commentaire", "Collecté."))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409));
+    }
+}
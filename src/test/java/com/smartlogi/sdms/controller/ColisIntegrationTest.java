@@ -45,6 +45,21 @@ public class ColisIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private com.smartlogi.sdms.service.ColisArchivage colisArchivage;
+
+    @Autowired
+    private com.smartlogi.sdms.repository.ColisArchiveRepository colisArchiveRepository;
+
+    @Autowired
+    private org.springframework.jdbc.core.JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private com.smartlogi.sdms.service.CompteursZones compteursZones;
+
+    @Autowired
+    private com.smartlogi.sdms.repository.CompteurZoneRepository compteurZoneRepository;
+
     // IDs dynamiques qui seront créés pendant l'exécution
     private String clientExpediteurId;
     private String destinataireId;
@@ -97,6 +112,16 @@ public class ColisIntegrationTest {
         return objectMapper.readTree(jsonResponse).get("id").asText();
     }
 
+    // Livraison d'un colis qui vient d'être créé : CREE -> EN_TRANSIT -> LIVRE (table des transitions de StatutColis)
+    private void livrer(String colisId) throws Exception {
+        for (StatutColis statut : java.util.List.of(StatutColis.EN_TRANSIT, StatutColis.LIVRE)) {
+            mockMvc.perform(put(BASE_URL_COLIS + "/statut/{colisId}", colisId)
+                            .param("statut", statut.name())
+                            .param("commentaire", "Étape " + statut.name() + "."))
+                    .andExpect(status().isOk());
+        }
+    }
+
     // =================================================================
     // TESTS DU FLUX COLIS COMPLET
     // =================================================================
@@ -147,6 +172,156 @@ public class ColisIntegrationTest {
         // Pour l'instant, on se contente de la traçabilité via le statut final.
     }
 
+    @Test
+    void C_getAllColis_ShouldPaginateWithCursorAndFilters() throws Exception {
+        // GIVEN: 3 colis dans la zone, dont un en URGENTE
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post(BASE_URL_COLIS)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(baseCreationDto)))
+                    .andExpect(status().isCreated());
+        }
+
+        // WHEN: première page de 2 éléments
+        MvcResult premierePage = mockMvc.perform(get(BASE_URL_COLIS)
+                        .param("zoneId", zoneId)
+                        .param("taille", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elements.length()").value(2))
+                .andReturn();
+        String curseur = objectMapper.readTree(premierePage.getResponse().getContentAsString())
+                .get("curseurSuivant").asText();
+
+        // THEN: la page suivante contient le dernier colis et plus de curseur
+        mockMvc.perform(get(BASE_URL_COLIS)
+                        .param("zoneId", zoneId)
+                        .param("taille", "2")
+                        .param("curseur", curseur))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elements.length()").value(1))
+                .andExpect(jsonPath("$.curseurSuivant").doesNotExist());
+
+        // Un filtre sans correspondance renvoie une page vide
+        mockMvc.perform(get(BASE_URL_COLIS).param("statut", StatutColis.LIVRE.name()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elements.length()").value(0));
+    }
+
+    @Test
+    void D_createColisEnLot_ShouldInsertValidItemsAndReportInvalidOnes() throws Exception {
+        // GIVEN: un élément valide, un élément avec destinataire inconnu, un élément invalide (poids manquant)
+        ColisCreationDto destinataireInconnu = new ColisCreationDto(
+                "Colis lot 2", 1.0, "Rabat", "NORMALE", clientExpediteurId, "inconnu", zoneId);
+        ColisCreationDto sansPoids = new ColisCreationDto(
+                "Colis lot 3", null, "Rabat", "NORMALE", clientExpediteurId, destinataireId, zoneId);
+
+        // WHEN & THEN
+        mockMvc.perform(post(BASE_URL_COLIS + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                java.util.List.of(baseCreationDto, destinataireInconnu, sansPoids))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].succes").value(true))
+                .andExpect(jsonPath("$[0].colis.statut").value(StatutColis.CREE.name()))
+                .andExpect(jsonPath("$[0].colis.zoneNom").value("Casablanca Anfa"))
+                .andExpect(jsonPath("$[1].succes").value(false))
+                .andExpect(jsonPath("$[2].succes").value(false))
+                .andExpect(jsonPath("$[2].erreur").value(org.hamcrest.Matchers.containsString("poids")));
+
+        // Seul le colis valide a été inséré
+        mockMvc.perform(get(BASE_URL_COLIS).param("zoneId", zoneId))
+                .andExpect(jsonPath("$.elements.length()").value(1));
+    }
+
+    @Test
+    void E_assignerLivreurEnLot_ShouldAssignAndReportMissingAndTerminalIds() throws Exception {
+        // GIVEN: deux colis, dont un déjà livré
+        String colisA = createDependency(BASE_URL_COLIS, baseCreationDto);
+        String colisLivre = createDependency(BASE_URL_COLIS, baseCreationDto);
+        livrer(colisLivre);
+
+        // WHEN & THEN
+        mockMvc.perform(put(BASE_URL_COLIS + "/assigner/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new com.smartlogi.sdms.DTO.AffectationLotDto(
+                                livreurId, java.util.List.of(colisA, colisLivre, "inconnu")))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affectes[0]").value(colisA))
+                .andExpect(jsonPath("$.statutTerminal[0]").value(colisLivre))
+                .andExpect(jsonPath("$.introuvables[0]").value("inconnu"));
+
+        mockMvc.perform(get(BASE_URL_COLIS + "/{id}", colisA))
+                .andExpect(jsonPath("$.statut").value(StatutColis.EN_TRANSIT.name()))
+                .andExpect(jsonPath("$.livreurId").value(livreurId));
+
+        // Livreur inconnu : 404
+        mockMvc.perform(put(BASE_URL_COLIS + "/assigner/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new com.smartlogi.sdms.DTO.AffectationLotDto(
+                                java.util.UUID.randomUUID().toString(), java.util.List.of(colisA)))))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void F_archiverUnLot_ShouldMoveTerminalColisToArchive_AndKeepThemReadable() throws Exception {
+        // GIVEN: un colis livré et un colis en cours
+        String colisActif = createDependency(BASE_URL_COLIS, baseCreationDto);
+        String colisLivre = createDependency(BASE_URL_COLIS, baseCreationDto);
+        livrer(colisLivre);
+
+        // WHEN: limite dans le futur, toutes les étapes sont "anciennes"
+        int archives = colisArchivage.archiverUnLot(java.time.LocalDateTime.now().plusMinutes(1));
+
+        // THEN: seul le colis livré quitte la table colis, avec tout son historique
+        assertEquals(1, archives);
+        mockMvc.perform(get(BASE_URL_COLIS).param("zoneId", zoneId))
+                .andExpect(jsonPath("$.elements.length()").value(1))
+                .andExpect(jsonPath("$.elements[0].id").value(colisActif));
+        com.smartlogi.sdms.DTO.ColisArchiveDto contenu = colisArchivage.lire(colisArchiveRepository.findById(colisLivre).orElseThrow());
+        assertEquals(java.util.List.of("CREE", "EN_TRANSIT", "LIVRE"),
+                contenu.getHistorique().stream().map(com.smartlogi.sdms.DTO.HistoriqueLivraisonDto::getStatut).toList());
+
+        // Lecture de secours : le colis archivé reste consultable
+        mockMvc.perform(get(BASE_URL_COLIS + "/{id}", colisLivre))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statut").value(StatutColis.LIVRE.name()))
+                .andExpect(jsonPath("$.zoneNom").value("Casablanca Anfa"));
+
+        // Rien de plus à archiver
+        assertEquals(0, colisArchivage.archiverUnLot(java.time.LocalDateTime.now().plusMinutes(1)));
+    }
+
+    @Test
+    void G_identifiantNonUuid_ShouldBeTreatedAsUnknown() throws Exception {
+        // Colonnes uuid : une chaîne qui n'est pas un UUID ne désigne aucune ressource
+        mockMvc.perform(get(BASE_URL_COLIS + "/{id}", "pas-un-uuid"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get(BASE_URL_ZONE + "/{id}", "zone-1"))
+                .andExpect(status().isNotFound());
+
+        // Filtre de liste : page vide plutôt qu'une erreur
+        mockMvc.perform(get(BASE_URL_COLIS).param("zoneId", "zone-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elements.length()").value(0));
+    }
+
+    @Test
+    void M_curseurForgeAvecIdNonUuid_ShouldReturn400() throws Exception {
+        // GIVEN: des curseurs bien formés dont la partie id n'est pas un UUID
+        java.util.Base64.Encoder base64 = java.util.Base64.getUrlEncoder().withoutPadding();
+        String curseurColis = base64.encodeToString("2024-01-01T00:00|x".getBytes());
+        String curseurTournee = base64.encodeToString("0|2024-01-01T00:00|x".getBytes());
+        String colisId = createDependency(BASE_URL_COLIS, baseCreationDto);
+
+        // WHEN & THEN: rejetés avant d'atteindre le prédicat keyset sur la colonne uuid
+        mockMvc.perform(get(BASE_URL_COLIS).param("curseur", curseurColis))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(BASE_URL_COLIS + "/{id}/historique", colisId).param("curseur", curseurColis))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(BASE_URL_LIVREUR + "/{id}/colis", livreurId).param("curseur", curseurTournee))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void B_createColis_ShouldReturn404NotFound_WhenFKIsInvalid() throws Exception {
         // GIVEN: Colis avec un ID de zone invalide (le service de zone lancera 404)
@@ -161,5 +336,187 @@ public class ColisIntegrationTest {
                         .content(objectMapper.writeValueAsString(invalidFKDto)))
                 .andExpect(status().isNotFound()) // 404
                 .andExpect(jsonPath("$.error").value("Resource Not Found"));
+
+        // Un ID qui n'est pas un UUID ne désigne aucune zone : même réponse, sans requête sur la colonne uuid
+        invalidFKDto.setZoneId("zone-inconnue");
+        mockMvc.perform(post(BASE_URL_COLIS)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(invalidFKDto)))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Resource Not Found"));
+    }
+
+    @Test
+    void H_updateStatut_ShouldRejectForbiddenTransitionsWith409() throws Exception {
+        // GIVEN: un colis livré
+        String colis = createDependency(BASE_URL_COLIS, baseCreationDto);
+        livrer(colis);
+
+        // WHEN & THEN: retour arrière interdit depuis un statut final
+        mockMvc.perform(put(BASE_URL_COLIS + "/statut/{colisId}", colis)
+                        .param("statut", StatutColis.CREE.name())
+                        .param("commentaire", "Retour arrière."))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value(org.hamcrest.Matchers.containsString("LIVRE -> CREE")));
+        mockMvc.perform(put(BASE_URL_COLIS + "/assigner/{colisId}", colis).param("livreurId", livreurId))
+                .andExpect(status().isConflict());
+
+        // Statut et historique inchangés
+        mockMvc.perform(get(BASE_URL_COLIS + "/{id}", colis))
+                .andExpect(jsonPath("$.statut").value(StatutColis.LIVRE.name()));
+        mockMvc.perform(get(BASE_URL_COLIS + "/{id}/historique", colis))
+                .andExpect(jsonPath("$.elements.length()").value(3));
+
+        // Colis inconnu : 404
+        mockMvc.perform(put(BASE_URL_COLIS + "/statut/{colisId}", "a1a1a1a1-dead-dead-dead-a1a1a1a1a1a1")
+                        .param("statut", StatutColis.COLLECTE.name())
+                        .param("commentaire", "Inconnu."))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void I_createColis_ShouldReplayResponse_WhenIdempotencyKeyIsReused() throws Exception {
+        // GIVEN: première création avec une clé
+        MvcResult premiere = mockMvc.perform(post(BASE_URL_COLIS)
+                        .header("Idempotency-Key", "erp-commande-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(baseCreationDto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        String colisId = objectMapper.readTree(premiere.getResponse().getContentAsString()).get("id").asText();
+
+        // WHEN: le client réessaie après un timeout
+        mockMvc.perform(post(BASE_URL_COLIS)
+                        .header("Idempotency-Key", "erp-commande-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(baseCreationDto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(colisId));
+
+        // THEN: un seul colis créé
+        mockMvc.perform(get(BASE_URL_COLIS).param("zoneId", zoneId))
+                .andExpect(jsonPath("$.elements.length()").value(1));
+
+        // Même clé, autre contenu : 422
+        baseCreationDto.setPoids(9.0);
+        mockMvc.perform(post(BASE_URL_COLIS)
+                        .header("Idempotency-Key", "erp-commande-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(baseCreationDto)))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void J_exporterColis_ShouldStreamFilteredColisAsNdjsonAndCsv() throws Exception {
+        // GIVEN: trois colis dont un livré, une description contenant une virgule et des guillemets
+        baseCreationDto.setDescription("Livres, \"édition\" reliée");
+        String livre = createDependency(BASE_URL_COLIS, baseCreationDto);
+        createDependency(BASE_URL_COLIS, baseCreationDto);
+        createDependency(BASE_URL_COLIS, baseCreationDto);
+        livrer(livre);
+
+        // WHEN & THEN: NDJSON, un objet par ligne
+        String ndjson = mockMvc.perform(get(BASE_URL_COLIS + "/export").param("zoneId", zoneId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString();
+        String[] lignes = ndjson.split("\n");
+        assertEquals(3, lignes.length);
+        for (String ligne : lignes) {
+            assertEquals("Casablanca Anfa", objectMapper.readTree(ligne).get("zoneNom").asText());
+        }
+
+        // CSV filtré par statut, champ échappé selon la RFC 4180
+        String csv = mockMvc.perform(get(BASE_URL_COLIS + "/export")
+                        .param("format", "CSV")
+                        .param("statut", StatutColis.LIVRE.name()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] lignesCsv = csv.split("\n");
+        assertEquals(2, lignesCsv.length);
+        assertTrue(lignesCsv[0].startsWith("id,description,"));
+        assertTrue(lignesCsv[1].startsWith(livre + ",\"Livres, \"\"édition\"\" reliée\",3.0,LIVRE,"));
+
+        // Intervalle de création déjà écoulé : export vide
+        mockMvc.perform(get(BASE_URL_COLIS + "/export").param("au", "2000-01-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+
+    // Références aux IDs fixes utilisés par les fichiers src/test/resources/import/
+    private void creerReferencesImport() {
+        jdbcTemplate.update("INSERT INTO zone (id, nom, code_postal) VALUES (?, 'Zone import', '10000')",
+                "0b6c8f2e-1a2b-7c3d-8e4f-000000000001");
+        jdbcTemplate.update("INSERT INTO client_expediteur (id, nom, prenom, email) VALUES (?, 'Boutique', 'B.', 'import@test.com')",
+                "0b6c8f2e-1a2b-7c3d-8e4f-000000000002");
+        jdbcTemplate.update("INSERT INTO destinataire (id, nom, prenom) VALUES (?, 'Karim', 'K.')",
+                "0b6c8f2e-1a2b-7c3d-8e4f-000000000003");
+    }
+
+    @Test
+    void K_importerColis_ShouldLoadValidLinesAndReportInvalidOnes() throws Exception {
+        // GIVEN
+        creerReferencesImport();
+        byte[] csv = new org.springframework.core.io.ClassPathResource("import/colis-import.csv").getContentAsByteArray();
+
+        // WHEN & THEN: 8 lignes de données (en-tête et ligne vide exclus), 4 rejetées avec leur numéro
+        mockMvc.perform(post(BASE_URL_COLIS + "/import").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lignesLues").value(8))
+                .andExpect(jsonPath("$.colisImportes").value(4))
+                .andExpect(jsonPath("$.lignesRejetees").value(4))
+                .andExpect(jsonPath("$.erreurs[*].ligne").value(org.hamcrest.Matchers.contains(6, 7, 8, 9)))
+                .andExpect(jsonPath("$.erreurs[0].message").value("Poids invalide : abc"))
+                .andExpect(jsonPath("$.erreurs[1].message").value(org.hamcrest.Matchers.startsWith("Zone non trouvé")))
+                .andExpect(jsonPath("$.erreurs[3].message").value("Priorité inconnue : EXPRESS"));
+
+        // Colis créés comme par POST /api/colis : statut CREE, version 0, étape initiale d'historique
+        assertEquals(4, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM colis WHERE statut = 'CREE' AND version = 0", Integer.class));
+        assertEquals(4, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM historique_livraison WHERE commentaire = 'Colis importé.'", Integer.class));
+        mockMvc.perform(get(BASE_URL_COLIS).param("zoneId", "0b6c8f2e-1a2b-7c3d-8e4f-000000000001"))
+                .andExpect(jsonPath("$.elements.length()").value(4))
+                .andExpect(jsonPath("$.elements[?(@.villeDestination == 'Rabat')].description")
+                        .value("Livres, \"édition\" reliée"))
+                .andExpect(jsonPath("$.elements[?(@.villeDestination == 'Rabat')].priorite").value("HAUTE"));
+
+        // NDJSON : une ligne JSON invalide n'interrompt pas l'import
+        byte[] ndjson = new org.springframework.core.io.ClassPathResource("import/colis-import.ndjson").getContentAsByteArray();
+        mockMvc.perform(post(BASE_URL_COLIS + "/import").param("format", "NDJSON")
+                        .contentType("application/x-ndjson").content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.colisImportes").value(2))
+                .andExpect(jsonPath("$.erreurs[*].ligne").value(org.hamcrest.Matchers.contains(2, 3)));
+
+        // En-tête CSV incomplet : 400, rien n'est importé
+        mockMvc.perform(post(BASE_URL_COLIS + "/import").contentType("text/csv").content("description,poids\nA,1.0\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void L_getZoneStats_ShouldReturnCountsPerStatus() throws Exception {
+        // GIVEN: deux colis dans la zone, dont un livré
+        createDependency(BASE_URL_COLIS, baseCreationDto);
+        livrer(createDependency(BASE_URL_COLIS, baseCreationDto));
+        // Le test s'exécute dans une transaction jamais validée : les variations après commit ne sont pas
+        // appliquées, le recomptage (dans la même transaction) voit les colis créés
+        compteursZones.reconcilier();
+
+        // WHEN & THEN: tous les statuts sont présents, zéros compris
+        mockMvc.perform(get(BASE_URL_ZONE + "/{id}/stats", zoneId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.zoneNom").value("Casablanca Anfa"))
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.parStatut.CREE").value(1))
+                .andExpect(jsonPath("$.parStatut.LIVRE").value(1))
+                .andExpect(jsonPath("$.parStatut.EN_TRANSIT").value(0))
+                .andExpect(jsonPath("$.dateReconciliation").isNotEmpty());
+        // Sauvegarde dans colis_compteur_zone : une ligne par statut non nul
+        assertEquals(2, compteurZoneRepository.findAll().stream()
+                .filter(c -> c.getId().getZoneId().equals(zoneId)).count());
+
+        mockMvc.perform(get(BASE_URL_ZONE + "/{id}/stats", java.util.UUID.randomUUID().toString()))
+                .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,11 @@
 package com.smartlogi.sdms.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartlogi.sdms.DTO.ColisLivreurDto;
 import com.smartlogi.sdms.DTO.LivreurDto;
+import com.smartlogi.sdms.DTO.PageCurseurDto;
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.service.ColisService;
 import com.smartlogi.sdms.service.LivreurService;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,7 +17,9 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Arrays;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -37,6 +43,9 @@ public class LivreurControllerTest {
     @MockBean // Simule la couche Service
     private LivreurService livreurService;
 
+    @MockBean
+    private ColisService colisService;
+
     private String testId;
     private LivreurDto mockDto;
     private LivreurDto updateDto;
@@ -183,4 +192,41 @@ public class LivreurControllerTest {
         mockMvc.perform(delete("/api/livreurs/{id}", testId))
                 .andExpect(status().isNotFound()); // 404 Not Found
     }
-}
\ No newline at end of file
+
+    // =================================================================
+    // 5. TESTS GET /colis (Application mobile du livreur)
+    // =================================================================
+
+    @Test
+    void getColisDuLivreur_ShouldReturn200WithEtag_Then304WhenUnchanged() throws Exception {
+        // GIVEN
+        PageCurseurDto<ColisLivreurDto> page = new PageCurseurDto<>(List.of(new ColisLivreurDto(
+                "colis-1", "Colis", 1.0, "EN_TRANSIT", "URGENTE", "Rabat", LocalDateTime.of(2025, 1, 1, 10, 0),
+                "Fatima Z.", "Adr Fatima", "0600000002")), null);
+        when(colisService.getColisDuLivreur(testId, Set.of(StatutColis.EN_TRANSIT, StatutColis.EN_TOURNEE), null, 20))
+                .thenReturn(page);
+        String etag = ColisService.etag(page);
+
+        // WHEN & THEN: première lecture, corps et ETag
+        mockMvc.perform(get("/api/livreurs/{id}/colis", testId).param("statut", "EN_TRANSIT", "EN_TOURNEE"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(jsonPath("$.elements[0].priorite").value("URGENTE"))
+                .andExpect(jsonPath("$.elements[0].destinataireAdresse").value("Adr Fatima"));
+
+        // Revalidation : liste inchangée, 304 sans corps
+        mockMvc.perform(get("/api/livreurs/{id}/colis", testId).param("statut", "EN_TRANSIT", "EN_TOURNEE")
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getColisDuLivreur_ShouldReturn404NotFound_WhenLivreurNotFound() throws Exception {
+        when(colisService.getColisDuLivreur(eq(testId), any(), any(), anyInt()))
+                .thenThrow(new EntityNotFoundException("Livreur non trouvé"));
+
+        mockMvc.perform(get("/api/livreurs/{id}/colis", testId))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -1,7 +1,11 @@
 package com.smartlogi.sdms.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartlogi.sdms.DTO.ReferenceDto;
 import com.smartlogi.sdms.DTO.ZoneDto;
+import com.smartlogi.sdms.DTO.ZoneStatsDto;
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.service.CompteursZones;
 import com.smartlogi.sdms.service.ZoneService;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,11 +13,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -37,6 +45,9 @@ public class ZoneControllerTest {
     @MockBean
     private ZoneService zoneService;
 
+    @MockBean
+    private CompteursZones compteursZones;
+
     private String testId;
     private ZoneDto mockDto;
     private ZoneDto updateDto;
@@ -117,6 +128,28 @@ public class ZoneControllerTest {
                 .andExpect(jsonPath("$.error").value("Resource Not Found"));
     }
 
+    @Test
+    void getZoneById_ShouldReturn404WithoutCallingService_WhenIdIsNotUuid() throws Exception {
+        // WHEN & THEN: identifiant de chemin rejeté avant le contrôleur
+        mockMvc.perform(get("/api/zones/{id}", "zone-1"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Resource Not Found"));
+        verifyNoInteractions(zoneService);
+    }
+
+    @Test
+    void updateZone_ShouldReturn400_WhenDatabaseRejectsValueConversion() throws Exception {
+        // GIVEN: conversion refusée par la base hors identifiant de chemin (SQLState 22018)
+        when(zoneService.updateZone(eq(testId), any(ZoneDto.class))).thenThrow(new DataIntegrityViolationException(
+                "conversion", new SQLException("Data conversion error", "22018")));
+
+        // WHEN & THEN: erreur du client, plus confondue avec une ressource inconnue
+        mockMvc.perform(put("/api/zones/{id}", testId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateDto)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getAllZones_ShouldReturn200AndList() throws Exception {
         // GIVEN
@@ -129,6 +162,35 @@ public class ZoneControllerTest {
                 .andExpect(jsonPath("$.length()").value(2));
     }
 
+    @Test
+    void getZoneStats_ShouldReturn200AndCountsPerStatus() throws Exception {
+        // GIVEN
+        ReferenceDto zone = new ReferenceDto(testId, "Marrakech Gueliz");
+        Map<StatutColis, Long> parStatut = new EnumMap<>(StatutColis.class);
+        parStatut.put(StatutColis.CREE, 3L);
+        parStatut.put(StatutColis.LIVRE, 2L);
+        when(zoneService.getZoneReference(testId)).thenReturn(zone);
+        when(compteursZones.statistiques(zone)).thenReturn(new ZoneStatsDto(testId, "Marrakech Gueliz", 5L, parStatut, null));
+
+        // WHEN & THEN
+        mockMvc.perform(get("/api/zones/{id}/stats", testId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(5))
+                .andExpect(jsonPath("$.parStatut.CREE").value(3))
+                .andExpect(jsonPath("$.parStatut.LIVRE").value(2));
+    }
+
+    @Test
+    void getZoneStats_ShouldReturn404NotFound_WhenZoneNotFound() throws Exception {
+        // GIVEN
+        when(zoneService.getZoneReference(testId)).thenThrow(new EntityNotFoundException("Zone non trouvée"));
+
+        // WHEN & THEN
+        mockMvc.perform(get("/api/zones/{id}/stats", testId))
+                .andExpect(status().isNotFound());
+        verifyNoInteractions(compteursZones);
+    }
+
     // =================================================================
     // 3. TESTS PUT (Mise à Jour)
     // =================================================================
@@ -0,0 +1,81 @@
+package com.smartlogi.sdms.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires du générateur d'UUID v7 : format RFC 9562, monotonie et unicité sous concurrence.
+ */
+public class UuidV7Test {
+
+    @Test
+    void suivant_ShouldProduceVersion7RfcVariantWithCurrentTimestamp() {
+        long avant = System.currentTimeMillis();
+        UUID uuid = UuidV7.suivant();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        long horodatage = uuid.getMostSignificantBits() >>> 16;
+        assertTrue(horodatage >= avant && horodatage <= System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    void prochainEtat_ShouldIncrementCounter_WhenSameMillisecondOrClockGoesBack() {
+        long maintenant = System.currentTimeMillis();
+        long premier = UuidV7.prochainEtat(maintenant);
+
+        assertEquals(premier + 1, UuidV7.prochainEtat(maintenant));
+        // Horloge qui recule : la valeur reste croissante
+        assertEquals(premier + 2, UuidV7.prochainEtat(maintenant - 1000));
+    }
+
+    @Test
+    void suivantTexte_ShouldBeStrictlyIncreasing_EvenBeyondCounterCapacity() {
+        // Plus de 4096 valeurs (capacité du compteur) dans la même milliseconde probable
+        String precedent = UuidV7.suivantTexte();
+        for (int i = 0; i < 20_000; i++) {
+            String courant = UuidV7.suivantTexte();
+            assertTrue(courant.compareTo(precedent) > 0, courant + " <= " + precedent);
+            precedent = courant;
+        }
+    }
+
+    @Test
+    void suivant_ShouldBeUniqueAndOrderedPerThread_UnderConcurrency() throws Exception {
+        int threads = 8;
+        int parThread = 20_000;
+        ExecutorService executeur = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<List<String>>> taches = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                taches.add(() -> {
+                    List<String> ids = new ArrayList<>(parThread);
+                    for (int i = 0; i < parThread; i++) {
+                        ids.add(UuidV7.suivantTexte());
+                    }
+                    return ids;
+                });
+            }
+            Set<String> tous = new HashSet<>();
+            for (Future<List<String>> resultat : executeur.invokeAll(taches)) {
+                List<String> ids = resultat.get();
+                assertEquals(ids.stream().sorted().toList(), ids);
+                tous.addAll(ids);
+            }
+            assertEquals(threads * parThread, tous.size());
+        } finally {
+            executeur.shutdownNow();
+        }
+    }
+}
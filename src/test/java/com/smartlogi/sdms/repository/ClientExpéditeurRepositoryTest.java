@@ -0,0 +1,79 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.model.ClientExpéditeur;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests JPA de la recherche de clients expéditeurs (Specifications et pagination keyset).
+ * Sous H2, ressemble_mots se réduit à l'inclusion du terme : la tolérance aux fautes relève de PostgreSQL.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+public class ClientExpéditeurRepositoryTest {
+
+    @Autowired
+    private ClientExpéditeurRepository clientRepository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @BeforeEach
+    void setUp() {
+        testEntityManager.persist(new ClientExpéditeur(null, "Akermi", "Youssef", "youssef.akermi@test.com",
+                "0600000001", "12 Rue des Oliviers, Casablanca", null));
+        testEntityManager.persist(new ClientExpéditeur(null, "Benali", "Sara", "sara_b@test.com",
+                "0600000002", "12 rue des Roses, Rabat", null));
+        testEntityManager.persist(new ClientExpéditeur(null, "Chraibi", null, "contact@akermi-fils.ma",
+                "0600000003", "Avenue Hassan II, Rabat", null));
+        testEntityManager.flush();
+        testEntityManager.clear();
+    }
+
+    private List<String> noms(Specification<ClientExpéditeur> spec, int limite) {
+        return clientRepository.findBy(spec,
+                        requete -> requete.sortBy(ClientExpéditeurSpecifications.TRI_KEYSET).limit(limite).all())
+                .stream().map(ClientExpéditeur::getNom).toList();
+    }
+
+    @Test
+    void adresseCommencePar_ShouldMatchPrefixIgnoringCase() {
+        assertEquals(List.of("Akermi", "Benali"), noms(ClientExpéditeurSpecifications.adresseCommencePar("12 RUE"), 10));
+        assertEquals(List.of(), noms(ClientExpéditeurSpecifications.adresseCommencePar("Rabat"), 10));
+    }
+
+    @Test
+    void ressembleA_ShouldMatchNameFirstNameOrEmail() {
+        // Nom d'un client et email d'un autre
+        assertEquals(List.of("Akermi", "Chraibi"), noms(ClientExpéditeurSpecifications.ressembleA("AKERMI"), 10));
+        assertEquals(List.of("Benali"), noms(ClientExpéditeurSpecifications.ressembleA("sara"), 10));
+        // Les caractères spéciaux de LIKE sont cherchés tels quels
+        assertEquals(List.of("Benali"), noms(ClientExpéditeurSpecifications.ressembleA("a_b"), 10));
+        assertEquals(List.of(), noms(ClientExpéditeurSpecifications.ressembleA("%%%"), 10));
+    }
+
+    @Test
+    void apresCurseur_ShouldContinueInIdOrder() {
+        // GIVEN: première page de 1 sur les emails en test.com
+        Specification<ClientExpéditeur> testCom = ClientExpéditeurSpecifications.ressembleA("test.com");
+        List<ClientExpéditeur> premiere = clientRepository.findBy(testCom,
+                requete -> requete.sortBy(ClientExpéditeurSpecifications.TRI_KEYSET).limit(1).all());
+
+        // WHEN
+        List<String> suite = noms(testCom.and(ClientExpéditeurSpecifications.apresCurseur(
+                new CurseurClient(premiere.get(0).getId()))), 10);
+
+        // THEN
+        assertEquals("Akermi", premiere.get(0).getNom());
+        assertEquals(List.of("Benali"), suite);
+    }
+}
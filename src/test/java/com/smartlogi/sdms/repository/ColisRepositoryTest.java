@@ -0,0 +1,291 @@
+package com.smartlogi.sdms.repository;
+
+import com.smartlogi.sdms.DTO.ColisDto;
+import com.smartlogi.sdms.DTO.ColisFiltre;
+import com.smartlogi.sdms.enums.PrioriteColis;
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.model.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests JPA des projections de ColisRepository.
+ * Vérifie, via les statistiques Hibernate, qu'une liste de N colis est lue en une seule requête (pas de N+1).
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+public class ColisRepositoryTest {
+
+    private static final int NOMBRE_COLIS = 5;
+
+    @Autowired
+    private ColisRepository colisRepository;
+
+    @Autowired
+    private HistoriqueLivraisonRepository historiqueRepository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    private Statistics statistics;
+    private String colisAvecLivreurId;
+    private String livreurId;
+    private Livreur livreur;
+    private String clientId;
+
+    @BeforeEach
+    void setUp() {
+        Zone zone = testEntityManager.persist(new Zone(null, "Rabat Agdal", "10000", null));
+        ClientExpéditeur client = testEntityManager.persist(
+                new ClientExpéditeur(null, "Ali", "M.", "ali@test.com", "0600000001", "Adr Ali", null));
+        Destinataire destinataire = testEntityManager.persist(
+                new Destinataire(null, "Fatima", "Z.", "fatima@test.com", "0600000002", "Adr Fatima", null));
+        livreur = testEntityManager.persist(
+                new Livreur(null, "Rachid", "I.", "0700000000", "Moto", "Zone Sud", null));
+        livreurId = livreur.getId();
+        clientId = client.getId();
+
+        for (int i = 0; i < NOMBRE_COLIS; i++) {
+            Colis colis = new Colis();
+            colis.setDescription("Colis " + i);
+            colis.setPoids(1.0 + i);
+            colis.setPriorite(PrioriteColis.NORMALE);
+            colis.setVilleDestination("Rabat");
+            colis.setClientExpediteur(client);
+            colis.setDestinataire(destinataire);
+            colis.setZone(zone);
+            colis.setLivreur(i == 0 ? livreur : null);
+            testEntityManager.persist(colis);
+            if (i == 0) {
+                colisAvecLivreurId = colis.getId();
+            }
+        }
+        // Vide le contexte de persistance : toute association LAZY accédée déclencherait un SELECT.
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        statistics = testEntityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    void findDtoBy_ShouldLoadPageInSingleStatement() {
+        // WHEN
+        List<ColisDto> page = colisRepository.findDtoBy(
+                ColisSpecifications.avecFiltre(new ColisFiltre()), ColisSpecifications.TRI_KEYSET, 20);
+
+        // THEN: N colis, noms du client et de la zone résolus, une seule requête SQL
+        assertEquals(NOMBRE_COLIS, page.size());
+        assertTrue(page.stream().allMatch(dto -> "Ali".equals(dto.getClientExpediteurNomComplet())));
+        assertTrue(page.stream().allMatch(dto -> "Rabat Agdal".equals(dto.getZoneNom())));
+        assertTrue(page.stream().allMatch(dto -> StatutColis.CREE.name().equals(dto.getStatut())));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findDtoBy_ShouldApplySpecificationFilters() {
+        // WHEN
+        ColisFiltre filtre = new ColisFiltre(null, null, null, livreurId, null);
+        List<ColisDto> page = colisRepository.findDtoBy(
+                ColisSpecifications.avecFiltre(filtre), ColisSpecifications.TRI_KEYSET, 20);
+
+        // THEN
+        assertEquals(1, page.size());
+        assertEquals(colisAvecLivreurId, page.get(0).getId());
+        assertEquals(livreurId, page.get(0).getLivreurId());
+    }
+
+    @Test
+    void findDtoById_ShouldLoadDetailInSingleStatement() {
+        // WHEN
+        Optional<ColisDto> dto = colisRepository.findDtoById(colisAvecLivreurId);
+
+        // THEN
+        assertTrue(dto.isPresent());
+        assertEquals(livreurId, dto.get().getLivreurId());
+        assertEquals("Ali", dto.get().getClientExpediteurNomComplet());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void affecterLivreurEtInsererHistorique_ShouldRunAsSetBasedStatements() {
+        // GIVEN: tous les colis de la base
+        List<String> ids = colisRepository.findAll().stream().map(Colis::getId).toList();
+        statistics.clear();
+
+        // WHEN: verrou + lecture des statuts, UPDATE en lot, INSERT ... SELECT de l'historique
+        List<ColisStatutProjection> statuts = colisRepository.findStatutsPourMiseAJour(ids);
+        int misAJour = colisRepository.affecterLivreur(ids, livreur, StatutColis.EN_TRANSIT);
+        int historiques = historiqueRepository.insererPourColis(ids, java.time.LocalDateTime.now(), "Affectation en lot");
+
+        // THEN: trois requêtes quel que soit le nombre de colis
+        assertEquals(NOMBRE_COLIS, statuts.size());
+        assertEquals(NOMBRE_COLIS, misAJour);
+        assertEquals(NOMBRE_COLIS, historiques);
+        assertEquals(3, statistics.getPrepareStatementCount());
+
+        List<HistoriqueLivraison> historique = historiqueRepository.findByColisIdOrderByDateChangementDesc(ids.get(0));
+        assertEquals(1, historique.size());
+        assertEquals(StatutColis.EN_TRANSIT.name(), historique.get(0).getStatut());
+        assertNotNull(historique.get(0).getId());
+        assertTrue(colisRepository.findAll().stream().allMatch(c -> c.getStatut() == StatutColis.EN_TRANSIT
+                && livreurId.equals(c.getLivreur().getId())));
+    }
+
+    @Test
+    void historiqueFindDtoBy_ShouldPageWithCursorAndSince_InSingleStatement() {
+        // GIVEN: 3 étapes pour un colis, à une minute d'intervalle
+        Colis colis = testEntityManager.find(Colis.class, colisAvecLivreurId);
+        java.time.LocalDateTime debut = java.time.LocalDateTime.of(2025, 1, 1, 10, 0);
+        for (int i = 0; i < 3; i++) {
+            testEntityManager.persist(new HistoriqueLivraison(null, "ETAPE_" + i, debut.plusMinutes(i), null, colis));
+        }
+        testEntityManager.flush();
+        testEntityManager.clear();
+        statistics.clear();
+
+        // WHEN: première page de 2 étapes
+        List<com.smartlogi.sdms.DTO.HistoriqueLivraisonDto> page = historiqueRepository.findDtoBy(
+                HistoriqueSpecifications.colis(colisAvecLivreurId), HistoriqueSpecifications.TRI_KEYSET, 2);
+
+        // THEN: les plus récentes d'abord, une requête, aucun Colis chargé
+        assertEquals(List.of("ETAPE_2", "ETAPE_1"), page.stream().map(com.smartlogi.sdms.DTO.HistoriqueLivraisonDto::getStatut).toList());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        // Page suivante via le curseur
+        List<com.smartlogi.sdms.DTO.HistoriqueLivraisonDto> suite = historiqueRepository.findDtoBy(
+                HistoriqueSpecifications.colis(colisAvecLivreurId)
+                        .and(HistoriqueSpecifications.apresCurseur(CurseurHistorique.depuis(page.get(1)))),
+                HistoriqueSpecifications.TRI_KEYSET, 2);
+        assertEquals(List.of("ETAPE_0"), suite.stream().map(com.smartlogi.sdms.DTO.HistoriqueLivraisonDto::getStatut).toList());
+
+        // Delta depuis la première étape
+        List<com.smartlogi.sdms.DTO.HistoriqueLivraisonDto> delta = historiqueRepository.findDtoBy(
+                HistoriqueSpecifications.colis(colisAvecLivreurId).and(HistoriqueSpecifications.depuis(debut)),
+                HistoriqueSpecifications.TRI_KEYSET, 10);
+        assertEquals(2, delta.size());
+    }
+
+    @Test
+    void findPourLivreur_ShouldSortByPriorityAndPageWithCursor_InSingleStatement() {
+        // GIVEN: les 5 colis affectés au livreur, priorités mélangées, un colis livré
+        List<PrioriteColis> priorites = List.of(PrioriteColis.NORMALE, PrioriteColis.URGENTE, PrioriteColis.BASSE,
+                PrioriteColis.HAUTE, PrioriteColis.URGENTE);
+        List<Colis> tous = colisRepository.findAll(org.springframework.data.domain.Sort.by("dateCreation", "id"));
+        for (int i = 0; i < tous.size(); i++) {
+            tous.get(i).setLivreur(livreur);
+            tous.get(i).setPriorite(priorites.get(i));
+            tous.get(i).setStatut(i == 2 ? StatutColis.LIVRE : StatutColis.EN_TRANSIT);
+        }
+        testEntityManager.flush();
+        testEntityManager.clear();
+        statistics.clear();
+
+        // WHEN: première page de 2
+        List<com.smartlogi.sdms.DTO.ColisLivreurDto> page = colisRepository.findPourLivreur(livreurId, List.of(), null, 2);
+
+        // THEN: URGENTE d'abord (la plus ancienne en premier), destinataire résolu, une seule requête
+        assertEquals(List.of("URGENTE", "URGENTE"), page.stream().map(com.smartlogi.sdms.DTO.ColisLivreurDto::getPriorite).toList());
+        assertEquals(tous.get(1).getId(), page.get(0).getId());
+        assertEquals("Fatima Z.", page.get(0).getDestinataireNomComplet());
+        assertEquals("Adr Fatima", page.get(0).getDestinataireAdresse());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        // Pages suivantes via le curseur : HAUTE, NORMALE, puis BASSE
+        List<com.smartlogi.sdms.DTO.ColisLivreurDto> suite = colisRepository.findPourLivreur(livreurId, List.of(),
+                CurseurTournee.depuis(page.get(1)), 10);
+        assertEquals(List.of("HAUTE", "NORMALE", "BASSE"),
+                suite.stream().map(com.smartlogi.sdms.DTO.ColisLivreurDto::getPriorite).toList());
+
+        // Filtre par statut
+        List<com.smartlogi.sdms.DTO.ColisLivreurDto> livres = colisRepository.findPourLivreur(livreurId,
+                List.of(StatutColis.LIVRE), null, 10);
+        assertEquals(List.of(tous.get(2).getId()), livres.stream().map(com.smartlogi.sdms.DTO.ColisLivreurDto::getId).toList());
+    }
+
+    @Test
+    void colisDuClient_ShouldFilterByStatusAndCountPerStatus_InOneStatementEach() {
+        // GIVEN: un colis livré parmi les 5 colis du client
+        Colis livre = testEntityManager.find(Colis.class, colisAvecLivreurId);
+        livre.setStatut(StatutColis.LIVRE);
+        testEntityManager.flush();
+        testEntityManager.clear();
+        statistics.clear();
+
+        // WHEN
+        List<ColisDto> page = colisRepository.findDtoBy(ColisSpecifications.clientExpediteur(clientId)
+                .and(ColisSpecifications.statuts(List.of(StatutColis.CREE))), ColisSpecifications.TRI_KEYSET, 20);
+        List<ComptageStatut> comptages = colisRepository.compterParStatutPourClient(clientId);
+
+        // THEN: liste filtrée, compteurs sur tous les statuts, une requête chacun
+        assertEquals(NOMBRE_COLIS - 1, page.size());
+        assertTrue(page.stream().noneMatch(dto -> dto.getId().equals(colisAvecLivreurId)));
+        Map<StatutColis, Long> parStatut = comptages.stream()
+                .collect(Collectors.toMap(ComptageStatut::getStatut, ComptageStatut::getNombre));
+        assertEquals(Map.of(StatutColis.CREE, (long) NOMBRE_COLIS - 1, StatutColis.LIVRE, 1L), parStatut);
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        // Un ID qui n'est pas un UUID ne correspond à aucun colis
+        assertTrue(colisRepository.findDtoBy(ColisSpecifications.clientExpediteur("inconnu"),
+                ColisSpecifications.TRI_KEYSET, 20).isEmpty());
+    }
+
+    @Test
+    void changerStatut_ShouldReturnPreviousState_InSingleStatement() {
+        // WHEN: CREE -> COLLECTE, sources autorisées
+        Optional<ColisStatutProjection> avant = colisRepository.changerStatut(colisAvecLivreurId, StatutColis.COLLECTE,
+                StatutColis.sourcesPossibles(StatutColis.COLLECTE));
+
+        // THEN: statut d'origine et acteurs renvoyés par l'UPDATE lui-même, version incrémentée
+        assertTrue(avant.isPresent());
+        assertEquals(StatutColis.CREE, avant.get().getStatut());
+        assertEquals(livreurId, avant.get().getLivreurId());
+        assertEquals(clientId, avant.get().getClientExpediteurId());
+        assertNotNull(avant.get().getZoneId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        Colis modifie = testEntityManager.find(Colis.class, colisAvecLivreurId);
+        assertEquals(StatutColis.COLLECTE, modifie.getStatut());
+        assertEquals(1L, modifie.getVersion());
+        assertEquals(1L, avant.get().getVersion()); // Version atteinte, journalisée avec l'étape d'historique
+
+        // Transition interdite depuis le nouveau statut : aucune ligne, rien de renvoyé
+        assertTrue(colisRepository.changerStatut(colisAvecLivreurId, StatutColis.LIVRE, List.of(StatutColis.CREE)).isEmpty());
+        assertEquals(StatutColis.COLLECTE, colisRepository.findStatutById(colisAvecLivreurId).orElseThrow());
+    }
+
+    @Test
+    void persist_ShouldAssignTimeOrderedUuidV7Ids() {
+        // GIVEN
+        Colis colis = testEntityManager.find(Colis.class, colisAvecLivreurId);
+        List<String> ids = new java.util.ArrayList<>();
+
+        // WHEN: insertions successives, sans ID fourni
+        for (int i = 0; i < 5; i++) {
+            HistoriqueLivraison historique = new HistoriqueLivraison(null, "CREE", java.time.LocalDateTime.now(), null, colis);
+            testEntityManager.persist(historique);
+            ids.add(historique.getId());
+        }
+
+        // THEN: UUID v7, croissants dans l'ordre d'insertion (ordre lexical = ordre de l'index)
+        ids.forEach(id -> assertEquals(7, java.util.UUID.fromString(id).version()));
+        assertEquals(ids.stream().sorted().toList(), ids);
+        assertEquals(7, java.util.UUID.fromString(colisAvecLivreurId).version());
+    }
+}
@@ -1,9 +1,12 @@
 package com.smartlogi.sdms.service;
 
 import com.smartlogi.sdms.DTO.ClientExpéditeurDto;
+import com.smartlogi.sdms.DTO.PageCurseurDto;
+import com.smartlogi.sdms.exception.RequeteInvalideException;
 import com.smartlogi.sdms.mapper.ClientExpéditeurMapper;
 import com.smartlogi.sdms.model.ClientExpéditeur;
 import com.smartlogi.sdms.repository.ClientExpéditeurRepository;
+import com.smartlogi.sdms.repository.CurseurClient;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,6 +14,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.util.Optional;
 import java.util.List;
@@ -242,4 +246,36 @@ public class ClientExpéditeurServiceTest {
         // THEN: Vérifie que deleteById n'a jamais été appelé
         verify(clientExpéditeurRepository, never()).deleteById(anyString());
     }
-}
\ No newline at end of file
+
+    // =================================================================
+    // 5. TESTS RECHERCHE
+    // =================================================================
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rechercherClients_ShouldReturnNextCursor_WhenMoreResultsExist() {
+        // GIVEN: taille 1, le repository renvoie 2 clients (1 + 1 de contrôle)
+        ClientExpéditeurDto premier = new ClientExpéditeurDto(
+                testId, "Akermi", "Youssef", "initial@email.com", "0611223344", "12 Rue Casa");
+        List<ClientExpéditeur> entites = List.of(mockEntity, mockEntity);
+        when(clientExpéditeurRepository.findBy(any(Specification.class), any())).thenReturn(entites);
+        when(clientExpéditeurMapper.toDto(entites)).thenReturn(List.of(premier, createdDto));
+
+        // WHEN
+        PageCurseurDto<ClientExpéditeurDto> page = clientExpéditeurService.rechercherClients("12 Rue", " akermi ", null, 1);
+
+        // THEN
+        assertEquals(List.of(premier), page.getElements());
+        assertEquals(testId, CurseurClient.decoder(page.getCurseurSuivant()).id());
+        verify(clientExpéditeurRepository, never()).findAll();
+    }
+
+    @Test
+    void rechercherClients_ShouldRejectTooShortCriteria() {
+        assertThrows(RequeteInvalideException.class,
+                () -> clientExpéditeurService.rechercherClients(null, " ak ", null, 20));
+        assertThrows(RequeteInvalideException.class,
+                () -> clientExpéditeurService.rechercherClients("12", null, null, 20));
+        verifyNoInteractions(clientExpéditeurRepository);
+    }
+}
@@ -0,0 +1,215 @@
+package com.smartlogi.sdms.service;
+
+import com.smartlogi.sdms.DTO.ColisFluxFiltre;
+import com.smartlogi.sdms.config.ColisFluxProperties;
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.event.ColisEvenement;
+import com.smartlogi.sdms.exception.CapaciteAtteinteException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires du hub de diffusion SSE : filtrage, tampon borné, déconnexion des abonnés lents
+ * (tampon plein ou envoi bloqué) et fermeture sérialisée avec les envois.
+ * Les envois sont capturés par un exécuteur manuel pour contrôler le moment où ils ont lieu.
+ */
+public class ColisFluxHubTest {
+
+    private final List<Runnable> envoisPlanifies = new ArrayList<>();
+    private ColisFluxProperties proprietes;
+    private ColisFluxHub hub;
+
+    @BeforeEach
+    void setUp() {
+        proprietes = new ColisFluxProperties();
+        proprietes.setCapaciteTampon(2);
+        proprietes.setAbonnesMax(3);
+        hub = new ColisFluxHub(proprietes, envoisPlanifies::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.arreter();
+    }
+
+    private static ColisEvenement evenement(String colisId, String zoneId) {
+        return new ColisEvenement(colisId, StatutColis.EN_TRANSIT, "livreur-1", "client-1", zoneId,
+                "test", LocalDateTime.now());
+    }
+
+    // Emitter de test : compte les envois, peut bloquer le premier, et détecte un complete() concurrent d'un send
+    private static final class EmitterTemoin extends SseEmitter {
+        private final CountDownLatch debloquer;
+        private final CountDownLatch envoiCommence = new CountDownLatch(1);
+        private final CountDownLatch recu = new CountDownLatch(1);
+        private final CountDownLatch termine = new CountDownLatch(1);
+        private final AtomicInteger envois = new AtomicInteger();
+        private volatile boolean envoiEnCours;
+        private volatile boolean completePendantEnvoi;
+
+        private EmitterTemoin(CountDownLatch debloquer) {
+            this.debloquer = debloquer;
+        }
+
+        @Override
+        public void send(SseEventBuilder evenement) throws IOException {
+            envoiEnCours = true;
+            try {
+                envoiCommence.countDown();
+                if (debloquer != null && !debloquer.await(10, TimeUnit.SECONDS)) {
+                    throw new IOException("Envoi toujours bloqué");
+                }
+                envois.incrementAndGet();
+                recu.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } finally {
+                envoiEnCours = false;
+            }
+        }
+
+        @Override
+        public void complete() {
+            completePendantEnvoi |= envoiEnCours;
+            termine.countDown();
+        }
+    }
+
+    private void executerEnvois() {
+        List<Runnable> envois = new ArrayList<>(envoisPlanifies);
+        envoisPlanifies.clear();
+        envois.forEach(Runnable::run);
+    }
+
+    @Test
+    void diffuser_ShouldOnlyScheduleMatchingSubscribers() {
+        // GIVEN: un abonné à la zone 1, un abonné au colis-2
+        hub.abonner(new ColisFluxFiltre(null, null, "zone-1", null));
+        hub.abonner(new ColisFluxFiltre("colis-2", null, null, null));
+
+        // WHEN
+        hub.diffuser(evenement("colis-1", "zone-1"));
+
+        // THEN: un seul envoi planifié
+        assertEquals(1, envoisPlanifies.size());
+        executerEnvois();
+        assertEquals(2, hub.getNombreAbonnes());
+    }
+
+    @Test
+    void diffuser_ShouldScheduleAtMostOneSendPerSubscriber() {
+        // GIVEN
+        hub.abonner(new ColisFluxFiltre());
+
+        // WHEN: deux événements avant que l'envoi n'ait lieu
+        hub.diffuser(evenement("colis-1", "zone-1"));
+        hub.diffuser(evenement("colis-2", "zone-1"));
+
+        // THEN: un seul envoi, qui vide le tampon
+        assertEquals(1, envoisPlanifies.size());
+        executerEnvois();
+        assertTrue(envoisPlanifies.isEmpty());
+    }
+
+    @Test
+    void diffuser_ShouldDisconnectSlowSubscriber_WhenBufferOverflows() {
+        // GIVEN: un abonné lent (aucun envoi exécuté) et un abonné d'une autre zone
+        hub.abonner(new ColisFluxFiltre(null, null, "zone-1", null));
+        hub.abonner(new ColisFluxFiltre(null, null, "zone-2", null));
+
+        // WHEN: 3 événements pour un tampon de 2
+        for (int i = 0; i < 3; i++) {
+            hub.diffuser(evenement("colis-" + i, "zone-1"));
+        }
+
+        // THEN: seul l'abonné lent est déconnecté
+        assertEquals(1, hub.getNombreAbonnes());
+    }
+
+    @Test
+    void diffuser_ShouldLeaveCompletionToSubscriberSend_WhenBufferOverflows() throws Exception {
+        // GIVEN
+        EmitterTemoin emitter = new EmitterTemoin(null);
+        hub.abonner(new ColisFluxFiltre(), emitter);
+
+        // WHEN: débordement du tampon avant que l'envoi n'ait lieu
+        for (int i = 0; i < 3; i++) {
+            hub.diffuser(evenement("colis-" + i, "zone-1"));
+        }
+
+        // THEN: la publication n'a pas touché l'emitter, la fermeture est faite par l'envoi planifié
+        assertEquals(0, hub.getNombreAbonnes());
+        assertEquals(1, emitter.termine.getCount());
+        executerEnvois();
+        assertEquals(0, emitter.termine.getCount());
+        assertEquals(0, emitter.envois.get());
+        assertTrue(envoisPlanifies.isEmpty());
+    }
+
+    @Test
+    void surveiller_ShouldDropBlockedSubscriber_AndKeepServingOthers() throws Exception {
+        // GIVEN: un seul thread d'envoi, un abonné dont l'envoi reste bloqué
+        proprietes.setThreadsEnvoi(1);
+        proprietes.setThreadsEnvoiMax(2);
+        proprietes.setDelaiEnvoi(Duration.ofMillis(100));
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        ColisFluxHub hubReel = new ColisFluxHub(proprietes, pool);
+        CountDownLatch debloquer = new CountDownLatch(1);
+        EmitterTemoin lent = new EmitterTemoin(debloquer);
+        EmitterTemoin rapide = new EmitterTemoin(null);
+        try {
+            hubReel.abonner(new ColisFluxFiltre(null, null, "zone-1", null), lent);
+            hubReel.abonner(new ColisFluxFiltre(null, null, "zone-2", null), rapide);
+            hubReel.diffuser(evenement("colis-1", "zone-1"));
+            assertTrue(lent.envoiCommence.await(5, TimeUnit.SECONDS));
+
+            // WHEN: un événement pour l'autre abonné alors que l'unique thread est bloqué
+            hubReel.diffuser(evenement("colis-2", "zone-2"));
+
+            // THEN: l'abonné bloqué est retiré, un thread de remplacement sert l'autre abonné
+            assertTrue(rapide.recu.await(5, TimeUnit.SECONDS));
+            assertEquals(1, hubReel.getNombreAbonnes());
+            assertEquals(2, hubReel.getTaillePoolEnvoi());
+            // Pas de complete() pendant le send bloqué : la fermeture attend la fin de l'envoi
+            assertEquals(1, lent.termine.getCount());
+
+            debloquer.countDown();
+            assertTrue(lent.termine.await(5, TimeUnit.SECONDS));
+            assertFalse(lent.completePendantEnvoi);
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (hubReel.getTaillePoolEnvoi() != 1 && System.nanoTime() < limite) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, hubReel.getTaillePoolEnvoi());
+        } finally {
+            debloquer.countDown();
+            hubReel.arreter();
+        }
+    }
+
+    @Test
+    void abonner_ShouldRejectSubscriptions_BeyondLimit() {
+        for (int i = 0; i < proprietes.getAbonnesMax(); i++) {
+            hub.abonner(new ColisFluxFiltre());
+        }
+
+        assertThrows(CapaciteAtteinteException.class, () -> hub.abonner(new ColisFluxFiltre()));
+        assertEquals(proprietes.getAbonnesMax(), hub.getNombreAbonnes());
+    }
+}
@@ -1,21 +1,48 @@
 package com.smartlogi.sdms.service;
 
+import com.smartlogi.sdms.DTO.AffectationLotDto;
+import com.smartlogi.sdms.DTO.AffectationLotResultatDto;
+import com.smartlogi.sdms.DTO.ColisClientPageDto;
 import com.smartlogi.sdms.DTO.ColisCreationDto;
 import com.smartlogi.sdms.DTO.ColisDto;
+import com.smartlogi.sdms.DTO.ColisFiltre;
+import com.smartlogi.sdms.DTO.ColisLivreurDto;
+import com.smartlogi.sdms.DTO.ColisLotResultatDto;
+import com.smartlogi.sdms.DTO.HistoriqueLivraisonDto;
+import com.smartlogi.sdms.DTO.PageCurseurDto;
+import com.smartlogi.sdms.DTO.ReferenceDto;
 import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.event.ColisEvenement;
+import com.smartlogi.sdms.exception.RequeteInvalideException;
+import com.smartlogi.sdms.exception.TransitionStatutInvalideException;
 import com.smartlogi.sdms.enums.PrioriteColis;
 import com.smartlogi.sdms.mapper.ColisMapper;
 import com.smartlogi.sdms.model.*;
 import com.smartlogi.sdms.repository.ColisRepository;
+import com.smartlogi.sdms.repository.ColisSpecifications;
+import com.smartlogi.sdms.repository.ColisStatutProjection;
+import com.smartlogi.sdms.repository.ComptageStatut;
+import com.smartlogi.sdms.repository.CurseurColis;
+import com.smartlogi.sdms.repository.CurseurHistorique;
+import com.smartlogi.sdms.repository.CurseurTournee;
 import com.smartlogi.sdms.repository.HistoriqueLivraisonRepository;
+import com.smartlogi.sdms.repository.HistoriqueSpecifications;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,6 +60,8 @@ public class ColisServiceTest {
     private ColisMapper colisMapper;
     @Mock
     private HistoriqueLivraisonRepository historiqueRepository;
+    @Mock
+    private HistoriqueJournal historiqueJournal;
 
     // Services de dépendance (pour valider les FKs)
     @Mock
@@ -43,6 +72,16 @@ public class ColisServiceTest {
     private ZoneService zoneService;
     @Mock
     private LivreurService livreurService;
+    @Mock
+    private ColisArchivage colisArchivage;
+    @Mock
+    private CompteursZones compteursZones;
+    @Mock
+    private Validator validator;
+    @Mock
+    private CacheManager cacheManager;
+    @Mock
+    private ApplicationEventPublisher evenements;
 
     // Service à tester
     @InjectMocks
@@ -84,7 +123,8 @@ public class ColisServiceTest {
         // 3. Entité Colis résultante (après save)
         mockColisEntity = new Colis(
                 colisId, "Colis Urgent A", 5.5, StatutColis.CREE, PrioriteColis.HAUTE,
-                "Casablanca", LocalDateTime.now(), mockLivreur, mockClient, null, null, null, null
+                "Casablanca", LocalDateTime.now(), mockLivreur, mockClient, null,
+                new Zone(zoneId, "Zone X", "20000", null), null, null, 0L
         );
 
         // 4. DTO de réponse mocké
@@ -103,10 +143,14 @@ public class ColisServiceTest {
 
     @Test
     void createColis_ShouldSucceed_WhenAllFksExist() {
-        // GIVEN: Simule l'existence de toutes les clés étrangères (FKs)
-        when(clientExpéditeurService.getClientEntityById(clientExpediteurId)).thenReturn(mockClient);
-        when(destinataireService.getDestinataireEntityById(destinataireId)).thenReturn(new Destinataire());
-        when(zoneService.getZoneEntityById(zoneId)).thenReturn(new Zone());
+        // GIVEN: Simule l'existence de toutes les clés étrangères (FKs), via les résumés en cache
+        when(clientExpéditeurService.getClientReference(clientExpediteurId)).thenReturn(new ReferenceDto(clientExpediteurId, "Ali"));
+        when(destinataireService.getDestinataireReference(destinataireId)).thenReturn(new ReferenceDto(destinataireId, "Fatima Z."));
+        when(zoneService.getZoneReference(zoneId)).thenReturn(new ReferenceDto(zoneId, "Casablanca-Centre"));
+        when(clientExpéditeurService.getClientProxy(clientExpediteurId)).thenReturn(mockClient);
+        when(destinataireService.getDestinataireProxy(destinataireId)).thenReturn(new Destinataire());
+        when(zoneService.getZoneProxy(zoneId)).thenReturn(new Zone());
+        when(colisMapper.toDtoSansLibelles(any(Colis.class))).thenReturn(mockColisDto);
 
         // Simule la conversion DTO -> Entité (avant la sauvegarde)
         when(colisMapper.toEntity(creationDto)).thenReturn(mockColisEntity);
@@ -120,17 +164,25 @@ public class ColisServiceTest {
         assertNotNull(result);
         assertEquals(colisId, result.getId());
         assertEquals(StatutColis.CREE.name(), result.getStatut());
+        // Libellés repris des résumés, sans charger les entités liées
+        assertEquals("Ali", result.getClientExpediteurNomComplet());
+        assertEquals("Casablanca-Centre", result.getZoneNom());
 
         // Vérifie que l'historique a été enregistré une fois
         verify(historiqueRepository, times(1)).save(any(HistoriqueLivraison.class));
-        // Vérifie que les services de vérification ont été appelés
-        verify(clientExpéditeurService, times(1)).getClientEntityById(clientExpediteurId);
+        // Vérifie que les services de vérification ont été appelés, sans lecture d'entité
+        verify(clientExpéditeurService, times(1)).getClientReference(clientExpediteurId);
+        verify(clientExpéditeurService, never()).getClientEntityById(anyString());
+        verify(zoneService, never()).getZoneEntityById(anyString());
+        verify(colisMapper, never()).toDto(any(Colis.class));
+        // Compteur de la zone incrémenté (appliqué après commit par CompteursZones)
+        verify(compteursZones).ajouter(zoneId, StatutColis.CREE);
     }
 
     @Test
     void createColis_ShouldThrowException_WhenClientFKNotFound() {
         // GIVEN: Le Client Expéditeur n'est pas trouvé (FK échouée)
-        when(clientExpéditeurService.getClientEntityById(clientExpediteurId)).thenThrow(new EntityNotFoundException("Client non trouvé"));
+        when(clientExpéditeurService.getClientReference(clientExpediteurId)).thenThrow(new EntityNotFoundException("Client non trouvé"));
 
         // WHEN & THEN: L'exception doit être propagée
         assertThrows(EntityNotFoundException.class, () -> {
@@ -142,6 +194,47 @@ public class ColisServiceTest {
         verify(historiqueRepository, never()).save(any());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void createColisEnLot_ShouldResolveFksOnceAndReportPerItem() {
+        // GIVEN: 2 éléments, le second référence une zone inexistante
+        ColisCreationDto zoneInconnue = new ColisCreationDto(
+                "Colis B", 1.0, "Rabat", "NORMALE", clientExpediteurId, destinataireId, "zone-inconnue"
+        );
+        when(clientExpéditeurService.getClientEntitiesByIds(Set.of(clientExpediteurId)))
+                .thenReturn(Map.of(clientExpediteurId, mockClient));
+        when(destinataireService.getDestinataireEntitiesByIds(Set.of(destinataireId)))
+                .thenReturn(Map.of(destinataireId, new Destinataire()));
+        when(zoneService.getZoneEntitiesByIds(Set.of(zoneId, "zone-inconnue")))
+                .thenReturn(Map.of(zoneId, new Zone()));
+        when(validator.validate(any(ColisCreationDto.class))).thenReturn(Set.of());
+        when(colisMapper.toEntity(creationDto)).thenReturn(mockColisEntity);
+        when(colisRepository.saveAll(List.of(mockColisEntity))).thenReturn(List.of(mockColisEntity));
+
+        // WHEN
+        List<ColisLotResultatDto> resultats = colisService.createColisEnLot(List.of(creationDto, zoneInconnue));
+
+        // THEN: un résultat par élément, dans l'ordre
+        assertEquals(2, resultats.size());
+        assertTrue(resultats.get(0).isSucces());
+        assertEquals(colisId, resultats.get(0).getColis().getId());
+        assertFalse(resultats.get(1).isSucces());
+        assertTrue(resultats.get(1).getErreur().contains("zone-inconnue"));
+
+        // Aucune recherche unitaire par ID, un seul saveAll pour l'historique
+        verify(zoneService, never()).getZoneEntityById(anyString());
+        verify(colisRepository, never()).save(any());
+        verify(historiqueRepository, times(1)).saveAll(argThat(historiques -> ((List<?>) historiques).size() == 1));
+    }
+
+    @Test
+    void createColisEnLot_ShouldRejectOversizedBatch() {
+        List<ColisCreationDto> lot = java.util.Collections.nCopies(ColisService.TAILLE_LOT_MAX + 1, creationDto);
+
+        assertThrows(RequeteInvalideException.class, () -> colisService.createColisEnLot(lot));
+        verifyNoInteractions(colisRepository);
+    }
+
     // =================================================================
     // 2. TESTS DE WORKFLOW (AFFECTION / UPDATE STATUT)
     // =================================================================
@@ -149,45 +242,229 @@ public class ColisServiceTest {
     @Test
     void assignerLivreur_ShouldUpdateStatusToEnTransitAndRecordHistory() {
         // GIVEN: Colis trouvé et Livreur trouvé
-        when(colisRepository.findById(colisId)).thenReturn(Optional.of(mockColisEntity));
-        when(livreurService.getLivreurEntityById(livreurId)).thenReturn(mockLivreur);
+        when(colisRepository.findPourMiseAJour(colisId)).thenReturn(Optional.of(mockColisEntity));
+        when(livreurService.getLivreurReference(livreurId)).thenReturn(new ReferenceDto(livreurId, "Rachid I."));
+        when(livreurService.getLivreurProxy(livreurId)).thenReturn(mockLivreur);
 
         // Simule la sauvegarde de la mise à jour
-        when(colisRepository.save(any(Colis.class))).thenReturn(mockColisEntity);
+        when(colisRepository.saveAndFlush(any(Colis.class))).thenReturn(mockColisEntity);
+        when(colisRepository.findDtoById(colisId)).thenReturn(Optional.of(mockColisDto));
 
         // WHEN
-        colisService.assignerLivreur(colisId, livreurId);
+        ColisDto resultat = colisService.assignerLivreur(colisId, livreurId);
 
         // THEN
         // Vérifie que le statut a été mis à jour dans l'entité
         assertEquals(StatutColis.EN_TRANSIT, mockColisEntity.getStatut());
-        // Vérifie l'enregistrement de l'historique
-        verify(historiqueRepository, times(1)).save(any(HistoriqueLivraison.class));
+        // Vérifie l'enregistrement de l'historique, avec le libellé du livreur en cache
+        verify(historiqueRepository, times(1)).save(argThat((HistoriqueLivraison h) ->
+                h.getCommentaire().equals("Colis affecté au livreur: Rachid I..")));
+        // Réponse lue par projection DTO, sans mapper l'entité (pas de chargement paresseux des relations)
+        assertEquals(mockColisDto, resultat);
+        verify(colisMapper, never()).toDto(any(Colis.class));
+    }
+
+    private static ColisStatutProjection etat(String id, StatutColis statut) {
+        return new ColisStatutProjection() {
+            public String getId() { return id; }
+            public StatutColis getStatut() { return statut; }
+            public String getLivreurId() { return null; }
+            public String getClientExpediteurId() { return "client-1"; }
+            public String getZoneId() { return "zone-1"; }
+        };
     }
 
     @Test
-    void updateStatut_ShouldChangeStatusAndRecordHistory() {
+    void assignerLivreurEnLot_ShouldUpdateInOneStatementAndReportSkippedIds() {
+        // GIVEN: un colis affectable, un colis livré, un ID inconnu (envoyé deux fois)
+        Cache cache = mock(Cache.class);
+        when(cacheManager.getCache("colis")).thenReturn(cache);
+        when(livreurService.getLivreurReference(livreurId)).thenReturn(new ReferenceDto(livreurId, "Rachid I."));
+        when(livreurService.getLivreurProxy(livreurId)).thenReturn(mockLivreur);
+        when(colisRepository.findStatutsPourMiseAJour(any())).thenReturn(List.of(
+                etat(colisId, StatutColis.CREE), etat("colis-livre", StatutColis.LIVRE)));
+
+        // WHEN
+        AffectationLotResultatDto resultat = colisService.assignerLivreurEnLot(
+                new AffectationLotDto(livreurId, List.of(colisId, "colis-livre", "inconnu", "inconnu")));
+
+        // THEN
+        assertEquals(List.of(colisId), resultat.getAffectes());
+        assertEquals(List.of("colis-livre"), resultat.getStatutTerminal());
+        assertEquals(List.of("inconnu"), resultat.getIntrouvables());
+
+        // Livreur validé une fois, un UPDATE et un INSERT ... SELECT, aucune lecture / sauvegarde unitaire
+        verify(livreurService, times(1)).getLivreurReference(livreurId);
+        verify(livreurService, never()).getLivreurEntityById(anyString());
+        verify(colisRepository).affecterLivreur(List.of(colisId), mockLivreur, StatutColis.EN_TRANSIT);
+        verify(historiqueRepository).insererPourColis(eq(List.of(colisId)), any(LocalDateTime.class), anyString());
+        verify(colisRepository, never()).findById(any());
+        verify(colisRepository, never()).save(any());
+        verify(cache).evict(colisId);
+        verify(evenements, times(1)).publishEvent(argThat((Object evenement) -> evenement instanceof ColisEvenement e
+                && e.colisId().equals(colisId) && e.livreurId().equals(livreurId) && e.zoneId().equals("zone-1")));
+    }
+
+    @Test
+    void assignerLivreurEnLot_ShouldNotUpdate_WhenNoColisIsAssignable() {
         // GIVEN
-        when(colisRepository.findById(colisId)).thenReturn(Optional.of(mockColisEntity));
-        when(colisRepository.save(any(Colis.class))).thenReturn(mockColisEntity);
+        when(livreurService.getLivreurReference(livreurId)).thenReturn(new ReferenceDto(livreurId, "Rachid I."));
+        when(livreurService.getLivreurProxy(livreurId)).thenReturn(mockLivreur);
+        when(colisRepository.findStatutsPourMiseAJour(any())).thenReturn(List.of(etat(colisId, StatutColis.ANNULE)));
+
+        // WHEN
+        AffectationLotResultatDto resultat = colisService.assignerLivreurEnLot(
+                new AffectationLotDto(livreurId, List.of(colisId)));
+
+        // THEN
+        assertTrue(resultat.getAffectes().isEmpty());
+        verify(colisRepository, never()).affecterLivreur(any(), any(), any());
+        verifyNoInteractions(historiqueRepository);
+    }
+
+    private static ColisStatutProjection etatAvecLivreur(String id, StatutColis statut, String clientId, String livreurId) {
+        return new ColisStatutProjection() {
+            public String getId() { return id; }
+            public StatutColis getStatut() { return statut; }
+            public String getLivreurId() { return livreurId; }
+            public String getClientExpediteurId() { return clientId; }
+            public String getZoneId() { return "zone-1"; }
+        };
+    }
 
-        StatutColis nouveauStatut = StatutColis.LIVRE;
+    private void simulerTransitionReussie(StatutColis ancienStatut, StatutColis nouveauStatut) {
+        // L'UPDATE conditionnel renvoie l'état d'avant la transition
+        when(colisRepository.changerStatut(colisId, nouveauStatut, StatutColis.sourcesPossibles(nouveauStatut)))
+                .thenReturn(Optional.of(etatAvecLivreur(colisId, ancienStatut, clientExpediteurId, livreurId)));
+        when(colisRepository.getReferenceById(colisId)).thenReturn(mockColisEntity);
+        when(colisRepository.findDtoById(colisId)).thenReturn(Optional.of(mockColisDto));
+    }
+
+    @Test
+    void updateStatut_ShouldChangeStatusWithConditionalUpdateAndRecordHistory() {
+        // GIVEN
+        simulerTransitionReussie(StatutColis.EN_TRANSIT, StatutColis.LIVRE);
         String commentaire = "Colis livré par Rachid.";
 
         // WHEN
-        colisService.updateStatut(colisId, nouveauStatut, commentaire);
+        ColisDto result = colisService.updateStatut(colisId, StatutColis.LIVRE, commentaire);
+
+        // THEN: un seul UPDATE conditionnel sur les statuts sources, sans lecture préalable
+        verify(colisRepository).changerStatut(colisId, StatutColis.LIVRE, StatutColis.sourcesPossibles(StatutColis.LIVRE));
+        verify(colisRepository, never()).findEtatById(anyString());
+        verify(colisRepository, never()).findStatutById(anyString());
+        verify(colisRepository, never()).findById(anyString());
+        verify(colisRepository, never()).findPourMiseAJour(anyString());
+        verify(colisRepository, never()).save(any());
+        // Historique enregistré avec le nouveau statut
+        verify(historiqueRepository, times(1)).save(argThat((HistoriqueLivraison h) ->
+                h.getStatut().equals(StatutColis.LIVRE.name()) && h.getCommentaire().equals(commentaire)));
+        assertSame(mockColisDto, result);
+    }
 
-        // THEN
-        // Vérifie que le statut a changé
-        assertEquals(StatutColis.LIVRE, mockColisEntity.getStatut());
-        // Vérifie l'enregistrement de l'historique
-        verify(historiqueRepository, times(1)).save(any(HistoriqueLivraison.class));
+    @Test
+    void updateStatut_ShouldPublishChangeEventForStream() {
+        // GIVEN
+        simulerTransitionReussie(StatutColis.COLLECTE, StatutColis.EN_STOCK);
+
+        // WHEN
+        colisService.updateStatut(colisId, StatutColis.EN_STOCK, "Reçu à l'entrepôt.");
+
+        // THEN: un événement par changement, avec les IDs servant au filtrage des abonnés
+        verify(evenements).publishEvent(argThat((Object evenement) -> evenement instanceof ColisEvenement e
+                && e.colisId().equals(colisId)
+                && e.statut() == StatutColis.EN_STOCK
+                && e.clientExpediteurId().equals(clientExpediteurId)
+                && e.livreurId().equals(livreurId)));
+    }
+
+    @Test
+    void updateStatut_ShouldPublishToJournal_WhenWriteBehindEnabled() {
+        // GIVEN: journal d'écriture différée actif
+        when(historiqueJournal.isActif()).thenReturn(true);
+        when(historiqueJournal.publier(any())).thenReturn(true);
+        simulerTransitionReussie(StatutColis.CREE, StatutColis.COLLECTE);
+
+        // WHEN
+        colisService.updateStatut(colisId, StatutColis.COLLECTE, "Collecté.");
+
+        // THEN: aucun INSERT synchrone, un événement publié pour ce colis
+        verify(historiqueRepository, never()).save(any());
+        verify(historiqueJournal).publier(argThat(evenement ->
+                evenement.colisId().equals(colisId)
+                        && evenement.statut().equals(StatutColis.COLLECTE.name())
+                        && evenement.id() != null));
+    }
+
+    @Test
+    void updateStatut_ShouldInsertHistoryInTransaction_WhenJournalIsFull() {
+        // GIVEN: journal actif mais saturé
+        when(historiqueJournal.isActif()).thenReturn(true);
+        when(historiqueJournal.publier(any())).thenReturn(false);
+        simulerTransitionReussie(StatutColis.CREE, StatutColis.COLLECTE);
+
+        // WHEN
+        colisService.updateStatut(colisId, StatutColis.COLLECTE, "Collecté.");
+
+        // THEN: l'historique est écrit dans la transaction du changement de statut
+        verify(historiqueRepository, times(1)).save(argThat(h -> h.getStatut().equals(StatutColis.COLLECTE.name())));
+    }
+
+    @Test
+    void updateStatut_ShouldMoveZoneCounter() {
+        // GIVEN
+        simulerTransitionReussie(StatutColis.EN_TRANSIT, StatutColis.LIVRE);
+
+        // WHEN
+        colisService.updateStatut(colisId, StatutColis.LIVRE, "Livré.");
+
+        // THEN: un colis de moins EN_TRANSIT, un de plus LIVRE dans sa zone
+        verify(compteursZones).deplacer("zone-1", StatutColis.EN_TRANSIT, StatutColis.LIVRE);
+    }
+
+    @Test
+    void updateStatut_ShouldRejectTransition_WhenStatusChangedToTerminalMeanwhile() {
+        // GIVEN: colis annulé par une transaction concurrente, l'UPDATE conditionnel ne modifie aucune ligne
+        when(colisRepository.findStatutById(colisId)).thenReturn(Optional.of(StatutColis.ANNULE));
+
+        // WHEN & THEN
+        assertThrows(TransitionStatutInvalideException.class,
+                () -> colisService.updateStatut(colisId, StatutColis.LIVRE, "Livré."));
+
+        // Une lecture pour le message d'erreur seulement ; ni historique, ni événement, ni compteur
+        verify(colisRepository).changerStatut(colisId, StatutColis.LIVRE, StatutColis.sourcesPossibles(StatutColis.LIVRE));
+        verifyNoInteractions(historiqueRepository, evenements, compteursZones);
+    }
+
+    @Test
+    void updateStatut_ShouldRejectTransition_WhenNotAllowedFromCurrentStatus() {
+        // GIVEN: colis déjà livré (LIVRE ne fait pas partie des sources de COLLECTE)
+        when(colisRepository.findStatutById(colisId)).thenReturn(Optional.of(StatutColis.LIVRE));
+
+        // WHEN & THEN
+        TransitionStatutInvalideException erreur = assertThrows(TransitionStatutInvalideException.class,
+                () -> colisService.updateStatut(colisId, StatutColis.COLLECTE, "Retour arrière."));
+
+        // Ni historique ni événement
+        assertTrue(erreur.getMessage().contains("LIVRE"));
+        verifyNoInteractions(historiqueRepository, evenements);
+    }
+
+    @Test
+    void updateStatut_ShouldRejectBackToCree_WithoutAnyUpdate() {
+        // GIVEN: CREE n'est atteignable depuis aucun statut
+        when(colisRepository.findStatutById(colisId)).thenReturn(Optional.of(StatutColis.EN_TRANSIT));
+
+        // WHEN & THEN
+        assertThrows(TransitionStatutInvalideException.class,
+                () -> colisService.updateStatut(colisId, StatutColis.CREE, "Retour arrière."));
+        verify(colisRepository, never()).changerStatut(any(), any(), any());
     }
 
     @Test
     void updateStatut_ShouldThrowException_WhenColisNotFound() {
         // GIVEN
-        when(colisRepository.findById(colisId)).thenReturn(Optional.empty());
+        when(colisRepository.findStatutById(colisId)).thenReturn(Optional.empty());
 
         // WHEN & THEN
         assertThrows(EntityNotFoundException.class, () -> {
@@ -195,26 +472,282 @@ public class ColisServiceTest {
         });
     }
 
+    @Test
+    void assignerLivreur_ShouldRejectTerminalColis() {
+        // GIVEN
+        mockColisEntity.setStatut(StatutColis.ANNULE);
+        when(colisRepository.findPourMiseAJour(colisId)).thenReturn(Optional.of(mockColisEntity));
+
+        // WHEN & THEN
+        assertThrows(TransitionStatutInvalideException.class, () -> colisService.assignerLivreur(colisId, livreurId));
+        verify(colisRepository, never()).save(any());
+    }
+
     // =================================================================
-    // 3. TESTS DELETE
+    // 3. TESTS DE PAGINATION (KEYSET)
     // =================================================================
 
     @Test
-    void deleteColis_ShouldSucceed_WhenFound() {
+    @SuppressWarnings("unchecked")
+    void getColisPage_ShouldReturnNextCursor_WhenMoreResultsExist() {
+        // GIVEN: le repository renvoie taille + 1 éléments
+        ColisDto second = new ColisDto(
+                "id-2", "B", 1.0, StatutColis.CREE.name(), PrioriteColis.NORMALE.name(),
+                "Rabat", LocalDateTime.of(2025, 1, 1, 10, 0), null, "Ali", "Zone X"
+        );
+        when(colisRepository.findDtoBy(any(Specification.class), eq(ColisSpecifications.TRI_KEYSET), eq(2)))
+                .thenReturn(List.of(mockColisDto, second));
+
+        // WHEN
+        PageCurseurDto<ColisDto> page = colisService.getColisPage(new ColisFiltre(), null, 1);
+
+        // THEN: le curseur pointe sur le dernier élément de la page (et non l'élément en trop)
+        assertEquals(List.of(mockColisDto), page.getElements());
+        assertEquals(CurseurColis.depuis(mockColisDto), CurseurColis.decoder(page.getCurseurSuivant()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getColisPage_ShouldReturnNullCursor_OnLastPage() {
+        // GIVEN
+        when(colisRepository.findDtoBy(any(Specification.class), eq(ColisSpecifications.TRI_KEYSET), eq(21)))
+                .thenReturn(List.of(mockColisDto));
+
+        // WHEN
+        PageCurseurDto<ColisDto> page = colisService.getColisPage(new ColisFiltre(), null, 20);
+
+        // THEN: aucune entité n'est chargée ni mappée
+        assertNull(page.getCurseurSuivant());
+        verifyNoInteractions(colisMapper);
+    }
+
+    private static ColisLivreurDto colisLivreur(String id, String priorite, String statut) {
+        return new ColisLivreurDto(id, "Colis", 1.0, statut, priorite, "Rabat",
+                LocalDateTime.of(2025, 1, 1, 10, 0), "Fatima Z.", "Adr Fatima", "0600000002");
+    }
+
+    @Test
+    void getColisDuLivreur_ShouldReturnNextCursor_WhenMoreResultsExist() {
+        // GIVEN: taille 1, le repository renvoie 2 colis (1 + 1 de contrôle)
+        when(livreurService.getLivreurReference(livreurId)).thenReturn(new ReferenceDto(livreurId, "Rachid I."));
+        String urgentId = java.util.UUID.randomUUID().toString();
+        ColisLivreurDto urgent = colisLivreur(urgentId, "URGENTE", "EN_TRANSIT");
+        when(colisRepository.findPourLivreur(livreurId, Set.of(StatutColis.EN_TRANSIT), null, 2))
+                .thenReturn(List.of(urgent, colisLivreur(java.util.UUID.randomUUID().toString(), "NORMALE", "EN_TRANSIT")));
+
+        // WHEN
+        PageCurseurDto<ColisLivreurDto> page = colisService.getColisDuLivreur(
+                livreurId, Set.of(StatutColis.EN_TRANSIT), null, 1);
+
+        // THEN: le curseur pointe sur le dernier élément de la page, avec son rang de priorité
+        assertEquals(List.of(urgent), page.getElements());
+        assertEquals(new CurseurTournee(0, urgent.getDateCreation(), urgentId),
+                CurseurTournee.decoder(page.getCurseurSuivant()));
+    }
+
+    @Test
+    void getColisDuLivreur_ShouldThrowException_WhenLivreurNotFound() {
+        when(livreurService.getLivreurReference(livreurId)).thenThrow(new EntityNotFoundException("Livreur non trouvé"));
+
+        assertThrows(EntityNotFoundException.class, () -> colisService.getColisDuLivreur(livreurId, null, null, 20));
+        verifyNoInteractions(colisRepository);
+    }
+
+    @Test
+    void getColisDuClient_ShouldReturnCountsOnFirstPageOnly() {
+        // GIVEN: taille 1, le repository renvoie 2 colis ; compteurs groupés par statut
+        ColisDto recent = new ColisDto(colisId, "Colis", 1.0, "LIVRE", "NORMALE", "Rabat",
+                LocalDateTime.of(2025, 1, 2, 10, 0), null, "Ali", "Zone");
+        ColisDto ancien = new ColisDto("id-2", "Colis", 1.0, "LIVRE", "NORMALE", "Rabat",
+                LocalDateTime.of(2025, 1, 1, 10, 0), null, "Ali", "Zone");
+        when(clientExpéditeurService.getClientReference(clientExpediteurId))
+                .thenReturn(new ReferenceDto(clientExpediteurId, "Ali"));
+        when(colisRepository.findDtoBy(any(Specification.class), eq(ColisSpecifications.TRI_KEYSET), eq(2)))
+                .thenReturn(List.of(recent, ancien));
+        when(colisRepository.compterParStatutPourClient(clientExpediteurId)).thenReturn(List.of(
+                comptage(StatutColis.CREE, 3), comptage(StatutColis.LIVRE, 2)));
+
+        // WHEN
+        ColisClientPageDto premiere = colisService.getColisDuClient(clientExpediteurId, Set.of(StatutColis.LIVRE), null, 1);
+        ColisClientPageDto suivante = colisService.getColisDuClient(clientExpediteurId, Set.of(StatutColis.LIVRE),
+                premiere.getCurseurSuivant(), 1);
+
+        // THEN: tous les statuts présents (0 par défaut), compteurs non recalculés sur la page suivante
+        assertEquals(List.of(recent), premiere.getElements());
+        assertEquals(CurseurColis.depuis(recent), CurseurColis.decoder(premiere.getCurseurSuivant()));
+        assertEquals(5L, premiere.getTotal());
+        assertEquals(StatutColis.values().length, premiere.getParStatut().size());
+        assertEquals(2L, premiere.getParStatut().get(StatutColis.LIVRE));
+        assertEquals(0L, premiere.getParStatut().get(StatutColis.EN_TRANSIT));
+        assertNull(suivante.getTotal());
+        assertNull(suivante.getParStatut());
+        verify(colisRepository, times(1)).compterParStatutPourClient(clientExpediteurId);
+    }
+
+    @Test
+    void getColisDuClient_ShouldThrowException_WhenClientNotFound() {
+        when(clientExpéditeurService.getClientReference(clientExpediteurId))
+                .thenThrow(new EntityNotFoundException("Client expéditeur non trouvé"));
+
+        assertThrows(EntityNotFoundException.class,
+                () -> colisService.getColisDuClient(clientExpediteurId, null, null, 20));
+        verifyNoInteractions(colisRepository);
+    }
+
+    private static ComptageStatut comptage(StatutColis statut, long nombre) {
+        return new ComptageStatut() {
+            public StatutColis getStatut() { return statut; }
+            public long getNombre() { return nombre; }
+        };
+    }
+
+    @Test
+    void etag_ShouldChangeOnlyWhenContentChanges() {
+        // GIVEN
+        PageCurseurDto<ColisLivreurDto> page = new PageCurseurDto<>(List.of(colisLivreur("id-1", "HAUTE", "EN_TRANSIT")), null);
+        PageCurseurDto<ColisLivreurDto> identique = new PageCurseurDto<>(List.of(colisLivreur("id-1", "HAUTE", "EN_TRANSIT")), null);
+        PageCurseurDto<ColisLivreurDto> modifiee = new PageCurseurDto<>(List.of(colisLivreur("id-1", "HAUTE", "EN_TOURNEE")), null);
+
+        // THEN
+        assertEquals(ColisService.etag(page), ColisService.etag(identique));
+        assertNotEquals(ColisService.etag(page), ColisService.etag(modifiee));
+    }
+
+    @Test
+    void getColisById_ShouldUseProjection() {
+        // GIVEN
+        when(colisRepository.findDtoById(colisId)).thenReturn(Optional.of(mockColisDto));
+
+        // WHEN
+        ColisDto result = colisService.getColisById(colisId);
+
+        // THEN
+        assertEquals(mockColisDto, result);
+        verify(colisRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void getColisById_ShouldThrowException_WhenNotFound() {
+        when(colisRepository.findDtoById(colisId)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> colisService.getColisById(colisId));
+    }
+
+    @Test
+    void getColisById_ShouldReadArchive_WhenColisWasArchived() {
+        // GIVEN: le colis n'est plus dans la table colis
+        when(colisRepository.findDtoById(colisId)).thenReturn(Optional.empty());
+        when(colisArchivage.trouver(colisId)).thenReturn(Optional.of(mockColisDto));
+
+        // WHEN
+        ColisDto result = colisService.getColisById(colisId);
+
+        // THEN
+        assertEquals(mockColisDto, result);
+    }
+
+    @Test
+    void getColisById_ShouldNotReadArchive_WhenColisIsActive() {
+        when(colisRepository.findDtoById(colisId)).thenReturn(Optional.of(mockColisDto));
+
+        colisService.getColisById(colisId);
+
+        verifyNoInteractions(colisArchivage);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getHistorique_ShouldReturnNextCursor_WhenMoreStepsExist() {
+        // GIVEN: taille 1, le repository renvoie 2 étapes (1 + 1 de contrôle)
+        LocalDateTime date = LocalDateTime.of(2025, 1, 1, 10, 0);
+        String recenteId = java.util.UUID.randomUUID().toString();
+        HistoriqueLivraisonDto recente = new HistoriqueLivraisonDto(recenteId, "EN_TRANSIT", date.plusHours(1), null);
+        HistoriqueLivraisonDto ancienne = new HistoriqueLivraisonDto(java.util.UUID.randomUUID().toString(), "CREE", date, null);
+        when(historiqueRepository.findDtoBy(any(Specification.class), any(), eq(2))).thenReturn(List.of(recente, ancienne));
+
+        // WHEN
+        PageCurseurDto<HistoriqueLivraisonDto> page = colisService.getHistorique(colisId, date.minusDays(1), null, 1);
+
+        // THEN: le curseur pointe sur la dernière étape renvoyée, sans vérification d'existence du colis
+        assertEquals(List.of(recente), page.getElements());
+        assertEquals(new CurseurHistorique(recente.getDateChangement(), recenteId), CurseurHistorique.decoder(page.getCurseurSuivant()));
+        verify(colisRepository, never()).existsById(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getHistorique_ShouldThrowException_WhenColisNotFound() {
         // GIVEN
+        when(colisRepository.findDateCreationById(colisId)).thenReturn(Optional.empty());
+
+        // WHEN & THEN: rien n'est lu dans l'historique
+        assertThrows(EntityNotFoundException.class, () -> colisService.getHistorique(colisId, null, null, 20));
+        verifyNoInteractions(historiqueRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getHistorique_ShouldBoundFirstPageByCreationDate_WhenNoSince() {
+        // GIVEN
+        LocalDateTime creation = LocalDateTime.of(2025, 1, 1, 10, 0);
+        when(colisRepository.findDateCreationById(colisId)).thenReturn(Optional.of(creation));
+        when(historiqueRepository.findDtoBy(any(Specification.class), any(), anyInt())).thenReturn(List.of());
+
+        // WHEN
+        PageCurseurDto<HistoriqueLivraisonDto> page = colisService.getHistorique(colisId, null, null, 20);
+
+        // THEN: page vide d'un colis existant, sans seconde vérification d'existence
+        assertTrue(page.getElements().isEmpty());
+        verify(historiqueRepository).findDtoBy(any(Specification.class), eq(HistoriqueSpecifications.TRI_KEYSET), eq(21));
+        verify(colisRepository, never()).existsById(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getHistorique_ShouldReturnEmptyPage_WhenNoNewStepSince() {
+        // GIVEN: colis existant sans nouvelle étape
+        when(historiqueRepository.findDtoBy(any(Specification.class), any(), anyInt())).thenReturn(List.of());
         when(colisRepository.existsById(colisId)).thenReturn(true);
 
+        // WHEN
+        PageCurseurDto<HistoriqueLivraisonDto> page = colisService.getHistorique(colisId, LocalDateTime.now(), null, 20);
+
+        // THEN
+        assertTrue(page.getElements().isEmpty());
+        assertNull(page.getCurseurSuivant());
+    }
+
+    @Test
+    void getColisPage_ShouldRejectCorruptedCursor() {
+        assertThrows(RequeteInvalideException.class, () ->
+                colisService.getColisPage(new ColisFiltre(), "pas-un-curseur", 20));
+        // Base64 illisible : même erreur du client, pas une IllegalArgumentException interne
+        assertThrows(RequeteInvalideException.class, () ->
+                colisService.getColisPage(new ColisFiltre(), "***", 20));
+        verifyNoInteractions(colisRepository);
+    }
+
+    // =================================================================
+    // 4. TESTS DELETE
+    // =================================================================
+
+    @Test
+    void deleteColis_ShouldSucceed_WhenFound() {
+        // GIVEN
+        when(colisRepository.findEtatById(colisId)).thenReturn(Optional.of(etat(colisId, StatutColis.EN_STOCK)));
+
         // WHEN
         colisService.deleteColis(colisId);
 
         // THEN
         verify(colisRepository, times(1)).deleteById(colisId);
+        verify(compteursZones).retirer("zone-1", StatutColis.EN_STOCK);
     }
 
     @Test
     void deleteColis_ShouldThrowException_WhenNotFound() {
         // GIVEN
-        when(colisRepository.existsById(colisId)).thenReturn(false);
+        when(colisRepository.findEtatById(colisId)).thenReturn(Optional.empty());
 
         // WHEN & THEN
         assertThrows(EntityNotFoundException.class, () -> {
@@ -0,0 +1,221 @@
+package com.smartlogi.sdms.service;
+
+import com.smartlogi.sdms.enums.StatutColis;
+import com.smartlogi.sdms.model.CompteurZone;
+import com.smartlogi.sdms.model.CompteurZoneId;
+import com.smartlogi.sdms.repository.ColisRepository;
+import com.smartlogi.sdms.repository.ComptageZoneStatut;
+import com.smartlogi.sdms.repository.CompteurZoneRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests des compteurs de colis par zone : variations après commit, réconciliation et sauvegarde.
+ */
+public class CompteursZonesTest {
+
+    @Mock
+    private ColisRepository colisRepository;
+    @Mock
+    private CompteurZoneRepository compteurRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CompteursZones compteurs;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        compteurs = new CompteursZones(colisRepository, compteurRepository, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(compteurs);
+    }
+
+    private static ComptageZoneStatut comptage(String zoneId, StatutColis statut, long nombre) {
+        return new ComptageZoneStatut() {
+            public String getZoneId() { return zoneId; }
+            public StatutColis getStatut() { return statut; }
+            public long getNombre() { return nombre; }
+        };
+    }
+
+    // Fin de transaction simulée : les synchronisations sont appelées comme par le gestionnaire de transactions
+    private static void terminerTransaction(boolean commit) {
+        List<TransactionSynchronization> synchronisations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (commit) {
+            synchronisations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronisations.forEach(s -> s.afterCompletion(commit
+                ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK));
+    }
+
+    @Test
+    void lire_ShouldReturnAllStatuses_WithZeroForUnknownZone() {
+        Map<StatutColis, Long> parStatut = compteurs.lire("zone-inconnue");
+
+        assertEquals(StatutColis.values().length, parStatut.size());
+        assertTrue(parStatut.values().stream().allMatch(n -> n == 0L));
+    }
+
+    @Test
+    void variations_ShouldApplyImmediately_OutsideTransaction() {
+        // WHEN: deux créations, une transition, une suppression
+        compteurs.ajouter("zone-1", StatutColis.CREE);
+        compteurs.ajouter("zone-1", StatutColis.CREE);
+        compteurs.deplacer("zone-1", StatutColis.CREE, StatutColis.EN_STOCK);
+        compteurs.retirer("zone-1", StatutColis.EN_STOCK);
+
+        // THEN
+        Map<StatutColis, Long> parStatut = compteurs.lire("zone-1");
+        assertEquals(1L, parStatut.get(StatutColis.CREE));
+        assertEquals(0L, parStatut.get(StatutColis.EN_STOCK));
+        assertEquals(0L, compteurs.lire("zone-2").get(StatutColis.CREE));
+    }
+
+    @Test
+    void variations_ShouldApplyOnlyAfterCommit() {
+        // GIVEN: transaction en cours, un lot de 3 colis
+        TransactionSynchronizationManager.initSynchronization();
+        for (int i = 0; i < 3; i++) {
+            compteurs.ajouter("zone-1", StatutColis.CREE);
+        }
+        assertEquals(0L, compteurs.lire("zone-1").get(StatutColis.CREE));
+        // Une seule synchronisation pour toute la transaction
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+
+        // WHEN
+        terminerTransaction(true);
+
+        // THEN
+        assertEquals(3L, compteurs.lire("zone-1").get(StatutColis.CREE));
+        assertNull(TransactionSynchronizationManager.getResource(compteurs));
+    }
+
+    @Test
+    void variations_ShouldBeDiscarded_OnRollback() {
+        // GIVEN
+        TransactionSynchronizationManager.initSynchronization();
+        compteurs.ajouter("zone-1", StatutColis.CREE);
+
+        // WHEN
+        terminerTransaction(false);
+
+        // THEN
+        assertEquals(0L, compteurs.lire("zone-1").get(StatutColis.CREE));
+        assertNull(TransactionSynchronizationManager.getResource(compteurs));
+    }
+
+    @Test
+    void reconcilier_ShouldReplaceCounts_AndKeepVariationsAppliedDuringCount() {
+        // GIVEN: compteurs en mémoire faux, et un colis créé pendant le GROUP BY
+        compteurs.ajouter("zone-1", StatutColis.LIVRE);
+        compteurs.ajouter("zone-2", StatutColis.CREE);
+        when(colisRepository.compterParZoneEtStatut()).thenAnswer(invocation -> {
+            compteurs.ajouter("zone-1", StatutColis.CREE);
+            return List.of(comptage("zone-1", StatutColis.CREE, 10), comptage("zone-1", StatutColis.LIVRE, 4));
+        });
+
+        // WHEN
+        compteurs.reconcilier();
+
+        // THEN: le comptage remplace la mémoire, la création concurrente n'est pas perdue
+        Map<StatutColis, Long> zone1 = compteurs.lire("zone-1");
+        assertEquals(11L, zone1.get(StatutColis.CREE));
+        assertEquals(4L, zone1.get(StatutColis.LIVRE));
+        assertEquals(0L, compteurs.lire("zone-2").get(StatutColis.CREE));
+
+        // Table réécrite avec les seuls compteurs non nuls
+        verify(compteurRepository).deleteAllInBatch();
+        verify(compteurRepository).saveAll(argThat((List<CompteurZone> lignes) -> lignes.size() == 2));
+    }
+
+    @Test
+    void charger_ShouldRecountColis_OverSavedCounters() {
+        // GIVEN: sauvegarde antérieure à des écritures perdues (arrêt brutal, autre instance)
+        when(compteurRepository.findAll()).thenReturn(List.of(
+                new CompteurZone(new CompteurZoneId("zone-1", StatutColis.EN_TRANSIT), 7, LocalDateTime.now())));
+        when(colisRepository.compterParZoneEtStatut()).thenReturn(List.of(comptage("zone-1", StatutColis.EN_TRANSIT, 4)));
+
+        // WHEN
+        compteurs.charger();
+
+        // THEN: le recomptage remplace la sauvegarde dès le démarrage, et la table est réécrite
+        assertEquals(4L, compteurs.lire("zone-1").get(StatutColis.EN_TRANSIT));
+        verify(compteurRepository).saveAll(argThat((List<CompteurZone> lignes) -> lignes.size() == 1
+                && lignes.get(0).getNombre() == 4));
+    }
+
+    @Test
+    void charger_ShouldKeepSavedCounters_WhenRecountFails() {
+        // GIVEN
+        when(compteurRepository.findAll()).thenReturn(List.of(
+                new CompteurZone(new CompteurZoneId("zone-1", StatutColis.EN_TRANSIT), 7, LocalDateTime.now())));
+        when(colisRepository.compterParZoneEtStatut()).thenThrow(new QueryTimeoutException("statement timeout"));
+
+        // WHEN
+        compteurs.charger();
+
+        // THEN: la sauvegarde sert jusqu'à la réconciliation planifiée suivante
+        assertEquals(7L, compteurs.lire("zone-1").get(StatutColis.EN_TRANSIT));
+    }
+
+    @Test
+    void charger_ShouldCountColis_WhenNoSavedCounters() {
+        // GIVEN
+        when(compteurRepository.findAll()).thenReturn(List.of());
+        when(colisRepository.compterParZoneEtStatut()).thenReturn(List.of(comptage("zone-1", StatutColis.CREE, 2)));
+
+        // WHEN
+        compteurs.charger();
+
+        // THEN
+        assertEquals(2L, compteurs.lire("zone-1").get(StatutColis.CREE));
+    }
+
+    @Test
+    void variations_ShouldNotLoseUpdates_UnderContention() throws Exception {
+        // GIVEN
+        int threads = 8;
+        int parThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // WHEN
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < parThread; i++) {
+                    compteurs.ajouter("zone-1", StatutColis.CREE);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // THEN
+        assertEquals((long) threads * parThread, compteurs.lire("zone-1").get(StatutColis.CREE));
+    }
+}
@@ -0,0 +1,295 @@
+package com.smartlogi.sdms.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartlogi.sdms.config.HistoriqueJournalProperties;
+import com.smartlogi.sdms.event.HistoriqueEvenement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du journal d'écriture différée de l'historique, sur une base H2 en mémoire.
+ * Couvre le vidage par lots, l'écriture au commit, le rejeu après crash (transactions non validées écartées)
+ * et l'idempotence du rejeu.
+ */
+public class HistoriqueJournalTest {
+
+    // Colonnes uuid comme en production
+    private static final String COLIS_1 = "0190a1b2-c3d4-7e5f-8a6b-000000000001";
+    private static final String COLIS_SUPPRIME = "0190a1b2-c3d4-7e5f-8a6b-000000000002";
+
+    @TempDir
+    Path dossier;
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private HistoriqueJournalProperties proprietes;
+    private HistoriqueJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:journal-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE colis (id UUID PRIMARY KEY, version BIGINT DEFAULT 0 NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE historique_livraison (id UUID PRIMARY KEY, "
+                + "colis_id UUID NOT NULL REFERENCES colis(id), statut VARCHAR(50) NOT NULL, "
+                + "date_changement TIMESTAMP NOT NULL, commentaire VARCHAR(255))");
+        jdbcTemplate.update("INSERT INTO colis (id) VALUES (?)", COLIS_1);
+
+        proprietes = new HistoriqueJournalProperties();
+        proprietes.setEnabled(true);
+        proprietes.setFichier(dossier.resolve("historique.log"));
+        proprietes.setTailleLot(2);
+        proprietes.setCapacite(1000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (journal != null) {
+            journal.arreter();
+        }
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    private HistoriqueJournal nouveauJournal() throws Exception {
+        HistoriqueJournal nouveau = new HistoriqueJournal(proprietes, jdbcTemplate,
+                new DataSourceTransactionManager(dataSource), new ObjectMapper().findAndRegisterModules());
+        nouveau.ouvrir(); // Sans thread de vidage : les tests déclenchent les vidages explicitement
+        return nouveau;
+    }
+
+    // Sans version : pas de vérification au rejeu (les événements d'un même colis n'ont pas à être ordonnés)
+    private static HistoriqueEvenement evenement(String colisId) {
+        return evenement(colisId, null, "test");
+    }
+
+    private static HistoriqueEvenement evenement(String colisId, Long version, String commentaire) {
+        return new HistoriqueEvenement(UUID.randomUUID().toString(), colisId, "EN_TRANSIT",
+                LocalDateTime.of(2025, 1, 1, 12, 0), commentaire, version);
+    }
+
+    private int lignesHistorique() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM historique_livraison", Integer.class);
+    }
+
+    @Test
+    void viderUnLot_ShouldInsertEventsInBatchesAndTruncateJournal() throws Exception {
+        // GIVEN
+        journal = nouveauJournal();
+        journal.publier(evenement(COLIS_1));
+        journal.publier(evenement(COLIS_1));
+        journal.publier(evenement(COLIS_1));
+        assertEquals(3, journal.getEnAttente());
+
+        // WHEN: lots de 2 événements
+        assertEquals(2, journal.viderUnLot());
+        assertEquals(1, journal.viderUnLot());
+
+        // THEN
+        assertEquals(3, lignesHistorique());
+        assertEquals(0, journal.getEnAttente());
+        assertEquals(0, Files.size(proprietes.getFichier()));
+    }
+
+    @Test
+    void demarrer_ShouldReplayEventsLeftAfterCrash() throws Exception {
+        // GIVEN: événements journalisés puis "crash" avant tout vidage
+        journal = nouveauJournal();
+        journal.publier(evenement(COLIS_1));
+        journal.publier(evenement(COLIS_1));
+        // Ligne incomplète laissée par une écriture interrompue
+        Files.writeString(proprietes.getFichier(), "{\"id\":\"tronq", StandardOpenOption.APPEND);
+
+        // WHEN: redémarrage sur le même fichier
+        HistoriqueJournal redemarre = nouveauJournal();
+
+        // THEN: les deux événements complets sont rejoués, la ligne incomplète est écartée
+        assertEquals(2, redemarre.getEnAttente());
+        redemarre.viderUnLot();
+        assertEquals(2, lignesHistorique());
+        journal = redemarre;
+    }
+
+    @Test
+    void viderUnLot_ShouldBeIdempotent_WhenCheckpointWasNotWritten() throws Exception {
+        // GIVEN: un événement déjà inséré en base, mais toujours dans le journal (crash avant le checkpoint)
+        HistoriqueEvenement dejaInsere = evenement(COLIS_1);
+        jdbcTemplate.update("INSERT INTO historique_livraison (id, colis_id, statut, date_changement) VALUES (?, ?, ?, ?)",
+                dejaInsere.id(), COLIS_1, "EN_TRANSIT", dejaInsere.dateChangement());
+        journal = nouveauJournal();
+        journal.publier(dejaInsere);
+        journal.publier(evenement(COLIS_SUPPRIME)); // colis supprimé entre-temps
+
+        // WHEN
+        journal.viderUnLot();
+
+        // THEN: pas de doublon, pas de blocage sur la clé étrangère
+        assertEquals(1, lignesHistorique());
+        assertEquals(0, journal.getEnAttente());
+    }
+
+    @Test
+    void publier_ShouldWriteDirectly_WhenJournalIsFull() throws Exception {
+        // GIVEN: capacité d'un événement
+        proprietes.setCapacite(1);
+        proprietes.setTailleLot(10);
+        journal = nouveauJournal();
+        journal.publier(evenement(COLIS_1));
+
+        // WHEN: le journal est plein
+        journal.publier(evenement(COLIS_1));
+        TransactionTemplate transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        Boolean accepte = transactions.execute(statut -> journal.publier(evenement(COLIS_1)));
+
+        // THEN: hors transaction, le second événement est inséré directement ; dans une transaction, refus
+        // immédiat (sans attendre de place) pour que l'appelant écrive lui-même ; le premier reste en attente
+        assertEquals(1, lignesHistorique());
+        assertFalse(accepte);
+        assertEquals(1, journal.getEnAttente());
+    }
+
+    @Test
+    void publier_ShouldWriteBeforeCommit_AndCancelOnRollbackAfterWrite() throws Exception {
+        // GIVEN
+        journal = nouveauJournal();
+        TransactionTemplate transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        // WHEN: une transaction validée, puis une transaction dont le commit échoue après l'écriture de la ligne
+        transactions.executeWithoutResult(statut -> {
+            journal.publier(evenement(COLIS_1));
+            assertEquals(0, tailleJournal()); // Rien avant le commit
+        });
+        assertTrue(tailleJournal() > 0);
+        assertThrows(IllegalStateException.class, () -> transactions.executeWithoutResult(statut -> {
+            journal.publier(evenement(COLIS_1));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    throw new IllegalStateException("Échec du commit");
+                }
+            });
+        }));
+        // Rollback avant toute écriture : la place réservée est rendue
+        transactions.executeWithoutResult(statut -> {
+            journal.publier(evenement(COLIS_1));
+            statut.setRollbackOnly();
+        });
+
+        // THEN: après redémarrage, seul l'événement validé est inséré
+        assertEquals(2, journal.getEnAttente());
+        HistoriqueJournal redemarre = nouveauJournal();
+        assertEquals(2, redemarre.getEnAttente());
+        redemarre.viderUnLot();
+        redemarre.viderUnLot();
+        assertEquals(1, lignesHistorique());
+        assertEquals(0, redemarre.getEnAttente());
+        journal = redemarre;
+    }
+
+    @Test
+    void viderUnLot_ShouldStopBeforeEventOfUnfinishedTransaction() throws Exception {
+        // GIVEN: un événement hors transaction, puis un second écrit par une transaction en cours de commit
+        journal = nouveauJournal();
+        journal.publier(evenement(COLIS_1));
+        TransactionTemplate transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        AtomicInteger pendantLeCommit = new AtomicInteger(-1);
+
+        // WHEN: vidage déclenché entre l'écriture de la ligne et la fin du commit
+        transactions.executeWithoutResult(statut -> {
+            journal.publier(evenement(COLIS_1));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    try {
+                        pendantLeCommit.set(journal.viderUnLot());
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+        });
+
+        // THEN: le premier vidage s'arrête avant la ligne en cours, le suivant l'insère
+        assertEquals(1, pendantLeCommit.get());
+        assertEquals(1, journal.viderUnLot());
+        assertEquals(2, lignesHistorique());
+    }
+
+    @Test
+    void ouvrir_ShouldReplayWholeJournal_WhenCheckpointIsBeyondEnd() throws Exception {
+        // GIVEN: crash entre la troncature et l'écriture du checkpoint (ancien ordre), puis nouvelles lignes
+        journal = nouveauJournal();
+        journal.publier(evenement(COLIS_1));
+        Files.writeString(proprietes.getFichier().resolveSibling("historique.log.checkpoint"), "100000");
+
+        // WHEN
+        HistoriqueJournal redemarre = nouveauJournal();
+
+        // THEN: le checkpoint est ramené au début du fichier
+        assertEquals(1, redemarre.getEnAttente());
+        assertEquals(1, redemarre.viderUnLot());
+        assertEquals(1, lignesHistorique());
+        journal = redemarre;
+    }
+
+    @Test
+    void ouvrir_ShouldDiscardReplayedEvents_WhoseColisNeverReachedTheirVersion() throws Exception {
+        // GIVEN: colis en version 1 ; la ligne en version 2 vient d'une transaction interrompue avant son commit
+        jdbcTemplate.update("UPDATE colis SET version = 1 WHERE id = ?", COLIS_1);
+        journal = nouveauJournal();
+        journal.publier(evenement(COLIS_1, 1L, "validé"));
+        journal.publier(evenement(COLIS_1, 2L, "non validé"));
+
+        // WHEN: redémarrage sur le même fichier
+        HistoriqueJournal redemarre = nouveauJournal();
+        redemarre.viderUnLot();
+
+        // THEN: seule l'étape dont le colis a atteint la version est insérée
+        assertEquals(List.of("validé"), commentairesHistorique());
+        assertEquals(0, redemarre.getEnAttente());
+        journal = redemarre;
+    }
+
+    @Test
+    void ouvrir_ShouldKeepOnlyLastReplayedEvent_ForTheSameColisVersion() throws Exception {
+        // GIVEN: une transaction annulée sans ligne d'annulation, puis celle qui a validé la même version
+        jdbcTemplate.update("UPDATE colis SET version = 1 WHERE id = ?", COLIS_1);
+        journal = nouveauJournal();
+        journal.publier(evenement(COLIS_1, 1L, "annulé"));
+        journal.publier(evenement(COLIS_1, 1L, "validé"));
+
+        // WHEN
+        HistoriqueJournal redemarre = nouveauJournal();
+        redemarre.viderUnLot();
+
+        // THEN
+        assertEquals(List.of("validé"), commentairesHistorique());
+        journal = redemarre;
+    }
+
+    private List<String> commentairesHistorique() {
+        return jdbcTemplate.queryForList("SELECT commentaire FROM historique_livraison", String.class);
+    }
+
+    private long tailleJournal() {
+        return proprietes.getFichier().toFile().length();
+    }
+}
@@ -0,0 +1,126 @@
+package com.smartlogi.sdms.service;
+
+import com.smartlogi.sdms.config.HistoriquePartitionsProperties;
+import com.smartlogi.sdms.config.HistoriquePartitionsProperties.ModeExpiration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires de la maintenance des partitions : le SQL PostgreSQL émis est vérifié sur un JdbcTemplate simulé.
+ */
+@ExtendWith(MockitoExtension.class)
+public class HistoriquePartitionsTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private HistoriquePartitionsProperties proprietes;
+    private HistoriquePartitions partitions;
+
+    @BeforeEach
+    void setUp() {
+        proprietes = new HistoriquePartitionsProperties();
+        proprietes.setMoisAnticipes(2);
+        proprietes.setRetentionMois(24);
+        // 15 juin 2025 : premier mois conservé = juin 2023
+        Clock horloge = Clock.fixed(Instant.parse("2025-06-15T10:00:00Z"), ZoneOffset.UTC);
+        partitions = new HistoriquePartitions(proprietes, jdbcTemplate, horloge);
+    }
+
+    @Test
+    void maintenir_ShouldCreateCurrentAndUpcomingMonthlyPartitions() {
+        // GIVEN
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of());
+
+        // WHEN
+        partitions.maintenir();
+
+        // THEN: mois courant + 2 mois anticipés, bornes [début du mois, début du mois suivant)
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS historique_livraison_p2025_06 PARTITION OF historique_livraison"
+                + " FOR VALUES FROM ('2025-06-01') TO ('2025-07-01')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS historique_livraison_p2025_07 PARTITION OF historique_livraison"
+                + " FOR VALUES FROM ('2025-07-01') TO ('2025-08-01')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS historique_livraison_p2025_08 PARTITION OF historique_livraison"
+                + " FOR VALUES FROM ('2025-08-01') TO ('2025-09-01')");
+        verify(jdbcTemplate, times(3)).execute(startsWith("CREATE TABLE"));
+    }
+
+    @Test
+    void maintenir_ShouldDetachAndRenameExpiredPartitions_InDetachMode() {
+        // GIVEN
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(
+                "historique_livraison_p2023_05", "historique_livraison_p2023_06", "historique_livraison_defaut"));
+
+        // WHEN
+        partitions.maintenir();
+
+        // THEN: seul mai 2023 sort de la fenêtre de rétention ; la partition par défaut n'est jamais touchée
+        verify(jdbcTemplate).execute("ALTER TABLE historique_livraison DETACH PARTITION historique_livraison_p2023_05");
+        verify(jdbcTemplate).execute("ALTER TABLE historique_livraison_p2023_05 RENAME TO historique_livraison_archive_p2023_05");
+        verify(jdbcTemplate, times(1)).execute(startsWith("ALTER TABLE historique_livraison DETACH"));
+        verify(jdbcTemplate, never()).execute(startsWith("DROP TABLE"));
+    }
+
+    @Test
+    void maintenir_ShouldDropExpiredPartitions_InDeleteMode() {
+        // GIVEN
+        proprietes.setModeExpiration(ModeExpiration.SUPPRIMER);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of("historique_livraison_p2022_12"));
+
+        // WHEN
+        partitions.maintenir();
+
+        // THEN
+        verify(jdbcTemplate).execute("ALTER TABLE historique_livraison DETACH PARTITION historique_livraison_p2022_12");
+        verify(jdbcTemplate).execute("DROP TABLE historique_livraison_p2022_12");
+    }
+
+    @Test
+    void maintenir_ShouldKeepExpiredPartition_WhileItHoldsStepsOfColisStillInTable() {
+        // GIVEN: mai 2023 contient encore des étapes d'un colis non archivé, avril 2023 non
+        proprietes.setModeExpiration(ModeExpiration.SUPPRIMER);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(
+                "historique_livraison_p2023_04", "historique_livraison_p2023_05"));
+        when(jdbcTemplate.queryForObject(startsWith("SELECT EXISTS (SELECT 1 FROM historique_livraison_p2023_05 "),
+                eq(Boolean.class))).thenReturn(true);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT EXISTS (SELECT 1 FROM historique_livraison_p2023_04 "),
+                eq(Boolean.class))).thenReturn(false);
+
+        // WHEN
+        partitions.maintenir();
+
+        // THEN: seule la partition sans colis présent expire
+        verify(jdbcTemplate).execute("DROP TABLE historique_livraison_p2023_04");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE historique_livraison DETACH PARTITION historique_livraison_p2023_05");
+        verify(jdbcTemplate, never()).execute("DROP TABLE historique_livraison_p2023_05");
+    }
+
+    @Test
+    void maintenir_ShouldContinue_WhenPartitionCreationFails() {
+        // GIVEN: le mois courant a déjà des lignes dans la partition par défaut
+        doThrow(new DataIntegrityViolationException("updated partition constraint for default partition would be violated"))
+                .when(jdbcTemplate).execute(startsWith("CREATE TABLE IF NOT EXISTS historique_livraison_p2025_06"));
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of());
+
+        // WHEN
+        partitions.maintenir();
+
+        // THEN: les mois suivants sont tout de même créés
+        verify(jdbcTemplate).execute(startsWith("CREATE TABLE IF NOT EXISTS historique_livraison_p2025_08"));
+    }
+}
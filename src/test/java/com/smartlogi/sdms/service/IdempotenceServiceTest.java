@@ -0,0 +1,232 @@
+package com.smartlogi.sdms.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartlogi.sdms.DTO.ColisCreationDto;
+import com.smartlogi.sdms.DTO.ColisDto;
+import com.smartlogi.sdms.config.IdempotenceProperties;
+import com.smartlogi.sdms.exception.CleIdempotenceReutiliseeException;
+import com.smartlogi.sdms.exception.RequeteEnCoursException;
+import com.smartlogi.sdms.exception.RequeteInvalideException;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du service d'idempotence : stockage en mémoire, doublons concurrents et table idempotence_cle (H2).
+ */
+public class IdempotenceServiceTest {
+
+    private static final TypeReference<ColisDto> TYPE_COLIS = new TypeReference<>() {};
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private IdempotenceProperties proprietes;
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final AtomicInteger creations = new AtomicInteger();
+
+    private ColisCreationDto requete;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:idempotence-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE idempotence_cle (cle VARCHAR(300) PRIMARY KEY, "
+                + "empreinte VARCHAR(64) NOT NULL, reponse CLOB, date_creation TIMESTAMP NOT NULL, "
+                + "date_expiration TIMESTAMP NOT NULL)");
+
+        proprietes = new IdempotenceProperties();
+        requete = new ColisCreationDto("Colis", 1.0, "Rabat", "NORMALE", "c-1", "d-1", "z-1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    private IdempotenceService nouveauService() {
+        return new IdempotenceService(proprietes, jdbcTemplate, new DataSourceTransactionManager(dataSource), objectMapper);
+    }
+
+    // Simule ColisService.createColis : un nouvel ID à chaque exécution réelle
+    private ColisDto creer() {
+        creations.incrementAndGet();
+        return new ColisDto(UUID.randomUUID().toString(), "Colis", 1.0, "CREE", "NORMALE", "Rabat",
+                LocalDateTime.of(2025, 1, 1, 12, 0), null, "Client", "Zone");
+    }
+
+    @Test
+    void executer_ShouldReplayFirstResponse_WhenSameKeyAndContent() {
+        // GIVEN
+        IdempotenceService service = nouveauService();
+        ColisDto premiere = service.executer(IdempotenceService.PORTEE_COLIS, "k-1", requete, TYPE_COLIS, this::creer);
+
+        // WHEN: nouvelle tentative du client (contenu égal, autre instance)
+        ColisCreationDto copie = new ColisCreationDto("Colis", 1.0, "Rabat", "NORMALE", "c-1", "d-1", "z-1");
+        ColisDto rejouee = service.executer(IdempotenceService.PORTEE_COLIS, "k-1", copie, TYPE_COLIS, this::creer);
+
+        // THEN
+        assertEquals(premiere.getId(), rejouee.getId());
+        assertEquals(1, creations.get());
+        // Sans clé, ou sur un autre endpoint, l'action est exécutée
+        service.executer(IdempotenceService.PORTEE_COLIS, null, requete, TYPE_COLIS, this::creer);
+        service.executer(IdempotenceService.PORTEE_COLIS_LOT, "k-1", requete, TYPE_COLIS, this::creer);
+        assertEquals(3, creations.get());
+    }
+
+    @Test
+    void executer_ShouldReject_WhenKeyReusedWithOtherContent() {
+        // GIVEN
+        IdempotenceService service = nouveauService();
+        service.executer(IdempotenceService.PORTEE_COLIS, "k-1", requete, TYPE_COLIS, this::creer);
+        requete.setPoids(2.0);
+
+        // WHEN & THEN
+        assertThrows(CleIdempotenceReutiliseeException.class,
+                () -> service.executer(IdempotenceService.PORTEE_COLIS, "k-1", requete, TYPE_COLIS, this::creer));
+        assertThrows(RequeteInvalideException.class,
+                () -> service.executer(IdempotenceService.PORTEE_COLIS, " ", requete, TYPE_COLIS, this::creer));
+        assertEquals(1, creations.get());
+    }
+
+    @Test
+    void executer_ShouldRunAgain_WhenFirstAttemptFailed() {
+        // GIVEN
+        IdempotenceService service = nouveauService();
+        assertThrows(EntityNotFoundException.class, () -> service.executer(IdempotenceService.PORTEE_COLIS, "k-1",
+                requete, TYPE_COLIS, () -> { throw new EntityNotFoundException("Zone non trouvée"); }));
+
+        // WHEN
+        ColisDto reponse = service.executer(IdempotenceService.PORTEE_COLIS, "k-1", requete, TYPE_COLIS, this::creer);
+
+        // THEN
+        assertNotNull(reponse);
+        assertEquals(1, creations.get());
+    }
+
+    @Test
+    void executer_ShouldCollapseConcurrentDuplicates() throws Exception {
+        // GIVEN: 16 tentatives simultanées de la même requête, la création prend du temps
+        IdempotenceService service = nouveauService();
+        int tentatives = 16;
+        CountDownLatch depart = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(tentatives);
+        List<Future<ColisDto>> reponses = new ArrayList<>();
+        for (int i = 0; i < tentatives; i++) {
+            reponses.add(executor.submit(() -> {
+                depart.await();
+                return service.executer(IdempotenceService.PORTEE_COLIS, "k-1", requete, TYPE_COLIS, () -> {
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return creer();
+                });
+            }));
+        }
+
+        // WHEN
+        depart.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // THEN: une seule création, la même réponse pour tous
+        assertEquals(1, creations.get());
+        String id = reponses.get(0).get().getId();
+        for (Future<ColisDto> reponse : reponses) {
+            assertEquals(id, reponse.get().getId());
+        }
+    }
+
+    @Test
+    void executer_ShouldReturn409_WhenOriginalRequestStillRunning() throws Exception {
+        // GIVEN: requête d'origine bloquée, attente nulle pour le doublon
+        proprietes.setAttenteMax(Duration.ZERO);
+        IdempotenceService service = nouveauService();
+        CountDownLatch enCours = new CountDownLatch(1);
+        CountDownLatch liberer = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<ColisDto> origine = executor.submit(() -> service.executer(IdempotenceService.PORTEE_COLIS, "k-1",
+                requete, TYPE_COLIS, () -> {
+                    enCours.countDown();
+                    try {
+                        liberer.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return creer();
+                }));
+        assertTrue(enCours.await(5, TimeUnit.SECONDS));
+
+        // WHEN & THEN
+        assertThrows(RequeteEnCoursException.class,
+                () -> service.executer(IdempotenceService.PORTEE_COLIS, "k-1", requete, TYPE_COLIS, this::creer));
+        liberer.countDown();
+        assertNotNull(origine.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(1, creations.get());
+    }
+
+    @Test
+    void executer_ShouldReplayFromTable_AfterRestart() {
+        // GIVEN: clé persistée par une première instance
+        proprietes.setPersistance(true);
+        ColisDto premiere = nouveauService().executer(IdempotenceService.PORTEE_COLIS, "k-1", requete, TYPE_COLIS, this::creer);
+
+        // WHEN: nouvelle instance, cache mémoire vide
+        ColisDto rejouee = nouveauService().executer(IdempotenceService.PORTEE_COLIS, "k-1", requete, TYPE_COLIS, this::creer);
+
+        // THEN
+        assertEquals(1, creations.get());
+        assertEquals(premiere, rejouee);
+    }
+
+    @Test
+    void executer_ShouldNotKeepKeyInTable_WhenActionFails() {
+        // GIVEN
+        proprietes.setPersistance(true);
+        IdempotenceService service = nouveauService();
+
+        // WHEN: la création échoue, la transaction (clé comprise) est annulée
+        assertThrows(EntityNotFoundException.class, () -> service.executer(IdempotenceService.PORTEE_COLIS, "k-1",
+                requete, TYPE_COLIS, () -> { throw new EntityNotFoundException("Zone non trouvée"); }));
+
+        // THEN
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotence_cle", Integer.class));
+    }
+
+    @Test
+    void purger_ShouldDeleteExpiredKeys() {
+        // GIVEN
+        proprietes.setPersistance(true);
+        IdempotenceService service = nouveauService();
+        service.executer(IdempotenceService.PORTEE_COLIS, "k-1", requete, TYPE_COLIS, this::creer);
+        jdbcTemplate.update("UPDATE idempotence_cle SET date_expiration = ?", LocalDateTime.now().minusMinutes(1));
+
+        // WHEN
+        service.purger();
+
+        // THEN
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotence_cle", Integer.class));
+    }
+}
@@ -1,5 +1,6 @@
 package com.smartlogi.sdms.service;
 
+import com.smartlogi.sdms.DTO.ReferenceDto;
 import com.smartlogi.sdms.DTO.ZoneDto;
 import com.smartlogi.sdms.mapper.ZoneMapper;
 import com.smartlogi.sdms.model.Zone;
@@ -226,4 +227,30 @@ public class ZoneServiceTest {
             zoneService.getZoneEntityById(testId);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void getZoneReference_ShouldReturnIdAndName_WhenFound() {
+        // GIVEN
+        when(zoneRepository.findById(testId)).thenReturn(Optional.of(mockEntity));
+
+        // WHEN
+        ReferenceDto result = zoneService.getZoneReference(testId);
+
+        // THEN
+        assertEquals(testId, result.getId());
+        assertEquals("Casablanca Ouest", result.getLibelle());
+    }
+
+    @Test
+    void getZoneProxy_ShouldNotQueryTheZone() {
+        // GIVEN
+        when(zoneRepository.getReferenceById(testId)).thenReturn(mockEntity);
+
+        // WHEN
+        Zone result = zoneService.getZoneProxy(testId);
+
+        // THEN: référence JPA, aucune lecture
+        assertSame(mockEntity, result);
+        verify(zoneRepository, never()).findById(anyString());
+    }
+}